@@ -86,11 +86,12 @@ class Translation2d {
 }
 
 class Waypoint {
-	constructor(position, speed, radius, comment) {
+	constructor(position, speed, radius, comment, spline) {
 		this.position = position;
 		this.speed = speed;
 		this.radius = radius;
 		this.comment = comment;
+		this.spline = !!spline;
 	}
 
 	draw() {
@@ -99,7 +100,8 @@ class Waypoint {
 
 	toString() {
 		var comment = (this.comment.length > 0) ? " //" + this.comment : "";
-		return "sWaypoints.add(new Waypoint("+this.position.x+","+this.position.y+","+this.radius+","+this.speed+"));" + comment;
+		var spline = this.spline ? ",true" : "";
+		return "sWaypoints.add(new Waypoint("+this.position.x+","+this.position.y+","+this.radius+","+this.speed+spline+"));" + comment;
 	}
 }
 
@@ -179,7 +181,55 @@ class Arc {
 		this.radius = Translation2d.diff(lineA.end, this.center).norm();
 	}
 
+	// Turns at spline waypoints are drawn as the same quintic Hermite spline PathBuilder generates: tangent to both
+	// lines, with zero curvature at each end.
+	get isSpline() {
+		return this.lineA.pointB.spline;
+	}
+
+	splinePoint(t) {
+		var p0 = this.lineA.end, p1 = this.lineB.start;
+		var chord = Translation2d.diff(p0, p1).norm();
+		var v0 = this.lineA.slope.scale(chord / this.lineA.slope.norm());
+		var v1 = this.lineB.slope.scale(chord / this.lineB.slope.norm());
+		var t2 = t*t, t3 = t2*t, t4 = t3*t, t5 = t4*t;
+		var h0 = 1 - 10*t3 + 15*t4 - 6*t5;
+		var h1 = t - 6*t3 + 8*t4 - 3*t5;
+		var h4 = -4*t3 + 7*t4 - 3*t5;
+		var h5 = 10*t3 - 15*t4 + 6*t5;
+		return new Translation2d(h0*p0.x + h1*v0.x + h4*v1.x + h5*p1.x, h0*p0.y + h1*v0.y + h4*v1.y + h5*p1.y);
+	}
+
+	drawSpline() {
+		this.lineA.draw();
+		this.lineB.draw();
+		ctx.beginPath();
+		var p = this.splinePoint(0);
+		ctx.moveTo(p.drawX, p.drawY);
+		for(var i=1; i<=100; i++) {
+			p = this.splinePoint(i/100);
+			ctx.lineTo(p.drawX, p.drawY);
+		}
+		ctx.strokeStyle=getColorForSpeed(this.lineB.pointB.speed);
+		ctx.stroke();
+	}
+
+	fillSpline() {
+		this.lineA.fill();
+		this.lineB.fill();
+		var prev = this.splinePoint(0);
+		for(var i=1; i<=100; i++) {
+			var p = this.splinePoint(i/100);
+			drawRotatedRect(p, robotHeight, robotWidth, Translation2d.diff(prev, p).angle, null, pathFillColor, true);
+			prev = p;
+		}
+	}
+
 	draw() {
+		if(this.isSpline) {
+			this.drawSpline();
+			return;
+		}
 		var sTrans = Translation2d.diff(this.center, this.lineA.end);
 		var eTrans = Translation2d.diff(this.center, this.lineB.start);
 		console.log(sTrans);
@@ -201,6 +251,10 @@ class Arc {
 	}
 
 	fill() {
+		if(this.isSpline) {
+			this.fillSpline();
+			return;
+		}
 		this.lineA.fill();
 		this.lineB.fill();
 		var sTrans = Translation2d.diff(this.center, this.lineA.end);
@@ -278,6 +332,7 @@ function addPoint() {
 		+"<td><input value='0'></td>"
 		+"<td><input value='60'></td>"
 		+"<td class='comments'><input placeholder='Comments'></td>"
+		+"<td><input type='checkbox'></td>"
 		+"<td><button onclick='$(this).parent().parent().remove();update()'>Delete</button></td></tr>"
 	);
 	update();
@@ -304,7 +359,8 @@ function update() {
         	speed = 0;
         }
         var comment = ( $($($(this).children()).children()[4]).val() )
-        waypoints.push(new Waypoint(new Translation2d(x,y), speed, radius, comment));
+        var spline = $($($(this).children()).children()[5]).is(':checked');
+        waypoints.push(new Waypoint(new Translation2d(x,y), speed, radius, comment, spline));
     });
     drawPoints();
     drawRobot();
@@ -390,7 +446,7 @@ function importData() {
 			waypoints = []
 			$("tbody").empty();
 			jd.forEach((wpd) => {
-				let wp = new Waypoint(new Translation2d(wpd.position.x, wpd.position.y), wpd.speed, wpd.radius, wpd.comment);
+				let wp = new Waypoint(new Translation2d(wpd.position.x, wpd.position.y), wpd.speed, wpd.radius, wpd.comment, wpd.spline);
 				// console.log(wp);
 				$("tbody").append("<tr>"
 					+"<td><input value='" + wp.position.x + "'></td>"
@@ -398,6 +454,7 @@ function importData() {
 					+"<td><input value='" + wp.radius + "'></td>"
 					+"<td><input value='" + wp.speed + "'></td>"
 					+"<td class='comments'><input placeholder='Comments' value='" + wp.comment + "'></td>"
+					+"<td><input type='checkbox'" + (wp.spline ? " checked" : "") + "></td>"
 					+"<td><button onclick='$(this).parent().parent().remove();''>Delete</button></td></tr>"
 				);
 			})
@@ -1,4 +1,21 @@
 #!/bin/bash
+# Fetches a shooter log segment from the robot and plots it. Logs are kept in
+# per-match segments under /home/lvuser/logs, listed oldest first in index.tsv
+# (see LogManager). With no argument the latest segment is plotted; otherwise
+# the argument picks segments by substring, e.g. a run id or "teleop".
 
-scp admin@roborio-254-frc.local:/home/lvuser/SHOOTER-LOGS.csv . && python plot_data.py
+LOG_DIR=admin@roborio-254-frc.local:/home/lvuser/logs
 
+scp $LOG_DIR/index.tsv . || exit 1
+FILE=$(awk -F'\t' -v match_str="$1" '$2 == "SHOOTER-LOGS" && (match_str == "" || index($1, match_str)) { f = $1 } END { print f }' index.tsv)
+if [ -z "$FILE" ]; then
+    echo "No shooter log segment matching '$1'"
+    exit 1
+fi
+
+scp $LOG_DIR/$FILE . || exit 1
+case "$FILE" in
+    *.gz) gunzip -c "$FILE" > SHOOTER-LOGS.csv ;;
+    *) cp "$FILE" SHOOTER-LOGS.csv ;;
+esac
+python plot_data.py
@@ -3,8 +3,12 @@ package com.team254.frc2017;
 import edu.wpi.first.wpilibj.Solenoid;
 
 import com.team254.lib.util.ConstantsBase;
+import com.team254.lib.util.ConstantsRegistry;
 import com.team254.lib.util.InterpolatingDouble;
 import com.team254.lib.util.InterpolatingTreeMap;
+import com.team254.lib.util.UniformLookupTable;
+import com.team254.lib.util.drivers.LazySolenoid;
+import com.team254.lib.util.drivers.SolenoidFactory;
 import com.team254.lib.util.math.PolynomialRegression;
 
 import java.net.NetworkInterface;
@@ -18,6 +22,28 @@ import java.util.HashMap;
  */
 public class Constants extends ConstantsBase {
     public static double kLooperDt = 0.005;
+    public static double kCANBusMaxUtilization = 0.7; // fraction of the bus the Talons may use
+    public static double kStatusFrameDropDelay = 0.5; // seconds to keep fast status frames after they're needed
+
+    // Dashboard publishing (see DashboardPublisher)
+    public static double kDashboardPublishPeriod = 0.02;
+    public static double kDashboardMaxMessagesPerSecond = 300.0;
+    public static double kDashboardDefaultMaxRate = 10.0; // Hz per key
+    public static int kTelemetryServerPort = 5810; // WebSocket telemetry (see TelemetryServer)
+
+    // CSV logs, one segment per enabled period (see LogManager)
+    public static String kLogDirectory = "/home/lvuser/logs";
+    public static long kLogQuotaBytes = 100L * 1024 * 1024;
+    // Record sensor, control and vision inputs for replay off the robot (see InputRecorder and sim.MatchReplay). Off
+    // by default: recording takes a lock and builds a line of text every cycle. Turn it on to capture a match.
+    public static boolean kRecordInputs = false;
+    // Count the bytes each loop and allPeriodic allocate, and match GC pauses to late cycles (see AllocationProfiler)
+    @ConstantsRegistry.BootOnly
+    public static boolean kProfileAllocations = false;
+    // Write a timeline of each auto mode's actions to the log directory (see AutoTracer)
+    public static boolean kAutoTraceEnabled = true;
+    public static int kAutoTraceCapacity = 16384; // events
+    public static int kAutoTracesToKeep = 20;
 
     // Target parameters
     // Source of current values: https://firstfrc.blob.core.windows.net/frc2017/Manual/2017FRCGameSeasonManual.pdf
@@ -116,17 +142,39 @@ public class Constants extends ConstantsBase {
     public static double kShooterMinTrackStability = 0.25;
     public static double kShooterStartOnTargetRpm = 50.0;
     public static double kShooterStopOnTargetRpm = 150.0;
+    @ConstantsRegistry.BootOnly
     public static int kShooterKfBufferSize = 20;
     public static int kShooterMinOnTargetSamples = 20; // Should be <= kShooterKvBufferSize
 
+    @ConstantsRegistry.BootOnly
     public static int kShooterJamBufferSize = 30;
     public static double kShooterDisturbanceThreshold = 25;
     public static double kShooterJamTimeout = 1.5; // In secs
     public static double kShooterUnjamDuration = 0.5; // In secs
     public static double kShooterMinShootingTime = 1.0; // In secs
 
+    // Page-Hinkley jam detection on the fraction of loops where a ball is disturbing the shooter RPM (see
+    // ShooterJamDetector). A drop of s in the fraction is caught within about threshold / (s - delta) loops.
+    public static double kShooterJamDetectorDelta = 0.1;
+    public static double kShooterJamDetectorThreshold = 30.0;
+    public static int kShooterJamDetectorMinSamples = 40;
+
+    // Page-Hinkley jam detection on the feeder current, which goes up when the rollers stall on a jam.
+    public static double kFeederJamDetectorDeltaAmps = 2.0;
+    public static double kFeederJamDetectorThresholdAmps = 150.0;
+    public static int kFeederJamDetectorMinSamples = 40;
+    public static double kFeederJamDetectorStartupTime = 0.25; // In secs, ignores the inrush when feeding starts
+
     public static double kShooterSpinDownTime = 0.25;
 
+    // Flywheel model identification and model based spin up.
+    public static String kShooterModelFile = "/home/lvuser/FLYWHEEL-MODEL.json";
+    public static boolean kShooterUseModelSpinUp = true;
+    public static int kShooterModelMinSamples = 200;
+    public static double kShooterMaxVoltage = 12.0;
+    public static double kShooterSpinUpLeadTime = 0.1; // In secs, how early to stop applying full voltage
+    public static double kShooterBangBangHysteresisRpm = 100.0;
+
     // Feeder gains
     public static double kFeederKP = 0.02;
     public static double kFeederKI = 0.0;
@@ -206,6 +254,8 @@ public class Constants extends ConstantsBase {
     public static double kSegmentCompletionTolerance = 0.1; // inches
     public static double kPathFollowingMaxAccel = 120.0; // inches per second^2
     public static double kPathFollowingMaxVel = 120.0; // inches per second
+    public static double kPathFollowingMaxCentripetalAccel = 200.0; // inches per second^2
+    public static double kPathVelocityTableSpacing = 1.0; // inches
     public static double kPathFollowingProfileKp = 5.00;
     public static double kPathFollowingProfileKi = 0.03;
     public static double kPathFollowingProfileKv = 0.02;
@@ -214,6 +264,10 @@ public class Constants extends ConstantsBase {
     public static double kPathFollowingGoalPosTolerance = 0.75;
     public static double kPathFollowingGoalVelTolerance = 12.0;
     public static double kPathStopSteeringDistance = 9.0;
+    public static double kPathFollowingReplanPosTolerance = 1.0; // inches
+    public static double kPathFollowingReplanVelTolerance = 4.0; // inches per second
+    public static double kPathPlannerTimeBudget = 0.001; // seconds
+    public static double kPathPlannerMinTurnRadius = 15.0; // inches
 
     // Goal tracker constants
     public static double kMaxGoalTrackAge = 1.0;
@@ -238,6 +292,12 @@ public class Constants extends ConstantsBase {
                                                                 // instead.
     public static InterpolatingTreeMap<InterpolatingDouble, InterpolatingDouble> kFlywheelAutoAimMap = new InterpolatingTreeMap<>();
     public static PolynomialRegression kFlywheelAutoAimPolynomial;
+    @ConstantsRegistry.BootOnly
+    public static int kFlywheelAutoAimPolynomialDegree = 2;
+    @ConstantsRegistry.BootOnly
+    public static double kFlywheelAutoAimTableStep = 0.25; // inches
+    // Weight of a shot made while tuning, relative to each of the kFlywheelDistanceRpmValues.
+    public static double kFlywheelAutoAimSampleWeight = 1.0;
 
     public static double kShooterOptimalRange = 100.0;
     public static double kShooterOptimalRangeFloor = 95.0;
@@ -266,17 +326,40 @@ public class Constants extends ConstantsBase {
         kDefaultShootingRPM = kFlywheelAutoAimMap
                 .getInterpolated(new InterpolatingDouble(Constants.kDefaultShootingDistanceInches)).value;
 
-        kFlywheelAutoAimPolynomial = new PolynomialRegression(kFlywheelDistanceRpmValues, 2);
+        kFlywheelAutoAimPolynomial = new PolynomialRegression(kFlywheelDistanceRpmValues,
+                kFlywheelAutoAimPolynomialDegree);
+    }
+
+    /**
+     * Build the range (inches) to RPM table the shooter uses, from the polynomial or the map depending on
+     * kUseFlywheelAutoAimPolynomial, covering the ranges in kFlywheelDistanceRpmValues.
+     */
+    public static UniformLookupTable makeFlywheelAutoAimTable() {
+        if (kUseFlywheelAutoAimPolynomial) {
+            return UniformLookupTable.fromPolynomial(kFlywheelAutoAimPolynomial, kFlywheelAutoAimMap.firstKey().value,
+                    kFlywheelAutoAimMap.lastKey().value, kFlywheelAutoAimTableStep);
+        } else {
+            return UniformLookupTable.fromMap(kFlywheelAutoAimMap, kFlywheelAutoAimTableStep);
+        }
+    }
+
+    /**
+     * Build the range (inches) to RPM table from a refit polynomial, over the same ranges as makeFlywheelAutoAimTable.
+     */
+    public static UniformLookupTable makeFlywheelAutoAimTable(double[] coefficients) {
+        return UniformLookupTable.fromPolynomial(coefficients, kFlywheelAutoAimMap.firstKey().value,
+                kFlywheelAutoAimMap.lastKey().value, kFlywheelAutoAimTableStep);
     }
 
     /**
-     * Make an {@link Solenoid} instance for the single-number ID of the solenoid
+     * Make an {@link Solenoid} instance for the single-number ID of the solenoid. Redundant sets are skipped (see
+     * {@link LazySolenoid}).
      * 
      * @param solenoidId
      *            One of the kXyzSolenoidId constants
      */
-    public static Solenoid makeSolenoidForId(int solenoidId) {
-        return new Solenoid(solenoidId / 8, solenoidId % 8);
+    public static LazySolenoid makeSolenoidForId(int solenoidId) {
+        return SolenoidFactory.createSolenoid(solenoidId / 8, solenoidId % 8);
     }
 
     @Override
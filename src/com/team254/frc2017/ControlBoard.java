@@ -2,6 +2,8 @@ package com.team254.frc2017;
 
 import edu.wpi.first.wpilibj.Joystick;
 
+import com.team254.lib.util.InputRecorder;
+
 /**
  * Contains the button mappings for the competition control board. Like the drive code, one instance of the ControlBoard
  * object is created upon startup, then other methods request the singleton ControlBoard instance. Implements the
@@ -21,6 +23,9 @@ public class ControlBoard implements ControlBoardInterface {
             } else {
                 mInstance = new ControlBoard();
             }
+            if (Constants.kRecordInputs) {
+                mInstance = new RecordingControlBoard(mInstance, InputRecorder.getInstance());
+            }
         }
         return mInstance;
     }
@@ -0,0 +1,159 @@
+package com.team254.frc2017;
+
+import com.team254.lib.util.InputRecorder;
+
+/**
+ * Passes the driver and operator controls through to another ControlBoardInterface, recording every value read as a
+ * "control.<name>" input so that a match recording shows what the drivers asked for.
+ */
+public class RecordingControlBoard implements ControlBoardInterface {
+    private final ControlBoardInterface mControlBoard;
+    private final InputRecorder mRecorder;
+
+    public RecordingControlBoard(ControlBoardInterface control_board, InputRecorder recorder) {
+        mControlBoard = control_board;
+        mRecorder = recorder;
+    }
+
+    // DRIVER CONTROLS
+    @Override
+    public double getThrottle() {
+        final double value = mControlBoard.getThrottle();
+        mRecorder.recordInput("control.throttle", value);
+        return value;
+    }
+
+    @Override
+    public double getTurn() {
+        final double value = mControlBoard.getTurn();
+        mRecorder.recordInput("control.turn", value);
+        return value;
+    }
+
+    @Override
+    public boolean getQuickTurn() {
+        final boolean value = mControlBoard.getQuickTurn();
+        mRecorder.recordInput("control.quick_turn", value);
+        return value;
+    }
+
+    @Override
+    public boolean getLowGear() {
+        final boolean value = mControlBoard.getLowGear();
+        mRecorder.recordInput("control.low_gear", value);
+        return value;
+    }
+
+    @Override
+    public boolean getAimButton() {
+        final boolean value = mControlBoard.getAimButton();
+        mRecorder.recordInput("control.aim_button", value);
+        return value;
+    }
+
+    @Override
+    public boolean getDriveAimButton() {
+        final boolean value = mControlBoard.getDriveAimButton();
+        mRecorder.recordInput("control.drive_aim_button", value);
+        return value;
+    }
+
+    // OPERATOR CONTROLS
+    @Override
+    public boolean getFeedButton() {
+        final boolean value = mControlBoard.getFeedButton();
+        mRecorder.recordInput("control.feed_button", value);
+        return value;
+    }
+
+    @Override
+    public boolean getIntakeButton() {
+        final boolean value = mControlBoard.getIntakeButton();
+        mRecorder.recordInput("control.intake_button", value);
+        return value;
+    }
+
+    @Override
+    public boolean getShooterOpenLoopButton() {
+        final boolean value = mControlBoard.getShooterOpenLoopButton();
+        mRecorder.recordInput("control.shooter_open_loop_button", value);
+        return value;
+    }
+
+    @Override
+    public boolean getExhaustButton() {
+        final boolean value = mControlBoard.getExhaustButton();
+        mRecorder.recordInput("control.exhaust_button", value);
+        return value;
+    }
+
+    @Override
+    public boolean getUnjamButton() {
+        final boolean value = mControlBoard.getUnjamButton();
+        mRecorder.recordInput("control.unjam_button", value);
+        return value;
+    }
+
+    @Override
+    public boolean getShooterClosedLoopButton() {
+        final boolean value = mControlBoard.getShooterClosedLoopButton();
+        mRecorder.recordInput("control.shooter_closed_loop_button", value);
+        return value;
+    }
+
+    @Override
+    public boolean getFlywheelSwitch() {
+        final boolean value = mControlBoard.getFlywheelSwitch();
+        mRecorder.recordInput("control.flywheel_switch", value);
+        return value;
+    }
+
+    @Override
+    public boolean getHangButton() {
+        final boolean value = mControlBoard.getHangButton();
+        mRecorder.recordInput("control.hang_button", value);
+        return value;
+    }
+
+    @Override
+    public boolean getGrabGearButton() {
+        final boolean value = mControlBoard.getGrabGearButton();
+        mRecorder.recordInput("control.grab_gear_button", value);
+        return value;
+    }
+
+    @Override
+    public boolean getScoreGearButton() {
+        final boolean value = mControlBoard.getScoreGearButton();
+        mRecorder.recordInput("control.score_gear_button", value);
+        return value;
+    }
+
+    @Override
+    public boolean getActuateHopperButton() {
+        final boolean value = mControlBoard.getActuateHopperButton();
+        mRecorder.recordInput("control.actuate_hopper_button", value);
+        return value;
+    }
+
+    @Override
+    public boolean getBlinkLEDButton() {
+        final boolean value = mControlBoard.getBlinkLEDButton();
+        mRecorder.recordInput("control.blink_led_button", value);
+        return value;
+    }
+
+    @Override
+    public boolean getRangeFinderButton() {
+        final boolean value = mControlBoard.getRangeFinderButton();
+        mRecorder.recordInput("control.range_finder_button", value);
+        return value;
+    }
+
+    @Override
+    public boolean getWantGearDriveLimit() {
+        final boolean value = mControlBoard.getWantGearDriveLimit();
+        mRecorder.recordInput("control.want_gear_drive_limit", value);
+        return value;
+    }
+}
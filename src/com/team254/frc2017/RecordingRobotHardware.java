@@ -0,0 +1,441 @@
+package com.team254.frc2017;
+
+import com.ctre.CANTalon.FeedbackDevice;
+import com.ctre.CANTalon.FeedbackDeviceStatus;
+import com.ctre.CANTalon.StatusFrameRate;
+import com.ctre.CANTalon.TalonControlMode;
+import com.ctre.CANTalon.VelocityMeasurementPeriod;
+import com.team254.lib.util.InputRecorder;
+import com.team254.lib.util.drivers.AnalogInputIO;
+import com.team254.lib.util.drivers.CompressorIO;
+import com.team254.lib.util.drivers.DigitalOutputIO;
+import com.team254.lib.util.drivers.GyroIO;
+import com.team254.lib.util.drivers.MotorControllerIO;
+import com.team254.lib.util.drivers.SolenoidIO;
+import com.team254.lib.util.math.Rotation2d;
+
+/**
+ * Wraps the devices created by another RobotHardwareInterface so that every sensor value read and every command sent
+ * goes through an InputRecorder. The channel names are shared with sim.ReplayRobotHardware, which plays the sensor
+ * values back and checks the commands. Configuration (gains, status frames, etc.) is passed straight through.
+ */
+public class RecordingRobotHardware implements RobotHardwareInterface {
+    // Talon channels, after "talon<id>."
+    public static final String kPosition = "position";
+    public static final String kSpeed = "speed";
+    public static final String kEncPosition = "enc_position";
+    public static final String kOutputVoltage = "output_voltage";
+    public static final String kOutputCurrent = "output_current";
+    public static final String kSensorPresent = "sensor_present";
+    public static final String kSet = "set";
+    public static final String kControlMode = "control_mode";
+    public static final String kBrakeMode = "brake_mode";
+    public static final String kSetPosition = "set_position";
+    public static final String kSetEncPosition = "set_enc_position";
+
+    // Gyro channels. The yaw is recorded as its cosine and sine, which is how Rotation2d holds it, so that it plays
+    // back exactly.
+    public static final String kGyroYawCos = "gyro.yaw_cos";
+    public static final String kGyroYawSin = "gyro.yaw_sin";
+    public static final String kGyroYawRate = "gyro.yaw_rate";
+    public static final String kGyroAccelX = "gyro.accel_x";
+    public static final String kGyroReset = "gyro.reset";
+    public static final String kGyroZeroYaw = "gyro.zero_yaw";
+    public static final String kGyroAngleAdjustment = "gyro.angle_adjustment";
+
+    // Solenoid and analog input channels, after "solenoid<id>." or "analog<channel>."
+    public static final String kSolenoid = "solenoid";
+    public static final String kAnalogInput = "analog";
+    public static final String kVoltage = "voltage";
+    public static final String kAverageVoltage = "average_voltage";
+
+    // Digital output channels, after "dio<channel>", and the compressor's
+    public static final String kDigitalOutput = "dio";
+    public static final String kCompressorClosedLoop = "compressor.closed_loop";
+
+    public static String talonChannel(int id, String name) {
+        return "talon" + id + "." + name;
+    }
+
+    public static String solenoidChannel(int solenoid_id) {
+        return kSolenoid + solenoid_id;
+    }
+
+    public static String analogInputChannel(int channel, String name) {
+        return kAnalogInput + channel + "." + name;
+    }
+
+    public static String digitalOutputChannel(int channel) {
+        return kDigitalOutput + channel;
+    }
+
+    private final RobotHardwareInterface mHardware;
+    private final InputRecorder mRecorder;
+
+    public RecordingRobotHardware(RobotHardwareInterface hardware, InputRecorder recorder) {
+        mHardware = hardware;
+        mRecorder = recorder;
+    }
+
+    @Override
+    public MotorControllerIO createTalon(int id) {
+        return new RecordingTalon(mHardware.createTalon(id), id);
+    }
+
+    @Override
+    public MotorControllerIO createPermanentSlaveTalon(int id, int master_id) {
+        return new RecordingTalon(mHardware.createPermanentSlaveTalon(id, master_id), id);
+    }
+
+    @Override
+    public GyroIO createGyro() {
+        return new RecordingGyro(mHardware.createGyro());
+    }
+
+    @Override
+    public SolenoidIO createSolenoid(int solenoid_id) {
+        final SolenoidIO solenoid = mHardware.createSolenoid(solenoid_id);
+        final String channel = solenoidChannel(solenoid_id);
+        return new SolenoidIO() {
+            @Override
+            public void set(boolean on) {
+                mRecorder.recordOutput(channel, on);
+                solenoid.set(on);
+            }
+
+            @Override
+            public boolean get() {
+                final boolean on = solenoid.get();
+                mRecorder.recordInput(channel, on);
+                return on;
+            }
+        };
+    }
+
+    @Override
+    public AnalogInputIO createAnalogInput(int channel) {
+        final AnalogInputIO input = mHardware.createAnalogInput(channel);
+        final String voltage_channel = analogInputChannel(channel, kVoltage);
+        final String average_voltage_channel = analogInputChannel(channel, kAverageVoltage);
+        return new AnalogInputIO() {
+            @Override
+            public double getVoltage() {
+                final double voltage = input.getVoltage();
+                mRecorder.recordInput(voltage_channel, voltage);
+                return voltage;
+            }
+
+            @Override
+            public double getAverageVoltage() {
+                final double voltage = input.getAverageVoltage();
+                mRecorder.recordInput(average_voltage_channel, voltage);
+                return voltage;
+            }
+        };
+    }
+
+    @Override
+    public DigitalOutputIO createDigitalOutput(int channel) {
+        final DigitalOutputIO output = mHardware.createDigitalOutput(channel);
+        final String output_channel = digitalOutputChannel(channel);
+        return on -> {
+            mRecorder.recordOutput(output_channel, on);
+            output.set(on);
+        };
+    }
+
+    @Override
+    public CompressorIO createCompressor() {
+        final CompressorIO compressor = mHardware.createCompressor();
+        return on -> {
+            mRecorder.recordOutput(kCompressorClosedLoop, on);
+            compressor.setClosedLoopControl(on);
+        };
+    }
+
+    @Override
+    public double getTimestamp() {
+        // The loops are handed their cycle's timestamp, which is recorded with the cycle.
+        return mHardware.getTimestamp();
+    }
+
+    @Override
+    public void reportError(String message) {
+        mHardware.reportError(message);
+    }
+
+    @Override
+    public void reportWarning(String message) {
+        mHardware.reportWarning(message);
+    }
+
+    private class RecordingGyro implements GyroIO {
+        private final GyroIO mGyro;
+
+        RecordingGyro(GyroIO gyro) {
+            mGyro = gyro;
+        }
+
+        @Override
+        public void reset() {
+            mRecorder.recordOutput(kGyroReset, 1.0);
+            mGyro.reset();
+        }
+
+        @Override
+        public void zeroYaw() {
+            mRecorder.recordOutput(kGyroZeroYaw, 1.0);
+            mGyro.zeroYaw();
+        }
+
+        @Override
+        public void setAngleAdjustment(Rotation2d adjustment) {
+            mRecorder.recordOutput(kGyroAngleAdjustment, adjustment.getDegrees());
+            mGyro.setAngleAdjustment(adjustment);
+        }
+
+        @Override
+        public Rotation2d getYaw() {
+            final Rotation2d yaw = mGyro.getYaw();
+            mRecorder.recordInput(kGyroYawCos, yaw.cos());
+            mRecorder.recordInput(kGyroYawSin, yaw.sin());
+            return yaw;
+        }
+
+        @Override
+        public double getYawRateDegreesPerSec() {
+            final double rate = mGyro.getYawRateDegreesPerSec();
+            mRecorder.recordInput(kGyroYawRate, rate);
+            return rate;
+        }
+
+        @Override
+        public double getRawAccelX() {
+            final double accel = mGyro.getRawAccelX();
+            mRecorder.recordInput(kGyroAccelX, accel);
+            return accel;
+        }
+    }
+
+    private class RecordingTalon implements MotorControllerIO {
+        private final MotorControllerIO mTalon;
+        private final String mPositionChannel;
+        private final String mSpeedChannel;
+        private final String mEncPositionChannel;
+        private final String mOutputVoltageChannel;
+        private final String mOutputCurrentChannel;
+        private final String mSensorPresentChannel;
+        private final String mSetChannel;
+        private final String mControlModeChannel;
+        private final String mBrakeModeChannel;
+        private final String mSetPositionChannel;
+        private final String mSetEncPositionChannel;
+
+        RecordingTalon(MotorControllerIO talon, int id) {
+            mTalon = talon;
+            mPositionChannel = talonChannel(id, kPosition);
+            mSpeedChannel = talonChannel(id, kSpeed);
+            mEncPositionChannel = talonChannel(id, kEncPosition);
+            mOutputVoltageChannel = talonChannel(id, kOutputVoltage);
+            mOutputCurrentChannel = talonChannel(id, kOutputCurrent);
+            mSensorPresentChannel = talonChannel(id, kSensorPresent);
+            mSetChannel = talonChannel(id, kSet);
+            mControlModeChannel = talonChannel(id, kControlMode);
+            mBrakeModeChannel = talonChannel(id, kBrakeMode);
+            mSetPositionChannel = talonChannel(id, kSetPosition);
+            mSetEncPositionChannel = talonChannel(id, kSetEncPosition);
+        }
+
+        @Override
+        public void set(double value) {
+            mRecorder.recordOutput(mSetChannel, value);
+            mTalon.set(value);
+        }
+
+        @Override
+        public void changeControlMode(TalonControlMode controlMode) {
+            mRecorder.recordOutput(mControlModeChannel, controlMode.ordinal());
+            mTalon.changeControlMode(controlMode);
+        }
+
+        @Override
+        public TalonControlMode getControlMode() {
+            return mTalon.getControlMode();
+        }
+
+        @Override
+        public double getSetpoint() {
+            return mTalon.getSetpoint();
+        }
+
+        @Override
+        public void enableBrakeMode(boolean brake) {
+            mRecorder.recordOutput(mBrakeModeChannel, brake);
+            mTalon.enableBrakeMode(brake);
+        }
+
+        @Override
+        public double getPosition() {
+            final double position = mTalon.getPosition();
+            mRecorder.recordInput(mPositionChannel, position);
+            return position;
+        }
+
+        @Override
+        public double getSpeed() {
+            final double speed = mTalon.getSpeed();
+            mRecorder.recordInput(mSpeedChannel, speed);
+            return speed;
+        }
+
+        @Override
+        public int getEncPosition() {
+            final int position = mTalon.getEncPosition();
+            mRecorder.recordInput(mEncPositionChannel, position);
+            return position;
+        }
+
+        @Override
+        public double getOutputVoltage() {
+            final double voltage = mTalon.getOutputVoltage();
+            mRecorder.recordInput(mOutputVoltageChannel, voltage);
+            return voltage;
+        }
+
+        @Override
+        public double getOutputCurrent() {
+            final double current = mTalon.getOutputCurrent();
+            mRecorder.recordInput(mOutputCurrentChannel, current);
+            return current;
+        }
+
+        @Override
+        public void setPosition(double position) {
+            mRecorder.recordOutput(mSetPositionChannel, position);
+            mTalon.setPosition(position);
+        }
+
+        @Override
+        public void setEncPosition(int position) {
+            mRecorder.recordOutput(mSetEncPositionChannel, position);
+            mTalon.setEncPosition(position);
+        }
+
+        @Override
+        public FeedbackDeviceStatus isSensorPresent(FeedbackDevice feedbackDevice) {
+            final FeedbackDeviceStatus status = mTalon.isSensorPresent(feedbackDevice);
+            mRecorder.recordInput(mSensorPresentChannel, status.ordinal());
+            return status;
+        }
+
+        @Override
+        public void setFeedbackDevice(FeedbackDevice device) {
+            mTalon.setFeedbackDevice(device);
+        }
+
+        @Override
+        public void reverseSensor(boolean flip) {
+            mTalon.reverseSensor(flip);
+        }
+
+        @Override
+        public void reverseOutput(boolean flip) {
+            mTalon.reverseOutput(flip);
+        }
+
+        @Override
+        public void setStatusFrameRateMs(StatusFrameRate stateFrame, int periodMs) {
+            mTalon.setStatusFrameRateMs(stateFrame, periodMs);
+        }
+
+        @Override
+        public void SetVelocityMeasurementPeriod(VelocityMeasurementPeriod period) {
+            mTalon.SetVelocityMeasurementPeriod(period);
+        }
+
+        @Override
+        public void SetVelocityMeasurementWindow(int windowSize) {
+            mTalon.SetVelocityMeasurementWindow(windowSize);
+        }
+
+        @Override
+        public void setProfile(int profile) {
+            mTalon.setProfile(profile);
+        }
+
+        @Override
+        public void setP(double p) {
+            mTalon.setP(p);
+        }
+
+        @Override
+        public void setI(double i) {
+            mTalon.setI(i);
+        }
+
+        @Override
+        public void setD(double d) {
+            mTalon.setD(d);
+        }
+
+        @Override
+        public void setF(double f) {
+            mTalon.setF(f);
+        }
+
+        @Override
+        public void setIZone(int izone) {
+            mTalon.setIZone(izone);
+        }
+
+        @Override
+        public void setPID(double p, double i, double d, double f, int izone, double closeLoopRampRate, int profile) {
+            mTalon.setPID(p, i, d, f, izone, closeLoopRampRate, profile);
+        }
+
+        @Override
+        public void setVoltageRampRate(double rampRate) {
+            mTalon.setVoltageRampRate(rampRate);
+        }
+
+        @Override
+        public void setVoltageCompensationRampRate(double rampRate) {
+            mTalon.setVoltageCompensationRampRate(rampRate);
+        }
+
+        @Override
+        public void setNominalClosedLoopVoltage(double voltage) {
+            mTalon.setNominalClosedLoopVoltage(voltage);
+        }
+
+        @Override
+        public void DisableNominalClosedLoopVoltage() {
+            mTalon.DisableNominalClosedLoopVoltage();
+        }
+
+        @Override
+        public void configNominalOutputVoltage(double forwardVoltage, double reverseVoltage) {
+            mTalon.configNominalOutputVoltage(forwardVoltage, reverseVoltage);
+        }
+
+        @Override
+        public void setMotionMagicCruiseVelocity(double motionMagicCruiseVelocity) {
+            mTalon.setMotionMagicCruiseVelocity(motionMagicCruiseVelocity);
+        }
+
+        @Override
+        public void setMotionMagicAcceleration(double motionMagicAcceleration) {
+            mTalon.setMotionMagicAcceleration(motionMagicAcceleration);
+        }
+
+        @Override
+        public void EnableCurrentLimit(boolean enable) {
+            mTalon.EnableCurrentLimit(enable);
+        }
+
+        @Override
+        public void setCurrentLimit(int amps) {
+            mTalon.setCurrentLimit(amps);
+        }
+    }
+}
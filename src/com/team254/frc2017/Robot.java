@@ -1,11 +1,12 @@
 package com.team254.frc2017;
 
-import edu.wpi.first.wpilibj.AnalogInput;
 import edu.wpi.first.wpilibj.IterativeRobot;
 import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 
+import com.team254.frc2017.auto.ActionRunner;
 import com.team254.frc2017.auto.AutoModeExecuter;
+import com.team254.frc2017.loops.Loop;
 import com.team254.frc2017.loops.Looper;
 import com.team254.frc2017.loops.RobotStateEstimator;
 import com.team254.frc2017.loops.VisionProcessor;
@@ -14,8 +15,13 @@ import com.team254.frc2017.subsystems.*;
 import com.team254.frc2017.subsystems.MotorGearGrabber.WantedState;
 import com.team254.frc2017.vision.VisionServer;
 import com.team254.lib.util.*;
+import com.team254.lib.util.drivers.AnalogInputIO;
+import com.team254.lib.util.drivers.CANBusBudget;
+import com.team254.lib.util.drivers.CANTalonFactory;
+import com.team254.lib.util.drivers.SolenoidFactory;
 import com.team254.lib.util.math.RigidTransform2d;
 
+import java.io.File;
 import java.util.Arrays;
 import java.util.Map;
 
@@ -34,30 +40,38 @@ import java.util.Map;
  * this project, you must also update the manifest file in the resource directory.
  */
 public class Robot extends IterativeRobot {
-    // Get subsystem instances
-    private Drive mDrive = Drive.getInstance();
-    private Superstructure mSuperstructure = Superstructure.getInstance();
-    private MotorGearGrabber mGearGrabber = MotorGearGrabber.getInstance();
-    private LED mLED = LED.getInstance();
+    // Startup work runs in robotInit (see StartupOrchestrator), so that independent parts of it run at the same time.
+    private static final int kStartupThreads = 4;
+    private final StartupOrchestrator mStartup = new StartupOrchestrator(kStartupThreads);
+    private boolean mDeferredStartupStarted = false;
+
+    // Subsystem instances, set during startup
+    private Drive mDrive;
+    private Superstructure mSuperstructure;
+    private MotorGearGrabber mGearGrabber;
+    private LED mLED;
     private RobotState mRobotState = RobotState.getInstance();
     private AutoModeExecuter mAutoModeExecuter = null;
 
-    // Create subsystem manager
-    private final SubsystemManager mSubsystemManager = new SubsystemManager(
-            Arrays.asList(Drive.getInstance(), Superstructure.getInstance(), Shooter.getInstance(),
-                    Feeder.getInstance(), Hopper.getInstance(), Intake.getInstance(),
-                    ConnectionMonitor.getInstance(), LED.getInstance(),
-                    MotorGearGrabber.getInstance()));
+    private SubsystemManager mSubsystemManager;
 
     // Initialize other helper objects
     private CheesyDriveHelper mCheesyDriveHelper = new CheesyDriveHelper();
     private ControlBoardInterface mControlBoard = ControlBoard.getInstance();
 
-    private Looper mEnabledLooper = new Looper();
+    private Looper mEnabledLooper;
 
-    private VisionServer mVisionServer = VisionServer.getInstance();
+    private ConstantsRegistry mConstantsRegistry;
+    // Null unless Constants.kProfileAllocations
+    private final AllocationProfiler.Section mAllPeriodicAllocations = Constants.kProfileAllocations
+            ? AllocationProfiler.getInstance().register("Robot.allPeriodic") : null;
 
-    private AnalogInput mCheckLightButton = new AnalogInput(Constants.kLEDOnId);
+    private DashboardPublisher mDashboardPublisher;
+
+    // Started after the first loop, so it is null until then.
+    private volatile VisionServer mVisionServer = null;
+
+    private AnalogInputIO mCheckLightButton;
 
     private DelayedBoolean mDelayedAimButton;
 
@@ -82,21 +96,118 @@ public class Robot extends IterativeRobot {
         try {
             CrashTracker.logRobotInit();
 
-            mSubsystemManager.registerEnabledLoops(mEnabledLooper);
-            mEnabledLooper.register(VisionProcessor.getInstance());
-            mEnabledLooper.register(RobotStateEstimator.getInstance());
+            // Building Constants fits the flywheel polynomial, and each subsystem configures its Talons over CAN.
+            mStartup.add("constants", () -> {
+                mConstantsRegistry = new ConstantsRegistry(new Constants());
+                mConstantsRegistry.start();
+            });
+            mStartup.add("robot hardware", () -> {
+                mCheckLightButton = RobotHardware.getInstance().createAnalogInput(Constants.kLEDOnId);
+            }, "constants");
+            mStartup.add("drive", () -> mDrive = Drive.getInstance(), "robot hardware");
+            mStartup.add("shooter", Shooter::getInstance, "robot hardware");
+            mStartup.add("feeder", Feeder::getInstance, "robot hardware");
+            mStartup.add("hopper", Hopper::getInstance, "robot hardware");
+            mStartup.add("intake", Intake::getInstance, "robot hardware");
+            mStartup.add("led", () -> mLED = LED.getInstance(), "robot hardware");
+            mStartup.add("gear grabber", () -> mGearGrabber = MotorGearGrabber.getInstance(), "led");
+            mStartup.add("connection monitor", ConnectionMonitor::getInstance, "led");
+            mStartup.add("superstructure", () -> mSuperstructure = Superstructure.getInstance(), "drive", "shooter",
+                    "feeder", "hopper", "intake", "led");
+            mStartup.add("logs", () -> {
+                if (Constants.kRecordInputs) {
+                    LogManager.getInstance().register("INPUT-RECORDING", InputRecorder.getInstance());
+                }
+                LogManager.getInstance().start(new File(Constants.kLogDirectory), Constants.kLogQuotaBytes);
+            }, "drive", "shooter");
+            // Not needed to drive, so these wait until the robot is running (see allPeriodic). Vision starts adb.
+            mStartup.addDeferred("vision server", () -> {
+                VisionServer.getInstance().addVisionUpdateReceiver(VisionProcessor.getInstance());
+                mVisionServer = VisionServer.getInstance();
+            });
+            mStartup.addDeferred("auto mode selector", AutoModeSelector::initAutoModeSelector);
+            // Pre calculate the paths we use for auto.
+            mStartup.addDeferred("auto paths", PathAdapter::calculatePaths, "constants");
+            mStartup.addDeferred("telemetry server",
+                    () -> TelemetryServer.getInstance().start(Constants.kTelemetryServerPort), "drive", "shooter");
+            mStartup.addDeferred("can budget", () -> {
+                CANBusBudget.getInstance().checkBudget(Constants.kCANBusMaxUtilization);
+                System.out.println("Drive status frames:\n" + mDrive.getStatusFrameScheduler().getBandwidthTable());
+                System.out.println("Shooter status frames:\n"
+                        + Shooter.getInstance().getStatusFrameScheduler().getBandwidthTable());
+            }, "superstructure", "gear grabber", "connection monitor");
+            mStartup.run();
+
+            mEnabledLooper = new Looper();
+            mSubsystemManager = new SubsystemManager(
+                    Arrays.asList(mDrive, mSuperstructure, Shooter.getInstance(), Feeder.getInstance(),
+                            Hopper.getInstance(), Intake.getInstance(), ConnectionMonitor.getInstance(), mLED,
+                            mGearGrabber));
+
+            // Marks the cycles in the input recording, so it goes first.
+            mEnabledLooper.register("InputRecorder", new Loop() {
+                @Override
+                public void onStart(double timestamp) {
+                    InputRecorder.getInstance().beginCycle(InputRecorder.CycleType.START, timestamp);
+                }
+
+                @Override
+                public void onLoop(double timestamp) {
+                    InputRecorder.getInstance().beginCycle(InputRecorder.CycleType.LOOP, timestamp);
+                }
+
+                @Override
+                public void onStop(double timestamp) {
+                    InputRecorder.getInstance().beginCycle(InputRecorder.CycleType.STOP, timestamp);
+                }
+            });
+            // Constants edited in the file change between cycles, before any loop uses them.
+            mEnabledLooper.register("ConstantsRegistry", new Loop() {
+                @Override
+                public void onStart(double timestamp) {
+                    mConstantsRegistry.apply();
+                }
 
-            mVisionServer.addVisionUpdateReceiver(VisionProcessor.getInstance());
+                @Override
+                public void onLoop(double timestamp) {
+                    mConstantsRegistry.apply();
+                }
 
-            AutoModeSelector.initAutoModeSelector();
+                @Override
+                public void onStop(double timestamp) {
+                }
+            });
+            mSubsystemManager.registerEnabledLoops(mEnabledLooper);
+            mEnabledLooper.register("VisionProcessor", VisionProcessor.getInstance());
+            mEnabledLooper.register("RobotStateEstimator", RobotStateEstimator.getInstance());
+            // Auto actions run after the subsystems and the robot state have been updated.
+            mEnabledLooper.register("ActionRunner", ActionRunner.getInstance());
+
+            mSubsystemManager.registerConstantsListeners(mConstantsRegistry);
+            mConstantsRegistry.apply();
+
+            mDashboardPublisher = new DashboardPublisher(DashboardPublisher.kSmartDashboardOutput,
+                    Constants.kDashboardMaxMessagesPerSecond, Constants.kDashboardDefaultMaxRate);
+            mRobotState.registerTelemetry(mDashboardPublisher);
+            mSubsystemManager.registerTelemetry(mDashboardPublisher);
+            mEnabledLooper.registerTelemetry(mDashboardPublisher);
+            if (Constants.kProfileAllocations) {
+                AllocationProfiler.getInstance().registerTelemetry(mDashboardPublisher);
+            }
+            mDashboardPublisher.registerNumber("talon writes sent", CANTalonFactory::getNumWritesSent, 0.0, 1.0);
+            mDashboardPublisher.registerNumber("talon writes suppressed", CANTalonFactory::getNumWritesSuppressed, 0.0,
+                    1.0);
+            mDashboardPublisher.registerNumber("solenoid writes sent", SolenoidFactory::getNumWritesSent, 0.0, 1.0);
+            mDashboardPublisher.registerNumber("solenoid writes suppressed", SolenoidFactory::getNumWritesSuppressed,
+                    0.0, 1.0);
+            mDashboardPublisher.registerNumber("dashboard published", mDashboardPublisher::getNumPublished, 0.0, 1.0);
+            mDashboardPublisher.registerNumber("dashboard suppressed", mDashboardPublisher::getNumSuppressed, 0.0,
+                    1.0);
+            mDashboardPublisher.start(Constants.kDashboardPublishPeriod);
 
             mDelayedAimButton = new DelayedBoolean(Timer.getFPGATimestamp(), 0.1);
             // Force an true update now to prevent robot from running at start.
             mDelayedAimButton.update(Timer.getFPGATimestamp(), true);
-
-            // Pre calculate the paths we use for auto.
-            PathAdapter.calculatePaths();
-
         } catch (Throwable t) {
             CrashTracker.logThrowableCrash(t);
             throw t;
@@ -134,10 +245,15 @@ public class Robot extends IterativeRobot {
             mDrive.setHighGear(true);
             mDrive.setBrakeMode(true);
 
+            LogManager.getInstance().startSegment("auto");
             mEnabledLooper.start();
-            mSuperstructure.reloadConstants();
             mAutoModeExecuter = new AutoModeExecuter();
-            mAutoModeExecuter.setAutoMode(AutoModeSelector.getSelectedAutoMode());
+            // In case auto starts before the deferred startup work is done, wait for it on the auto thread.
+            mAutoModeExecuter.setAutoMode(() -> {
+                mStartup.waitFor("auto mode selector");
+                mStartup.waitFor("auto paths");
+                return AutoModeSelector.getSelectedAutoMode();
+            });
             mAutoModeExecuter.start();
 
         } catch (Throwable t) {
@@ -163,13 +279,13 @@ public class Robot extends IterativeRobot {
             CrashTracker.logTeleopInit();
 
             // Start loopers
+            LogManager.getInstance().startSegment("teleop");
             mEnabledLooper.start();
             mDrive.setOpenLoop(DriveSignal.NEUTRAL);
             mDrive.setBrakeMode(false);
             // Shift to high
             mDrive.setHighGear(true);
             zeroAllSensors();
-            mSuperstructure.reloadConstants();
             mSuperstructure.setOverrideCompressor(false);
         } catch (Throwable t) {
             CrashTracker.logThrowableCrash(t);
@@ -238,6 +354,7 @@ public class Robot extends IterativeRobot {
                         double range = mSuperstructure.getCurrentRange();
                         System.out.println("Tuning range: " + range + " = " + rpm);
                         mTuningFlywheelMap.put(new InterpolatingDouble(range), new InterpolatingDouble(rpm));
+                        mSuperstructure.addShotResult(range, rpm, true);
                         mSuperstructure.incrementTuningRpm();
                     }
                 }
@@ -315,14 +432,14 @@ public class Robot extends IterativeRobot {
             mAutoModeExecuter = null;
 
             mEnabledLooper.stop();
+            // The loops have flushed their logs; close this period's segment.
+            LogManager.getInstance().endSegment();
 
             // Call stop on all our Subsystems.
             mSubsystemManager.stop();
 
             mDrive.setOpenLoop(DriveSignal.NEUTRAL);
 
-            PathAdapter.calculatePaths();
-
             // If are tuning, dump map so far.
             if (Constants.kIsShooterTuning) {
                 for (Map.Entry<InterpolatingDouble, InterpolatingDouble> entry : mTuningFlywheelMap.entrySet()) {
@@ -346,6 +463,10 @@ public class Robot extends IterativeRobot {
         }
 
         zeroAllSensors();
+        // The loops aren't running while disabled, so apply edited constants and take the sensor snapshot here
+        // instead.
+        mConstantsRegistry.apply();
+        mSubsystemManager.readPeriodicInputs(Timer.getFPGATimestamp());
         allPeriodic();
     }
 
@@ -375,12 +496,28 @@ public class Robot extends IterativeRobot {
      * Helper function that is called in all periodic functions
      */
     public void allPeriodic() {
-        mRobotState.outputToSmartDashboard();
+        if (mAllPeriodicAllocations != null) {
+            mAllPeriodicAllocations.begin();
+        }
+        // The loops apply edited constants; this makes them visible to the main thread from here on.
+        mConstantsRegistry.sync();
         mSubsystemManager.outputToSmartDashboard();
         mSubsystemManager.writeToLog();
-        mEnabledLooper.outputToSmartDashboard();
-        SmartDashboard.putBoolean("camera_connected", mVisionServer.isConnected());
+        InputRecorder.getInstance().write();
+        CANBusBudget.getInstance().outputToSmartDashboard();
+        // A Talon that browned out has lost the configuration its shadow registers say it has.
+        CANTalonFactory.checkForResets();
+        SmartDashboard.putBoolean("camera_connected", mVisionServer != null && mVisionServer.isConnected());
 
         ConnectionMonitor.getInstance().setLastPacketTime(Timer.getFPGATimestamp());
+        if (mAllPeriodicAllocations != null) {
+            mAllPeriodicAllocations.end();
+            AllocationProfiler.getInstance().update(Timer.getFPGATimestamp());
+        }
+        // The robot has run once, so the rest of startup can go ahead.
+        if (!mDeferredStartupStarted) {
+            mStartup.startDeferred();
+            mDeferredStartupStarted = true;
+        }
     }
 }
@@ -0,0 +1,105 @@
+package com.team254.frc2017;
+
+import edu.wpi.first.wpilibj.AnalogInput;
+import edu.wpi.first.wpilibj.Compressor;
+import edu.wpi.first.wpilibj.DigitalOutput;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.SPI;
+import edu.wpi.first.wpilibj.Timer;
+
+import com.team254.lib.util.InputRecorder;
+import com.team254.lib.util.drivers.AnalogInputIO;
+import com.team254.lib.util.drivers.CANTalonFactory;
+import com.team254.lib.util.drivers.CompressorIO;
+import com.team254.lib.util.drivers.DigitalOutputIO;
+import com.team254.lib.util.drivers.GyroIO;
+import com.team254.lib.util.drivers.MotorControllerIO;
+import com.team254.lib.util.drivers.NavX;
+import com.team254.lib.util.drivers.SolenoidIO;
+
+/**
+ * Creates the real devices on the robot. Like the ControlBoard, one instance is created on startup and shared; if
+ * Constants.kRecordInputs is set, the devices are wrapped so that they are recorded.
+ *
+ * @see RobotHardwareInterface
+ */
+public class RobotHardware implements RobotHardwareInterface {
+    private static RobotHardwareInterface mInstance = null;
+
+    public static synchronized RobotHardwareInterface getInstance() {
+        if (mInstance == null) {
+            if (Constants.kRecordInputs) {
+                mInstance = new RecordingRobotHardware(new RobotHardware(), InputRecorder.getInstance());
+            } else {
+                mInstance = new RobotHardware();
+            }
+        }
+        return mInstance;
+    }
+
+    protected RobotHardware() {
+    }
+
+    @Override
+    public MotorControllerIO createTalon(int id) {
+        return CANTalonFactory.createDefaultTalon(id);
+    }
+
+    @Override
+    public MotorControllerIO createPermanentSlaveTalon(int id, int master_id) {
+        return CANTalonFactory.createPermanentSlaveTalon(id, master_id);
+    }
+
+    @Override
+    public GyroIO createGyro() {
+        return new NavX(SPI.Port.kMXP);
+    }
+
+    @Override
+    public SolenoidIO createSolenoid(int solenoid_id) {
+        return Constants.makeSolenoidForId(solenoid_id);
+    }
+
+    @Override
+    public AnalogInputIO createAnalogInput(int channel) {
+        final AnalogInput input = new AnalogInput(channel);
+        return new AnalogInputIO() {
+            @Override
+            public double getVoltage() {
+                return input.getVoltage();
+            }
+
+            @Override
+            public double getAverageVoltage() {
+                return input.getAverageVoltage();
+            }
+        };
+    }
+
+    @Override
+    public DigitalOutputIO createDigitalOutput(int channel) {
+        final DigitalOutput output = new DigitalOutput(channel);
+        return output::set;
+    }
+
+    @Override
+    public CompressorIO createCompressor() {
+        final Compressor compressor = new Compressor(0);
+        return compressor::setClosedLoopControl;
+    }
+
+    @Override
+    public double getTimestamp() {
+        return Timer.getFPGATimestamp();
+    }
+
+    @Override
+    public void reportError(String message) {
+        DriverStation.reportError(message, false);
+    }
+
+    @Override
+    public void reportWarning(String message) {
+        DriverStation.reportWarning(message, false);
+    }
+}
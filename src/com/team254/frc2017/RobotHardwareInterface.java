@@ -0,0 +1,47 @@
+package com.team254.frc2017;
+
+import com.team254.lib.util.drivers.AnalogInputIO;
+import com.team254.lib.util.drivers.CompressorIO;
+import com.team254.lib.util.drivers.DigitalOutputIO;
+import com.team254.lib.util.drivers.GyroIO;
+import com.team254.lib.util.drivers.MotorControllerIO;
+import com.team254.lib.util.drivers.SolenoidIO;
+
+/**
+ * Creates the devices that subsystems talk to. Subsystems are constructed with one of these instead of creating their
+ * own Talons, gyros, solenoids, LEDs and so on, so that the same subsystem code can run against the real robot
+ * (RobotHardware) or an in-memory simulation (SimulatedRobotHardware).
+ *
+ * @see RobotHardware
+ */
+public interface RobotHardwareInterface {
+    MotorControllerIO createTalon(int id);
+
+    MotorControllerIO createPermanentSlaveTalon(int id, int master_id);
+
+    GyroIO createGyro();
+
+    /**
+     * @param solenoid_id
+     *            One of the kXyzSolenoidId constants
+     */
+    SolenoidIO createSolenoid(int solenoid_id);
+
+    AnalogInputIO createAnalogInput(int channel);
+
+    DigitalOutputIO createDigitalOutput(int channel);
+
+    CompressorIO createCompressor();
+
+    /**
+     * @return the current time in seconds, on the clock the loops are run with (the FPGA timestamp on the robot)
+     */
+    double getTimestamp();
+
+    /**
+     * Tell the drivers about a hardware problem (on the robot, through the driver station).
+     */
+    void reportError(String message);
+
+    void reportWarning(String message);
+}
@@ -8,8 +8,6 @@ import com.team254.lib.util.math.Rotation2d;
 import com.team254.lib.util.math.Translation2d;
 import com.team254.lib.util.math.Twist2d;
 
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
-
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -50,6 +48,12 @@ public class RobotState {
 
     private static final int kObservationBufferSize = 100;
 
+    // Recorded by reset() so that a replay can reset at the same time (see InputRecorder)
+    public static final String kResetTimeChannel = "robot_state.reset_time";
+    public static final String kResetXChannel = "robot_state.reset_x";
+    public static final String kResetYChannel = "robot_state.reset_y";
+    public static final String kResetThetaChannel = "robot_state.reset_theta";
+
     private static final RigidTransform2d kVehicleToCamera = new RigidTransform2d(
             new Translation2d(Constants.kCameraXOffset, Constants.kCameraYOffset), new Rotation2d());
 
@@ -72,6 +76,13 @@ public class RobotState {
      * Resets the field to robot transform (robot's position on the field)
      */
     public synchronized void reset(double start_time, RigidTransform2d initial_field_to_vehicle) {
+        final InputRecorder recorder = InputRecorder.getInstance();
+        if (recorder.isRecording()) {
+            recorder.recordInput(kResetTimeChannel, start_time);
+            recorder.recordInput(kResetXChannel, initial_field_to_vehicle.getTranslation().x());
+            recorder.recordInput(kResetYChannel, initial_field_to_vehicle.getTranslation().y());
+            recorder.recordInput(kResetThetaChannel, initial_field_to_vehicle.getRotation().getDegrees());
+        }
         field_to_vehicle_ = new InterpolatingTreeMap<>(kObservationBufferSize);
         field_to_vehicle_.put(new InterpolatingDouble(start_time), initial_field_to_vehicle);
         vehicle_velocity_predicted_ = Twist2d.identity();
@@ -212,26 +223,37 @@ public class RobotState {
         return vehicle_velocity_measured_;
     }
 
-    public void outputToSmartDashboard() {
-        RigidTransform2d odometry = getLatestFieldToVehicle().getValue();
-        SmartDashboard.putNumber("robot_pose_x", odometry.getTranslation().x());
-        SmartDashboard.putNumber("robot_pose_y", odometry.getTranslation().y());
-        SmartDashboard.putNumber("robot_pose_theta", odometry.getRotation().getDegrees());
-        SmartDashboard.putNumber("robot velocity", vehicle_velocity_measured_.dx);
+    // Last goal shown on the dashboard, kept while no goal is in view. Only used by the publisher thread.
+    private RigidTransform2d dashboard_goal_pose_ = RigidTransform2d.identity();
+
+    private RigidTransform2d getDashboardGoalPose() {
         List<RigidTransform2d> poses = getCaptureTimeFieldToGoal();
-        for (RigidTransform2d pose : poses) {
+        if (!poses.isEmpty()) {
             // Only output first goal
-            SmartDashboard.putNumber("goal_pose_x", pose.getTranslation().x());
-            SmartDashboard.putNumber("goal_pose_y", pose.getTranslation().y());
-            break;
+            dashboard_goal_pose_ = poses.get(0);
         }
+        return dashboard_goal_pose_;
+    }
+
+    private double getDashboardGoalRange() {
         Optional<ShooterAimingParameters> aiming_params = getCachedAimingParameters();
-        if (aiming_params.isPresent()) {
-            SmartDashboard.putNumber("goal_range", aiming_params.get().getRange());
-            SmartDashboard.putNumber("goal_theta", aiming_params.get().getRobotToGoal().getDegrees());
-        } else {
-            SmartDashboard.putNumber("goal_range", 0.0);
-            SmartDashboard.putNumber("goal_theta", 0.0);
-        }
+        return aiming_params.isPresent() ? aiming_params.get().getRange() : 0.0;
+    }
+
+    private double getDashboardGoalTheta() {
+        Optional<ShooterAimingParameters> aiming_params = getCachedAimingParameters();
+        return aiming_params.isPresent() ? aiming_params.get().getRobotToGoal().getDegrees() : 0.0;
+    }
+
+    public void registerTelemetry(DashboardPublisher publisher) {
+        publisher.registerNumber("robot_pose_x", () -> getLatestFieldToVehicle().getValue().getTranslation().x(), 0.1);
+        publisher.registerNumber("robot_pose_y", () -> getLatestFieldToVehicle().getValue().getTranslation().y(), 0.1);
+        publisher.registerNumber("robot_pose_theta",
+                () -> getLatestFieldToVehicle().getValue().getRotation().getDegrees(), 0.1);
+        publisher.registerNumber("robot velocity", () -> getMeasuredVelocity().dx, 0.1);
+        publisher.registerNumber("goal_pose_x", () -> getDashboardGoalPose().getTranslation().x(), 0.1);
+        publisher.registerNumber("goal_pose_y", () -> getDashboardGoalPose().getTranslation().y(), 0.1);
+        publisher.registerNumber("goal_range", this::getDashboardGoalRange, 0.1);
+        publisher.registerNumber("goal_theta", this::getDashboardGoalTheta, 0.1);
     }
 }
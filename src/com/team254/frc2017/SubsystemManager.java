@@ -1,7 +1,10 @@
 package com.team254.frc2017;
 
-import com.team254.frc2017.loops.Looper;
+import com.team254.frc2017.loops.Loop;
+import com.team254.frc2017.loops.LooperInterface;
 import com.team254.frc2017.subsystems.Subsystem;
+import com.team254.lib.util.ConstantsRegistry;
+import com.team254.lib.util.DashboardPublisher;
 
 import java.util.List;
 
@@ -20,6 +23,14 @@ public class SubsystemManager {
         mAllSubsystems.forEach((s) -> s.outputToSmartDashboard());
     }
 
+    public void registerTelemetry(DashboardPublisher publisher) {
+        mAllSubsystems.forEach((s) -> s.registerTelemetry(publisher));
+    }
+
+    public void registerConstantsListeners(ConstantsRegistry registry) {
+        mAllSubsystems.forEach((s) -> s.registerConstantsListeners(registry));
+    }
+
     public void writeToLog() {
         mAllSubsystems.forEach((s) -> s.writeToLog());
     }
@@ -32,7 +43,32 @@ public class SubsystemManager {
         mAllSubsystems.forEach((s) -> s.zeroSensors());
     }
 
-    public void registerEnabledLoops(Looper enabledLooper) {
+    public void readPeriodicInputs(double timestamp) {
+        mAllSubsystems.forEach((s) -> s.readPeriodicInputs(timestamp));
+    }
+
+    /**
+     * Registers the loop that snapshots every subsystem's sensors, followed by each subsystem's own loops. Call this
+     * before registering any other loop that uses the sensors, so the snapshot is taken before they run each cycle.
+     * Loops that must run before any sensor is read (Robot marks the input recording's cycle and applies edited
+     * constants) are registered first.
+     */
+    public void registerEnabledLoops(LooperInterface enabledLooper) {
+        enabledLooper.register("SubsystemManager.readPeriodicInputs", new Loop() {
+            @Override
+            public void onStart(double timestamp) {
+                readPeriodicInputs(timestamp);
+            }
+
+            @Override
+            public void onLoop(double timestamp) {
+                readPeriodicInputs(timestamp);
+            }
+
+            @Override
+            public void onStop(double timestamp) {
+            }
+        });
         mAllSubsystems.forEach((s) -> s.registerEnabledLoops(enabledLooper));
     }
 }
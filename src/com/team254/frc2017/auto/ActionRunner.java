@@ -0,0 +1,120 @@
+package com.team254.frc2017.auto;
+
+import com.team254.frc2017.auto.actions.Action;
+import com.team254.frc2017.loops.Loop;
+
+/**
+ * Runs the current auto mode's actions in the enabled Looper, so that an action is updated once per loop, right after
+ * the subsystems, and the auto mode thread wakes as soon as it finishes instead of on its next 20 ms poll.
+ *
+ * The auto mode thread hands an action over with runAction() and waits. On the next loop the action is started and
+ * updated; on the loop it reports being finished, done() is called and the auto mode thread is woken to hand over the
+ * next one. If the auto mode is stopped, or the Looper stops, the action is dropped and runAction() throws. A dropped
+ * action that was started still gets done() (on the thread that stopped it), so that it can clean up after itself.
+ */
+public class ActionRunner implements Loop {
+    private static ActionRunner sInstance = new ActionRunner();
+
+    public static ActionRunner getInstance() {
+        return sInstance;
+    }
+
+    // Guarded by this
+    private boolean mRunning = false;
+    private Action mAction = null;
+    private boolean mStarted = false;
+    private boolean mFinished = false;
+    private boolean mCancelled = false;
+
+    ActionRunner() {
+    }
+
+    /**
+     * @return whether the Looper is running this, so that runAction() can be used
+     */
+    public synchronized boolean isRunning() {
+        return mRunning;
+    }
+
+    /**
+     * @return whether there is an action waiting to be run or finished
+     */
+    synchronized boolean hasAction() {
+        return mAction != null;
+    }
+
+    /**
+     * Run an action in the Looper, and wait for it to finish.
+     *
+     * @throws AutoModeEndedException
+     *             if the auto mode or the Looper stopped first
+     */
+    public synchronized void runAction(Action action, AutoModeBase auto_mode) throws AutoModeEndedException {
+        mAction = action;
+        mStarted = false;
+        mFinished = false;
+        mCancelled = false;
+        try {
+            while (!mFinished) {
+                if (mCancelled || !mRunning || !auto_mode.isActive()) {
+                    throw new AutoModeEndedException();
+                }
+                wait();
+            }
+        } catch (InterruptedException e) {
+            throw new AutoModeEndedException();
+        } finally {
+            if (mAction == action) {
+                dropAction();
+            }
+        }
+    }
+
+    /**
+     * Drop the action being run, and wake the auto mode thread waiting for it.
+     */
+    public synchronized void cancel() {
+        dropAction();
+        mCancelled = true;
+        notifyAll();
+    }
+
+    private void dropAction() {
+        if (mAction != null && mStarted && !mFinished) {
+            AutoTracer.getInstance().done(mAction, AutoTracer.kAutoTrack);
+        }
+        mAction = null;
+    }
+
+    @Override
+    public synchronized void onStart(double timestamp) {
+        mRunning = true;
+    }
+
+    @Override
+    public synchronized void onLoop(double timestamp) {
+        if (mAction == null || mFinished) {
+            return;
+        }
+        final AutoTracer tracer = AutoTracer.getInstance();
+        if (!mStarted) {
+            tracer.start(mAction, AutoTracer.kAutoTrack);
+            mStarted = true;
+        }
+        if (!mAction.isFinished()) {
+            tracer.update(mAction, AutoTracer.kAutoTrack);
+        }
+        if (mAction.isFinished()) {
+            tracer.done(mAction, AutoTracer.kAutoTrack);
+            mAction = null;
+            mFinished = true;
+            notifyAll();
+        }
+    }
+
+    @Override
+    public synchronized void onStop(double timestamp) {
+        mRunning = false;
+        cancel();
+    }
+}
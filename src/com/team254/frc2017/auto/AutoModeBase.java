@@ -8,17 +8,22 @@ import com.team254.frc2017.auto.actions.Action;
  */
 public abstract class AutoModeBase {
     protected double m_update_rate = 1.0 / 50.0;
-    protected boolean m_active = false;
+    protected volatile boolean m_active = false;
 
     protected abstract void routine() throws AutoModeEndedException;
 
     public void run() {
         m_active = true;
+        final boolean traced = AutoTracer.getInstance().beginRun();
         try {
             routine();
         } catch (AutoModeEndedException e) {
             System.out.println("Auto mode done, ended early");
             return;
+        } finally {
+            if (traced) {
+                AutoTracer.getInstance().endRun(getClass().getSimpleName());
+            }
         }
 
         done();
@@ -30,6 +35,7 @@ public abstract class AutoModeBase {
 
     public void stop() {
         m_active = false;
+        ActionRunner.getInstance().cancel();
     }
 
     public boolean isActive() {
@@ -44,12 +50,21 @@ public abstract class AutoModeBase {
         return isActive();
     }
 
+    /**
+     * Run an action until it is finished. While the enabled Looper is running, the action runs in it (see
+     * ActionRunner); otherwise it is polled from this thread.
+     */
     public void runAction(Action action) throws AutoModeEndedException {
         isActiveWithThrow();
-        action.start();
+        if (ActionRunner.getInstance().isRunning()) {
+            ActionRunner.getInstance().runAction(action, this);
+            return;
+        }
+        final AutoTracer tracer = AutoTracer.getInstance();
+        tracer.start(action, AutoTracer.kAutoTrack);
 
         while (isActiveWithThrow() && !action.isFinished()) {
-            action.update();
+            tracer.update(action, AutoTracer.kAutoTrack);
             long waitTime = (long) (m_update_rate * 1000.0);
 
             try {
@@ -59,7 +74,7 @@ public abstract class AutoModeBase {
             }
         }
 
-        action.done();
+        tracer.done(action, AutoTracer.kAutoTrack);
     }
 
 }
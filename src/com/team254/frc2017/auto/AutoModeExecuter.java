@@ -2,24 +2,39 @@ package com.team254.frc2017.auto;
 
 import com.team254.lib.util.CrashTrackingRunnable;
 
+import java.util.function.Supplier;
+
 /**
  * This class selects, runs, and stops (if necessary) a specified autonomous mode.
  */
 public class AutoModeExecuter {
     private AutoModeBase m_auto_mode;
+    private Supplier<AutoModeBase> m_auto_mode_supplier = null;
+    private boolean m_stopped = false;
     private Thread m_thread = null;
 
-    public void setAutoMode(AutoModeBase new_auto_mode) {
+    public synchronized void setAutoMode(AutoModeBase new_auto_mode) {
         m_auto_mode = new_auto_mode;
+        m_auto_mode_supplier = null;
+    }
+
+    /**
+     * Choose the auto mode on the auto thread once it starts, for a choice that may have to wait (on startup, say)
+     * and so shouldn't hold up the thread calling start().
+     */
+    public synchronized void setAutoMode(Supplier<AutoModeBase> new_auto_mode_supplier) {
+        m_auto_mode = null;
+        m_auto_mode_supplier = new_auto_mode_supplier;
     }
 
-    public void start() {
+    public synchronized void start() {
         if (m_thread == null) {
             m_thread = new Thread(new CrashTrackingRunnable() {
                 @Override
                 public void runCrashTracked() {
-                    if (m_auto_mode != null) {
-                        m_auto_mode.run();
+                    final AutoModeBase auto_mode = getAutoMode();
+                    if (auto_mode != null) {
+                        auto_mode.run();
                     }
                 }
             });
@@ -29,12 +44,31 @@ public class AutoModeExecuter {
 
     }
 
-    public void stop() {
-        if (m_auto_mode != null) {
-            m_auto_mode.stop();
+    private AutoModeBase getAutoMode() {
+        final Supplier<AutoModeBase> supplier;
+        synchronized (this) {
+            supplier = m_auto_mode_supplier;
+        }
+        final AutoModeBase auto_mode = (supplier != null) ? supplier.get() : null;
+        synchronized (this) {
+            if (supplier != null) {
+                m_auto_mode = auto_mode;
+            }
+            // Stopped while the supplier was choosing, so don't start it.
+            return m_stopped ? null : m_auto_mode;
         }
+    }
 
-        m_thread = null;
+    public void stop() {
+        final AutoModeBase auto_mode;
+        synchronized (this) {
+            m_stopped = true;
+            auto_mode = m_auto_mode;
+            m_thread = null;
+        }
+        if (auto_mode != null) {
+            auto_mode.stop();
+        }
     }
 
 }
@@ -0,0 +1,202 @@
+package com.team254.frc2017.auto;
+
+import com.team254.frc2017.Constants;
+import com.team254.frc2017.auto.actions.Action;
+import com.team254.frc2017.auto.actions.ParallelAction;
+import com.team254.frc2017.auto.actions.SeriesAction;
+import com.team254.lib.util.CrashTracker;
+import com.team254.lib.util.TraceRecorder;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Records a timeline of each auto mode: a span for every action, from start() to done(), with its start(), update()
+ * and done() calls inside, and the subsystem events that actions wait on (Superstructure states, path markers, the
+ * shooter getting on target). When the auto mode ends, the timeline is written to the log directory as a trace event
+ * JSON file (see TraceRecorder), to open in chrome://tracing or Perfetto and see where the time went.
+ *
+ * Actions are run through start(), update() and done() here rather than called directly. The auto mode's actions go
+ * on the "auto" track; a SeriesAction's actions go on its track, nested in its span, and each of a ParallelAction's
+ * actions gets a track of its own. Subsystem events go on the "events" track.
+ *
+ * Only the thread running the actions (the Looper, see ActionRunner) may call start(), update() and done().
+ */
+public class AutoTracer {
+    public static final int kEventsTrack = 0;
+    public static final int kAutoTrack = 1;
+    private static final String kTraceSuffix = "-trace.json";
+
+    private static AutoTracer sInstance = null;
+
+    public static synchronized AutoTracer getInstance() {
+        if (sInstance == null) {
+            sInstance = new AutoTracer(Constants.kAutoTraceCapacity);
+        }
+        return sInstance;
+    }
+
+    private final TraceRecorder mRecorder;
+    // Guarded by this
+    private final Map<Class<?>, String> mNames = new HashMap<>();
+    private int mRuns = 0;
+    private int mCurrentTrack = kAutoTrack;
+
+    AutoTracer(int capacity) {
+        mRecorder = new TraceRecorder(capacity);
+    }
+
+    /**
+     * Start recording a new timeline, unless tracing is off or one is already being recorded (an auto mode that runs
+     * another).
+     *
+     * @return whether a timeline was started, in which case endRun() should be called
+     */
+    public synchronized boolean beginRun() {
+        if (!Constants.kAutoTraceEnabled || mRecorder.isRecording()) {
+            return false;
+        }
+        mRecorder.start();
+        mRecorder.newTrack("events");
+        mRecorder.newTrack("auto");
+        mCurrentTrack = kAutoTrack;
+        return true;
+    }
+
+    /**
+     * Stop recording, and write the timeline to the log directory, keeping the last few.
+     */
+    public void endRun(String auto_mode_name) {
+        mRecorder.stop();
+        final File directory = new File(Constants.kLogDirectory);
+        final int run;
+        synchronized (this) {
+            run = mRuns++;
+        }
+        final File file = new File(directory, String.format("%s-auto-%d-%s%s",
+                CrashTracker.getRunInstanceUUID(), run, auto_mode_name, kTraceSuffix));
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            System.out.println("Could not create log directory " + directory);
+            return;
+        }
+        try (Writer writer = new BufferedWriter(new FileWriter(file))) {
+            write(writer);
+        } catch (IOException e) {
+            System.out.println("Could not write auto trace " + file + ": " + e);
+            return;
+        }
+        System.out.println("Wrote auto trace " + file + " (" + mRecorder.getSize() + " events, "
+                + mRecorder.getDropped() + " dropped)");
+        deleteOldTraces(directory);
+    }
+
+    void write(Writer writer) throws IOException {
+        mRecorder.write(writer);
+    }
+
+    private static void deleteOldTraces(File directory) {
+        final File[] traces = directory.listFiles((dir, name) -> name.endsWith(kTraceSuffix));
+        if (traces == null || traces.length <= Constants.kAutoTracesToKeep) {
+            return;
+        }
+        Arrays.sort(traces, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (int i = 0; i < traces.length - Constants.kAutoTracesToKeep; ++i) {
+            traces[i].delete();
+        }
+    }
+
+    private synchronized String getName(Action action) {
+        String name = mNames.get(action.getClass());
+        if (name == null) {
+            name = action.getClass().getSimpleName();
+            if (name.isEmpty()) {
+                name = action.getClass().getName();
+            }
+            mNames.put(action.getClass(), name);
+        }
+        return name;
+    }
+
+    private static boolean isComposite(Action action) {
+        return action instanceof SeriesAction || action instanceof ParallelAction;
+    }
+
+    /**
+     * @return the track that the action being started is on. A composite action calls this from its start() to find
+     *         the track for its actions.
+     */
+    public int getCurrentTrack() {
+        return mCurrentTrack;
+    }
+
+    /**
+     * @return a new track for one of a ParallelAction's actions
+     */
+    public int newTrack(Action action) {
+        return mRecorder.newTrack(getName(action));
+    }
+
+    /**
+     * Begin the action's span on the track, and start it.
+     */
+    public void start(Action action, int track) {
+        if (!mRecorder.isRecording()) {
+            action.start();
+            return;
+        }
+        final String name = getName(action);
+        mRecorder.begin(track, name);
+        final int previous_track = mCurrentTrack;
+        mCurrentTrack = track;
+        final long start = System.nanoTime();
+        action.start();
+        // A composite's start(), update() and done() would overlap the spans of its actions, which begin and end in
+        // different calls, so only its span is recorded.
+        if (!isComposite(action)) {
+            mRecorder.complete(track, "start", start, System.nanoTime());
+        }
+        mCurrentTrack = previous_track;
+    }
+
+    public void update(Action action, int track) {
+        if (!mRecorder.isRecording() || isComposite(action)) {
+            action.update();
+            return;
+        }
+        final long start = System.nanoTime();
+        action.update();
+        mRecorder.complete(track, "update", start, System.nanoTime());
+    }
+
+    /**
+     * Finish the action, and end its span.
+     */
+    public void done(Action action, int track) {
+        if (!mRecorder.isRecording()) {
+            action.done();
+            return;
+        }
+        final long start = System.nanoTime();
+        action.done();
+        if (!isComposite(action)) {
+            mRecorder.complete(track, "done", start, System.nanoTime());
+        }
+        mRecorder.end(track, getName(action));
+    }
+
+    /**
+     * Record a subsystem event on the events track.
+     *
+     * @param detail
+     *            e.g. the new state, or null
+     */
+    public void event(String name, String detail) {
+        mRecorder.instant(kEventsTrack, name, detail);
+    }
+}
@@ -0,0 +1,69 @@
+package com.team254.frc2017.auto.actions;
+
+import com.team254.frc2017.RobotState;
+import com.team254.frc2017.paths.PathPlanner;
+import com.team254.frc2017.subsystems.Drive;
+import com.team254.lib.util.math.RigidTransform2d;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Drives the robot from wherever it currently is to a goal pose, along a Path planned on the fly by the PathPlanner
+ * (rather than a precoded PathContainer). Planning happens on the planner's worker thread; the path is handed to the
+ * drive as soon as it's ready. The action finishes once the robot reaches the end of the path, or, if planning fails,
+ * as soon as it stops the drive.
+ *
+ * @see PathPlanner
+ * @see DrivePathAction
+ * @see Action
+ */
+public class DrivePlannedPathAction implements Action {
+
+    private RigidTransform2d mGoal;
+    private boolean mReversed;
+    private double mSpeed;
+    private Future<PathPlanner.Result> mPlan;
+    private boolean mStartedPath = false;
+    private boolean mPlanningFailed = false;
+    private Drive mDrive = Drive.getInstance();
+
+    public DrivePlannedPathAction(RigidTransform2d goal, boolean reversed, double speed) {
+        mGoal = goal;
+        mReversed = reversed;
+        mSpeed = speed;
+    }
+
+    @Override
+    public boolean isFinished() {
+        return mPlanningFailed || (mStartedPath && mDrive.isDoneWithPath());
+    }
+
+    @Override
+    public void update() {
+        if (!mStartedPath && !mPlanningFailed && mPlan.isDone()) {
+            try {
+                PathPlanner.Result result = mPlan.get();
+                System.out.println("Planned path in " + result.planning_nanos / 1000 + " us"
+                        + (result.fallback ? " (fallback, ignores the goal heading)" : ""));
+                mDrive.setWantDrivePath(result.path, mReversed);
+                mStartedPath = true;
+            } catch (InterruptedException | ExecutionException e) {
+                System.out.println("Path planning failed: " + e);
+                mDrive.setVelocitySetpoint(0, 0);
+                // There is no path to wait for, so let the auto mode go on.
+                mPlanningFailed = true;
+            }
+        }
+    }
+
+    @Override
+    public void done() {
+    }
+
+    @Override
+    public void start() {
+        mPlan = PathPlanner.planAsync(RobotState.getInstance().getLatestFieldToVehicle().getValue(), mGoal, mReversed,
+                mSpeed);
+    }
+}
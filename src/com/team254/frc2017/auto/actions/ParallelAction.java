@@ -1,5 +1,7 @@
 package com.team254.frc2017.auto.actions;
 
+import com.team254.frc2017.auto.AutoTracer;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -12,13 +14,17 @@ import java.util.List;
  */
 public class ParallelAction implements Action {
 
+    private final AutoTracer mTracer = AutoTracer.getInstance();
     private final ArrayList<Action> mActions;
+    // Each action's track in the auto timeline, since they overlap.
+    private final int[] mTracks;
 
     public ParallelAction(List<Action> actions) {
         mActions = new ArrayList<>(actions.size());
         for (Action action : actions) {
             mActions.add(action);
         }
+        mTracks = new int[mActions.size()];
     }
 
     @Override
@@ -34,22 +40,23 @@ public class ParallelAction implements Action {
 
     @Override
     public void update() {
-        for (Action action : mActions) {
-            action.update();
+        for (int i = 0; i < mActions.size(); ++i) {
+            mTracer.update(mActions.get(i), mTracks[i]);
         }
     }
 
     @Override
     public void done() {
-        for (Action action : mActions) {
-            action.done();
+        for (int i = 0; i < mActions.size(); ++i) {
+            mTracer.done(mActions.get(i), mTracks[i]);
         }
     }
 
     @Override
     public void start() {
-        for (Action action : mActions) {
-            action.start();
+        for (int i = 0; i < mActions.size(); ++i) {
+            mTracks[i] = mTracer.newTrack(mActions.get(i));
+            mTracer.start(mActions.get(i), mTracks[i]);
         }
     }
 }
@@ -1,5 +1,7 @@
 package com.team254.frc2017.auto.actions;
 
+import com.team254.frc2017.auto.AutoTracer;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -8,7 +10,9 @@ import java.util.List;
  */
 public class SeriesAction implements Action {
 
+    private final AutoTracer mTracer = AutoTracer.getInstance();
     private Action mCurAction;
+    private int mTrack = AutoTracer.kAutoTrack;
     private final ArrayList<Action> mRemainingActions;
 
     public SeriesAction(List<Action> actions) {
@@ -28,23 +32,30 @@ public class SeriesAction implements Action {
 
     @Override
     public void start() {
+        mTrack = mTracer.getCurrentTrack();
     }
 
     @Override
     public void update() {
-        if (mCurAction == null) {
-            if (mRemainingActions.isEmpty()) {
-                return;
-            }
+        // Start the next action as soon as one finishes, rather than on the next update.
+        while (true) {
+            if (mCurAction == null) {
+                if (mRemainingActions.isEmpty()) {
+                    return;
+                }
 
-            mCurAction = mRemainingActions.remove(0);
-            mCurAction.start();
-        }
+                mCurAction = mRemainingActions.remove(0);
+                mTracer.start(mCurAction, mTrack);
+            }
 
-        mCurAction.update();
+            if (!mCurAction.isFinished()) {
+                mTracer.update(mCurAction, mTrack);
+            }
 
-        if (mCurAction.isFinished()) {
-            mCurAction.done();
+            if (!mCurAction.isFinished()) {
+                return;
+            }
+            mTracer.done(mCurAction, mTrack);
             mCurAction = null;
         }
     }
@@ -1,11 +1,12 @@
 package com.team254.frc2017.auto.actions;
 
 import com.team254.frc2017.subsystems.Drive;
+import com.team254.lib.util.control.Path;
 
 /**
- * Waits for the robot to pass by a provided path marker (i.e. a waypoint on the field). This action routinely compares
- * to the crossed path markers provided by the drivetrain (in Path Control mode) and returns if the parameter path
- * marker is inside the drivetrain's Path Markers Crossed list
+ * Waits for the robot to pass by a provided path marker (i.e. a waypoint on the field). This action listens to the
+ * drivetrain (in Path Control mode) for the marker being crossed, so it finishes on the same loop the marker is passed,
+ * and on start checks the drivetrain's Path Markers Crossed list in case it already was.
  * 
  * @param A
  *            Path Marker to determine if crossed
@@ -14,6 +15,12 @@ public class WaitForPathMarkerAction implements Action {
 
     private Drive mDrive = Drive.getInstance();
     private String mMarker;
+    private volatile boolean mPassed = false;
+    private final Path.MarkerListener mListener = marker -> {
+        if (marker.equals(mMarker)) {
+            mPassed = true;
+        }
+    };
 
     public WaitForPathMarkerAction(String marker) {
         mMarker = marker;
@@ -21,7 +28,7 @@ public class WaitForPathMarkerAction implements Action {
 
     @Override
     public boolean isFinished() {
-        return mDrive.hasPassedMarker(mMarker);
+        return mPassed;
     }
 
     @Override
@@ -30,10 +37,15 @@ public class WaitForPathMarkerAction implements Action {
 
     @Override
     public void done() {
+        mDrive.removePathMarkerListener(mListener);
     }
 
     @Override
     public void start() {
+        mDrive.addPathMarkerListener(mListener);
+        if (mDrive.hasPassedMarker(mMarker)) {
+            mPassed = true;
+        }
     }
 
 }
\ No newline at end of file
@@ -2,10 +2,11 @@ package com.team254.frc2017.loops;
 
 import edu.wpi.first.wpilibj.Notifier;
 import edu.wpi.first.wpilibj.Timer;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 
 import com.team254.frc2017.Constants;
+import com.team254.lib.util.AllocationProfiler;
 import com.team254.lib.util.CrashTrackingRunnable;
+import com.team254.lib.util.DashboardPublisher;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -14,16 +15,22 @@ import java.util.List;
  * This code runs all of the robot's loops. Loop objects are stored in a List object. They are started when the robot
  * powers up and stopped after the match.
  */
-public class Looper {
+public class Looper implements LooperInterface {
     public final double kPeriod = Constants.kLooperDt;
+    // A cycle that starts this many periods after the last one, or runs longer than a period, has overrun.
+    public final double kOverrunPeriods = 1.5;
 
     private boolean running_;
 
     private final Notifier notifier_;
     private final List<Loop> loops_;
+    // Null unless Constants.kProfileAllocations, so that the profiler is not even built when it is off.
+    private final AllocationProfiler profiler_;
+    private final List<AllocationProfiler.Section> sections_;
     private final Object taskRunningLock_ = new Object();
     private double timestamp_ = 0;
-    private double dt_ = 0;
+    private volatile double dt_ = 0;
+    private long last_end_nanos_ = 0;
 
     private final CrashTrackingRunnable runnable_ = new CrashTrackingRunnable() {
         @Override
@@ -31,13 +38,30 @@ public class Looper {
             synchronized (taskRunningLock_) {
                 if (running_) {
                     double now = Timer.getFPGATimestamp();
+                    final long start_nanos = System.nanoTime();
 
-                    for (Loop loop : loops_) {
-                        loop.onLoop(now);
+                    if (profiler_ != null) {
+                        for (int i = 0; i < loops_.size(); ++i) {
+                            sections_.get(i).begin();
+                            loops_.get(i).onLoop(now);
+                            sections_.get(i).end();
+                        }
+                    } else {
+                        for (Loop loop : loops_) {
+                            loop.onLoop(now);
+                        }
                     }
 
                     dt_ = now - timestamp_;
                     timestamp_ = now;
+
+                    final long end_nanos = System.nanoTime();
+                    final boolean overran = dt_ > kOverrunPeriods * kPeriod
+                            || (end_nanos - start_nanos) * 1E-9 > kPeriod;
+                    if (profiler_ != null) {
+                        profiler_.recordTick(last_end_nanos_, end_nanos, overran);
+                    }
+                    last_end_nanos_ = end_nanos;
                 }
             }
         }
@@ -47,11 +71,17 @@ public class Looper {
         notifier_ = new Notifier(runnable_);
         running_ = false;
         loops_ = new ArrayList<>();
+        sections_ = new ArrayList<>();
+        profiler_ = Constants.kProfileAllocations ? AllocationProfiler.getInstance() : null;
     }
 
-    public synchronized void register(Loop loop) {
+    @Override
+    public synchronized void register(String name, Loop loop) {
         synchronized (taskRunningLock_) {
             loops_.add(loop);
+            if (profiler_ != null) {
+                sections_.add(profiler_.register(name));
+            }
         }
     }
 
@@ -63,6 +93,7 @@ public class Looper {
                 for (Loop loop : loops_) {
                     loop.onStart(timestamp_);
                 }
+                last_end_nanos_ = System.nanoTime();
                 running_ = true;
             }
             notifier_.startPeriodic(kPeriod);
@@ -84,7 +115,7 @@ public class Looper {
         }
     }
 
-    public void outputToSmartDashboard() {
-        SmartDashboard.putNumber("looper_dt", dt_);
+    public void registerTelemetry(DashboardPublisher publisher) {
+        publisher.registerNumber("looper_dt", () -> dt_, 1E-4);
     }
 }
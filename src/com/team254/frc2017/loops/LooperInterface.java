@@ -0,0 +1,16 @@
+package com.team254.frc2017.loops;
+
+/**
+ * Something that Loops can be registered with. Subsystems register their loops through this interface, so that they
+ * can be run by the robot's Looper or stepped by hand in a simulation.
+ *
+ * @see Looper
+ */
+public interface LooperInterface {
+
+    /**
+     * @param name
+     *            what the loop is called in allocation profiles and timings, e.g. "Drive"
+     */
+    public void register(String name, Loop loop);
+}
@@ -3,6 +3,9 @@ package com.team254.frc2017.loops;
 import com.team254.frc2017.Kinematics;
 import com.team254.frc2017.RobotState;
 import com.team254.frc2017.subsystems.Drive;
+import com.team254.lib.util.InputRecorder;
+import com.team254.lib.util.TelemetryServer;
+import com.team254.lib.util.math.RigidTransform2d;
 import com.team254.lib.util.math.Rotation2d;
 import com.team254.lib.util.math.Twist2d;
 
@@ -11,17 +14,32 @@ import com.team254.lib.util.math.Twist2d;
  * orientation, and velocity, among various other factors. Similar to a car's odometer.
  */
 public class RobotStateEstimator implements Loop {
-    static RobotStateEstimator instance_ = new RobotStateEstimator();
+    // Recorded every cycle, so that a replay can check it estimates the same pose
+    public static final String kPoseXChannel = "pose.x";
+    public static final String kPoseYChannel = "pose.y";
+    public static final String kPoseThetaChannel = "pose.theta";
+
+    static RobotStateEstimator instance_ = null;
 
     public static RobotStateEstimator getInstance() {
+        if (instance_ == null) {
+            instance_ = new RobotStateEstimator(Drive.getInstance());
+        }
         return instance_;
     }
 
-    RobotStateEstimator() {
+    /**
+     * Public so that an estimator can run on a simulated Drive; the robot uses getInstance().
+     */
+    public RobotStateEstimator(Drive drive) {
+        drive_ = drive;
     }
 
     RobotState robot_state_ = RobotState.getInstance();
-    Drive drive_ = Drive.getInstance();
+    final InputRecorder recorder_ = InputRecorder.getInstance();
+    final TelemetryServer.Channel pose_channel_ = TelemetryServer.getInstance().registerChannel("robot_pose", "x", "y",
+            "theta", "velocity");
+    final Drive drive_;
     double left_encoder_prev_distance_ = 0;
     double right_encoder_prev_distance_ = 0;
 
@@ -41,6 +59,14 @@ public class RobotStateEstimator implements Loop {
         final Twist2d predicted_velocity = Kinematics.forwardKinematics(drive_.getLeftVelocityInchesPerSec(),
                 drive_.getRightVelocityInchesPerSec());
         robot_state_.addObservations(timestamp, odometry_velocity, predicted_velocity);
+        final RigidTransform2d pose = robot_state_.getLatestFieldToVehicle().getValue();
+        pose_channel_.publish(timestamp, pose.getTranslation().x(), pose.getTranslation().y(),
+                pose.getRotation().getDegrees(), predicted_velocity.dx);
+        if (recorder_.isRecording()) {
+            recorder_.recordOutput(kPoseXChannel, pose.getTranslation().x());
+            recorder_.recordOutput(kPoseYChannel, pose.getTranslation().y());
+            recorder_.recordOutput(kPoseThetaChannel, pose.getRotation().getDegrees());
+        }
         left_encoder_prev_distance_ = left_distance;
         right_encoder_prev_distance_ = right_distance;
     }
@@ -2,8 +2,12 @@ package com.team254.frc2017.loops;
 
 import com.team254.frc2017.GoalTracker;
 import com.team254.frc2017.RobotState;
+import com.team254.frc2017.vision.TargetInfo;
 import com.team254.frc2017.vision.VisionUpdate;
 import com.team254.frc2017.vision.VisionUpdateReceiver;
+import com.team254.lib.util.InputRecorder;
+
+import java.util.List;
 
 /**
  * This function adds vision updates (from the Nexus smartphone) to a list in RobotState. This helps keep track of goals
@@ -13,9 +17,16 @@ import com.team254.frc2017.vision.VisionUpdateReceiver;
  * @see GoalTracker.java
  */
 public class VisionProcessor implements Loop, VisionUpdateReceiver {
+    // Each update used is recorded as its capture time, number of targets, and then each target's y and z
+    public static final String kCapturedAtChannel = "vision.captured_at";
+    public static final String kNumTargetsChannel = "vision.num_targets";
+    public static final String kTargetYChannel = "vision.target_y";
+    public static final String kTargetZChannel = "vision.target_z";
+
     static VisionProcessor instance_ = new VisionProcessor();
     VisionUpdate update_ = null;
     RobotState robot_state_ = RobotState.getInstance();
+    final InputRecorder recorder_ = InputRecorder.getInstance();
 
     public static VisionProcessor getInstance() {
         return instance_;
@@ -38,9 +49,24 @@ public class VisionProcessor implements Loop, VisionUpdateReceiver {
             update = update_;
             update_ = null;
         }
+        if (recorder_.isRecording()) {
+            record(update);
+        }
         robot_state_.addVisionUpdate(update.getCapturedAtTimestamp(), update.getTargets());
     }
 
+    private void record(VisionUpdate update) {
+        final List<TargetInfo> targets = update.getTargets();
+        recorder_.recordInput(kCapturedAtChannel, update.getCapturedAtTimestamp());
+        recorder_.recordInput(kNumTargetsChannel, targets == null ? 0 : targets.size());
+        if (targets != null) {
+            for (TargetInfo target : targets) {
+                recorder_.recordInput(kTargetYChannel, target.getY());
+                recorder_.recordInput(kTargetZChannel, target.getZ());
+            }
+        }
+    }
+
     @Override
     public void onStop(double timestamp) {
         // no-op
@@ -3,6 +3,7 @@ package com.team254.frc2017.paths;
 import com.team254.frc2017.auto.actions.WaitForPathMarkerAction;
 import com.team254.lib.util.control.Path;
 import com.team254.lib.util.control.PathSegment;
+import com.team254.lib.util.math.QuinticHermiteSpline;
 import com.team254.lib.util.math.RigidTransform2d;
 import com.team254.lib.util.math.Rotation2d;
 import com.team254.lib.util.math.Translation2d;
@@ -10,7 +11,7 @@ import com.team254.lib.util.math.Translation2d;
 import java.util.List;
 
 /**
- * Class used to convert a list of Waypoints into a Path object consisting of arc and line PathSegments
+ * Class used to convert a list of Waypoints into a Path object consisting of arc, spline and line PathSegments
  * 
  * @see Waypoint
  * @see Path
@@ -19,6 +20,7 @@ import java.util.List;
 public class PathBuilder {
     private static final double kEpsilon = 1E-9;
     private static final double kReallyBigNumber = 1E9;
+    private static final double kSplineTangentScale = 1.0;
 
     public static Path buildPathFromWaypoints(List<Waypoint> w) {
         Path p = new Path();
@@ -34,6 +36,7 @@ public class PathBuilder {
         new Line(w.get(w.size() - 2), w.get(w.size() - 1)).addToPath(p, 0);
         p.extrapolateLast();
         p.verifySpeeds();
+        p.parameterize();
         // System.out.println(p);
         return p;
     }
@@ -47,7 +50,9 @@ public class PathBuilder {
     /**
      * A waypoint along a path. Contains a position, radius (for creating curved paths), and speed. The information from
      * these waypoints is used by the PathBuilder class to generate Paths. Waypoints also contain an optional marker
-     * that is used by the WaitForPathMarkerAction.
+     * that is used by the WaitForPathMarkerAction, and can ask for the turn at the waypoint to be a spline instead of
+     * an arc. A spline turn starts and ends where the arc would, but its curvature ramps up from and back down to zero,
+     * so the robot doesn't have to slow down for a jump in curvature where the turn meets the adjoining lines.
      *
      * @see PathBuilder
      * @see WaitForPathMarkerAction
@@ -57,9 +62,10 @@ public class PathBuilder {
         double radius;
         double speed;
         String marker;
+        boolean spline;
 
         public Waypoint(Waypoint other) {
-            this(other.position.x(), other.position.y(), other.radius, other.speed, other.marker);
+            this(other.position.x(), other.position.y(), other.radius, other.speed, other.marker, other.spline);
         }
 
         public Waypoint(double x, double y, double r, double s) {
@@ -80,6 +86,16 @@ public class PathBuilder {
             speed = s;
             marker = m;
         }
+
+        public Waypoint(double x, double y, double r, double s, boolean spline) {
+            this(x, y, r, s);
+            this.spline = spline;
+        }
+
+        public Waypoint(double x, double y, double r, double s, String m, boolean spline) {
+            this(x, y, r, s, m);
+            this.spline = spline;
+        }
     }
 
     /**
@@ -119,6 +135,7 @@ public class PathBuilder {
 
     /**
      * An Arc object is formed by two Lines that share a common Waypoint. Contains a center position, radius, and speed.
+     * If the common Waypoint asks for a spline, the Arc is replaced by a spline between the same two points.
      */
     static class Arc {
         Line a;
@@ -141,7 +158,16 @@ public class PathBuilder {
 
         private void addToPath(Path p) {
             a.addToPath(p, speed);
-            if (radius > kEpsilon && radius < kReallyBigNumber) {
+            if (a.b.spline) {
+                final double chord = new Translation2d(a.end, b.start).norm();
+                if (chord > kEpsilon) {
+                    // Tangent to both lines with zero curvature at each end, so curvature is continuous.
+                    final Translation2d v0 = a.slope.scale(kSplineTangentScale * chord / a.slope.norm());
+                    final Translation2d v1 = b.slope.scale(kSplineTangentScale * chord / b.slope.norm());
+                    p.addSegment(new PathSegment(new QuinticHermiteSpline(a.end, v0, Translation2d.identity(),
+                            b.start, v1, Translation2d.identity()), speed, p.getLastMotionState(), b.speed));
+                }
+            } else if (radius > kEpsilon && radius < kReallyBigNumber) {
                 p.addSegment(new PathSegment(a.end.x(), a.end.y(), b.start.x(), b.start.y(), center.x(), center.y(),
                         speed, p.getLastMotionState(), b.speed));
             }
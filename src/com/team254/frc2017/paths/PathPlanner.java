@@ -0,0 +1,165 @@
+package com.team254.frc2017.paths;
+
+import com.team254.frc2017.Constants;
+import com.team254.frc2017.paths.PathBuilder.Waypoint;
+import com.team254.lib.util.control.Path;
+import com.team254.lib.util.math.RigidTransform2d;
+import com.team254.lib.util.math.Rotation2d;
+import com.team254.lib.util.math.Translation2d;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Generates Paths on the fly from the robot's current pose to a goal pose (ex. a gear peg), instead of from precoded
+ * Waypoints.
+ *
+ * A planned path leaves the start along the robot's current heading, turns towards a point behind the goal, and turns
+ * again to arrive along the goal heading: four Waypoints, with the corner radii chosen from a fixed list of candidates
+ * so that every turn fits and is no tighter than Constants.kPathPlannerMinTurnRadius. Candidates are tried from
+ * fastest (widest turns) to slowest, and the search stops as soon as one fits or the time budget runs out. If nothing
+ * fits in time, the planner falls back to a straight line to the goal, which arrives at the goal position but not at
+ * the goal heading (Result.fallback says so).
+ *
+ * @see PathBuilder
+ */
+public class PathPlanner {
+    private static final double kEpsilon = 1E-6;
+
+    // Distance to drive straight out of the start / into the goal, in order of preference.
+    static final double[] kLeadDistances = { 24.0, 36.0, 12.0, 6.0 };
+    static final double[] kApproachDistances = { 30.0, 48.0, 18.0, 9.0 };
+    // Tangent distances (PathBuilder Waypoint radius) for each corner, in order of preference.
+    static final double[] kCornerDistances = { 36.0, 24.0, 16.0, 10.0, 6.0 };
+
+    private static final ExecutorService sExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "PathPlanner");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The output of the planner.
+     */
+    public static class Result {
+        public final Path path;
+        public final boolean fallback;
+        public final int candidates_tried;
+        public final long planning_nanos;
+
+        Result(Path path, boolean fallback, int candidates_tried, long planning_nanos) {
+            this.path = path;
+            this.fallback = fallback;
+            this.candidates_tried = candidates_tried;
+            this.planning_nanos = planning_nanos;
+        }
+    }
+
+    /**
+     * Plan a path on a worker thread with the default time budget (Constants.kPathPlannerTimeBudget). The budget
+     * starts now, so time spent queued behind another plan counts against it.
+     */
+    public static Future<Result> planAsync(RigidTransform2d start, RigidTransform2d goal, boolean reversed,
+            double speed) {
+        final long deadline = System.nanoTime() + (long) (Constants.kPathPlannerTimeBudget * 1E9);
+        return sExecutor.submit(() -> plan(start, goal, reversed, speed, deadline - System.nanoTime()));
+    }
+
+    /**
+     * Plan a path from start to goal.
+     *
+     * @param start
+     *            the robot's current pose
+     * @param goal
+     *            the pose the robot should finish at
+     * @param reversed
+     *            whether the robot drives backwards along the path
+     * @param speed
+     *            the max speed of the path
+     * @param budget_nanos
+     *            time allowed for searching the candidates
+     * @return the planned path, or a straight line to the goal (ignoring the goal heading) if no candidate fit in the
+     *         time budget
+     */
+    public static Result plan(RigidTransform2d start, RigidTransform2d goal, boolean reversed, double speed,
+            long budget_nanos) {
+        final long start_time = System.nanoTime();
+        final long deadline = start_time + budget_nanos;
+        // Direction of travel at each end of the path.
+        Rotation2d start_heading = start.getRotation();
+        Rotation2d goal_heading = goal.getRotation();
+        if (reversed) {
+            start_heading = start_heading.rotateBy(Rotation2d.fromDegrees(180.0));
+            goal_heading = goal_heading.rotateBy(Rotation2d.fromDegrees(180.0));
+        }
+        final Translation2d p0 = start.getTranslation();
+        final Translation2d p3 = goal.getTranslation();
+
+        int candidates_tried = 0;
+        search: for (double lead : kLeadDistances) {
+            final Translation2d p1 = p0.translateBy(start_heading.toTranslation().scale(lead));
+            for (double approach : kApproachDistances) {
+                if (System.nanoTime() > deadline) {
+                    break search;
+                }
+                final Translation2d p2 = p3.translateBy(goal_heading.toTranslation().scale(-approach));
+                final Translation2d middle = new Translation2d(p1, p2);
+                final double middle_length = middle.norm();
+                if (middle_length < kEpsilon) {
+                    continue;
+                }
+                final double turn1 = Translation2d.getAngle(start_heading.toTranslation(), middle).getRadians();
+                final double turn2 = Translation2d.getAngle(middle, goal_heading.toTranslation()).getRadians();
+                for (double corner1 : kCornerDistances) {
+                    final double r1 = cornerDistance(corner1, turn1);
+                    if (r1 > lead || !turnFits(r1, turn1)) {
+                        continue;
+                    }
+                    for (double corner2 : kCornerDistances) {
+                        if (System.nanoTime() > deadline) {
+                            break search;
+                        }
+                        ++candidates_tried;
+                        final double r2 = cornerDistance(corner2, turn2);
+                        if (r2 > approach || r1 + r2 > middle_length || !turnFits(r2, turn2)) {
+                            continue;
+                        }
+                        List<Waypoint> waypoints = new ArrayList<>();
+                        waypoints.add(new Waypoint(p0, 0, 0));
+                        waypoints.add(new Waypoint(p1, r1, speed));
+                        waypoints.add(new Waypoint(p2, r2, speed));
+                        waypoints.add(new Waypoint(p3, 0, speed));
+                        return new Result(PathBuilder.buildPathFromWaypoints(waypoints), false, candidates_tried,
+                                System.nanoTime() - start_time);
+                    }
+                }
+            }
+        }
+
+        List<Waypoint> waypoints = new ArrayList<>();
+        waypoints.add(new Waypoint(p0, 0, 0));
+        waypoints.add(new Waypoint(p3, 0, speed));
+        return new Result(PathBuilder.buildPathFromWaypoints(waypoints), true, candidates_tried,
+                System.nanoTime() - start_time);
+    }
+
+    /**
+     * Corners that barely turn don't need an arc (and PathBuilder can't make one).
+     */
+    private static double cornerDistance(double corner, double turn_radians) {
+        return (turn_radians < kEpsilon) ? 0.0 : corner;
+    }
+
+    /**
+     * @return whether an arc with the given tangent distance is no tighter than the minimum turn radius
+     */
+    private static boolean turnFits(double corner, double turn_radians) {
+        if (corner == 0.0) {
+            return true;
+        }
+        return corner / Math.tan(turn_radians / 2.0) >= Constants.kPathPlannerMinTurnRadius;
+    }
+}
@@ -13,13 +13,16 @@ import java.util.ArrayList;
 /**
  * Uses a field and robot profile to calculate Waypoints for the paths used by the GearThenHopperShoot auto modes.
  * 
+ * The paths are built on first use and cached. The robot builds them on a startup thread (see calculatePaths()) while
+ * auto modes may ask for them, so the methods that touch the cache are synchronized.
+ * 
  * @see RobotProfile
  * @see FieldProfile
  */
 public class PathAdapter {
 
-    static final RobotProfile kRobotProfile = new CompBot();
-    static final FieldProfile kFieldProfile = new PracticeField();
+    static RobotProfile sRobotProfile = new CompBot();
+    static FieldProfile sFieldProfile = new PracticeField();
 
     // Path Variables
     static final double kLargeRadius = 45;
@@ -53,8 +56,8 @@ public class PathAdapter {
 
     public static Translation2d getRedHopperPosition() {
         Translation2d contactPoint = new Translation2d(
-                kFieldProfile.getRedWallToHopper() + kHopperOffsetX + kRobotProfile.getRedHopperXOffset(),
-                kFieldHeight / 2 - kFieldProfile.getRedCenterToHopper() - kRobotProfile.getRedHopperYOffset());
+                sFieldProfile.getRedWallToHopper() + kHopperOffsetX + sRobotProfile.getRedHopperXOffset(),
+                kFieldHeight / 2 - sFieldProfile.getRedCenterToHopper() - sRobotProfile.getRedHopperYOffset());
         Translation2d robotOffset = new Translation2d(kFrontDist, kSideDist);
         robotOffset = robotOffset.direction().rotateBy(kRedHopperHeading).toTranslation().scale(robotOffset.norm());
         return contactPoint.translateBy(robotOffset);
@@ -79,14 +82,14 @@ public class PathAdapter {
     public static Translation2d getRedGearCorrection() {
         return RigidTransform2d.fromRotation(kRedPegHeading)
                 .transformBy(RigidTransform2d
-                        .fromTranslation((new Translation2d(-kRobotProfile.getRedBoilerGearXCorrection(),
-                                -kRobotProfile.getRedBoilerGearYCorrection()))))
+                        .fromTranslation((new Translation2d(-sRobotProfile.getRedBoilerGearXCorrection(),
+                                -sRobotProfile.getRedBoilerGearYCorrection()))))
                 .getTranslation();
     }
 
     // final position in the gear path, first position in the hopper path
     public static Translation2d getRedGearPosition() {
-        Translation2d pegPosition = new Translation2d(kFieldProfile.getRedWallToAirship() + kPegOffsetX,
+        Translation2d pegPosition = new Translation2d(sFieldProfile.getRedWallToAirship() + kPegOffsetX,
                 kFieldHeight / 2 - kPegOffsetY);
         Translation2d robotOffset = new Translation2d(kRedPegHeading.cos() * kGearPlacementDist,
                 kRedPegHeading.sin() * kGearPlacementDist);
@@ -100,7 +103,7 @@ public class PathAdapter {
     // first position in the gear path
     public static RigidTransform2d getRedStartPose() {
         return new RigidTransform2d(new Translation2d(Constants.kCenterToFrontBumperDistance,
-                kFieldHeight / 2 - kFieldProfile.getRedCenterToBoiler() + Constants.kCenterToSideBumperDistance),
+                kFieldHeight / 2 - sFieldProfile.getRedCenterToBoiler() + Constants.kCenterToSideBumperDistance),
                 kStartHeading);
     }
 
@@ -112,7 +115,7 @@ public class PathAdapter {
 
     private static Path sRedGearPath = null;
 
-    public static Path getRedGearPath() {
+    public static synchronized Path getRedGearPath() {
         if (sRedGearPath == null) {
             ArrayList<Waypoint> sWaypoints = new ArrayList<Waypoint>();
             sWaypoints.add(new Waypoint(getRedStartPose().getTranslation(), 0, kSpeed));
@@ -126,7 +129,7 @@ public class PathAdapter {
 
     private static Path sRedHopperPath = null;
 
-    public static Path getRedHopperPath() {
+    public static synchronized Path getRedHopperPath() {
         if (sRedHopperPath == null) {
             ArrayList<Waypoint> sWaypoints = new ArrayList<Waypoint>();
             sWaypoints.add(new Waypoint(getRedGearPosition(), 0, kSpeed));
@@ -146,8 +149,8 @@ public class PathAdapter {
 
     public static Translation2d getBlueHopperPosition() {
         Translation2d contactPoint = new Translation2d(
-                kFieldProfile.getBlueWallToHopper() + kHopperOffsetX + kRobotProfile.getBlueHopperXOffset(),
-                kFieldHeight / 2 + kFieldProfile.getBlueCenterToHopper() + kRobotProfile.getBlueHopperYOffset());
+                sFieldProfile.getBlueWallToHopper() + kHopperOffsetX + sRobotProfile.getBlueHopperXOffset(),
+                kFieldHeight / 2 + sFieldProfile.getBlueCenterToHopper() + sRobotProfile.getBlueHopperYOffset());
         Translation2d robotOffset = new Translation2d(kFrontDist, -kSideDist);
         robotOffset = robotOffset.direction().rotateBy(kBlueHopperHeading).toTranslation().scale(robotOffset.norm());
         return contactPoint.translateBy(robotOffset);
@@ -170,13 +173,13 @@ public class PathAdapter {
     public static Translation2d getBlueGearCorrection() {
         return RigidTransform2d.fromRotation(kBluePegHeading)
                 .transformBy(RigidTransform2d
-                        .fromTranslation((new Translation2d(-kRobotProfile.getBlueBoilerGearXCorrection(),
-                                -kRobotProfile.getBlueBoilerGearYCorrection()))))
+                        .fromTranslation((new Translation2d(-sRobotProfile.getBlueBoilerGearXCorrection(),
+                                -sRobotProfile.getBlueBoilerGearYCorrection()))))
                 .getTranslation();
     }
 
     private static Translation2d getBlueGearPosition() {
-        Translation2d pegPosition = new Translation2d(kFieldProfile.getBlueWallToAirship() + kPegOffsetX,
+        Translation2d pegPosition = new Translation2d(sFieldProfile.getBlueWallToAirship() + kPegOffsetX,
                 kFieldHeight / 2 + kPegOffsetY);
         Translation2d robotOffset = new Translation2d(kBluePegHeading.cos() * kGearPlacementDist,
                 kBluePegHeading.sin() * kGearPlacementDist);
@@ -189,7 +192,7 @@ public class PathAdapter {
 
     public static RigidTransform2d getBlueStartPose() {
         return new RigidTransform2d(new Translation2d(Constants.kCenterToFrontBumperDistance,
-                kFieldHeight / 2 + kFieldProfile.getBlueCenterToBoiler() - Constants.kCenterToSideBumperDistance),
+                kFieldHeight / 2 + sFieldProfile.getBlueCenterToBoiler() - Constants.kCenterToSideBumperDistance),
                 kStartHeading);
     }
 
@@ -200,7 +203,7 @@ public class PathAdapter {
 
     private static Path sBlueGearPath = null;
 
-    public static Path getBlueGearPath() {
+    public static synchronized Path getBlueGearPath() {
         if (sBlueGearPath == null) {
             ArrayList<Waypoint> sWaypoints = new ArrayList<Waypoint>();
             sWaypoints.add(new Waypoint(getBlueStartPose().getTranslation(), 0, kSpeed));
@@ -214,7 +217,7 @@ public class PathAdapter {
 
     private static Path sBlueHopperPath = null;
 
-    public static Path getBlueHopperPath() {
+    public static synchronized Path getBlueHopperPath() {
         if (sBlueHopperPath == null) {
             ArrayList<Waypoint> sWaypoints = new ArrayList<Waypoint>();
             sWaypoints.add(new Waypoint(getBlueGearPosition(), 0, 0));
@@ -232,7 +235,21 @@ public class PathAdapter {
         return sBlueHopperPath;
     }
 
-    public static void calculatePaths() {
+    /**
+     * Switch the robot and field profiles used to generate paths. Any previously calculated paths are discarded, so
+     * they must be regenerated (ex. by calling calculatePaths()) before use. Used by the simulator to sweep every
+     * profile combination; the robot itself always uses the defaults above.
+     */
+    public static synchronized void setProfiles(RobotProfile robotProfile, FieldProfile fieldProfile) {
+        sRobotProfile = robotProfile;
+        sFieldProfile = fieldProfile;
+        sRedGearPath = null;
+        sRedHopperPath = null;
+        sBlueGearPath = null;
+        sBlueHopperPath = null;
+    }
+
+    public static synchronized void calculatePaths() {
         getBlueHopperPath();
         getRedHopperPath();
         getBlueGearPath();
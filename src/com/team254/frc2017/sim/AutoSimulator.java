@@ -0,0 +1,137 @@
+package com.team254.frc2017.sim;
+
+import com.team254.frc2017.paths.BoilerGearToHopperBlue;
+import com.team254.frc2017.paths.BoilerGearToHopperRed;
+import com.team254.frc2017.paths.BoilerGearToShootBlue;
+import com.team254.frc2017.paths.BoilerGearToShootRed;
+import com.team254.frc2017.paths.CenterGearToShootBlue;
+import com.team254.frc2017.paths.CenterGearToShootRed;
+import com.team254.frc2017.paths.PathContainer;
+import com.team254.frc2017.paths.StartToBoilerGearBlue;
+import com.team254.frc2017.paths.StartToBoilerGearRed;
+import com.team254.frc2017.paths.StartToCenterGearBlue;
+import com.team254.frc2017.paths.StartToCenterGearRed;
+import com.team254.frc2017.paths.StartToHopperBlue;
+import com.team254.frc2017.paths.StartToHopperRed;
+import com.team254.frc2017.paths.profiles.CompBot;
+import com.team254.frc2017.paths.profiles.DalyField;
+import com.team254.frc2017.paths.profiles.FieldProfile;
+import com.team254.frc2017.paths.profiles.PathAdapter;
+import com.team254.frc2017.paths.profiles.PracticeBot;
+import com.team254.frc2017.paths.profiles.PracticeField;
+import com.team254.frc2017.paths.profiles.RobotProfile;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Headless batch simulator for the autonomous modes. Runs the driving portion of every auto mode for every combination
+ * of robot and field profile through PathSimulation, spread across all available cores, and prints a summary of
+ * tracking error, controller cost, and how much faster than real time the batch ran.
+ *
+ * Only the paths are simulated; the mechanism actions (gear, shooter, etc.) and pose corrections made by the auto modes
+ * need the real subsystems.
+ */
+public class AutoSimulator {
+    private interface ModeFactory {
+        PathContainer[] getPaths();
+    }
+
+    private static class Mode {
+        final String name;
+        final ModeFactory factory;
+
+        Mode(String name, ModeFactory factory) {
+            this.name = name;
+            this.factory = factory;
+        }
+    }
+
+    // Keep in sync with the DrivePathActions in com.team254.frc2017.auto.modes
+    private static final Mode[] kModes = {
+            new Mode("BoilerGearThenShootModeRed",
+                    () -> new PathContainer[] { new StartToBoilerGearRed(), new BoilerGearToShootRed() }),
+            new Mode("BoilerGearThenShootModeBlue",
+                    () -> new PathContainer[] { new StartToBoilerGearBlue(), new BoilerGearToShootBlue() }),
+            new Mode("CenterGearThenShootModeRed",
+                    () -> new PathContainer[] { new StartToCenterGearRed(), new CenterGearToShootRed() }),
+            new Mode("CenterGearThenShootModeBlue",
+                    () -> new PathContainer[] { new StartToCenterGearBlue(), new CenterGearToShootBlue() }),
+            new Mode("GearThenHopperShootModeRed",
+                    () -> new PathContainer[] { new StartToBoilerGearRed(), new BoilerGearToHopperRed() }),
+            new Mode("GearThenHopperShootModeBlue",
+                    () -> new PathContainer[] { new StartToBoilerGearBlue(), new BoilerGearToHopperBlue() }),
+            new Mode("RamHopperShootModeRed", () -> new PathContainer[] { new StartToHopperRed() }),
+            new Mode("RamHopperShootModeBlue", () -> new PathContainer[] { new StartToHopperBlue() }),
+    };
+
+    private static final RobotProfile[] kRobotProfiles = { new CompBot(), new PracticeBot() };
+    private static final FieldProfile[] kFieldProfiles = { new PracticeField(), new DalyField() };
+
+    /**
+     * Build a simulation for every mode and profile combination. PathAdapter caches its paths in static fields, so the
+     * paths are all built up front on a single thread; each simulation then gets its own Path objects.
+     */
+    public static List<PathSimulation> buildSimulations() {
+        List<PathSimulation> simulations = new ArrayList<>();
+        for (RobotProfile robot : kRobotProfiles) {
+            for (FieldProfile field : kFieldProfiles) {
+                for (Mode mode : kModes) {
+                    // Discard the cached paths so that every simulation follows fresh copies.
+                    PathAdapter.setProfiles(robot, field);
+                    PathContainer[] containers = mode.factory.getPaths();
+                    List<PathSimulation.Leg> legs = new ArrayList<>();
+                    for (PathContainer container : containers) {
+                        legs.add(PathSimulation.Leg.fromContainer(container));
+                    }
+                    simulations.add(new PathSimulation(
+                            mode.name + " (" + robot.getClass().getSimpleName() + ", "
+                                    + field.getClass().getSimpleName() + ")",
+                            containers[0].getStartPose(), legs));
+                }
+            }
+        }
+        PathAdapter.setProfiles(new CompBot(), new PracticeField());
+        return simulations;
+    }
+
+    public static void main(String[] args) throws Exception {
+        final int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        List<PathSimulation> simulations = buildSimulations();
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        final long start = System.nanoTime();
+        List<Future<PathSimulation.Result>> futures = new ArrayList<>();
+        for (PathSimulation simulation : simulations) {
+            futures.add(pool.submit(simulation));
+        }
+        List<PathSimulation.Result> results = new ArrayList<>();
+        for (Future<PathSimulation.Result> future : futures) {
+            results.add(future.get());
+        }
+        final double wall_time = (System.nanoTime() - start) * 1E-9;
+        pool.shutdown();
+
+        double total_sim_time = 0.0;
+        int failures = 0;
+        System.out.println(String.format("%-62s %8s %9s %9s %10s %10s", "Mode", "Time (s)", "End (in)", "CTE (in)",
+                "Mean (us)", "Max (us)"));
+        for (PathSimulation.Result result : results) {
+            total_sim_time += result.sim_time;
+            if (!result.allFinished()) {
+                ++failures;
+            }
+            System.out.println(String.format("%-62s %8.2f %9.2f %9.2f %10.1f %10.1f%s", result.name, result.sim_time,
+                    result.maxEndError(), result.maxCrossTrackError(), result.mean_update_nanos * 1E-3,
+                    result.max_update_nanos * 1E-3, result.allFinished() ? "" : "  DID NOT FINISH"));
+        }
+        System.out.println(String.format(
+                "\n%d runs (%.1f s of auto) in %.3f s wall time on %d threads: %.0fx real time, %d did not finish",
+                results.size(), total_sim_time, wall_time, threads, total_sim_time / wall_time, failures));
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+}
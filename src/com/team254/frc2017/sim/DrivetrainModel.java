@@ -0,0 +1,99 @@
+package com.team254.frc2017.sim;
+
+import com.team254.frc2017.Constants;
+import com.team254.frc2017.Kinematics;
+import com.team254.lib.util.math.RigidTransform2d;
+import com.team254.lib.util.math.Rotation2d;
+
+/**
+ * A simple plant model of the drivebase for running the path following code without a robot. Each side of the drive
+ * tracks its velocity setpoint with a first order lag and an acceleration limit (roughly what the Talon velocity loops
+ * do on carpet), and the true pose is integrated from the wheel motion using the same scrub factor as Kinematics. The
+ * simulated sensors mirror the Drive getters: quantized encoders and a gyro that reads the true heading.
+ */
+public class DrivetrainModel {
+    public static final double kDefaultTimeConstant = 0.05; // seconds
+    public static final double kDefaultMaxAccel = 300.0; // inches per second^2
+    public static final double kEncoderCountsPerRev = 4096.0;
+
+    private final double mTimeConstant;
+    private final double mMaxAccel;
+    private final double mInchesPerCount;
+
+    private RigidTransform2d mPose;
+    private double mLeftSetpoint = 0.0;
+    private double mRightSetpoint = 0.0;
+    private double mLeftVelocity = 0.0;
+    private double mRightVelocity = 0.0;
+    private double mLeftDistance = 0.0;
+    private double mRightDistance = 0.0;
+
+    public DrivetrainModel(RigidTransform2d initial_pose) {
+        this(initial_pose, kDefaultTimeConstant, kDefaultMaxAccel);
+    }
+
+    public DrivetrainModel(RigidTransform2d initial_pose, double time_constant, double max_accel) {
+        mPose = initial_pose;
+        mTimeConstant = time_constant;
+        mMaxAccel = max_accel;
+        mInchesPerCount = Math.PI * Constants.kDriveWheelDiameterInches / kEncoderCountsPerRev;
+    }
+
+    /**
+     * Command new wheel velocities, as Drive.updateVelocitySetpoint would send them to the Talons.
+     */
+    public void setVelocitySetpoint(double left_inches_per_sec, double right_inches_per_sec) {
+        mLeftSetpoint = left_inches_per_sec;
+        mRightSetpoint = right_inches_per_sec;
+    }
+
+    /**
+     * Advance the model by dt seconds.
+     */
+    public void update(double dt) {
+        final double left_delta_v = updateVelocity(mLeftSetpoint, mLeftVelocity, dt) - mLeftVelocity;
+        final double right_delta_v = updateVelocity(mRightSetpoint, mRightVelocity, dt) - mRightVelocity;
+        // Trapezoidal integration of the wheel distances.
+        final double left_delta = (mLeftVelocity + 0.5 * left_delta_v) * dt;
+        final double right_delta = (mRightVelocity + 0.5 * right_delta_v) * dt;
+        mLeftVelocity += left_delta_v;
+        mRightVelocity += right_delta_v;
+        mLeftDistance += left_delta;
+        mRightDistance += right_delta;
+        mPose = Kinematics.integrateForwardKinematics(mPose, Kinematics.forwardKinematics(left_delta, right_delta));
+    }
+
+    private double updateVelocity(double setpoint, double velocity, double dt) {
+        double accel = (setpoint - velocity) / Math.max(mTimeConstant, dt);
+        accel = Math.max(-mMaxAccel, Math.min(mMaxAccel, accel));
+        return velocity + accel * dt;
+    }
+
+    public RigidTransform2d getPose() {
+        return mPose;
+    }
+
+    public double getLeftDistanceInches() {
+        return quantize(mLeftDistance);
+    }
+
+    public double getRightDistanceInches() {
+        return quantize(mRightDistance);
+    }
+
+    public double getLeftVelocityInchesPerSec() {
+        return mLeftVelocity;
+    }
+
+    public double getRightVelocityInchesPerSec() {
+        return mRightVelocity;
+    }
+
+    public Rotation2d getGyroAngle() {
+        return mPose.getRotation();
+    }
+
+    private double quantize(double inches) {
+        return Math.round(inches / mInchesPerCount) * mInchesPerCount;
+    }
+}
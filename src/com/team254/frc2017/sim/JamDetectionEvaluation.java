@@ -0,0 +1,275 @@
+package com.team254.frc2017.sim;
+
+import com.team254.frc2017.Constants;
+import com.team254.frc2017.subsystems.ShooterJamDetector;
+import com.team254.lib.util.PageHinkleyDetector;
+import com.team254.lib.util.RollingStatistics;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Offline evaluation of the jam detection. Replays a shooter log (the SHOOTER-LOGS.csv written by the Shooter) through
+ * the ShooterJamDetector the Superstructure uses, and through the old windowed rule it replaced, and prints when each
+ * one would have called a jam in every stretch of shooting.
+ *
+ * Usage: JamDetectionEvaluation [SHOOTER-LOGS.csv [jam times]]
+ *
+ * The jam times are a comma separated list of the timestamps (from the log) at which fuel actually stopped going
+ * through, found by watching match video. With them the detection delay, misses, and false alarms are worked out too.
+ * If the log has a feeder_current column, the feeder's current detector is replayed as well. With no arguments a
+ * synthetic log with known jams is generated, as a sanity check of the harness and the constants.
+ */
+public class JamDetectionEvaluation {
+    // Gap in the log that separates two stretches of shooting.
+    private static final double kMaxSampleGap = 0.1;
+
+    private static class Sample {
+        final double timestamp;
+        final double rpm;
+        final double feeder_current;
+
+        Sample(double timestamp, double rpm, double feeder_current) {
+            this.timestamp = timestamp;
+            this.rpm = rpm;
+            this.feeder_current = feeder_current;
+        }
+    }
+
+    /**
+     * The rule the Superstructure used before ShooterJamDetector: a jam is called once the RPM has stayed within
+     * kShooterDisturbanceThreshold of its windowed average for kShooterJamTimeout.
+     */
+    private static class WindowedJamDetector {
+        private final RollingStatistics mRpmBuffer = new RollingStatistics(Constants.kShooterJamBufferSize);
+        private double mStartTime;
+        private double mLastDisturbanceTime;
+
+        void reset(double timestamp) {
+            mRpmBuffer.clear();
+            mStartTime = timestamp;
+            mLastDisturbanceTime = timestamp;
+        }
+
+        boolean update(double timestamp, double rpm) {
+            if ((timestamp - mStartTime < Constants.kShooterMinShootingTime) || !mRpmBuffer.isFull()
+                    || (Math.abs(mRpmBuffer.getAverage() - rpm) > Constants.kShooterDisturbanceThreshold)) {
+                mLastDisturbanceTime = timestamp;
+            }
+            mRpmBuffer.addValue(rpm);
+            return timestamp - mLastDisturbanceTime > Constants.kShooterJamTimeout;
+        }
+    }
+
+    private static class Score {
+        final String name;
+        int detections = 0;
+        int misses = 0;
+        int false_alarms = 0;
+        double total_delay = 0.0;
+        double max_delay = 0.0;
+
+        Score(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Score the first alarm in a stretch (NaN for none) against the jam in it (NaN for none).
+         */
+        void add(double alarm_time, double jam_time) {
+            if (Double.isNaN(jam_time)) {
+                if (!Double.isNaN(alarm_time)) {
+                    ++false_alarms;
+                }
+            } else if (Double.isNaN(alarm_time)) {
+                ++misses;
+            } else if (alarm_time < jam_time) {
+                ++false_alarms;
+            } else {
+                ++detections;
+                total_delay += alarm_time - jam_time;
+                max_delay = Math.max(max_delay, alarm_time - jam_time);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "%-10s detected %3d  missed %3d  false alarms %3d  mean delay %.3f s  max delay %.3f s", name,
+                    detections, misses, false_alarms, detections == 0 ? Double.NaN : total_delay / detections,
+                    detections == 0 ? Double.NaN : max_delay);
+        }
+    }
+
+    /**
+     * Read a log written by ReflectingCSVWriter. Only the samples where the shooter was holding its setpoint are kept,
+     * since that is when the Superstructure looks for jams.
+     */
+    static List<Sample> readShooterLog(String file_name) throws IOException {
+        List<Sample> samples = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(file_name))) {
+            List<String> header = Arrays.asList(reader.readLine().split(",\\s*"));
+            final int timestamp_index = header.indexOf("timestamp");
+            final int rpm_index = header.indexOf("rpm");
+            final int control_method_index = header.indexOf("control_method");
+            final int feeder_current_index = header.indexOf("feeder_current");
+            if (timestamp_index < 0 || rpm_index < 0) {
+                throw new IOException(file_name + " has no timestamp or rpm column");
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(",\\s*");
+                if (fields.length != header.size()) {
+                    continue; // Cut off at the end of the match
+                }
+                if (control_method_index >= 0 && !fields[control_method_index].startsWith("HOLD")) {
+                    continue;
+                }
+                samples.add(new Sample(Double.parseDouble(fields[timestamp_index]),
+                        Double.parseDouble(fields[rpm_index]),
+                        feeder_current_index < 0 ? Double.NaN : Double.parseDouble(fields[feeder_current_index])));
+            }
+        }
+        return samples;
+    }
+
+    /**
+     * A made up log: stretches of shooting where every ball knocks a couple hundred rpm off the flywheel, and every
+     * other stretch jams partway through (the balls stop and the feeder stalls).
+     */
+    static List<Sample> makeSyntheticLog(int num_stretches, List<Double> jam_times, long seed) {
+        final double kSetpointRpm = 3000.0;
+        final double kBallDipRpm = 200.0;
+        final double kRecoveryTimeConstant = 0.03;
+        final double kMeanBallInterval = 0.1;
+        final double kRpmNoise = 4.0;
+        final double kFeedingCurrent = 15.0;
+        final double kStalledCurrent = 40.0;
+        final double kCurrentNoise = 2.0;
+        final double kStretchLength = 6.0;
+        final double dt = Constants.kLooperDt;
+
+        Random random = new Random(seed);
+        List<Sample> samples = new ArrayList<>();
+        double t = 0.0;
+        for (int i = 0; i < num_stretches; ++i) {
+            final double start = t;
+            final double jam_time = (i % 2 == 0) ? start + 2.0 + 2.0 * random.nextDouble() : Double.NaN;
+            if (!Double.isNaN(jam_time)) {
+                jam_times.add(jam_time);
+            }
+            double dip = 0.0;
+            double next_ball = start + 0.3;
+            for (; t < start + kStretchLength; t += dt) {
+                final boolean jammed = t >= jam_time;
+                if (!jammed && t >= next_ball) {
+                    dip += kBallDipRpm * (0.5 + random.nextDouble());
+                    next_ball = t + kMeanBallInterval * (0.5 + random.nextDouble());
+                }
+                dip *= Math.exp(-dt / kRecoveryTimeConstant);
+                samples.add(new Sample(t, kSetpointRpm - dip + kRpmNoise * random.nextGaussian(),
+                        (jammed ? kStalledCurrent : kFeedingCurrent) + kCurrentNoise * random.nextGaussian()));
+            }
+            t += 1.0; // Not shooting
+        }
+        return samples;
+    }
+
+    static List<List<Sample>> splitIntoStretches(List<Sample> samples) {
+        List<List<Sample>> stretches = new ArrayList<>();
+        List<Sample> stretch = null;
+        double last_timestamp = Double.NEGATIVE_INFINITY;
+        for (Sample sample : samples) {
+            if (stretch == null || sample.timestamp - last_timestamp > kMaxSampleGap) {
+                stretch = new ArrayList<>();
+                stretches.add(stretch);
+            }
+            stretch.add(sample);
+            last_timestamp = sample.timestamp;
+        }
+        return stretches;
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<Sample> samples;
+        List<Double> jam_times = new ArrayList<>();
+        if (args.length == 0) {
+            System.out.println("No log given, using a synthetic one");
+            samples = makeSyntheticLog(20, jam_times, 254);
+        } else {
+            samples = readShooterLog(args[0]);
+            if (args.length > 1) {
+                for (String time : args[1].split(",")) {
+                    jam_times.add(Double.parseDouble(time.trim()));
+                }
+            }
+        }
+        final boolean have_labels = !jam_times.isEmpty();
+
+        ShooterJamDetector shooter_detector = new ShooterJamDetector();
+        WindowedJamDetector windowed_detector = new WindowedJamDetector();
+        PageHinkleyDetector feeder_detector = new PageHinkleyDetector(PageHinkleyDetector.Direction.INCREASE,
+                Constants.kFeederJamDetectorDeltaAmps, Constants.kFeederJamDetectorThresholdAmps,
+                Constants.kFeederJamDetectorMinSamples);
+        Score windowed_score = new Score("windowed");
+        Score shooter_score = new Score("rpm");
+        Score feeder_score = new Score("feeder");
+        Score combined_score = new Score("rpm+feeder");
+
+        System.out.println(String.format("%8s %8s %8s | %10s %10s %10s", "start", "end", "jam", "windowed", "rpm",
+                "feeder"));
+        for (List<Sample> stretch : splitIntoStretches(samples)) {
+            final double start = stretch.get(0).timestamp;
+            final double end = stretch.get(stretch.size() - 1).timestamp;
+            shooter_detector.reset(start);
+            windowed_detector.reset(start);
+            feeder_detector.reset();
+            double windowed_alarm = Double.NaN;
+            double shooter_alarm = Double.NaN;
+            double feeder_alarm = Double.NaN;
+            for (Sample sample : stretch) {
+                if (windowed_detector.update(sample.timestamp, sample.rpm) && Double.isNaN(windowed_alarm)) {
+                    windowed_alarm = sample.timestamp;
+                }
+                if (shooter_detector.update(sample.timestamp, sample.rpm) && Double.isNaN(shooter_alarm)) {
+                    shooter_alarm = sample.timestamp;
+                }
+                if (!Double.isNaN(sample.feeder_current)
+                        && sample.timestamp - start > Constants.kFeederJamDetectorStartupTime
+                        && feeder_detector.addValue(sample.feeder_current) && Double.isNaN(feeder_alarm)) {
+                    feeder_alarm = sample.timestamp;
+                }
+            }
+
+            double jam_time = Double.NaN;
+            for (double time : jam_times) {
+                if (time >= start && time <= end) {
+                    jam_time = time;
+                }
+            }
+            System.out.println(String.format("%8.3f %8.3f %8.3f | %10.3f %10.3f %10.3f", start, end, jam_time,
+                    windowed_alarm, shooter_alarm, feeder_alarm));
+            if (have_labels) {
+                windowed_score.add(windowed_alarm, jam_time);
+                shooter_score.add(shooter_alarm, jam_time);
+                feeder_score.add(feeder_alarm, jam_time);
+                combined_score.add(Double.isNaN(feeder_alarm) ? shooter_alarm
+                        : Double.isNaN(shooter_alarm) ? feeder_alarm : Math.min(shooter_alarm, feeder_alarm),
+                        jam_time);
+            }
+        }
+
+        if (have_labels) {
+            System.out.println();
+            System.out.println(windowed_score);
+            System.out.println(shooter_score);
+            System.out.println(feeder_score);
+            System.out.println(combined_score);
+        }
+    }
+}
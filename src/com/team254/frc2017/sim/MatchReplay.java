@@ -0,0 +1,279 @@
+package com.team254.frc2017.sim;
+
+import com.team254.frc2017.RobotState;
+import com.team254.frc2017.SubsystemManager;
+import com.team254.frc2017.loops.Loop;
+import com.team254.frc2017.loops.LooperInterface;
+import com.team254.frc2017.loops.RobotStateEstimator;
+import com.team254.frc2017.loops.VisionProcessor;
+import com.team254.frc2017.subsystems.Drive;
+import com.team254.frc2017.subsystems.Feeder;
+import com.team254.frc2017.subsystems.Hopper;
+import com.team254.frc2017.subsystems.Intake;
+import com.team254.frc2017.subsystems.LED;
+import com.team254.frc2017.subsystems.MotorGearGrabber;
+import com.team254.frc2017.subsystems.Shooter;
+import com.team254.frc2017.subsystems.Superstructure;
+import com.team254.frc2017.vision.TargetInfo;
+import com.team254.frc2017.vision.VisionUpdate;
+import com.team254.lib.util.InputRecorder;
+import com.team254.lib.util.InputRecording;
+import com.team254.lib.util.math.RigidTransform2d;
+import com.team254.lib.util.math.Rotation2d;
+import com.team254.lib.util.math.Translation2d;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Replays an input recording (an INPUT-RECORDING segment from the robot's log directory, gzipped or not) through the
+ * real subsystem (Drive, Superstructure, Shooter, Feeder, Hopper, Intake, LED and gear grabber), VisionProcessor and
+ * RobotStateEstimator loops, as fast as they will run, and compares what they send to the hardware (and the pose they
+ * estimate) with what the robot recorded. Because every sensor value comes from the recording and the loops are
+ * stepped with the recorded timestamps, a replay of the same code must send exactly the same commands; anything else
+ * is a difference worth looking at. Also reports how long each loop took, so that hot paths can be profiled on a real
+ * match's workload.
+ *
+ * Only the loops are replayed, not teleop or auto. The Superstructure's wanted state and the robot state resets that
+ * teleop and auto set are recorded, so those are replayed, and so is the pose. Other commands from teleop and auto
+ * (driving, paths, the intake and gear grabber buttons) are not, so while the robot was, say, following a path, the
+ * replayed Drive will not send the same commands. Those show up as missing (sent on the robot but not in the replay)
+ * or extra, rather than as differences.
+ *
+ * Usage: MatchReplay recording.csv[.gz] ...
+ */
+public class MatchReplay {
+    private static final int kMaxDifferencesShown = 10;
+
+    public static class Result {
+        public final String name;
+        public int cycles = 0;
+        public double recorded_time = 0.0;
+        public double wall_time = 0.0;
+        public long matched = 0;
+        public long differ = 0;
+        public long missing = 0;
+        public long extra = 0;
+        public long underruns = 0;
+        public final List<String> differences = new ArrayList<>();
+        public final Map<String, long[]> loop_nanos = new LinkedHashMap<>(); // total, max, count
+
+        Result(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * Runs registered loops by hand, timing each one.
+     */
+    private static class TimedLooper implements LooperInterface {
+        private final List<Loop> mLoops = new ArrayList<>();
+        private final List<String> mNames = new ArrayList<>();
+
+        @Override
+        public void register(String name, Loop loop) {
+            mLoops.add(loop);
+            mNames.add(name);
+        }
+
+        void start(double timestamp) {
+            for (Loop loop : mLoops) {
+                loop.onStart(timestamp);
+            }
+        }
+
+        void loop(double timestamp, Map<String, long[]> nanos) {
+            for (int i = 0; i < mLoops.size(); ++i) {
+                final long start = System.nanoTime();
+                mLoops.get(i).onLoop(timestamp);
+                final long elapsed = System.nanoTime() - start;
+                long[] stats = nanos.computeIfAbsent(mNames.get(i), k -> new long[3]);
+                stats[0] += elapsed;
+                stats[1] = Math.max(stats[1], elapsed);
+                ++stats[2];
+            }
+        }
+
+        void stop(double timestamp) {
+            for (Loop loop : mLoops) {
+                loop.onStop(timestamp);
+            }
+        }
+    }
+
+    public static Result replay(String name, InputRecording recording) {
+        Result result = new Result(name);
+        ReplayRobotHardware hardware = new ReplayRobotHardware(recording);
+        Drive drive = new Drive(hardware);
+        Shooter shooter = new Shooter(hardware);
+        Feeder feeder = new Feeder(hardware);
+        Hopper hopper = new Hopper(hardware);
+        Intake intake = new Intake(hardware);
+        LED led = new LED(hardware);
+        MotorGearGrabber gear_grabber = new MotorGearGrabber(hardware, led);
+        Superstructure superstructure = new Superstructure(hardware, drive, shooter, feeder, hopper, intake, led);
+        SubsystemManager manager = new SubsystemManager(Arrays.asList(drive, superstructure, shooter, feeder, hopper,
+                intake, led, gear_grabber));
+        TimedLooper looper = new TimedLooper();
+        // Same order as on the robot.
+        manager.registerEnabledLoops(looper);
+        looper.register("VisionProcessor", VisionProcessor.getInstance());
+        looper.register("RobotStateEstimator", new RobotStateEstimator(drive));
+        RobotState.getInstance().reset(0.0, new RigidTransform2d());
+        // Whatever was sent while constructing happened before the recording began.
+        hardware.takeOutputs();
+
+        double first_timestamp = Double.NaN;
+        double last_timestamp = Double.NaN;
+        final long start = System.nanoTime();
+        while (recording.advance()) {
+            final InputRecording.Cycle cycle = recording.getCycle();
+            if (Double.isNaN(cycle.timestamp)) {
+                continue; // Recorded before the loops started
+            }
+            if (Double.isNaN(first_timestamp)) {
+                first_timestamp = cycle.timestamp;
+            }
+            last_timestamp = cycle.timestamp;
+            ++result.cycles;
+            Map<String, List<Double>> replayed = new LinkedHashMap<>();
+            switch (cycle.type) {
+            case START:
+                looper.start(cycle.timestamp);
+                break;
+            case LOOP:
+                replayVisionUpdates(recording, cycle);
+                looper.loop(cycle.timestamp, result.loop_nanos);
+                break;
+            case STOP:
+                looper.stop(cycle.timestamp);
+                break;
+            }
+            replayed.putAll(hardware.takeOutputs());
+            if (cycle.type == InputRecorder.CycleType.LOOP) {
+                final RigidTransform2d pose = RobotState.getInstance().getLatestFieldToVehicle().getValue();
+                replayed.put(RobotStateEstimator.kPoseXChannel, Collections.singletonList(pose.getTranslation().x()));
+                replayed.put(RobotStateEstimator.kPoseYChannel, Collections.singletonList(pose.getTranslation().y()));
+                replayed.put(RobotStateEstimator.kPoseThetaChannel,
+                        Collections.singletonList(pose.getRotation().getDegrees()));
+            }
+            compare(cycle, replayed, result);
+            replayRobotStateResets(cycle);
+            replaySuperstructureWantedStates(cycle, superstructure);
+        }
+        result.wall_time = (System.nanoTime() - start) * 1E-9;
+        result.recorded_time = result.cycles > 0 ? last_timestamp - first_timestamp : 0.0;
+        result.underruns = recording.getNumUnderruns();
+        return result;
+    }
+
+    /**
+     * Hand the VisionProcessor the update it used in this cycle on the robot.
+     */
+    private static void replayVisionUpdates(InputRecording recording, InputRecording.Cycle cycle) {
+        final int num_updates = cycle.getInputs(VisionProcessor.kCapturedAtChannel).size();
+        for (int i = 0; i < num_updates; ++i) {
+            final double captured_at = recording.read(VisionProcessor.kCapturedAtChannel, 0.0);
+            final int num_targets = (int) recording.read(VisionProcessor.kNumTargetsChannel, 0.0);
+            List<TargetInfo> targets = new ArrayList<>(num_targets);
+            for (int j = 0; j < num_targets; ++j) {
+                targets.add(new TargetInfo(recording.read(VisionProcessor.kTargetYChannel, 0.0),
+                        recording.read(VisionProcessor.kTargetZChannel, 0.0)));
+            }
+            VisionProcessor.getInstance().gotUpdate(new VisionUpdate(captured_at, targets));
+        }
+    }
+
+    /**
+     * Teleop and auto reset the robot state in between cycles, so do the same after replaying the cycle.
+     */
+    private static void replayRobotStateResets(InputRecording.Cycle cycle) {
+        List<Double> times = new ArrayList<>(cycle.getInputs(RobotState.kResetTimeChannel));
+        List<Double> xs = new ArrayList<>(cycle.getInputs(RobotState.kResetXChannel));
+        List<Double> ys = new ArrayList<>(cycle.getInputs(RobotState.kResetYChannel));
+        List<Double> thetas = new ArrayList<>(cycle.getInputs(RobotState.kResetThetaChannel));
+        times.addAll(cycle.getExternalInputs(RobotState.kResetTimeChannel));
+        xs.addAll(cycle.getExternalInputs(RobotState.kResetXChannel));
+        ys.addAll(cycle.getExternalInputs(RobotState.kResetYChannel));
+        thetas.addAll(cycle.getExternalInputs(RobotState.kResetThetaChannel));
+        for (int i = 0; i < times.size(); ++i) {
+            RobotState.getInstance().reset(times.get(i), new RigidTransform2d(new Translation2d(xs.get(i), ys.get(i)),
+                    Rotation2d.fromDegrees(thetas.get(i))));
+        }
+    }
+
+    /**
+     * Set the Superstructure's wanted state as teleop, auto and the auto actions did during the cycle.
+     */
+    private static void replaySuperstructureWantedStates(InputRecording.Cycle cycle, Superstructure superstructure) {
+        List<Double> states = new ArrayList<>(cycle.getInputs(Superstructure.kWantedStateChannel));
+        states.addAll(cycle.getExternalInputs(Superstructure.kWantedStateChannel));
+        final Superstructure.WantedState[] values = Superstructure.WantedState.values();
+        for (double state : states) {
+            superstructure.setWantedState(values[(int) state]);
+        }
+    }
+
+    private static void compare(InputRecording.Cycle cycle, Map<String, List<Double>> replayed, Result result) {
+        final Map<String, List<Double>> recorded = cycle.getOutputs();
+        Set<String> channels = new LinkedHashSet<>(recorded.keySet());
+        channels.addAll(replayed.keySet());
+        for (String channel : channels) {
+            final List<Double> expected = recorded.getOrDefault(channel, Collections.emptyList());
+            final List<Double> actual = replayed.getOrDefault(channel, Collections.emptyList());
+            final int common = Math.min(expected.size(), actual.size());
+            for (int i = 0; i < common; ++i) {
+                if (Double.compare(expected.get(i), actual.get(i)) == 0) {
+                    ++result.matched;
+                } else {
+                    ++result.differ;
+                    if (result.differences.size() < kMaxDifferencesShown) {
+                        result.differences.add(String.format("t=%.3f %s: recorded %s, replayed %s", cycle.timestamp,
+                                channel, expected.get(i), actual.get(i)));
+                    }
+                }
+            }
+            result.missing += expected.size() - common;
+            result.extra += actual.size() - common;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: MatchReplay recording.csv[.gz] ...");
+            System.exit(2);
+        }
+        boolean all_matched = true;
+        for (String arg : args) {
+            final File file = new File(arg);
+            final Result result = replay(file.getName(), InputRecording.read(file));
+            System.out.println(String.format("%s: %d cycles (%.1f s) replayed in %.3f s, %.0fx real time",
+                    result.name, result.cycles, result.recorded_time, result.wall_time,
+                    result.recorded_time / result.wall_time));
+            System.out.println(String.format(
+                    "  outputs: %d matched, %d differ, %d missing, %d extra; %d input underruns", result.matched,
+                    result.differ, result.missing, result.extra, result.underruns));
+            for (String difference : result.differences) {
+                System.out.println("    " + difference);
+            }
+            System.out.println(String.format("  %-32s %10s %10s", "Loop", "Mean (us)", "Max (us)"));
+            for (Map.Entry<String, long[]> entry : result.loop_nanos.entrySet()) {
+                final long[] stats = entry.getValue();
+                System.out.println(String.format("  %-32s %10.1f %10.1f", entry.getKey(),
+                        stats[0] * 1E-3 / Math.max(1, stats[2]), stats[1] * 1E-3));
+            }
+            all_matched &= result.differ == 0 && result.underruns == 0;
+        }
+        if (!all_matched) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.team254.frc2017.sim;
+
+import com.team254.frc2017.Constants;
+import com.team254.frc2017.paths.PathPlanner;
+import com.team254.frc2017.paths.profiles.PathAdapter;
+import com.team254.lib.util.math.RigidTransform2d;
+import com.team254.lib.util.math.Rotation2d;
+import com.team254.lib.util.math.Translation2d;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmark for the PathPlanner: plans from random start poses near the red alliance wall to the red boiler gear peg,
+ * reports planning time against Constants.kPathPlannerTimeBudget, and drives every planned path through a
+ * PathSimulation to check that the robot actually ends up at the peg.
+ */
+public class PathPlannerBenchmark {
+    private static final int kPlans = 2000;
+
+    public static void main(String[] args) {
+        final RigidTransform2d goal = new RigidTransform2d(PathAdapter.getRedGearPosition(),
+                Rotation2d.fromDegrees(240.0));
+        final long budget = (long) (Constants.kPathPlannerTimeBudget * 1E9);
+        Random random = new Random(254);
+
+        // Warm up the JIT so the numbers are representative of a long running robot program.
+        for (int i = 0; i < kPlans; ++i) {
+            PathPlanner.plan(randomStart(random), goal, true, 80.0, budget);
+        }
+
+        long[] times = new long[kPlans];
+        int fallbacks = 0;
+        int over_budget = 0;
+        List<PathSimulation> simulations = new ArrayList<>();
+        for (int i = 0; i < kPlans; ++i) {
+            final RigidTransform2d start = randomStart(random);
+            PathPlanner.Result result = PathPlanner.plan(start, goal, true, 80.0, budget);
+            times[i] = result.planning_nanos;
+            if (result.fallback) {
+                ++fallbacks;
+            }
+            if (result.planning_nanos > budget) {
+                ++over_budget;
+            }
+            if (i % 20 == 0) {
+                simulations.add(new PathSimulation("plan " + i, start,
+                        Arrays.asList(new PathSimulation.Leg("plan " + i, result.path, true))));
+            }
+        }
+        Arrays.sort(times);
+        System.out.println(String.format(
+                "%d plans: median %.1f us, 99th percentile %.1f us, max %.1f us (budget %.1f us, loop %.1f us)",
+                kPlans, times[kPlans / 2] * 1E-3, times[kPlans * 99 / 100] * 1E-3, times[kPlans - 1] * 1E-3,
+                budget * 1E-3, Constants.kLooperDt * 1E6));
+        System.out.println(String.format("%d fell back to a straight line, %d over budget", fallbacks, over_budget));
+
+        int finished = 0;
+        double max_end_error = 0.0;
+        double max_cte = 0.0;
+        for (PathSimulation simulation : simulations) {
+            PathSimulation.Result result = simulation.call();
+            if (result.allFinished()) {
+                ++finished;
+            }
+            max_end_error = Math.max(max_end_error, result.maxEndError());
+            max_cte = Math.max(max_cte, result.maxCrossTrackError());
+        }
+        System.out.println(String.format("Simulated %d plans: %d finished, max end error %.2f in, max CTE %.2f in",
+                simulations.size(), finished, max_end_error, max_cte));
+    }
+
+    private static RigidTransform2d randomStart(Random random) {
+        // Anywhere in a 4 ft x 8 ft box off the alliance wall, facing roughly away from the peg (the gear mechanism is
+        // on the back of the robot).
+        return new RigidTransform2d(new Translation2d(20 + random.nextDouble() * 48, 40 + random.nextDouble() * 96),
+                Rotation2d.fromDegrees(180.0 + (random.nextDouble() - 0.5) * 120.0));
+    }
+}
@@ -0,0 +1,106 @@
+package com.team254.frc2017.sim;
+
+import com.team254.lib.util.control.PathSegment;
+import com.team254.lib.util.math.QuinticHermiteSpline;
+import com.team254.lib.util.math.Translation2d;
+import com.team254.lib.util.motion.MotionState;
+
+import java.util.Random;
+
+/**
+ * Accuracy and timing benchmark for the spline PathSegments against the line and arc segments they are used alongside.
+ * Each segment type is built for the same 90 degree, 30 inch radius turn, then queried the way Path.getTargetPoint
+ * queries it from random robot positions near the segment.
+ */
+public class PathSegmentBenchmark {
+    private static final int kQueries = 200000;
+    private static final int kReferenceSamples = 100000;
+    private static final MotionState kStopped = new MotionState(0, 0, 0, 0);
+
+    public static void main(String[] args) {
+        final Translation2d start = new Translation2d(0, 0);
+        final Translation2d end = new Translation2d(30, 30);
+        final double chord = new Translation2d(start, end).norm();
+
+        PathSegment line = new PathSegment(0, 0, 30, 30, 100, kStopped, 0);
+        PathSegment arc = new PathSegment(0, 0, 30, 30, 0, 30, 100, kStopped, 0);
+        PathSegment spline = new PathSegment(new QuinticHermiteSpline(start, new Translation2d(chord, 0),
+                Translation2d.identity(), end, new Translation2d(0, chord), Translation2d.identity()), 100, kStopped, 0);
+
+        System.out.println("Spline table: " + new QuinticHermiteSpline(start, new Translation2d(chord, 0),
+                Translation2d.identity(), end, new Translation2d(0, chord), Translation2d.identity()).getNumSamples()
+                + " samples");
+        checkAccuracy(spline);
+        time("line", line);
+        time("arc", arc);
+        time("spline", spline);
+    }
+
+    /**
+     * Compare the table lookups against a brute force reference built from a very dense sampling of the segment.
+     */
+    private static void checkAccuracy(PathSegment segment) {
+        final double length = segment.getLength();
+        Translation2d[] reference = new Translation2d[kReferenceSamples + 1];
+        double reference_length = 0.0;
+        for (int i = 0; i <= kReferenceSamples; ++i) {
+            reference[i] = segment.getPointByDistance(length * i / kReferenceSamples);
+            if (i > 0) {
+                reference_length += new Translation2d(reference[i - 1], reference[i]).norm();
+            }
+        }
+        System.out.println(String.format("Spline length: table %.6f, dense polyline %.6f", length, reference_length));
+
+        Random random = new Random(254);
+        double max_closest_error = 0.0;
+        double max_remaining_error = 0.0;
+        for (int q = 0; q < 1000; ++q) {
+            Translation2d robot = reference[random.nextInt(reference.length)]
+                    .translateBy(new Translation2d(random.nextGaussian() * 3.0, random.nextGaussian() * 3.0));
+            int best = 0;
+            double best_dist = Double.MAX_VALUE;
+            for (int i = 0; i < reference.length; ++i) {
+                final double dist = new Translation2d(robot, reference[i]).norm();
+                if (dist < best_dist) {
+                    best = i;
+                    best_dist = dist;
+                }
+            }
+            Translation2d closest = segment.getClosestPoint(robot);
+            max_closest_error = Math.max(max_closest_error, new Translation2d(closest, reference[best]).norm());
+            max_remaining_error = Math.max(max_remaining_error, Math.abs(segment.getRemainingDistance(closest)
+                    - length * (kReferenceSamples - best) / kReferenceSamples));
+        }
+        System.out.println(String.format("Spline max closest point error %.6f in, max remaining distance error %.6f in",
+                max_closest_error, max_remaining_error));
+    }
+
+    private static void time(String name, PathSegment segment) {
+        final double length = segment.getLength();
+        Random random = new Random(254);
+        Translation2d[] robots = new Translation2d[kQueries];
+        for (int i = 0; i < kQueries; ++i) {
+            // Sweep along the segment like a robot following it.
+            robots[i] = segment.getPointByDistance(length * (i % 1000) / 1000.0)
+                    .translateBy(new Translation2d(random.nextGaussian(), random.nextGaussian()));
+        }
+        double sink = 0.0;
+        for (int pass = 0; pass < 2; ++pass) { // First pass is warmup
+            final long start = System.nanoTime();
+            for (Translation2d robot : robots) {
+                Translation2d closest = segment.getClosestPoint(robot);
+                final double remaining = segment.getRemainingDistance(closest);
+                sink += segment.getPointByDistance(length - remaining + 12.0).x();
+                sink += segment.getSpeedByDistance(length - remaining);
+                sink += segment.getCurvatureByDistance(length - remaining);
+            }
+            if (pass == 1) {
+                System.out.println(String.format("%-6s %.1f ns per query", name,
+                        (double) (System.nanoTime() - start) / kQueries));
+            }
+        }
+        if (sink == 42.0) {
+            System.out.println(sink);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.team254.frc2017.sim;
+
+import com.team254.frc2017.Constants;
+import com.team254.frc2017.Kinematics;
+import com.team254.frc2017.paths.PathContainer;
+import com.team254.lib.util.control.Lookahead;
+import com.team254.lib.util.control.Path;
+import com.team254.lib.util.control.PathFollower;
+import com.team254.lib.util.math.RigidTransform2d;
+import com.team254.lib.util.math.Rotation2d;
+import com.team254.lib.util.math.Translation2d;
+import com.team254.lib.util.math.Twist2d;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Runs a sequence of paths (one autonomous mode's worth of driving) through the same odometry and path following code
+ * the robot uses, against a DrivetrainModel instead of hardware. Simulated time advances by Constants.kLooperDt per
+ * tick with no sleeping, so a run takes only as long as the controller math does.
+ *
+ * Each simulation owns all of its state, so many can be run in parallel.
+ */
+public class PathSimulation implements Callable<PathSimulation.Result> {
+    public static final double kMaxPathTime = 15.0; // seconds; abandon paths that never finish
+
+    /**
+     * One leg of the simulation: a prebuilt Path and the direction to drive it.
+     */
+    public static class Leg {
+        public final String name;
+        public final Path path;
+        public final boolean reversed;
+        public final Translation2d end_position;
+
+        public Leg(String name, Path path, boolean reversed) {
+            this.name = name;
+            this.path = path;
+            this.reversed = reversed;
+            // Paths are consumed as they are followed, so remember the end point now.
+            this.end_position = path.getEndPosition();
+        }
+
+        public static Leg fromContainer(PathContainer container) {
+            return new Leg(container.getClass().getSimpleName(), container.buildPath(), container.isReversed());
+        }
+    }
+
+    public static class LegResult {
+        public String name;
+        public boolean finished;
+        public double time;
+        public double end_error;
+        public double max_cross_track_error;
+    }
+
+    public static class Result {
+        public String name;
+        public final List<LegResult> legs = new ArrayList<>();
+        public double sim_time;
+        public long ticks;
+        public double mean_update_nanos;
+        public long max_update_nanos;
+
+        public boolean allFinished() {
+            for (LegResult leg : legs) {
+                if (!leg.finished) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public double maxEndError() {
+            double max = 0.0;
+            for (LegResult leg : legs) {
+                max = Math.max(max, leg.end_error);
+            }
+            return max;
+        }
+
+        public double maxCrossTrackError() {
+            double max = 0.0;
+            for (LegResult leg : legs) {
+                max = Math.max(max, leg.max_cross_track_error);
+            }
+            return max;
+        }
+    }
+
+    private final String mName;
+    private final RigidTransform2d mStartPose;
+    private final List<Leg> mLegs;
+
+    public PathSimulation(String name, RigidTransform2d start_pose, List<Leg> legs) {
+        mName = name;
+        mStartPose = start_pose;
+        mLegs = legs;
+    }
+
+    public static PathFollower.Parameters getFollowerParameters() {
+        // Keep in sync with Drive.setWantDrivePath
+        return new PathFollower.Parameters(
+                new Lookahead(Constants.kMinLookAhead, Constants.kMaxLookAhead, Constants.kMinLookAheadSpeed,
+                        Constants.kMaxLookAheadSpeed),
+                Constants.kInertiaSteeringGain, Constants.kPathFollowingProfileKp, Constants.kPathFollowingProfileKi,
+                Constants.kPathFollowingProfileKv, Constants.kPathFollowingProfileKffv,
+                Constants.kPathFollowingProfileKffa, Constants.kPathFollowingMaxVel,
+                Constants.kPathFollowingMaxAccel, Constants.kPathFollowingGoalPosTolerance,
+                Constants.kPathFollowingGoalVelTolerance, Constants.kPathStopSteeringDistance,
+                Constants.kPathFollowingReplanPosTolerance, Constants.kPathFollowingReplanVelTolerance);
+    }
+
+    @Override
+    public Result call() {
+        final double dt = Constants.kLooperDt;
+        Result result = new Result();
+        result.name = mName;
+        DrivetrainModel drive = new DrivetrainModel(mStartPose);
+        RigidTransform2d pose = mStartPose;
+        double left_prev = drive.getLeftDistanceInches();
+        double right_prev = drive.getRightDistanceInches();
+        double t = 0.0;
+        long total_update_nanos = 0;
+
+        for (Leg leg : mLegs) {
+            LegResult leg_result = new LegResult();
+            leg_result.name = leg.name;
+            PathFollower follower = new PathFollower(leg.path, leg.reversed, getFollowerParameters());
+            double distance_driven = 0.0;
+            final double leg_start_time = t;
+            while (!follower.isFinished() && t - leg_start_time < kMaxPathTime) {
+                // RobotStateEstimator
+                final double left = drive.getLeftDistanceInches();
+                final double right = drive.getRightDistanceInches();
+                final Rotation2d gyro_angle = drive.getGyroAngle();
+                final Twist2d odometry = Kinematics.forwardKinematics(pose.getRotation(), left - left_prev,
+                        right - right_prev, gyro_angle);
+                distance_driven += odometry.dx;
+                pose = Kinematics.integrateForwardKinematics(pose, odometry);
+                final Twist2d predicted_velocity = Kinematics.forwardKinematics(drive.getLeftVelocityInchesPerSec(),
+                        drive.getRightVelocityInchesPerSec());
+                left_prev = left;
+                right_prev = right;
+
+                // Drive.updatePathFollower
+                final long start_nanos = System.nanoTime();
+                final Twist2d command = follower.update(t, pose, distance_driven, predicted_velocity.dx);
+                final long update_nanos = System.nanoTime() - start_nanos;
+                total_update_nanos += update_nanos;
+                result.max_update_nanos = Math.max(result.max_update_nanos, update_nanos);
+                ++result.ticks;
+                if (!follower.isFinished()) {
+                    Kinematics.DriveVelocity setpoint = Kinematics.inverseKinematics(command);
+                    final double max_desired = Math.max(Math.abs(setpoint.left), Math.abs(setpoint.right));
+                    final double scale = max_desired > Constants.kDriveHighGearMaxSetpoint
+                            ? Constants.kDriveHighGearMaxSetpoint / max_desired : 1.0;
+                    drive.setVelocitySetpoint(setpoint.left * scale, setpoint.right * scale);
+                } else {
+                    drive.setVelocitySetpoint(0, 0);
+                }
+                leg_result.max_cross_track_error = Math.max(leg_result.max_cross_track_error,
+                        Math.abs(follower.getCrossTrackError()));
+
+                drive.update(dt);
+                t += dt;
+            }
+            leg_result.finished = follower.isFinished();
+            leg_result.time = t - leg_start_time;
+            leg_result.end_error = drive.getPose().getTranslation().translateBy(leg.end_position.inverse()).norm();
+            result.legs.add(leg_result);
+            drive.setVelocitySetpoint(0, 0);
+        }
+        result.sim_time = t;
+        result.mean_update_nanos = result.ticks > 0 ? (double) total_update_nanos / result.ticks : 0.0;
+        return result;
+    }
+}
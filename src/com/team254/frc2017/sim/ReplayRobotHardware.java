@@ -0,0 +1,261 @@
+package com.team254.frc2017.sim;
+
+import com.ctre.CANTalon.FeedbackDevice;
+import com.ctre.CANTalon.FeedbackDeviceStatus;
+import com.ctre.CANTalon.TalonControlMode;
+import com.team254.frc2017.RecordingRobotHardware;
+import com.team254.frc2017.RobotHardwareInterface;
+import com.team254.lib.util.InputRecording;
+import com.team254.lib.util.drivers.AnalogInputIO;
+import com.team254.lib.util.drivers.CompressorIO;
+import com.team254.lib.util.drivers.DigitalOutputIO;
+import com.team254.lib.util.drivers.GyroIO;
+import com.team254.lib.util.drivers.MotorControllerIO;
+import com.team254.lib.util.drivers.SolenoidIO;
+import com.team254.lib.util.math.Rotation2d;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates devices that play back the sensor values in an InputRecording made through RecordingRobotHardware, and
+ * collect the commands sent to them so that they can be compared with the recorded ones. The Talons are
+ * SimulatedTalons underneath, so that commanded state (control mode, setpoint) reads back as it would on the robot,
+ * but the motors are never stepped: every sensor value comes from the recording.
+ */
+public class ReplayRobotHardware implements RobotHardwareInterface {
+    private final InputRecording mRecording;
+    private final Map<String, List<Double>> mOutputs = new LinkedHashMap<>();
+
+    public ReplayRobotHardware(InputRecording recording) {
+        mRecording = recording;
+    }
+
+    /**
+     * @return the commands sent since the last call, by channel, in the order they were sent
+     */
+    public Map<String, List<Double>> takeOutputs() {
+        Map<String, List<Double>> outputs = new LinkedHashMap<>(mOutputs);
+        mOutputs.clear();
+        return outputs;
+    }
+
+    private void output(String channel, double value) {
+        mOutputs.computeIfAbsent(channel, k -> new ArrayList<>()).add(value);
+    }
+
+    @Override
+    public MotorControllerIO createTalon(int id) {
+        return new ReplayTalon(id);
+    }
+
+    @Override
+    public MotorControllerIO createPermanentSlaveTalon(int id, int master_id) {
+        // The recording has the slave's own sensor values, so it does not need to follow anything.
+        ReplayTalon talon = new ReplayTalon(id);
+        talon.setFollower(master_id);
+        return talon;
+    }
+
+    @Override
+    public GyroIO createGyro() {
+        return new GyroIO() {
+            @Override
+            public void reset() {
+                output(RecordingRobotHardware.kGyroReset, 1.0);
+            }
+
+            @Override
+            public void zeroYaw() {
+                output(RecordingRobotHardware.kGyroZeroYaw, 1.0);
+            }
+
+            @Override
+            public void setAngleAdjustment(Rotation2d adjustment) {
+                output(RecordingRobotHardware.kGyroAngleAdjustment, adjustment.getDegrees());
+            }
+
+            @Override
+            public Rotation2d getYaw() {
+                final double cos = mRecording.read(RecordingRobotHardware.kGyroYawCos, 1.0);
+                final double sin = mRecording.read(RecordingRobotHardware.kGyroYawSin, 0.0);
+                return new Rotation2d(cos, sin, false);
+            }
+
+            @Override
+            public double getYawRateDegreesPerSec() {
+                return mRecording.read(RecordingRobotHardware.kGyroYawRate, 0.0);
+            }
+
+            @Override
+            public double getRawAccelX() {
+                return mRecording.read(RecordingRobotHardware.kGyroAccelX, 0.0);
+            }
+        };
+    }
+
+    @Override
+    public SolenoidIO createSolenoid(int solenoid_id) {
+        final String channel = RecordingRobotHardware.solenoidChannel(solenoid_id);
+        return new SolenoidIO() {
+            @Override
+            public void set(boolean on) {
+                output(channel, on ? 1.0 : 0.0);
+            }
+
+            @Override
+            public boolean get() {
+                return mRecording.read(channel, 0.0) != 0.0;
+            }
+        };
+    }
+
+    @Override
+    public AnalogInputIO createAnalogInput(int channel) {
+        final String voltage_channel = RecordingRobotHardware.analogInputChannel(channel,
+                RecordingRobotHardware.kVoltage);
+        final String average_voltage_channel = RecordingRobotHardware.analogInputChannel(channel,
+                RecordingRobotHardware.kAverageVoltage);
+        return new AnalogInputIO() {
+            @Override
+            public double getVoltage() {
+                return mRecording.read(voltage_channel, 0.0);
+            }
+
+            @Override
+            public double getAverageVoltage() {
+                return mRecording.read(average_voltage_channel, 0.0);
+            }
+        };
+    }
+
+    @Override
+    public DigitalOutputIO createDigitalOutput(int channel) {
+        final String output_channel = RecordingRobotHardware.digitalOutputChannel(channel);
+        return on -> output(output_channel, on ? 1.0 : 0.0);
+    }
+
+    @Override
+    public CompressorIO createCompressor() {
+        return on -> output(RecordingRobotHardware.kCompressorClosedLoop, on ? 1.0 : 0.0);
+    }
+
+    /**
+     * @return the timestamp of the cycle being replayed, or 0 before the loops have started
+     */
+    @Override
+    public double getTimestamp() {
+        final InputRecording.Cycle cycle = mRecording.getCycle();
+        return (cycle == null || Double.isNaN(cycle.timestamp)) ? 0.0 : cycle.timestamp;
+    }
+
+    @Override
+    public void reportError(String message) {
+        System.out.println("Error: " + message);
+    }
+
+    @Override
+    public void reportWarning(String message) {
+        System.out.println("Warning: " + message);
+    }
+
+    private class ReplayTalon extends SimulatedTalon {
+        private final String mPositionChannel;
+        private final String mSpeedChannel;
+        private final String mEncPositionChannel;
+        private final String mOutputVoltageChannel;
+        private final String mOutputCurrentChannel;
+        private final String mSensorPresentChannel;
+        private final String mSetChannel;
+        private final String mControlModeChannel;
+        private final String mBrakeModeChannel;
+        private final String mSetPositionChannel;
+        private final String mSetEncPositionChannel;
+
+        ReplayTalon(int id) {
+            super(SimulatedRobotHardware.kDefaultFreeSpeedRpm, SimulatedRobotHardware.kDefaultTimeConstant,
+                    SimulatedRobotHardware.kDefaultStallCurrent);
+            mPositionChannel = RecordingRobotHardware.talonChannel(id, RecordingRobotHardware.kPosition);
+            mSpeedChannel = RecordingRobotHardware.talonChannel(id, RecordingRobotHardware.kSpeed);
+            mEncPositionChannel = RecordingRobotHardware.talonChannel(id, RecordingRobotHardware.kEncPosition);
+            mOutputVoltageChannel = RecordingRobotHardware.talonChannel(id, RecordingRobotHardware.kOutputVoltage);
+            mOutputCurrentChannel = RecordingRobotHardware.talonChannel(id, RecordingRobotHardware.kOutputCurrent);
+            mSensorPresentChannel = RecordingRobotHardware.talonChannel(id, RecordingRobotHardware.kSensorPresent);
+            mSetChannel = RecordingRobotHardware.talonChannel(id, RecordingRobotHardware.kSet);
+            mControlModeChannel = RecordingRobotHardware.talonChannel(id, RecordingRobotHardware.kControlMode);
+            mBrakeModeChannel = RecordingRobotHardware.talonChannel(id, RecordingRobotHardware.kBrakeMode);
+            mSetPositionChannel = RecordingRobotHardware.talonChannel(id, RecordingRobotHardware.kSetPosition);
+            mSetEncPositionChannel = RecordingRobotHardware.talonChannel(id, RecordingRobotHardware.kSetEncPosition);
+        }
+
+        /**
+         * Set follower mode without it counting as a command, as CANTalonFactory does on the robot.
+         */
+        synchronized void setFollower(int master_id) {
+            super.changeControlMode(TalonControlMode.Follower);
+            super.set(master_id);
+        }
+
+        @Override
+        public synchronized void set(double value) {
+            output(mSetChannel, value);
+            super.set(value);
+        }
+
+        @Override
+        public synchronized void changeControlMode(TalonControlMode controlMode) {
+            output(mControlModeChannel, controlMode.ordinal());
+            super.changeControlMode(controlMode);
+        }
+
+        @Override
+        public synchronized void enableBrakeMode(boolean brake) {
+            output(mBrakeModeChannel, brake ? 1.0 : 0.0);
+            super.enableBrakeMode(brake);
+        }
+
+        @Override
+        public synchronized double getPosition() {
+            return mRecording.read(mPositionChannel, 0.0);
+        }
+
+        @Override
+        public synchronized double getSpeed() {
+            return mRecording.read(mSpeedChannel, 0.0);
+        }
+
+        @Override
+        public synchronized int getEncPosition() {
+            return (int) mRecording.read(mEncPositionChannel, 0.0);
+        }
+
+        @Override
+        public synchronized double getOutputVoltage() {
+            return mRecording.read(mOutputVoltageChannel, 0.0);
+        }
+
+        @Override
+        public synchronized double getOutputCurrent() {
+            return mRecording.read(mOutputCurrentChannel, 0.0);
+        }
+
+        @Override
+        public synchronized void setPosition(double position) {
+            output(mSetPositionChannel, position);
+        }
+
+        @Override
+        public synchronized void setEncPosition(int position) {
+            output(mSetEncPositionChannel, position);
+        }
+
+        @Override
+        public FeedbackDeviceStatus isSensorPresent(FeedbackDevice feedbackDevice) {
+            final int status = (int) mRecording.read(mSensorPresentChannel,
+                    FeedbackDeviceStatus.FeedbackStatusPresent.ordinal());
+            return FeedbackDeviceStatus.values()[status];
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.team254.frc2017.sim;
+
+import com.team254.frc2017.Constants;
+import com.team254.frc2017.RobotState;
+import com.team254.frc2017.SubsystemManager;
+import com.team254.frc2017.loops.Loop;
+import com.team254.frc2017.loops.LooperInterface;
+import com.team254.frc2017.loops.RobotStateEstimator;
+import com.team254.frc2017.paths.BoilerGearToShootRed;
+import com.team254.frc2017.paths.PathContainer;
+import com.team254.frc2017.paths.StartToBoilerGearRed;
+import com.team254.frc2017.paths.profiles.CompBot;
+import com.team254.frc2017.paths.profiles.PathAdapter;
+import com.team254.frc2017.paths.profiles.PracticeField;
+import com.team254.frc2017.subsystems.Drive;
+import com.team254.frc2017.subsystems.Shooter;
+import com.team254.lib.util.math.RigidTransform2d;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs the real Drive and Shooter loops on SimulatedRobotHardware, stepped in simulated time at the Looper period, and
+ * reports how long each loop cycle takes on this machine along with how the subsystems behaved. Drives the boiler gear
+ * then shoot paths while holding the flywheel at a shooting speed, which keeps the path follower and the flywheel
+ * controller busy at the same time.
+ */
+public class RobotLoopBenchmark {
+    private static final double kFlywheelRpm = 3200.0;
+    private static final double kMaxPathTime = 15.0;
+    private static final int kWarmupRuns = 5;
+
+    /**
+     * Runs registered loops by hand instead of on a Notifier.
+     */
+    private static class SteppedLooper implements LooperInterface {
+        private final List<Loop> mLoops = new ArrayList<>();
+
+        @Override
+        public void register(String name, Loop loop) {
+            mLoops.add(loop);
+        }
+
+        public void start(double timestamp) {
+            for (Loop loop : mLoops) {
+                loop.onStart(timestamp);
+            }
+        }
+
+        public void loop(double timestamp) {
+            for (Loop loop : mLoops) {
+                loop.onLoop(timestamp);
+            }
+        }
+
+        public void stop(double timestamp) {
+            for (Loop loop : mLoops) {
+                loop.onStop(timestamp);
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        for (int i = 0; i < kWarmupRuns; ++i) {
+            run(false);
+        }
+        run(true);
+    }
+
+    private static void run(boolean print) {
+        final double dt = Constants.kLooperDt;
+        // Paths are used up as they are followed, so make PathAdapter build fresh ones for each run.
+        PathAdapter.setProfiles(new CompBot(), new PracticeField());
+        SimulatedRobotHardware hardware = new SimulatedRobotHardware();
+        Drive drive = new Drive(hardware);
+        Shooter shooter = new Shooter(hardware);
+        SubsystemManager manager = new SubsystemManager(Arrays.asList(drive, shooter));
+        SteppedLooper looper = new SteppedLooper();
+        manager.registerEnabledLoops(looper);
+        looper.register("RobotStateEstimator", new RobotStateEstimator(drive));
+
+        double t = 0.0;
+        List<Long> cycle_nanos = new ArrayList<>();
+        looper.start(t);
+        shooter.setHoldWhenReady(kFlywheelRpm);
+        for (PathContainer container : new PathContainer[] { new StartToBoilerGearRed(),
+                new BoilerGearToShootRed() }) {
+            final RigidTransform2d start_pose = container.getStartPose();
+            RobotState.getInstance().reset(t, start_pose);
+            drive.setGyroAngle(start_pose.getRotation());
+            drive.setWantDrivePath(container.buildPath(), container.isReversed());
+            final double path_start = t;
+            while (!drive.isDoneWithPath() && t - path_start < kMaxPathTime) {
+                t += dt;
+                hardware.update(dt);
+                final long start = System.nanoTime();
+                looper.loop(t);
+                cycle_nanos.add(System.nanoTime() - start);
+                manager.writeToLog();
+            }
+            if (print) {
+                RigidTransform2d pose = RobotState.getInstance().getLatestFieldToVehicle().getValue();
+                System.out.println(String.format("%-22s %s in %.2f s, ended at %s",
+                        container.getClass().getSimpleName(),
+                        drive.isDoneWithPath() ? "finished" : "DID NOT FINISH", t - path_start, pose));
+            }
+        }
+        looper.stop(t);
+
+        if (print) {
+            System.out.println(String.format("Flywheel %.0f rpm (setpoint %.0f), on target: %b",
+                    shooter.getLastSpeedRpm(), kFlywheelRpm, shooter.isOnTarget()));
+            long[] sorted = cycle_nanos.stream().mapToLong(Long::longValue).sorted().toArray();
+            final double mean = Arrays.stream(sorted).average().orElse(0.0);
+            System.out.println(String.format(
+                    "%d loop cycles: mean %.1f us, median %.1f us, p99 %.1f us, max %.1f us (budget %.0f us)",
+                    sorted.length, mean / 1E3, sorted[sorted.length / 2] / 1E3,
+                    sorted[(int) (sorted.length * 0.99)] / 1E3, sorted[sorted.length - 1] / 1E3, dt * 1E6));
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.team254.frc2017.sim;
+
+import com.team254.lib.util.CircularBuffer;
+import com.team254.lib.util.ExponentialSmoother;
+import com.team254.lib.util.MovingAverage;
+import com.team254.lib.util.RollingExtrema;
+import com.team254.lib.util.RollingLongStatistics;
+import com.team254.lib.util.RollingStatistics;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Times the rolling statistics classes against the CircularBuffer and MovingAverage they replace, one add plus one
+ * query per operation (the way the subsystems use them every loop), and counts the bytes allocated per operation. Run
+ * it as a plain Java program; numbers are from this JVM, so only the ratios carry over to the roboRIO.
+ */
+@SuppressWarnings("deprecation")
+public class RollingStatisticsBenchmark {
+    private static final int kWindowSize = 50;
+    private static final int kOperations = 5000000;
+    private static final int kRuns = 5;
+
+    private static long getAllocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static void run(String name, DoubleUnaryOperator add_and_query) {
+        double sink = 0.0;
+        double best_ns = Double.POSITIVE_INFINITY;
+        double bytes = 0.0;
+        for (int run = 0; run < kRuns; ++run) {
+            final long start_bytes = getAllocatedBytes();
+            final long start = System.nanoTime();
+            for (int i = 0; i < kOperations; ++i) {
+                sink += add_and_query.applyAsDouble(i & 1023);
+            }
+            best_ns = Math.min(best_ns, (System.nanoTime() - start) / (double) kOperations);
+            bytes = (getAllocatedBytes() - start_bytes) / (double) kOperations;
+        }
+        System.out.println(String.format("%-32s %7.1f ns/op %7.1f bytes/op   (%g)", name, best_ns, bytes, sink));
+    }
+
+    public static void main(String[] args) {
+        CircularBuffer circular_buffer = new CircularBuffer(kWindowSize);
+        run("CircularBuffer average", x -> {
+            circular_buffer.addValue(x);
+            return circular_buffer.getAverage();
+        });
+        MovingAverage moving_average = new MovingAverage(kWindowSize);
+        run("MovingAverage average", x -> {
+            moving_average.addNumber(x);
+            return moving_average.getAverage();
+        });
+        RollingStatistics stats = new RollingStatistics(kWindowSize);
+        run("RollingStatistics average", x -> {
+            stats.addValue(x);
+            return stats.getAverage();
+        });
+        run("RollingStatistics variance", x -> {
+            stats.addValue(x);
+            return stats.getVariance();
+        });
+        RollingLongStatistics long_stats = new RollingLongStatistics(kWindowSize);
+        run("RollingLongStatistics average", x -> {
+            long_stats.addValue((long) x);
+            return long_stats.getAverage();
+        });
+        RollingExtrema extrema = new RollingExtrema(kWindowSize);
+        run("RollingExtrema max", x -> {
+            extrema.addValue(x);
+            return extrema.getMax();
+        });
+        ExponentialSmoother smoother = new ExponentialSmoother(0.1);
+        run("ExponentialSmoother average", x -> {
+            smoother.addValue(x);
+            return smoother.getAverage();
+        });
+    }
+}
@@ -0,0 +1,24 @@
+package com.team254.frc2017.sim;
+
+import com.team254.lib.util.drivers.AnalogInputIO;
+
+/**
+ * An in-memory analog input whose voltage is set by the simulation.
+ */
+public class SimulatedAnalogInput implements AnalogInputIO {
+    private volatile double mVoltage = 0.0;
+
+    public void setVoltage(double voltage) {
+        mVoltage = voltage;
+    }
+
+    @Override
+    public double getVoltage() {
+        return mVoltage;
+    }
+
+    @Override
+    public double getAverageVoltage() {
+        return mVoltage;
+    }
+}
@@ -0,0 +1,19 @@
+package com.team254.frc2017.sim;
+
+import com.team254.lib.util.drivers.CompressorIO;
+
+/**
+ * An in-memory compressor. It does not model pressure; it only remembers whether it was told to run.
+ */
+public class SimulatedCompressor implements CompressorIO {
+    private boolean mClosedLoopControl = false;
+
+    @Override
+    public synchronized void setClosedLoopControl(boolean on) {
+        mClosedLoopControl = on;
+    }
+
+    public synchronized boolean getClosedLoopControl() {
+        return mClosedLoopControl;
+    }
+}
@@ -0,0 +1,19 @@
+package com.team254.frc2017.sim;
+
+import com.team254.lib.util.drivers.DigitalOutputIO;
+
+/**
+ * An in-memory digital output channel.
+ */
+public class SimulatedDigitalOutput implements DigitalOutputIO {
+    private boolean mOn = false;
+
+    @Override
+    public synchronized void set(boolean on) {
+        mOn = on;
+    }
+
+    public synchronized boolean get() {
+        return mOn;
+    }
+}
@@ -0,0 +1,53 @@
+package com.team254.frc2017.sim;
+
+import com.team254.lib.util.drivers.GyroIO;
+import com.team254.lib.util.math.Rotation2d;
+
+/**
+ * An in-memory gyro that integrates a yaw rate supplied by the simulation. Reset and angle adjustment behave like the
+ * NavX driver.
+ */
+public class SimulatedGyro implements GyroIO {
+    private Rotation2d mAngleAdjustment = Rotation2d.identity();
+    private double mYawDegrees = 0.0;
+    private double mYawRateDegreesPerSecond = 0.0;
+
+    /**
+     * Advance the gyro by dt seconds at the given yaw rate.
+     */
+    public synchronized void update(double yaw_rate_degrees_per_sec, double dt) {
+        mYawRateDegreesPerSecond = yaw_rate_degrees_per_sec;
+        mYawDegrees += yaw_rate_degrees_per_sec * dt;
+    }
+
+    @Override
+    public synchronized void reset() {
+        mYawDegrees = 0.0;
+        mYawRateDegreesPerSecond = 0.0;
+    }
+
+    @Override
+    public synchronized void zeroYaw() {
+        reset();
+    }
+
+    @Override
+    public synchronized void setAngleAdjustment(Rotation2d adjustment) {
+        mAngleAdjustment = adjustment;
+    }
+
+    @Override
+    public synchronized Rotation2d getYaw() {
+        return mAngleAdjustment.rotateBy(Rotation2d.fromDegrees(mYawDegrees));
+    }
+
+    @Override
+    public synchronized double getYawRateDegreesPerSec() {
+        return mYawRateDegreesPerSecond;
+    }
+
+    @Override
+    public double getRawAccelX() {
+        return 0.0;
+    }
+}
@@ -0,0 +1,165 @@
+package com.team254.frc2017.sim;
+
+import com.team254.frc2017.Constants;
+import com.team254.frc2017.Kinematics;
+import com.team254.frc2017.RobotHardwareInterface;
+import com.team254.lib.util.drivers.AnalogInputIO;
+import com.team254.lib.util.drivers.CompressorIO;
+import com.team254.lib.util.drivers.DigitalOutputIO;
+import com.team254.lib.util.drivers.GyroIO;
+import com.team254.lib.util.drivers.MotorControllerIO;
+import com.team254.lib.util.drivers.SolenoidIO;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates in-memory devices for running subsystems off the robot. Talons are given motor parameters by CAN ID, so the
+ * drive Talons behave like a (high gear) drivetrain and the shooter Talons like the flywheel; anything else gets a
+ * generic single-CIM load. The gyro is driven by the drive Talons through Kinematics, so path following closes the loop
+ * on the simulated heading.
+ *
+ * Call update() once per simulated loop period, before running the loops. The simulated clock starts at 0 and is
+ * advanced by update().
+ */
+public class SimulatedRobotHardware implements RobotHardwareInterface {
+    // Rough numbers: two CIMs per drive side geared for ~20 ft/s, and four 775pros on the flywheel.
+    public static final double kDriveFreeSpeedRpm = 20.0 * 12.0 * 60.0
+            / (Math.PI * Constants.kDriveWheelDiameterInches);
+    public static final double kDriveTimeConstant = 0.1;
+    public static final double kDriveStallCurrent = 2.0 * 131.0;
+    public static final double kFlywheelFreeSpeedRpm = 4500.0;
+    public static final double kFlywheelTimeConstant = 0.5;
+    public static final double kFlywheelStallCurrent = 4.0 * 134.0;
+    public static final double kDefaultFreeSpeedRpm = 5000.0;
+    public static final double kDefaultTimeConstant = 0.05;
+    public static final double kDefaultStallCurrent = 131.0;
+
+    private final Map<Integer, SimulatedTalon> mTalons = new HashMap<>();
+    private final List<SimulatedTalon> mAllTalons = new ArrayList<>();
+    private final SimulatedGyro mGyro = new SimulatedGyro();
+    private final Map<Integer, SimulatedSolenoid> mSolenoids = new HashMap<>();
+    private final Map<Integer, SimulatedAnalogInput> mAnalogInputs = new HashMap<>();
+    private final Map<Integer, SimulatedDigitalOutput> mDigitalOutputs = new HashMap<>();
+    private final SimulatedCompressor mCompressor = new SimulatedCompressor();
+    private double mTimestamp = 0.0;
+
+    /**
+     * Advance every device by dt seconds.
+     */
+    public synchronized void update(double dt) {
+        mTimestamp += dt;
+        for (SimulatedTalon talon : mAllTalons) {
+            talon.update(dt);
+        }
+        final SimulatedTalon left = mTalons.get(Constants.kLeftDriveMasterId);
+        final SimulatedTalon right = mTalons.get(Constants.kRightDriveMasterId);
+        if (left != null && right != null) {
+            final double inches_per_rotation = Math.PI * Constants.kDriveWheelDiameterInches;
+            final double yaw_rate = Kinematics.forwardKinematics(left.getSpeed() / 60.0 * inches_per_rotation,
+                    right.getSpeed() / 60.0 * inches_per_rotation).dtheta;
+            mGyro.update(Math.toDegrees(yaw_rate), dt);
+        }
+    }
+
+    public synchronized SimulatedTalon getTalon(int id) {
+        return mTalons.get(id);
+    }
+
+    public SimulatedGyro getGyro() {
+        return mGyro;
+    }
+
+    public synchronized SimulatedSolenoid getSolenoid(int solenoid_id) {
+        return mSolenoids.get(solenoid_id);
+    }
+
+    public synchronized SimulatedAnalogInput getAnalogInput(int channel) {
+        return mAnalogInputs.get(channel);
+    }
+
+    public synchronized SimulatedDigitalOutput getDigitalOutput(int channel) {
+        return mDigitalOutputs.get(channel);
+    }
+
+    public SimulatedCompressor getCompressor() {
+        return mCompressor;
+    }
+
+    @Override
+    public synchronized MotorControllerIO createTalon(int id) {
+        SimulatedTalon talon;
+        if (id == Constants.kLeftDriveMasterId || id == Constants.kRightDriveMasterId) {
+            talon = new SimulatedTalon(kDriveFreeSpeedRpm, kDriveTimeConstant, kDriveStallCurrent);
+        } else if (id == Constants.kRightShooterMasterId) {
+            talon = new SimulatedTalon(kFlywheelFreeSpeedRpm, kFlywheelTimeConstant, kFlywheelStallCurrent);
+        } else {
+            talon = new SimulatedTalon(kDefaultFreeSpeedRpm, kDefaultTimeConstant, kDefaultStallCurrent);
+        }
+        mTalons.put(id, talon);
+        mAllTalons.add(talon);
+        return talon;
+    }
+
+    @Override
+    public synchronized MotorControllerIO createPermanentSlaveTalon(int id, int master_id) {
+        SimulatedTalon master = mTalons.get(master_id);
+        if (master == null) {
+            createTalon(master_id);
+            master = mTalons.get(master_id);
+        }
+        SimulatedTalon talon = new SimulatedTalon(kDefaultFreeSpeedRpm, kDefaultTimeConstant, kDefaultStallCurrent);
+        talon.follow(master);
+        mTalons.put(id, talon);
+        mAllTalons.add(talon);
+        return talon;
+    }
+
+    @Override
+    public GyroIO createGyro() {
+        return mGyro;
+    }
+
+    @Override
+    public synchronized SolenoidIO createSolenoid(int solenoid_id) {
+        SimulatedSolenoid solenoid = new SimulatedSolenoid();
+        mSolenoids.put(solenoid_id, solenoid);
+        return solenoid;
+    }
+
+    @Override
+    public synchronized AnalogInputIO createAnalogInput(int channel) {
+        SimulatedAnalogInput input = new SimulatedAnalogInput();
+        mAnalogInputs.put(channel, input);
+        return input;
+    }
+
+    @Override
+    public synchronized DigitalOutputIO createDigitalOutput(int channel) {
+        SimulatedDigitalOutput output = new SimulatedDigitalOutput();
+        mDigitalOutputs.put(channel, output);
+        return output;
+    }
+
+    @Override
+    public CompressorIO createCompressor() {
+        return mCompressor;
+    }
+
+    @Override
+    public synchronized double getTimestamp() {
+        return mTimestamp;
+    }
+
+    @Override
+    public void reportError(String message) {
+        System.out.println("Error: " + message);
+    }
+
+    @Override
+    public void reportWarning(String message) {
+        System.out.println("Warning: " + message);
+    }
+}
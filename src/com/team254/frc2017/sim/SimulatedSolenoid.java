@@ -0,0 +1,20 @@
+package com.team254.frc2017.sim;
+
+import com.team254.lib.util.drivers.SolenoidIO;
+
+/**
+ * An in-memory solenoid channel.
+ */
+public class SimulatedSolenoid implements SolenoidIO {
+    private boolean mOn = false;
+
+    @Override
+    public synchronized void set(boolean on) {
+        mOn = on;
+    }
+
+    @Override
+    public synchronized boolean get() {
+        return mOn;
+    }
+}
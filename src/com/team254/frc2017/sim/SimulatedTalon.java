@@ -0,0 +1,273 @@
+package com.team254.frc2017.sim;
+
+import com.ctre.CANTalon.FeedbackDevice;
+import com.ctre.CANTalon.FeedbackDeviceStatus;
+import com.ctre.CANTalon.StatusFrameRate;
+import com.ctre.CANTalon.TalonControlMode;
+import com.ctre.CANTalon.VelocityMeasurementPeriod;
+import com.team254.lib.util.drivers.MotorControllerIO;
+
+import java.util.EnumMap;
+
+/**
+ * An in-memory Talon SRX driving a simple DC motor load. The mechanism speed approaches a target with a first order
+ * lag: in the open loop modes the target is the free speed scaled by the applied voltage, and in the closed loop modes
+ * the Talon's own PID is assumed to be well tuned, so the target is the setpoint (for Speed) or whatever speed closes
+ * the position error (for Position and MotionMagic). Units match the Talon with a CTRE mag encoder: rotations and RPM.
+ *
+ * As on the real Talon, reverseOutput() only flips the open loop output relative to the sensor. A permanent slave
+ * (Follower mode) reports its master's sensor values. Status frame periods are recorded; other configuration calls are
+ * accepted and ignored.
+ */
+public class SimulatedTalon implements MotorControllerIO {
+    private static final double kNominalVoltage = 12.0;
+
+    private final double mFreeSpeedRpm;
+    private final double mTimeConstant;
+    private final double mStallCurrent;
+
+    private SimulatedTalon mMaster = null;
+    private TalonControlMode mControlMode = TalonControlMode.Voltage;
+    private double mSetpoint = 0.0;
+    private boolean mReverseOutput = false;
+    private boolean mBrakeMode = false;
+
+    private double mPosition = 0.0; // rotations
+    private double mSpeed = 0.0; // rpm
+    private double mOutputVoltage = 0.0;
+    private double mOutputCurrent = 0.0;
+
+    private final EnumMap<StatusFrameRate, Integer> mStatusFramePeriods = new EnumMap<>(StatusFrameRate.class);
+
+    /**
+     * @param free_speed_rpm
+     *            mechanism speed at 12V with no load
+     * @param time_constant
+     *            seconds for the mechanism to cover 63% of a step change in speed
+     * @param stall_current
+     *            motor current at 12V with the mechanism stalled
+     */
+    public SimulatedTalon(double free_speed_rpm, double time_constant, double stall_current) {
+        mFreeSpeedRpm = free_speed_rpm;
+        mTimeConstant = time_constant;
+        mStallCurrent = stall_current;
+    }
+
+    /**
+     * Make this Talon a permanent slave of another one.
+     */
+    public synchronized void follow(SimulatedTalon master) {
+        mMaster = master;
+        mControlMode = TalonControlMode.Follower;
+    }
+
+    /**
+     * Advance the motor by dt seconds.
+     */
+    public synchronized void update(double dt) {
+        if (mMaster != null) {
+            return;
+        }
+        // Everything below is in the sensor's direction. With reverseOutput set, the motor sees the opposite voltage.
+        double voltage;
+        double target_speed;
+        switch (mControlMode) {
+        case PercentVbus:
+            voltage = (mReverseOutput ? -mSetpoint : mSetpoint) * kNominalVoltage;
+            target_speed = voltage / kNominalVoltage * mFreeSpeedRpm;
+            break;
+        case Voltage:
+            voltage = mReverseOutput ? -mSetpoint : mSetpoint;
+            target_speed = voltage / kNominalVoltage * mFreeSpeedRpm;
+            break;
+        case Speed:
+            target_speed = mSetpoint;
+            voltage = kNominalVoltage * target_speed / mFreeSpeedRpm;
+            break;
+        case Position:
+        case MotionMagic:
+            target_speed = Math.max(-mFreeSpeedRpm,
+                    Math.min(mFreeSpeedRpm, (mSetpoint - mPosition) * 60.0 / Math.max(mTimeConstant, dt)));
+            voltage = kNominalVoltage * target_speed / mFreeSpeedRpm;
+            break;
+        default:
+            target_speed = 0.0;
+            voltage = 0.0;
+            break;
+        }
+        voltage = Math.max(-kNominalVoltage, Math.min(kNominalVoltage, voltage));
+        target_speed = Math.max(-mFreeSpeedRpm, Math.min(mFreeSpeedRpm, target_speed));
+        // A coasting motor spins down much more slowly than a driven (or braked) one.
+        final boolean coasting = voltage == 0.0 && !mBrakeMode;
+        final double time_constant = coasting ? 4.0 * mTimeConstant : mTimeConstant;
+        final double last_speed = mSpeed;
+        mSpeed += (target_speed - mSpeed) * (1.0 - Math.exp(-dt / time_constant));
+        mPosition += 0.5 * (last_speed + mSpeed) / 60.0 * dt;
+        mOutputVoltage = mReverseOutput ? -voltage : voltage;
+        // Current is proportional to the voltage not balanced by back EMF.
+        mOutputCurrent = Math.abs(mStallCurrent * (voltage / kNominalVoltage - mSpeed / mFreeSpeedRpm));
+    }
+
+    @Override
+    public synchronized void set(double value) {
+        mSetpoint = value;
+    }
+
+    @Override
+    public synchronized void changeControlMode(TalonControlMode controlMode) {
+        mControlMode = controlMode;
+    }
+
+    @Override
+    public synchronized TalonControlMode getControlMode() {
+        return mControlMode;
+    }
+
+    @Override
+    public synchronized double getSetpoint() {
+        return mSetpoint;
+    }
+
+    @Override
+    public synchronized void enableBrakeMode(boolean brake) {
+        mBrakeMode = brake;
+    }
+
+    @Override
+    public synchronized double getPosition() {
+        return mMaster != null ? mMaster.getPosition() : mPosition;
+    }
+
+    @Override
+    public synchronized double getSpeed() {
+        return mMaster != null ? mMaster.getSpeed() : mSpeed;
+    }
+
+    @Override
+    public synchronized int getEncPosition() {
+        return (int) (getPosition() * 4096);
+    }
+
+    @Override
+    public synchronized double getOutputVoltage() {
+        return mMaster != null ? mMaster.getOutputVoltage() : mOutputVoltage;
+    }
+
+    @Override
+    public synchronized double getOutputCurrent() {
+        return mMaster != null ? mMaster.getOutputCurrent() : mOutputCurrent;
+    }
+
+    @Override
+    public synchronized void setPosition(double position) {
+        mPosition = position;
+    }
+
+    @Override
+    public synchronized void setEncPosition(int position) {
+        mPosition = position / 4096.0;
+    }
+
+    @Override
+    public FeedbackDeviceStatus isSensorPresent(FeedbackDevice feedbackDevice) {
+        return FeedbackDeviceStatus.FeedbackStatusPresent;
+    }
+
+    @Override
+    public void setFeedbackDevice(FeedbackDevice device) {
+    }
+
+    @Override
+    public void reverseSensor(boolean flip) {
+    }
+
+    @Override
+    public synchronized void reverseOutput(boolean flip) {
+        mReverseOutput = flip;
+    }
+
+    @Override
+    public synchronized void setStatusFrameRateMs(StatusFrameRate stateFrame, int periodMs) {
+        mStatusFramePeriods.put(stateFrame, periodMs);
+    }
+
+    /**
+     * @return the period last set for a status frame, or -1 if it was never set
+     */
+    public synchronized int getStatusFramePeriodMs(StatusFrameRate frame) {
+        final Integer period = mStatusFramePeriods.get(frame);
+        return period == null ? -1 : period;
+    }
+
+    @Override
+    public void SetVelocityMeasurementPeriod(VelocityMeasurementPeriod period) {
+    }
+
+    @Override
+    public void SetVelocityMeasurementWindow(int windowSize) {
+    }
+
+    @Override
+    public void setProfile(int profile) {
+    }
+
+    @Override
+    public void setP(double p) {
+    }
+
+    @Override
+    public void setI(double i) {
+    }
+
+    @Override
+    public void setD(double d) {
+    }
+
+    @Override
+    public void setF(double f) {
+    }
+
+    @Override
+    public void setIZone(int izone) {
+    }
+
+    @Override
+    public void setPID(double p, double i, double d, double f, int izone, double closeLoopRampRate, int profile) {
+    }
+
+    @Override
+    public void setVoltageRampRate(double rampRate) {
+    }
+
+    @Override
+    public void setVoltageCompensationRampRate(double rampRate) {
+    }
+
+    @Override
+    public void setNominalClosedLoopVoltage(double voltage) {
+    }
+
+    @Override
+    public void DisableNominalClosedLoopVoltage() {
+    }
+
+    @Override
+    public void configNominalOutputVoltage(double forwardVoltage, double reverseVoltage) {
+    }
+
+    @Override
+    public void setMotionMagicCruiseVelocity(double motionMagicCruiseVelocity) {
+    }
+
+    @Override
+    public void setMotionMagicAcceleration(double motionMagicAcceleration) {
+    }
+
+    @Override
+    public void EnableCurrentLimit(boolean enable) {
+    }
+
+    @Override
+    public void setCurrentLimit(int amps) {
+    }
+}
@@ -1,7 +1,7 @@
 package com.team254.frc2017.subsystems;
 
 import com.team254.frc2017.loops.Loop;
-import com.team254.frc2017.loops.Looper;
+import com.team254.frc2017.loops.LooperInterface;
 import com.team254.lib.util.LatchedBoolean;
 
 /**
@@ -14,7 +14,7 @@ public class ConnectionMonitor extends Subsystem {
 
     private static ConnectionMonitor mInstance = null;
 
-    public static ConnectionMonitor getInstance() {
+    public static synchronized ConnectionMonitor getInstance() {
         if (mInstance == null) {
             mInstance = new ConnectionMonitor();
         }
@@ -34,8 +34,8 @@ public class ConnectionMonitor extends Subsystem {
     }
 
     @Override
-    public void registerEnabledLoops(Looper enabledLooper) {
-        enabledLooper.register(new Loop() {
+    public void registerEnabledLoops(LooperInterface enabledLooper) {
+        enabledLooper.register("ConnectionMonitor", new Loop() {
             @Override
             public void onStart(double timestamp) {
                 synchronized (ConnectionMonitor.this) {
@@ -1,10 +1,6 @@
 package com.team254.frc2017.subsystems;
 
-import edu.wpi.first.wpilibj.DriverStation;
-import edu.wpi.first.wpilibj.SPI;
-import edu.wpi.first.wpilibj.Solenoid;
 import edu.wpi.first.wpilibj.Timer;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 
 import com.ctre.CANTalon;
 import com.ctre.CANTalon.StatusFrameRate;
@@ -12,24 +8,35 @@ import com.ctre.CANTalon.VelocityMeasurementPeriod;
 
 import com.team254.frc2017.Constants;
 import com.team254.frc2017.Kinematics;
+import com.team254.frc2017.RobotHardware;
+import com.team254.frc2017.RobotHardwareInterface;
 import com.team254.frc2017.RobotState;
 import com.team254.frc2017.ShooterAimingParameters;
+import com.team254.frc2017.auto.AutoTracer;
 import com.team254.frc2017.loops.Loop;
-import com.team254.frc2017.loops.Looper;
+import com.team254.frc2017.loops.LooperInterface;
+import com.team254.lib.util.ConstantsRegistry;
+import com.team254.lib.util.DashboardPublisher;
 import com.team254.lib.util.DriveSignal;
+import com.team254.lib.util.LogManager;
 import com.team254.lib.util.ReflectingCSVWriter;
+import com.team254.lib.util.TelemetryServer;
 import com.team254.lib.util.Util;
 import com.team254.lib.util.control.Lookahead;
 import com.team254.lib.util.control.Path;
 import com.team254.lib.util.control.PathFollower;
-import com.team254.lib.util.drivers.CANTalonFactory;
-import com.team254.lib.util.drivers.NavX;
+import com.team254.lib.util.drivers.GyroIO;
+import com.team254.lib.util.drivers.MotorControllerIO;
+import com.team254.lib.util.drivers.SolenoidIO;
+import com.team254.lib.util.drivers.StatusFrameScheduler;
 import com.team254.lib.util.math.RigidTransform2d;
 import com.team254.lib.util.math.Rotation2d;
 import com.team254.lib.util.math.Twist2d;
 
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * This subsystem consists of the robot's drivetrain: 4 CIM motors, 4 talons, one solenoid and 2 pistons to shift gears,
@@ -41,12 +48,15 @@ import java.util.Optional;
  */
 public class Drive extends Subsystem {
 
-    private static Drive mInstance = new Drive();
+    private static Drive mInstance = null;
 
     private static final int kLowGearPositionControlSlot = 0;
     private static final int kHighGearVelocityControlSlot = 1;
 
-    public static Drive getInstance() {
+    public static synchronized Drive getInstance() {
+        if (mInstance == null) {
+            mInstance = new Drive(RobotHardware.getInstance());
+        }
         return mInstance;
     }
 
@@ -86,11 +96,15 @@ public class Drive extends Subsystem {
 
     // Control states
     private DriveControlState mDriveControlState;
+    private final StatusFrameScheduler<DriveControlState> mStatusFrameScheduler;
 
     // Hardware
-    private final CANTalon mLeftMaster, mRightMaster, mLeftSlave, mRightSlave;
-    private final Solenoid mShifter;
-    private final NavX mNavXBoard;
+    private final MotorControllerIO mLeftMaster, mRightMaster, mLeftSlave, mRightSlave;
+    private final SolenoidIO mShifter;
+    private final GyroIO mGyro;
+    private final RobotHardwareInterface mHardware;
+    // Set by the Superstructure once it is built; the drive holds position instead of turning while it shoots.
+    private volatile Superstructure mSuperstructure = null;
 
     // Controllers
     private RobotState mRobotState = RobotState.getInstance();
@@ -99,6 +113,16 @@ public class Drive extends Subsystem {
     // These gains get reset below!!
     private Rotation2d mTargetHeading = new Rotation2d();
     private Path mCurrentPath = null;
+    private final List<Path.MarkerListener> mPathMarkerListeners = new CopyOnWriteArrayList<>();
+
+    // Sensor snapshot, replaced once per loop cycle. Two are kept, and each read fills the one not being published.
+    private final PeriodicInputs[] mInputsBuffers = { new PeriodicInputs(), new PeriodicInputs() };
+    private volatile PeriodicInputs mInputs = mInputsBuffers[0];
+    // Controller state for the dashboard, written by the loop so the publisher needn't take the lock.
+    private final DashboardOutputs mDashboardOutputs = new DashboardOutputs();
+    // Last velocity setpoints sent to the Talons, so the speed error needn't read them back.
+    private double mLeftVelocitySetpointRpm = 0.0;
+    private double mRightVelocitySetpointRpm = 0.0;
 
     // Hardware states
     private boolean mIsHighGear;
@@ -108,6 +132,7 @@ public class Drive extends Subsystem {
 
     // Logging
     private final ReflectingCSVWriter<PathFollower.DebugOutput> mCSVWriter;
+    private final TelemetryServer.Channel mPathFollowerChannel;
 
     private final Loop mLoop = new Loop() {
         @Override
@@ -116,55 +141,67 @@ public class Drive extends Subsystem {
                 setOpenLoop(DriveSignal.NEUTRAL);
                 setBrakeMode(false);
                 setVelocitySetpoint(0, 0);
-                mNavXBoard.reset();
+                mGyro.reset();
+                readPeriodicInputs(timestamp);
+                updateDashboardOutputs();
             }
         }
 
         @Override
         public void onLoop(double timestamp) {
             synchronized (Drive.this) {
+                mStatusFrameScheduler.update(mDriveControlState, timestamp);
                 switch (mDriveControlState) {
                 case OPEN_LOOP:
-                    return;
+                    break;
                 case VELOCITY_SETPOINT:
-                    return;
+                    break;
                 case PATH_FOLLOWING:
                     if (mPathFollower != null) {
                         updatePathFollower(timestamp);
                         mCSVWriter.add(mPathFollower.getDebug());
+                        mPathFollowerChannel.publishObject(timestamp, mPathFollower.getDebug());
                     }
-                    return;
+                    break;
                 case AIM_TO_GOAL:
-                    if (!Superstructure.getInstance().isShooting()) {
+                    if (!isSuperstructureShooting()) {
                         updateGoalHeading(timestamp);
                     }
                     // fallthrough intended
                 case TURN_TO_HEADING:
                     updateTurnToHeading(timestamp);
-                    return;
+                    break;
                 case DRIVE_TOWARDS_GOAL_COARSE_ALIGN:
                     updateDriveTowardsGoalCoarseAlign(timestamp);
-                    return;
+                    break;
                 case DRIVE_TOWARDS_GOAL_APPROACH:
                     updateDriveTowardsGoalApproach(timestamp);
-                    return;
+                    break;
                 default:
                     System.out.println("Unexpected drive control state: " + mDriveControlState);
                     break;
                 }
+                updateDashboardOutputs();
             }
         }
 
         @Override
         public void onStop(double timestamp) {
             stop();
+            mStatusFrameScheduler.setIdle();
             mCSVWriter.flush();
+            // Actions polled by an auto mode that ended early (see AutoModeBase.runAction()) never removed theirs.
+            mPathMarkerListeners.clear();
         }
     };
 
-    private Drive() {
+    /**
+     * Public so that a Drive can be built on simulated hardware; the robot uses getInstance().
+     */
+    public Drive(RobotHardwareInterface hardware) {
+        mHardware = hardware;
         // Start all Talons in open loop mode.
-        mLeftMaster = CANTalonFactory.createDefaultTalon(Constants.kLeftDriveMasterId);
+        mLeftMaster = hardware.createTalon(Constants.kLeftDriveMasterId);
         mLeftMaster.changeControlMode(CANTalon.TalonControlMode.PercentVbus);
         mLeftMaster.setFeedbackDevice(CANTalon.FeedbackDevice.CtreMagEncoder_Relative);
         mLeftMaster.reverseSensor(true);
@@ -172,15 +209,14 @@ public class Drive extends Subsystem {
         CANTalon.FeedbackDeviceStatus leftSensorPresent = mLeftMaster
                 .isSensorPresent(CANTalon.FeedbackDevice.CtreMagEncoder_Relative);
         if (leftSensorPresent != CANTalon.FeedbackDeviceStatus.FeedbackStatusPresent) {
-            DriverStation.reportError("Could not detect left encoder: " + leftSensorPresent, false);
+            hardware.reportError("Could not detect left encoder: " + leftSensorPresent);
         }
 
-        mLeftSlave = CANTalonFactory.createPermanentSlaveTalon(Constants.kLeftDriveSlaveId,
+        mLeftSlave = hardware.createPermanentSlaveTalon(Constants.kLeftDriveSlaveId,
                 Constants.kLeftDriveMasterId);
         mLeftSlave.reverseOutput(false);
-        mLeftMaster.setStatusFrameRateMs(StatusFrameRate.Feedback, 5);
 
-        mRightMaster = CANTalonFactory.createDefaultTalon(Constants.kRightDriveMasterId);
+        mRightMaster = hardware.createTalon(Constants.kRightDriveMasterId);
         mRightMaster.changeControlMode(CANTalon.TalonControlMode.PercentVbus);
         mRightMaster.reverseSensor(false);
         mRightMaster.reverseOutput(true);
@@ -188,20 +224,32 @@ public class Drive extends Subsystem {
         CANTalon.FeedbackDeviceStatus rightSensorPresent = mRightMaster
                 .isSensorPresent(CANTalon.FeedbackDevice.CtreMagEncoder_Relative);
         if (rightSensorPresent != CANTalon.FeedbackDeviceStatus.FeedbackStatusPresent) {
-            DriverStation.reportError("Could not detect right encoder: " + rightSensorPresent, false);
+            hardware.reportError("Could not detect right encoder: " + rightSensorPresent);
         }
 
-        mRightSlave = CANTalonFactory.createPermanentSlaveTalon(Constants.kRightDriverSlaveId,
+        mRightSlave = hardware.createPermanentSlaveTalon(Constants.kRightDriverSlaveId,
                 Constants.kRightDriveMasterId);
         mRightSlave.reverseOutput(false);
-        mRightMaster.setStatusFrameRateMs(StatusFrameRate.Feedback, 5);
+
+        // With the 5 ms loop (Constants.kLooperDt), the closed loop states get an encoder update every loop, and open
+        // loop (only odometry) every other loop. Disabled, 20 ms is plenty.
+        mStatusFrameScheduler = new StatusFrameScheduler<>(DriveControlState.class, Constants.kStatusFrameDropDelay);
+        mStatusFrameScheduler.addTalon(mLeftMaster).addTalon(mRightMaster)
+                .setDefaultPeriodMs(StatusFrameRate.Feedback, 20)
+                .setPeriodMs(DriveControlState.OPEN_LOOP, StatusFrameRate.Feedback, 10);
+        for (DriveControlState state : DriveControlState.values()) {
+            if (state != DriveControlState.OPEN_LOOP) {
+                mStatusFrameScheduler.setPeriodMs(state, StatusFrameRate.Feedback, 5);
+            }
+        }
+        mStatusFrameScheduler.setIdle();
 
         mLeftMaster.SetVelocityMeasurementPeriod(VelocityMeasurementPeriod.Period_10Ms);
         mLeftMaster.SetVelocityMeasurementWindow(32);
         mRightMaster.SetVelocityMeasurementPeriod(VelocityMeasurementPeriod.Period_10Ms);
         mRightMaster.SetVelocityMeasurementWindow(32);
 
-        mShifter = Constants.makeSolenoidForId(Constants.kShifterSolenoidId);
+        mShifter = hardware.createSolenoid(Constants.kShifterSolenoidId);
 
         reloadGains();
 
@@ -210,19 +258,21 @@ public class Drive extends Subsystem {
         setOpenLoop(DriveSignal.NEUTRAL);
 
         // Path Following stuff
-        mNavXBoard = new NavX(SPI.Port.kMXP);
+        mGyro = hardware.createGyro();
 
         // Force a CAN message across.
         mIsBrakeMode = true;
         setBrakeMode(false);
 
-        mCSVWriter = new ReflectingCSVWriter<PathFollower.DebugOutput>("/home/lvuser/PATH-FOLLOWER-LOGS.csv",
+        mCSVWriter = new ReflectingCSVWriter<PathFollower.DebugOutput>(PathFollower.DebugOutput.class);
+        LogManager.getInstance().register("PATH-FOLLOWER-LOGS", mCSVWriter);
+        mPathFollowerChannel = TelemetryServer.getInstance().registerChannel("path_follower",
                 PathFollower.DebugOutput.class);
     }
 
     @Override
-    public void registerEnabledLoops(Looper in) {
-        in.register(mLoop);
+    public void registerEnabledLoops(LooperInterface in) {
+        in.register("Drive", mLoop);
     }
 
     /**
@@ -273,37 +323,69 @@ public class Drive extends Subsystem {
         setOpenLoop(DriveSignal.NEUTRAL);
     }
 
+    public StatusFrameScheduler<DriveControlState> getStatusFrameScheduler() {
+        return mStatusFrameScheduler;
+    }
+
     @Override
     public void outputToSmartDashboard() {
-        final double left_speed = getLeftVelocityInchesPerSec();
-        final double right_speed = getRightVelocityInchesPerSec();
-        SmartDashboard.putNumber("left voltage (V)", mLeftMaster.getOutputVoltage());
-        SmartDashboard.putNumber("right voltage (V)", mRightMaster.getOutputVoltage());
-        SmartDashboard.putNumber("left speed (ips)", left_speed);
-        SmartDashboard.putNumber("right speed (ips)", right_speed);
+        // Published by the DashboardPublisher, see registerTelemetry().
+    }
+
+    @Override
+    public void registerTelemetry(DashboardPublisher publisher) {
+        publisher.registerNumber("left voltage (V)", () -> mInputs.left_voltage, 0.05);
+        publisher.registerNumber("right voltage (V)", () -> mInputs.right_voltage, 0.05);
+        publisher.registerNumber("left speed (ips)", () -> rpmToInchesPerSecond(mInputs.left_speed_rpm), 0.1);
+        publisher.registerNumber("right speed (ips)", () -> rpmToInchesPerSecond(mInputs.right_speed_rpm), 0.1);
+        publisher.registerNumber("left speed error (ips)", () -> mDashboardOutputs.left_speed_error_ips, 0.1);
+        publisher.registerNumber("right speed error (ips)", () -> mDashboardOutputs.right_speed_error_ips, 0.1);
+        publisher.registerNumber("drive CTE", () -> mDashboardOutputs.cross_track_error, 0.05);
+        publisher.registerNumber("drive ATE", () -> mDashboardOutputs.along_track_error, 0.05);
+        publisher.registerNumber("drive replans/s", () -> mDashboardOutputs.replans_per_second, 0.1);
+        publisher.registerNumber("left position (rotations)", () -> mInputs.left_position_rotations, 0.001);
+        publisher.registerNumber("right position (rotations)", () -> mInputs.right_position_rotations, 0.001);
+        publisher.registerNumber("gyro vel", () -> mInputs.gyro_velocity_degrees_per_sec, 0.1);
+        publisher.registerNumber("gyro pos", () -> mInputs.gyro_angle.getDegrees(), 0.1);
+        publisher.registerBoolean("drive on target", () -> mDashboardOutputs.on_target);
+    }
+
+    /**
+     * Controller state shown on the dashboard. Written only by the loop thread; the publisher reads each value on its
+     * own, so every field is volatile rather than the whole being swapped.
+     */
+    public static class DashboardOutputs {
+        public volatile double left_speed_error_ips;
+        public volatile double right_speed_error_ips;
+        public volatile double cross_track_error;
+        public volatile double along_track_error;
+        public volatile double replans_per_second;
+        public volatile boolean on_target;
+    }
+
+    /**
+     * Called by the loop thread at the end of every cycle.
+     */
+    private void updateDashboardOutputs() {
+        final PeriodicInputs inputs = mInputs;
+        final DashboardOutputs outputs = mDashboardOutputs;
         if (usesTalonVelocityControl(mDriveControlState)) {
-            SmartDashboard.putNumber("left speed error (ips)",
-                    rpmToInchesPerSecond(mLeftMaster.getSetpoint()) - left_speed);
-            SmartDashboard.putNumber("right speed error (ips)",
-                    rpmToInchesPerSecond(mRightMaster.getSetpoint()) - right_speed);
+            outputs.left_speed_error_ips = rpmToInchesPerSecond(mLeftVelocitySetpointRpm - inputs.left_speed_rpm);
+            outputs.right_speed_error_ips = rpmToInchesPerSecond(mRightVelocitySetpointRpm - inputs.right_speed_rpm);
         } else {
-            SmartDashboard.putNumber("left speed error (ips)", 0.0);
-            SmartDashboard.putNumber("right speed error (ips)", 0.0);
-        }
-        synchronized (this) {
-            if (mDriveControlState == DriveControlState.PATH_FOLLOWING && mPathFollower != null) {
-                SmartDashboard.putNumber("drive CTE", mPathFollower.getCrossTrackError());
-                SmartDashboard.putNumber("drive ATE", mPathFollower.getAlongTrackError());
-            } else {
-                SmartDashboard.putNumber("drive CTE", 0.0);
-                SmartDashboard.putNumber("drive ATE", 0.0);
-            }
+            outputs.left_speed_error_ips = 0;
+            outputs.right_speed_error_ips = 0;
         }
-        SmartDashboard.putNumber("left position (rotations)", mLeftMaster.getPosition());
-        SmartDashboard.putNumber("right position (rotations)", mRightMaster.getPosition());
-        SmartDashboard.putNumber("gyro vel", getGyroVelocityDegreesPerSec());
-        SmartDashboard.putNumber("gyro pos", getGyroAngle().getDegrees());
-        SmartDashboard.putBoolean("drive on target", isOnTarget());
+        if (mDriveControlState == DriveControlState.PATH_FOLLOWING && mPathFollower != null) {
+            outputs.cross_track_error = mPathFollower.getCrossTrackError();
+            outputs.along_track_error = mPathFollower.getAlongTrackError();
+            outputs.replans_per_second = mPathFollower.getReplansPerSecond();
+        } else {
+            outputs.cross_track_error = 0;
+            outputs.along_track_error = 0;
+            outputs.replans_per_second = 0;
+        }
+        outputs.on_target = mIsOnTarget;
     }
 
     public synchronized void resetEncoders() {
@@ -313,12 +395,14 @@ public class Drive extends Subsystem {
         mRightMaster.setEncPosition(0);
         mLeftSlave.setPosition(0);
         mRightSlave.setPosition(0);
+        readPeriodicInputs(mHardware.getTimestamp());
     }
 
     @Override
-    public void zeroSensors() {
+    public synchronized void zeroSensors() {
         resetEncoders();
-        mNavXBoard.zeroYaw();
+        mGyro.zeroYaw();
+        readPeriodicInputs(mHardware.getTimestamp());
     }
 
     /**
@@ -384,8 +468,10 @@ public class Drive extends Subsystem {
             final double max_desired = Math.max(Math.abs(left_inches_per_sec), Math.abs(right_inches_per_sec));
             final double scale = max_desired > Constants.kDriveHighGearMaxSetpoint
                     ? Constants.kDriveHighGearMaxSetpoint / max_desired : 1.0;
-            mLeftMaster.set(inchesPerSecondToRpm(left_inches_per_sec * scale));
-            mRightMaster.set(inchesPerSecondToRpm(right_inches_per_sec * scale));
+            mLeftVelocitySetpointRpm = inchesPerSecondToRpm(left_inches_per_sec * scale);
+            mRightVelocitySetpointRpm = inchesPerSecondToRpm(right_inches_per_sec * scale);
+            mLeftMaster.set(mLeftVelocitySetpointRpm);
+            mRightMaster.set(mRightVelocitySetpointRpm);
         } else {
             System.out.println("Hit a bad velocity control state");
             mLeftMaster.set(0);
@@ -426,37 +512,80 @@ public class Drive extends Subsystem {
         return inchesToRotations(inches_per_second) * 60;
     }
 
+    /**
+     * Everything the drive reads from its sensors in one loop cycle. Snapshots are reused: one is valid until the
+     * second read after it, so hold a reference for no longer than a loop cycle.
+     */
+    public static class PeriodicInputs {
+        public double timestamp;
+        public double left_position_rotations;
+        public double right_position_rotations;
+        public double left_speed_rpm;
+        public double right_speed_rpm;
+        public double left_voltage;
+        public double right_voltage;
+        public Rotation2d gyro_angle = Rotation2d.identity();
+        public double gyro_velocity_degrees_per_sec;
+    }
+
+    /**
+     * Takes the lock, so that a read started before a sensor reset (e.g. setGyroAngle()) cannot publish its snapshot
+     * after the one the reset takes.
+     */
+    @Override
+    public synchronized void readPeriodicInputs(double timestamp) {
+        final PeriodicInputs inputs = (mInputs == mInputsBuffers[0]) ? mInputsBuffers[1] : mInputsBuffers[0];
+        inputs.timestamp = timestamp;
+        inputs.left_position_rotations = mLeftMaster.getPosition();
+        inputs.right_position_rotations = mRightMaster.getPosition();
+        inputs.left_speed_rpm = mLeftMaster.getSpeed();
+        inputs.right_speed_rpm = mRightMaster.getSpeed();
+        inputs.left_voltage = mLeftMaster.getOutputVoltage();
+        inputs.right_voltage = mRightMaster.getOutputVoltage();
+        inputs.gyro_angle = mGyro.getYaw();
+        inputs.gyro_velocity_degrees_per_sec = mGyro.getYawRateDegreesPerSec();
+        mInputs = inputs;
+    }
+
+    /**
+     * @return the sensor snapshot from the start of the current loop cycle
+     */
+    public PeriodicInputs getPeriodicInputs() {
+        return mInputs;
+    }
+
     public double getLeftDistanceInches() {
-        return rotationsToInches(mLeftMaster.getPosition());
+        return rotationsToInches(mInputs.left_position_rotations);
     }
 
     public double getRightDistanceInches() {
-        return rotationsToInches(mRightMaster.getPosition());
+        return rotationsToInches(mInputs.right_position_rotations);
     }
 
     public double getLeftVelocityInchesPerSec() {
-        return rpmToInchesPerSecond(mLeftMaster.getSpeed());
+        return rpmToInchesPerSecond(mInputs.left_speed_rpm);
     }
 
     public double getRightVelocityInchesPerSec() {
-        return rpmToInchesPerSecond(mRightMaster.getSpeed());
+        return rpmToInchesPerSecond(mInputs.right_speed_rpm);
     }
 
-    public synchronized Rotation2d getGyroAngle() {
-        return mNavXBoard.getYaw();
+    public Rotation2d getGyroAngle() {
+        return mInputs.gyro_angle;
     }
 
-    public synchronized NavX getNavXBoard() {
-        return mNavXBoard;
+    public synchronized GyroIO getGyro() {
+        return mGyro;
     }
 
     public synchronized void setGyroAngle(Rotation2d angle) {
-        mNavXBoard.reset();
-        mNavXBoard.setAngleAdjustment(angle);
+        mGyro.reset();
+        mGyro.setAngleAdjustment(angle);
+        readPeriodicInputs(mHardware.getTimestamp());
     }
 
-    public synchronized double getGyroVelocityDegreesPerSec() {
-        return mNavXBoard.getYawRateDegreesPerSec();
+    public double getGyroVelocityDegreesPerSec() {
+        return mInputs.gyro_velocity_degrees_per_sec;
     }
 
     /**
@@ -471,13 +600,25 @@ public class Drive extends Subsystem {
         }
     }
 
+    /**
+     * Called by the Superstructure when it is built.
+     */
+    public void setSuperstructure(Superstructure superstructure) {
+        mSuperstructure = superstructure;
+    }
+
+    private boolean isSuperstructureShooting() {
+        final Superstructure superstructure = mSuperstructure;
+        return superstructure != null && superstructure.isShooting();
+    }
+
     /**
      * Turn the robot to a target heading.
      * 
      * Is called periodically when the robot is auto-aiming towards the boiler.
      */
     private void updateTurnToHeading(double timestamp) {
-        if (Superstructure.getInstance().isShooting()) {
+        if (isSuperstructureShooting()) {
             // Do not update heading while shooting - just base lock. By not updating the setpoint, we will fight to
             // keep position.
             return;
@@ -646,6 +787,7 @@ public class Drive extends Subsystem {
         if (mCurrentPath != path || mDriveControlState != DriveControlState.PATH_FOLLOWING) {
             configureTalonsForSpeedControl();
             RobotState.getInstance().resetDistanceDriven();
+            path.setMarkerListener(this::onPathMarkerCrossed);
             mPathFollower = new PathFollower(path, reversed,
                     new PathFollower.Parameters(
                             new Lookahead(Constants.kMinLookAhead, Constants.kMaxLookAhead,
@@ -655,7 +797,8 @@ public class Drive extends Subsystem {
                             Constants.kPathFollowingProfileKffv, Constants.kPathFollowingProfileKffa,
                             Constants.kPathFollowingMaxVel, Constants.kPathFollowingMaxAccel,
                             Constants.kPathFollowingGoalPosTolerance, Constants.kPathFollowingGoalVelTolerance,
-                            Constants.kPathStopSteeringDistance));
+                            Constants.kPathStopSteeringDistance, Constants.kPathFollowingReplanPosTolerance,
+                            Constants.kPathFollowingReplanVelTolerance));
             mDriveControlState = DriveControlState.PATH_FOLLOWING;
             mCurrentPath = path;
         } else {
@@ -693,6 +836,25 @@ public class Drive extends Subsystem {
         }
     }
 
+    /**
+     * Tell the listener about each path marker the robot passes from now on, as soon as it is passed. Listeners are
+     * called from the drive loop, and should return quickly.
+     */
+    public void addPathMarkerListener(Path.MarkerListener listener) {
+        mPathMarkerListeners.add(listener);
+    }
+
+    public void removePathMarkerListener(Path.MarkerListener listener) {
+        mPathMarkerListeners.remove(listener);
+    }
+
+    private void onPathMarkerCrossed(String marker) {
+        AutoTracer.getInstance().event("path marker", marker);
+        for (Path.MarkerListener listener : mPathMarkerListeners) {
+            listener.onMarkerCrossed(marker);
+        }
+    }
+
     public synchronized boolean hasPassedMarker(String marker) {
         if (mDriveControlState == DriveControlState.PATH_FOLLOWING && mPathFollower != null) {
             return mPathFollower.hasPassedMarker(marker);
@@ -730,8 +892,18 @@ public class Drive extends Subsystem {
         mRightMaster.setVoltageCompensationRampRate(Constants.kDriveVoltageCompensationRampRate);
     }
 
+    @Override
+    public void registerConstantsListeners(ConstantsRegistry registry) {
+        registry.subscribe(changed -> reloadGains(), "kDriveLowGearPositionKp", "kDriveLowGearPositionKi",
+                "kDriveLowGearPositionKd", "kDriveLowGearPositionKf", "kDriveLowGearPositionIZone",
+                "kDriveLowGearPositionRampRate", "kDriveLowGearMaxVelocity", "kDriveLowGearMaxAccel",
+                "kDriveVoltageCompensationRampRate", "kDriveHighGearVelocityKp", "kDriveHighGearVelocityKi",
+                "kDriveHighGearVelocityKd", "kDriveHighGearVelocityKf", "kDriveHighGearVelocityIZone",
+                "kDriveHighGearVelocityRampRate");
+    }
+
     public synchronized double getAccelX() {
-        return mNavXBoard.getRawAccelX();
+        return mGyro.getRawAccelX();
     }
 
     @Override
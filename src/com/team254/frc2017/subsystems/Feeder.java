@@ -6,10 +6,13 @@ import com.ctre.CANTalon;
 import com.ctre.CANTalon.TalonControlMode;
 
 import com.team254.frc2017.Constants;
+import com.team254.frc2017.RobotHardware;
+import com.team254.frc2017.RobotHardwareInterface;
 import com.team254.frc2017.loops.Loop;
-import com.team254.frc2017.loops.Looper;
+import com.team254.frc2017.loops.LooperInterface;
+import com.team254.lib.util.PageHinkleyDetector;
 import com.team254.lib.util.Util;
-import com.team254.lib.util.drivers.CANTalonFactory;
+import com.team254.lib.util.drivers.MotorControllerIO;
 
 import java.util.Arrays;
 
@@ -31,17 +34,20 @@ public class Feeder extends Subsystem {
 
     private static Feeder sInstance = null;
 
-    public static Feeder getInstance() {
+    public static synchronized Feeder getInstance() {
         if (sInstance == null) {
-            sInstance = new Feeder();
+            sInstance = new Feeder(RobotHardware.getInstance());
         }
         return sInstance;
     }
 
-    private final CANTalon mMasterTalon, mSlaveTalon;
+    private final MotorControllerIO mMasterTalon, mSlaveTalon;
 
-    public Feeder() {
-        mMasterTalon = CANTalonFactory.createDefaultTalon(Constants.kFeederMasterId);
+    /**
+     * Public so that a Feeder can be built on simulated hardware; the robot uses getInstance().
+     */
+    public Feeder(RobotHardwareInterface hardware) {
+        mMasterTalon = hardware.createTalon(Constants.kFeederMasterId);
 
         mMasterTalon.setFeedbackDevice(CANTalon.FeedbackDevice.CtreMagEncoder_Relative);
         mMasterTalon.changeControlMode(CANTalon.TalonControlMode.PercentVbus);
@@ -61,7 +67,7 @@ public class Feeder extends Subsystem {
 
         mMasterTalon.setStatusFrameRateMs(CANTalon.StatusFrameRate.Feedback, 1000);
 
-        mSlaveTalon = CANTalonFactory.createPermanentSlaveTalon(Constants.kFeederSlaveId, Constants.kFeederMasterId);
+        mSlaveTalon = hardware.createPermanentSlaveTalon(Constants.kFeederSlaveId, Constants.kFeederMasterId);
         mSlaveTalon.reverseOutput(true);
         mSlaveTalon.enableBrakeMode(true);
     }
@@ -86,6 +92,13 @@ public class Feeder extends Subsystem {
 
     private double mCurrentStateStartTime;
     private boolean mStateChanged;
+    // Read once per cycle in readPeriodicInputs()
+    private double mMasterCurrent = 0.0;
+
+    // Watches the master current while feeding; the rollers stall and draw more current when fuel jams in them.
+    private final PageHinkleyDetector mJamDetector = new PageHinkleyDetector(PageHinkleyDetector.Direction.INCREASE,
+            Constants.kFeederJamDetectorDeltaAmps, Constants.kFeederJamDetectorThresholdAmps,
+            Constants.kFeederJamDetectorMinSamples);
 
     private Loop mLoop = new Loop() {
         @Override
@@ -113,7 +126,7 @@ public class Feeder extends Subsystem {
                     newState = handleUnjammingIn(timestamp, mCurrentStateStartTime);
                     break;
                 case FEEDING:
-                    newState = handleFeeding();
+                    newState = handleFeeding(timestamp);
                     break;
                 case EXHAUSTING:
                     newState = handleExhaust();
@@ -192,11 +205,15 @@ public class Feeder extends Subsystem {
         }
     }
 
-    private SystemState handleFeeding() {
+    private SystemState handleFeeding(double timestamp) {
         if (mStateChanged) {
             // mMasterTalon.changeControlMode(TalonControlMode.Speed);
             // mMasterTalon.setSetpoint(Constants.kFeederFeedSpeedRpm * Constants.kFeederSensorGearReduction);
             mMasterTalon.set(1.0);
+            mJamDetector.reset();
+        }
+        if (timestamp - mCurrentStateStartTime > Constants.kFeederJamDetectorStartupTime) {
+            mJamDetector.addValue(mMasterCurrent);
         }
         return defaultStateTransfer();
     }
@@ -210,6 +227,17 @@ public class Feeder extends Subsystem {
         mWantedState = state;
     }
 
+    /**
+     * @return true if the feeder current has gone up enough, while feeding, to call a jam
+     */
+    public synchronized boolean isJamDetected() {
+        return mSystemState == SystemState.FEEDING && mJamDetector.isAlarmed();
+    }
+
+    public synchronized void resetJamDetector() {
+        mJamDetector.reset();
+    }
+
     private void setOpenLoop(double voltage) {
         if (mStateChanged) {
             mMasterTalon.changeControlMode(CANTalon.TalonControlMode.PercentVbus);
@@ -222,6 +250,11 @@ public class Feeder extends Subsystem {
         // SmartDashboard.putNumber("feeder_speed", mMasterTalon.get() / Constants.kFeederSensorGearReduction);
     }
 
+    @Override
+    public synchronized void readPeriodicInputs(double timestamp) {
+        mMasterCurrent = mMasterTalon.getOutputCurrent();
+    }
+
     @Override
     public void stop() {
         setWantedState(WantedState.IDLE);
@@ -232,8 +265,8 @@ public class Feeder extends Subsystem {
     }
 
     @Override
-    public void registerEnabledLoops(Looper in) {
-        in.register(mLoop);
+    public void registerEnabledLoops(LooperInterface in) {
+        in.register("Feeder", mLoop);
     }
 
     public boolean checkSystem() {
@@ -5,10 +5,12 @@ import edu.wpi.first.wpilibj.Timer;
 import com.ctre.CANTalon;
 
 import com.team254.frc2017.Constants;
+import com.team254.frc2017.RobotHardware;
+import com.team254.frc2017.RobotHardwareInterface;
 import com.team254.frc2017.loops.Loop;
-import com.team254.frc2017.loops.Looper;
+import com.team254.frc2017.loops.LooperInterface;
 import com.team254.lib.util.Util;
-import com.team254.lib.util.drivers.CANTalonFactory;
+import com.team254.lib.util.drivers.MotorControllerIO;
 
 import java.util.Arrays;
 
@@ -28,14 +30,14 @@ public class Hopper extends Subsystem {
 
     private static Hopper sInstance = null;
 
-    public static Hopper getInstance() {
+    public static synchronized Hopper getInstance() {
         if (sInstance == null) {
-            sInstance = new Hopper();
+            sInstance = new Hopper(RobotHardware.getInstance());
         }
         return sInstance;
     }
 
-    private CANTalon mMasterTalon, mSlaveTalon;
+    private MotorControllerIO mMasterTalon, mSlaveTalon;
 
     public enum SystemState {
         FEEDING, // feed balls into the feeder subsystem
@@ -190,8 +192,11 @@ public class Hopper extends Subsystem {
         }
     }
 
-    private Hopper() {
-        mMasterTalon = CANTalonFactory.createDefaultTalon(Constants.kHopperMasterId);
+    /**
+     * Public so that a Hopper can be built on simulated hardware; the robot uses getInstance().
+     */
+    public Hopper(RobotHardwareInterface hardware) {
+        mMasterTalon = hardware.createTalon(Constants.kHopperMasterId);
         mMasterTalon.changeControlMode(CANTalon.TalonControlMode.PercentVbus);
         mMasterTalon.setVoltageRampRate(Constants.kHopperRampRate);
         mMasterTalon.EnableCurrentLimit(true);
@@ -199,7 +204,7 @@ public class Hopper extends Subsystem {
         mMasterTalon.setStatusFrameRateMs(CANTalon.StatusFrameRate.Feedback, 500);
         mMasterTalon.reverseOutput(false);
 
-        mSlaveTalon = CANTalonFactory.createDefaultTalon(Constants.kHopperSlaveId);
+        mSlaveTalon = hardware.createTalon(Constants.kHopperSlaveId);
         mSlaveTalon.changeControlMode(CANTalon.TalonControlMode.PercentVbus);
         mSlaveTalon.setVoltageRampRate(Constants.kHopperRampRate);
         mSlaveTalon.setStatusFrameRateMs(CANTalon.StatusFrameRate.Feedback, 500);
@@ -233,8 +238,8 @@ public class Hopper extends Subsystem {
     }
 
     @Override
-    public void registerEnabledLoops(Looper in) {
-        in.register(mLoop);
+    public void registerEnabledLoops(LooperInterface in) {
+        in.register("Hopper", mLoop);
     }
 
     public boolean checkSystem() {
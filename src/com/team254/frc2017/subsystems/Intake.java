@@ -1,14 +1,16 @@
 package com.team254.frc2017.subsystems;
 
-import edu.wpi.first.wpilibj.Solenoid;
 import edu.wpi.first.wpilibj.Timer;
 
 import com.ctre.CANTalon;
 import com.team254.frc2017.Constants;
-import com.team254.frc2017.loops.Looper;
-import com.team254.lib.util.MovingAverage;
+import com.team254.frc2017.RobotHardware;
+import com.team254.frc2017.RobotHardwareInterface;
+import com.team254.frc2017.loops.LooperInterface;
+import com.team254.lib.util.RollingStatistics;
 import com.team254.lib.util.Util;
-import com.team254.lib.util.drivers.CANTalonFactory;
+import com.team254.lib.util.drivers.MotorControllerIO;
+import com.team254.lib.util.drivers.SolenoidIO;
 
 import java.util.Arrays;
 
@@ -23,31 +25,34 @@ import java.util.Arrays;
 public class Intake extends Subsystem {
     private static Intake sInstance = null;
 
-    public static Intake getInstance() {
+    public static synchronized Intake getInstance() {
         if (sInstance == null) {
-            sInstance = new Intake();
+            sInstance = new Intake(RobotHardware.getInstance());
         }
         return sInstance;
     }
 
     // hardware
-    private CANTalon mMasterTalon, mSlaveTalon;
-    private Solenoid mDeploySolenoid;
+    private MotorControllerIO mMasterTalon, mSlaveTalon;
+    private SolenoidIO mDeploySolenoid;
 
-    private MovingAverage mThrottleAverage = new MovingAverage(50);
+    private RollingStatistics mThrottleAverage = new RollingStatistics(50);
 
-    private Intake() {
-        mMasterTalon = CANTalonFactory.createDefaultTalon(Constants.kIntakeMasterId);
+    /**
+     * Public so that a Intake can be built on simulated hardware; the robot uses getInstance().
+     */
+    public Intake(RobotHardwareInterface hardware) {
+        mMasterTalon = hardware.createTalon(Constants.kIntakeMasterId);
         mMasterTalon.setStatusFrameRateMs(CANTalon.StatusFrameRate.General, 1000);
         mMasterTalon.setStatusFrameRateMs(CANTalon.StatusFrameRate.Feedback, 1000);
         mMasterTalon.changeControlMode(CANTalon.TalonControlMode.Voltage);
 
-        mSlaveTalon = CANTalonFactory.createDefaultTalon(Constants.kIntakeSlaveId);
+        mSlaveTalon = hardware.createTalon(Constants.kIntakeSlaveId);
         mSlaveTalon.setStatusFrameRateMs(CANTalon.StatusFrameRate.General, 1000);
         mSlaveTalon.setStatusFrameRateMs(CANTalon.StatusFrameRate.Feedback, 1000);
         mSlaveTalon.changeControlMode(CANTalon.TalonControlMode.Voltage);
 
-        mDeploySolenoid = new Solenoid(Constants.kIntakeDeploySolenoidId);
+        mDeploySolenoid = hardware.createSolenoid(Constants.kIntakeDeploySolenoidId);
     }
 
     @Override
@@ -67,12 +72,12 @@ public class Intake extends Subsystem {
     }
 
     @Override
-    public void registerEnabledLoops(Looper in) {
+    public void registerEnabledLoops(LooperInterface in) {
 
     }
 
     public synchronized void setCurrentThrottle(double currentThrottle) {
-        mThrottleAverage.addNumber(currentThrottle);
+        mThrottleAverage.addValue(currentThrottle);
     }
 
     public synchronized void deploy() {
@@ -106,7 +111,7 @@ public class Intake extends Subsystem {
         // full throttle when in reverse.
 
         double scale;
-        if (mThrottleAverage.getSize() > 0) {
+        if (mThrottleAverage.getNumValues() > 0) {
             scale = Math.min(0.0, Math.max(0.0, mThrottleAverage.getAverage()));
         } else {
             scale = 0.0;
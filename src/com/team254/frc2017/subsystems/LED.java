@@ -1,10 +1,11 @@
 package com.team254.frc2017.subsystems;
 
-import edu.wpi.first.wpilibj.DigitalOutput;
-
 import com.team254.frc2017.Constants;
+import com.team254.frc2017.RobotHardware;
+import com.team254.frc2017.RobotHardwareInterface;
 import com.team254.frc2017.loops.Loop;
-import com.team254.frc2017.loops.Looper;
+import com.team254.frc2017.loops.LooperInterface;
+import com.team254.lib.util.drivers.DigitalOutputIO;
 
 /**
  * The LED subsystem consists of the green ring light on the front of the robot used for aiming and communicating
@@ -21,9 +22,9 @@ public class LED extends Subsystem {
 
     private static LED mInstance = null;
 
-    public static LED getInstance() {
+    public static synchronized LED getInstance() {
         if (mInstance == null) {
-            mInstance = new LED();
+            mInstance = new LED(RobotHardware.getInstance());
         }
         return mInstance;
     }
@@ -41,19 +42,22 @@ public class LED extends Subsystem {
     private WantedState mWantedState = WantedState.OFF;
 
     private boolean mIsLEDOn;
-    private DigitalOutput mLED;
-    private DigitalOutput mRangeLED;
+    private DigitalOutputIO mLED;
+    private DigitalOutputIO mRangeLED;
     private boolean mIsBlinking = false;
 
     private double mBlinkDuration;
     private int mBlinkCount;
     private double mTotalBlinkDuration;
 
-    public LED() {
-        mLED = new DigitalOutput(Constants.kGreenLEDId);
+    /**
+     * Public so that a LED can be built on simulated hardware; the robot uses getInstance().
+     */
+    public LED(RobotHardwareInterface hardware) {
+        mLED = hardware.createDigitalOutput(Constants.kGreenLEDId);
         mLED.set(false);
 
-        mRangeLED = new DigitalOutput(Constants.kRangeLEDId);
+        mRangeLED = hardware.createDigitalOutput(Constants.kRangeLEDId);
         setRangeLEDOff();
 
         // Force a relay change.
@@ -196,8 +200,8 @@ public class LED extends Subsystem {
     }
 
     @Override
-    public void registerEnabledLoops(Looper enabledLooper) {
-        enabledLooper.register(mLoop);
+    public void registerEnabledLoops(LooperInterface enabledLooper) {
+        enabledLooper.register("LED", mLoop);
     }
 
     public synchronized void setWantedState(WantedState state) {
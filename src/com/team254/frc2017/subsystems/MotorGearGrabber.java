@@ -1,16 +1,18 @@
 package com.team254.frc2017.subsystems;
 
-import edu.wpi.first.wpilibj.Solenoid;
 import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 
 import com.ctre.CANTalon;
 
 import com.team254.frc2017.Constants;
+import com.team254.frc2017.RobotHardware;
+import com.team254.frc2017.RobotHardwareInterface;
 import com.team254.frc2017.loops.Loop;
-import com.team254.frc2017.loops.Looper;
-import com.team254.lib.util.drivers.CANTalonFactory;
+import com.team254.frc2017.loops.LooperInterface;
 import com.team254.lib.util.drivers.MB1043;
+import com.team254.lib.util.drivers.MotorControllerIO;
+import com.team254.lib.util.drivers.SolenoidIO;
 
 /**
  * The gear grabber subsystem consists of one BAG motor used to intake and exhaust gears and one pancake piston used to
@@ -35,9 +37,9 @@ public class MotorGearGrabber extends Subsystem {
 
     private static MotorGearGrabber mInstance;
 
-    public static MotorGearGrabber getInstance() {
+    public static synchronized MotorGearGrabber getInstance() {
         if (mInstance == null) {
-            mInstance = new MotorGearGrabber();
+            mInstance = new MotorGearGrabber(RobotHardware.getInstance(), LED.getInstance());
         }
         return mInstance;
     }
@@ -58,23 +60,37 @@ public class MotorGearGrabber extends Subsystem {
         EXHAUST, // grabber down, motor in reverse
     }
 
-    private final Solenoid mWristSolenoid;
-    private final CANTalon mMasterTalon;
+    private final SolenoidIO mWristSolenoid;
+    private final MotorControllerIO mMasterTalon;
+    private final LED mLED;
 
     private WantedState mWantedState;
     private SystemState mSystemState;
     private double mThresholdStart;
-
-    private MotorGearGrabber() {
-        mWristSolenoid = Constants.makeSolenoidForId(Constants.kGearWristSolenoid);
-        mMasterTalon = CANTalonFactory.createDefaultTalon(Constants.kGearGrabberId);
+    private volatile double mCurrent;
+
+    /**
+     * Public so that a MotorGearGrabber can be built on simulated hardware; the robot uses getInstance().
+     *
+     * @param led
+     *            blinked when a gear is picked up
+     */
+    public MotorGearGrabber(RobotHardwareInterface hardware, LED led) {
+        mLED = led;
+        mWristSolenoid = hardware.createSolenoid(Constants.kGearWristSolenoid);
+        mMasterTalon = hardware.createTalon(Constants.kGearGrabberId);
         mMasterTalon.setStatusFrameRateMs(CANTalon.StatusFrameRate.General, 15);
         mMasterTalon.changeControlMode(CANTalon.TalonControlMode.Voltage);
     }
 
     @Override
     public void outputToSmartDashboard() {
-        SmartDashboard.putNumber("Gear Grabber Current", mMasterTalon.getOutputCurrent());
+        SmartDashboard.putNumber("Gear Grabber Current", mCurrent);
+    }
+
+    @Override
+    public void readPeriodicInputs(double timestamp) {
+        mCurrent = mMasterTalon.getOutputCurrent();
     }
 
     @Override
@@ -88,7 +104,7 @@ public class MotorGearGrabber extends Subsystem {
     }
 
     @Override
-    public void registerEnabledLoops(Looper enabledLooper) {
+    public void registerEnabledLoops(LooperInterface enabledLooper) {
         Loop loop = new Loop() {
             private double mCurrentStateStartTime;
 
@@ -98,7 +114,7 @@ public class MotorGearGrabber extends Subsystem {
                     mSystemState = SystemState.STOWING;
                     mWantedState = WantedState.IDLE;
                 }
-                mCurrentStateStartTime = Timer.getFPGATimestamp();
+                mCurrentStateStartTime = timestamp;
             }
 
             @Override
@@ -106,7 +122,7 @@ public class MotorGearGrabber extends Subsystem {
 
                 synchronized (MotorGearGrabber.this) {
                     SystemState newState = mSystemState;
-                    double timeInState = Timer.getFPGATimestamp() - mCurrentStateStartTime;
+                    double timeInState = timestamp - mCurrentStateStartTime;
                     switch (mSystemState) {
                     case BALL_CLEARING:
                         newState = handleBallClearing();
@@ -132,7 +148,7 @@ public class MotorGearGrabber extends Subsystem {
                     if (newState != mSystemState) {
                         System.out.println(timestamp + ": Changed state: " + mSystemState + " -> " + newState);
                         mSystemState = newState;
-                        mCurrentStateStartTime = Timer.getFPGATimestamp();
+                        mCurrentStateStartTime = timestamp;
                     }
                 }
 
@@ -146,7 +162,7 @@ public class MotorGearGrabber extends Subsystem {
                 stop();
             }
         };
-        enabledLooper.register(loop);
+        enabledLooper.register("MotorGearGrabber", loop);
     }
 
     private SystemState handleBallClearing() {
@@ -175,9 +191,9 @@ public class MotorGearGrabber extends Subsystem {
             mMasterTalon.set(kIntakeGearSetpoint);
             // check if the current has been above a threshold value for enough time.
             // If so, blink the LED to let the drivers know we have a gear
-            if (mMasterTalon.getOutputCurrent() > kIntakeThreshold) {
+            if (mCurrent > kIntakeThreshold) {
                 if (timeInState - mThresholdStart > kThresholdTime) {
-                    LED.getInstance().setWantedState(LED.WantedState.BLINK);
+                    mLED.setWantedState(LED.WantedState.BLINK);
                 } else {
                     if (mThresholdStart == Double.POSITIVE_INFINITY) {
                         mThresholdStart = timeInState;
@@ -185,7 +201,7 @@ public class MotorGearGrabber extends Subsystem {
                 }
             } else {
                 mThresholdStart = Double.POSITIVE_INFINITY;
-                LED.getInstance().setWantedState(LED.WantedState.OFF);
+                mLED.setWantedState(LED.WantedState.OFF);
             }
             return SystemState.INTAKE;
         }
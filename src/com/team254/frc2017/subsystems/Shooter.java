@@ -1,21 +1,30 @@
 package com.team254.frc2017.subsystems;
 
-import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 
 import com.ctre.CANTalon;
 
 import com.team254.frc2017.Constants;
+import com.team254.frc2017.RobotHardware;
+import com.team254.frc2017.RobotHardwareInterface;
 import com.team254.frc2017.RobotState;
 import com.team254.frc2017.ShooterAimingParameters;
+import com.team254.frc2017.auto.AutoTracer;
 import com.team254.frc2017.loops.Loop;
-import com.team254.frc2017.loops.Looper;
-import com.team254.lib.util.CircularBuffer;
+import com.team254.frc2017.loops.LooperInterface;
+import com.team254.lib.util.ConstantsRegistry;
+import com.team254.lib.util.LogManager;
 import com.team254.lib.util.ReflectingCSVWriter;
+import com.team254.lib.util.RollingStatistics;
+import com.team254.lib.util.TelemetryServer;
 import com.team254.lib.util.Util;
-import com.team254.lib.util.drivers.CANTalonFactory;
+import com.team254.lib.util.control.FlywheelModelEstimator;
+import com.team254.lib.util.drivers.MotorControllerIO;
+import com.team254.lib.util.drivers.StatusFrameScheduler;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.Optional;
 
@@ -24,7 +33,9 @@ import java.util.Optional;
  * power the robot's climber through a 1 way bearing. The shooter subsystem goes through 3 stages when shooting. 
  * 1. Spin Up 
  *  Use a PIDF controller to spin up to the desired RPM. We acquire this desired RPM by converting the camera's range
- *  value into an RPM value using the range map in the {@link Constants} class. 
+ *  value into an RPM value using the range map in the {@link Constants} class. Once the flywheel model (which is
+ *  identified whenever the shooter runs closed loop, and saved between boots) has converged, we instead apply full
+ *  voltage until the model says it is time to back off, then hand over to the PIDF controller with kF from the model.
  * 2. Hold When Ready
  *  Once the flywheel's
  *  RPM stabilizes (remains within a certain bandwidth for certain amount of time), the shooter switches to the hold when
@@ -49,14 +60,18 @@ public class Shooter extends Subsystem {
         public ControlMethod control_method;
         public double kF;
         public double range;
+        public double model_kS;
+        public double model_kV;
+        public double model_kA;
+        public double model_kDrag;
     }
 
     public static int kSpinUpProfile = 0;
     public static int kHoldProfile = 1;
 
-    public static Shooter getInstance() {
+    public static synchronized Shooter getInstance() {
         if (mInstance == null) {
-            mInstance = new Shooter();
+            mInstance = new Shooter(RobotHardware.getInstance());
         }
         return mInstance;
     }
@@ -68,13 +83,25 @@ public class Shooter extends Subsystem {
         HOLD, // switch to pure kF control
     }
 
-    private final CANTalon mRightMaster, mRightSlave, mLeftSlave1, mLeftSlave2;
+    private final MotorControllerIO mRightMaster, mRightSlave, mLeftSlave1, mLeftSlave2;
 
     private ControlMethod mControlMethod;
+    // The control method last recorded in the auto timeline.
+    private ControlMethod mTracedControlMethod = null;
+    private final StatusFrameScheduler<ControlMethod> mStatusFrameScheduler;
     private double mSetpointRpm;
     private double mLastRpmSpeed;
 
-    private CircularBuffer mKfEstimator = new CircularBuffer(Constants.kShooterKfBufferSize);
+    // Sensor snapshot, replaced once per loop cycle
+    private volatile PeriodicInputs mInputs = new PeriodicInputs();
+
+    private RollingStatistics mKfEstimator = new RollingStatistics(Constants.kShooterKfBufferSize);
+
+    // Flywheel model, and whether spin up is currently applying full voltage.
+    private final FlywheelModelEstimator mModel = new FlywheelModelEstimator(
+            kfToVoltsPerRpm(Constants.kShooterTalonKF));
+    private boolean mBangBang = false;
+    private double mModelKf = Double.NaN;
 
     // Used for transitioning from spin-up to hold loop.
     private boolean mOnTarget = false;
@@ -83,9 +110,13 @@ public class Shooter extends Subsystem {
     private ShooterDebugOutput mDebug = new ShooterDebugOutput();
 
     private final ReflectingCSVWriter<ShooterDebugOutput> mCSVWriter;
+    private final TelemetryServer.Channel mTelemetryChannel;
 
-    private Shooter() {
-        mRightMaster = CANTalonFactory.createDefaultTalon(Constants.kRightShooterMasterId);
+    /**
+     * Public so that a Shooter can be built on simulated hardware; the robot uses getInstance().
+     */
+    public Shooter(RobotHardwareInterface hardware) {
+        mRightMaster = hardware.createTalon(Constants.kRightShooterMasterId);
         mRightMaster.changeControlMode(CANTalon.TalonControlMode.Voltage);
         mRightMaster.setFeedbackDevice(CANTalon.FeedbackDevice.CtreMagEncoder_Relative);
         mRightMaster.reverseSensor(true);
@@ -95,33 +126,55 @@ public class Shooter extends Subsystem {
         mRightMaster.SetVelocityMeasurementWindow(32);
         mRightMaster.setNominalClosedLoopVoltage(12);
 
-        mRightMaster.setStatusFrameRateMs(CANTalon.StatusFrameRate.General, 2);
-        mRightMaster.setStatusFrameRateMs(CANTalon.StatusFrameRate.AnalogTempVbat, 2);
+        // The flywheel controller wants fast feedback, but climbing and idling do not.
+        mStatusFrameScheduler = new StatusFrameScheduler<>(ControlMethod.class, Constants.kStatusFrameDropDelay);
+        mStatusFrameScheduler.addTalon(mRightMaster)
+                .setDefaultPeriodMs(CANTalon.StatusFrameRate.General, 10)
+                .setDefaultPeriodMs(CANTalon.StatusFrameRate.AnalogTempVbat, 100);
+        for (ControlMethod method : ControlMethod.values()) {
+            if (method != ControlMethod.OPEN_LOOP) {
+                mStatusFrameScheduler.setPeriodMs(method, CANTalon.StatusFrameRate.General, 2)
+                        .setPeriodMs(method, CANTalon.StatusFrameRate.AnalogTempVbat, 2);
+            }
+        }
+        mStatusFrameScheduler.setIdle();
 
         CANTalon.FeedbackDeviceStatus sensorPresent = mRightMaster
                 .isSensorPresent(CANTalon.FeedbackDevice.CtreMagEncoder_Relative);
         if (sensorPresent != CANTalon.FeedbackDeviceStatus.FeedbackStatusPresent) {
-            DriverStation.reportError("Could not detect shooter encoder: " + sensorPresent, false);
+            hardware.reportError("Could not detect shooter encoder: " + sensorPresent);
         }
 
-        mRightSlave = makeSlave(Constants.kRightShooterSlaveId, false);
-        mLeftSlave1 = makeSlave(Constants.kLeftShooterSlave1Id, true);
-        mLeftSlave2 = makeSlave(Constants.kLeftShooterSlave2Id, true);
+        mRightSlave = makeSlave(hardware, Constants.kRightShooterSlaveId, false);
+        mLeftSlave1 = makeSlave(hardware, Constants.kLeftShooterSlave1Id, true);
+        mLeftSlave2 = makeSlave(hardware, Constants.kLeftShooterSlave2Id, true);
+
+        mControlMethod = ControlMethod.OPEN_LOOP;
 
         refreshControllerConsts();
 
-        mControlMethod = ControlMethod.OPEN_LOOP;
+        final File model_file = new File(Constants.kShooterModelFile);
+        if (model_file.exists()) {
+            try {
+                mModel.loadFromFile(model_file);
+                System.out.println("Flywheel model: " + mModel);
+            } catch (IOException e) {
+                hardware.reportWarning("Could not load flywheel model: " + e);
+            }
+        }
 
         System.out.println("RPM Polynomial: " + Constants.kFlywheelAutoAimPolynomial);
 
-        mCSVWriter = new ReflectingCSVWriter<ShooterDebugOutput>("/home/lvuser/SHOOTER-LOGS.csv",
-                ShooterDebugOutput.class);
+        mCSVWriter = new ReflectingCSVWriter<ShooterDebugOutput>(ShooterDebugOutput.class);
+        LogManager.getInstance().register("SHOOTER-LOGS", mCSVWriter);
+        mTelemetryChannel = TelemetryServer.getInstance().registerChannel("shooter", ShooterDebugOutput.class);
     }
 
     /**
-     * Load PIDF profiles onto the master talon
+     * Load PIDF profiles onto the master talon, then reselect the profile, kF and ramp rate for the current control
+     * method, so that a reload while holding keeps the learned kF.
      */
-    public void refreshControllerConsts() {
+    public synchronized void refreshControllerConsts() {
         mRightMaster.setProfile(kSpinUpProfile);
         mRightMaster.setP(Constants.kShooterTalonKP);
         mRightMaster.setI(Constants.kShooterTalonKI);
@@ -136,7 +189,29 @@ public class Shooter extends Subsystem {
         mRightMaster.setF(Constants.kShooterTalonKF);
         mRightMaster.setIZone(0);
 
-        mRightMaster.setVoltageRampRate(Constants.kShooterRampRate);
+        // The spin up kF is rewritten from the model on the next cycle.
+        mModelKf = Double.NaN;
+        switch (mControlMethod) {
+        case SPIN_UP:
+            configureForSpinUp();
+            break;
+        case HOLD_WHEN_READY:
+            configureForHoldWhenReady();
+            break;
+        case HOLD:
+            configureForHold();
+            break;
+        default:
+            mRightMaster.setProfile(kSpinUpProfile);
+            mRightMaster.setVoltageRampRate(Constants.kShooterRampRate);
+            break;
+        }
+    }
+
+    @Override
+    public void registerConstantsListeners(ConstantsRegistry registry) {
+        registry.subscribe(changed -> refreshControllerConsts(), "kShooterTalonKP", "kShooterTalonKI",
+                "kShooterTalonKD", "kShooterTalonKF", "kShooterTalonIZone", "kShooterRampRate");
     }
 
     @Override
@@ -144,10 +219,13 @@ public class Shooter extends Subsystem {
         double current_rpm = getSpeedRpm();
         SmartDashboard.putNumber("shooter_speed_talon", current_rpm);
         SmartDashboard.putNumber("shooter_speed_error", mSetpointRpm - current_rpm);
-        SmartDashboard.putNumber("shooter_output_voltage", mRightMaster.getOutputVoltage());
+        SmartDashboard.putNumber("shooter_output_voltage", mInputs.output_voltage);
         SmartDashboard.putNumber("shooter_setpoint", mSetpointRpm);
 
         SmartDashboard.putBoolean("shooter on target", isOnTarget());
+        SmartDashboard.putBoolean("shooter_model_converged", mModel.isConverged(Constants.kShooterModelMinSamples));
+        SmartDashboard.putNumber("shooter_model_kv", mModel.getKv());
+        SmartDashboard.putNumber("shooter_model_ka", mModel.getKa());
         // SmartDashboard.putNumber("shooter_talon_position", mRightMaster.getPosition());
         // SmartDashboard.putNumber("shooter_talon_enc_position", mRightMaster.getEncPosition());
     }
@@ -158,14 +236,22 @@ public class Shooter extends Subsystem {
         mSetpointRpm = 0.0;
     }
 
+    public FlywheelModelEstimator getModel() {
+        return mModel;
+    }
+
+    public StatusFrameScheduler<ControlMethod> getStatusFrameScheduler() {
+        return mStatusFrameScheduler;
+    }
+
     @Override
     public void zeroSensors() {
         // Don't zero the flywheel, it'll make deltas screwy
     }
 
     @Override
-    public void registerEnabledLoops(Looper enabledLooper) {
-        enabledLooper.register(new Loop() {
+    public void registerEnabledLoops(LooperInterface enabledLooper) {
+        enabledLooper.register("Shooter", new Loop() {
             @Override
             public void onStart(double timestamp) {
                 synchronized (Shooter.this) {
@@ -173,27 +259,38 @@ public class Shooter extends Subsystem {
                     mKfEstimator.clear();
                     mOnTarget = false;
                     mOnTargetStartTime = Double.POSITIVE_INFINITY;
+                    mTracedControlMethod = null;
                 }
             }
 
             @Override
             public void onLoop(double timestamp) {
                 synchronized (Shooter.this) {
+                    mStatusFrameScheduler.update(mControlMethod, timestamp);
                     if (mControlMethod != ControlMethod.OPEN_LOOP) {
                         handleClosedLoop(timestamp);
                         mCSVWriter.add(mDebug);
+                        mTelemetryChannel.publishObject(timestamp, mDebug);
                     } else {
                         // Reset all state.
                         mKfEstimator.clear();
                         mOnTarget = false;
                         mOnTargetStartTime = Double.POSITIVE_INFINITY;
                     }
+                    if (mControlMethod != mTracedControlMethod) {
+                        // Holding is what isOnTarget() means.
+                        AutoTracer.getInstance().event(isOnTarget() ? "shooter on target" : "shooter",
+                                mControlMethod.name());
+                        mTracedControlMethod = mControlMethod;
+                    }
                 }
             }
 
             @Override
             public void onStop(double timestamp) {
+                mStatusFrameScheduler.setIdle();
                 mCSVWriter.flush();
+                saveModel();
             }
         });
     }
@@ -231,11 +328,23 @@ public class Shooter extends Subsystem {
         mSetpointRpm = setpointRpm;
     }
 
+    private synchronized void saveModel() {
+        if (mModel.getNumSamples() == 0) {
+            return;
+        }
+        try {
+            mModel.saveToFile(new File(Constants.kShooterModelFile));
+        } catch (IOException e) {
+            System.out.println("Could not save flywheel model: " + e);
+        }
+    }
+
     /**
      * Configure talons for spin up
      */
     private void configureForSpinUp() {
         mControlMethod = ControlMethod.SPIN_UP;
+        mBangBang = false;
         mRightMaster.changeControlMode(CANTalon.TalonControlMode.Speed);
         mRightMaster.setProfile(kSpinUpProfile);
         mRightMaster.EnableCurrentLimit(false);
@@ -248,6 +357,7 @@ public class Shooter extends Subsystem {
      */
     private void configureForHoldWhenReady() {
         mControlMethod = ControlMethod.HOLD_WHEN_READY;
+        mBangBang = false;
         mRightMaster.changeControlMode(CANTalon.TalonControlMode.Speed);
         mRightMaster.setProfile(kSpinUpProfile);
         mRightMaster.EnableCurrentLimit(false);
@@ -260,6 +370,7 @@ public class Shooter extends Subsystem {
      */
     private void configureForHold() {
         mControlMethod = ControlMethod.HOLD;
+        mBangBang = false;
         mRightMaster.changeControlMode(CANTalon.TalonControlMode.Speed);
         mRightMaster.setProfile(kHoldProfile);
         mRightMaster.EnableCurrentLimit(false);
@@ -282,18 +393,61 @@ public class Shooter extends Subsystem {
         return output / speed_in_ticks_per_100ms;
     }
 
+    /**
+     * The inverse of estimateKf: the volts per RPM a Talon kF gives
+     */
+    private static double kfToVoltsPerRpm(double kF) {
+        return kF * 4096.0 / 600.0 * 12.0 / 1023.0;
+    }
+
+    /**
+     * Drive the flywheel towards the setpoint. Until the model has converged this is the Talon's spin up PIDF. After
+     * that, apply full voltage while the flywheel is far enough below the setpoint that it would not overshoot in the
+     * lead time, then let the PIDF take over with a kF that the model says holds the setpoint.
+     */
+    private void setSpinUpOutput(double speed) {
+        if (!Constants.kShooterUseModelSpinUp || !mModel.isConverged(Constants.kShooterModelMinSamples)) {
+            mBangBang = false;
+            mRightMaster.changeControlMode(CANTalon.TalonControlMode.Speed);
+            mRightMaster.set(mSetpointRpm);
+            return;
+        }
+        final double lead_rpm = mModel.getAcceleration(speed, Constants.kShooterMaxVoltage)
+                * Constants.kShooterSpinUpLeadTime;
+        final double error = mSetpointRpm - speed;
+        if (mBangBang) {
+            mBangBang = error > lead_rpm;
+        } else {
+            mBangBang = error > lead_rpm + Constants.kShooterBangBangHysteresisRpm;
+        }
+        if (mBangBang) {
+            mRightMaster.changeControlMode(CANTalon.TalonControlMode.Voltage);
+            mRightMaster.set(Constants.kShooterMaxVoltage);
+        } else {
+            // Only rewrite kF when it changes noticeably, since the setpoint moves with the range to the goal.
+            final double kF = estimateKf(mSetpointRpm, mModel.getVoltage(mSetpointRpm, 0.0));
+            if (Double.isNaN(mModelKf) || Math.abs(kF - mModelKf) > 0.01 * Math.abs(mModelKf)) {
+                mModelKf = kF;
+                mRightMaster.setF(kF);
+            }
+            mRightMaster.changeControlMode(CANTalon.TalonControlMode.Speed);
+            mRightMaster.set(mSetpointRpm);
+        }
+    }
+
     /**
      * Main control loop of the shooter. This method will progress the shooter through the spin up, hold when ready, and
      * hold stages.
      */
     private void handleClosedLoop(double timestamp) {
         final double speed = getSpeedRpm();
-        final double voltage = mRightMaster.getOutputVoltage();
+        final double voltage = mInputs.output_voltage;
         mLastRpmSpeed = speed;
+        mModel.addSample(timestamp, speed, voltage);
 
         // See if we should be spinning up or holding.
         if (mControlMethod == ControlMethod.SPIN_UP) {
-            mRightMaster.set(mSetpointRpm);
+            setSpinUpOutput(speed);
             resetHold();
         } else if (mControlMethod == ControlMethod.HOLD_WHEN_READY) {
             final double abs_error = Math.abs(speed - mSetpointRpm);
@@ -314,7 +468,7 @@ public class Shooter extends Subsystem {
             if (mKfEstimator.getNumValues() >= Constants.kShooterMinOnTargetSamples) {
                 configureForHold();
             } else {
-                mRightMaster.set(mSetpointRpm);
+                setSpinUpOutput(speed);
             }
         }
         // No else because we may have changed control methods above.
@@ -331,6 +485,10 @@ public class Shooter extends Subsystem {
         mDebug.voltage = voltage;
         mDebug.control_method = mControlMethod;
         mDebug.kF = mKfEstimator.getAverage();
+        mDebug.model_kS = mModel.getKs();
+        mDebug.model_kV = mModel.getKv();
+        mDebug.model_kA = mModel.getKa();
+        mDebug.model_kDrag = mModel.getKDrag();
         Optional<ShooterAimingParameters> params = RobotState.getInstance().getAimingParameters();
         if (params.isPresent()) {
             mDebug.range = params.get().getRange();
@@ -344,11 +502,29 @@ public class Shooter extends Subsystem {
     }
 
     private double getSpeedRpm() {
-        return mRightMaster.getSpeed();
+        return mInputs.speed_rpm;
+    }
+
+    /**
+     * Everything the shooter reads from its sensors in one loop cycle.
+     */
+    public static class PeriodicInputs {
+        public double timestamp;
+        public double speed_rpm;
+        public double output_voltage;
+    }
+
+    @Override
+    public void readPeriodicInputs(double timestamp) {
+        PeriodicInputs inputs = new PeriodicInputs();
+        inputs.timestamp = timestamp;
+        inputs.speed_rpm = mRightMaster.getSpeed();
+        inputs.output_voltage = mRightMaster.getOutputVoltage();
+        mInputs = inputs;
     }
 
-    private static CANTalon makeSlave(int talonId, boolean flipOutput) {
-        CANTalon slave = CANTalonFactory.createPermanentSlaveTalon(talonId, Constants.kRightShooterMasterId);
+    private static MotorControllerIO makeSlave(RobotHardwareInterface hardware, int talonId, boolean flipOutput) {
+        MotorControllerIO slave = hardware.createPermanentSlaveTalon(talonId, Constants.kRightShooterMasterId);
         slave.reverseOutput(flipOutput);
         slave.enableBrakeMode(false);
         return slave;
@@ -0,0 +1,78 @@
+package com.team254.frc2017.subsystems;
+
+import com.team254.frc2017.Constants;
+import com.team254.lib.util.PageHinkleyDetector;
+import com.team254.lib.util.RollingStatistics;
+
+/**
+ * Decides when fuel has stopped going through the shooter, from the flywheel RPM. While fuel is going through, every
+ * ball knocks the flywheel off its setpoint for a moment; when the hopper or feeder jams, the RPM goes flat. Whether
+ * each sample is disturbed (more than kShooterDisturbanceThreshold from the recent average) is fed to a Page-Hinkley
+ * test, which calls a jam as soon as the fraction of disturbed samples has dropped for long enough, instead of waiting
+ * out a fixed timeout. Counting disturbed samples rather than summing their size keeps one big dip from holding off
+ * the detection.
+ *
+ * The old rule (no disturbance over kShooterDisturbanceThreshold for kShooterJamTimeout) is kept as well, as an upper
+ * bound on the detection delay: the test only catches a change, so it cannot tell if the shooter was jammed from the
+ * start.
+ *
+ * Used by the Superstructure while shooting and by the offline evaluation in sim.JamDetectionEvaluation.
+ */
+public class ShooterJamDetector {
+    private final RollingStatistics mRpmBuffer = new RollingStatistics(Constants.kShooterJamBufferSize);
+    private final PageHinkleyDetector mDetector = new PageHinkleyDetector(PageHinkleyDetector.Direction.DECREASE,
+            Constants.kShooterJamDetectorDelta, Constants.kShooterJamDetectorThreshold,
+            Constants.kShooterJamDetectorMinSamples);
+    private double mStartTime = 0.0;
+    private double mLastDisturbanceTime = 0.0;
+    private double mLastTimestamp = 0.0;
+
+    /**
+     * Start over, e.g. when shooting starts or after unjamming.
+     */
+    public void reset(double timestamp) {
+        mRpmBuffer.clear();
+        mDetector.reset();
+        mStartTime = timestamp;
+        mLastDisturbanceTime = timestamp;
+        mLastTimestamp = timestamp;
+    }
+
+    /**
+     * @return true if a jam has been detected since the last reset
+     */
+    public boolean update(double timestamp, double rpm) {
+        mLastTimestamp = timestamp;
+        // Give the flywheel time to settle and the first balls time to arrive.
+        final boolean settled = timestamp - mStartTime >= Constants.kShooterMinShootingTime && mRpmBuffer.isFull();
+        if (settled) {
+            final boolean disturbed = Math.abs(mRpmBuffer.getAverage() - rpm) > Constants.kShooterDisturbanceThreshold;
+            if (disturbed) {
+                mLastDisturbanceTime = timestamp;
+            }
+            mDetector.addValue(disturbed ? 1.0 : 0.0);
+        } else {
+            mLastDisturbanceTime = timestamp;
+        }
+        mRpmBuffer.addValue(rpm);
+        return isJamDetected();
+    }
+
+    public boolean isJamDetected() {
+        return mDetector.isAlarmed() || isTimedOut();
+    }
+
+    /**
+     * @return true if the jam was called by the timeout rather than the change detector
+     */
+    public boolean isTimedOut() {
+        return mLastTimestamp - mLastDisturbanceTime > Constants.kShooterJamTimeout;
+    }
+
+    /**
+     * @return the Page-Hinkley statistic; a jam is called when it passes kShooterJamDetectorThreshold
+     */
+    public double getStatistic() {
+        return mDetector.getStatistic();
+    }
+}
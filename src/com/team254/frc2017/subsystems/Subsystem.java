@@ -1,6 +1,8 @@
 package com.team254.frc2017.subsystems;
 
-import com.team254.frc2017.loops.Looper;
+import com.team254.frc2017.loops.LooperInterface;
+import com.team254.lib.util.ConstantsRegistry;
+import com.team254.lib.util.DashboardPublisher;
 
 /**
  * The Subsystem abstract class, which serves as a basic framework for all robot subsystems. Each subsystem outputs
@@ -13,14 +15,36 @@ import com.team254.frc2017.loops.Looper;
  * instantializing all member components at the start of the match.
  */
 public abstract class Subsystem {
+    /**
+     * Read every sensor value the subsystem needs into a snapshot. This is called once at the start of each loop
+     * cycle, before any Loop runs, so that the loops and the dashboard all see the same values and nothing reads the
+     * same sensor twice.
+     */
+    public void readPeriodicInputs(double timestamp) {
+    };
+
     public void writeToLog() {
     };
 
     public abstract void outputToSmartDashboard();
 
+    /**
+     * Register the values the DashboardPublisher should keep up to date, instead of putting them from
+     * outputToSmartDashboard() on the robot thread. The suppliers are called from the publisher's thread.
+     */
+    public void registerTelemetry(DashboardPublisher publisher) {
+    };
+
+    /**
+     * Subscribe to the constants the subsystem has to act on when they are reloaded, like gains that live on a Talon.
+     * Constants that are only read in the loops need nothing, since they are reloaded between cycles.
+     */
+    public void registerConstantsListeners(ConstantsRegistry registry) {
+    };
+
     public abstract void stop();
 
     public abstract void zeroSensors();
 
-    public abstract void registerEnabledLoops(Looper enabledLooper);
+    public abstract void registerEnabledLoops(LooperInterface enabledLooper);
 }
\ No newline at end of file
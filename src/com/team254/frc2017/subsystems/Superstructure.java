@@ -1,19 +1,22 @@
 package com.team254.frc2017.subsystems;
 
-import edu.wpi.first.wpilibj.Compressor;
-import edu.wpi.first.wpilibj.Solenoid;
-import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 
 import com.team254.frc2017.Constants;
 import com.team254.frc2017.Robot;
+import com.team254.frc2017.RobotHardware;
+import com.team254.frc2017.RobotHardwareInterface;
 import com.team254.frc2017.RobotState;
 import com.team254.frc2017.ShooterAimingParameters;
+import com.team254.frc2017.auto.AutoTracer;
 import com.team254.frc2017.loops.Loop;
-import com.team254.frc2017.loops.Looper;
-import com.team254.lib.util.CircularBuffer;
-import com.team254.lib.util.InterpolatingDouble;
+import com.team254.frc2017.loops.LooperInterface;
+import com.team254.lib.util.InputRecorder;
+import com.team254.lib.util.UniformLookupTable;
+import com.team254.lib.util.drivers.CompressorIO;
 import com.team254.lib.util.drivers.RevRoboticsAirPressureSensor;
+import com.team254.lib.util.drivers.SolenoidIO;
+import com.team254.lib.util.math.StreamingPolynomialRegression;
 
 import java.util.Optional;
 
@@ -39,24 +42,26 @@ public class Superstructure extends Subsystem {
 
     static Superstructure mInstance = null;
 
-    public static Superstructure getInstance() {
+    public static synchronized Superstructure getInstance() {
         if (mInstance == null) {
-            mInstance = new Superstructure();
+            mInstance = new Superstructure(RobotHardware.getInstance(), Drive.getInstance(), Shooter.getInstance(),
+                    Feeder.getInstance(), Hopper.getInstance(), Intake.getInstance(), LED.getInstance());
         }
         return mInstance;
     }
 
-    private final Feeder mFeeder = Feeder.getInstance();
-    private final Intake mIntake = Intake.getInstance();
-    private final Hopper mHopper = Hopper.getInstance();
-    private final Shooter mShooter = Shooter.getInstance();
-    private final LED mLED = LED.getInstance();
-    private final Solenoid mHopperSolenoid = Constants.makeSolenoidForId(Constants.kHopperSolenoidId);
-    private final Compressor mCompressor = new Compressor(0);
-    private final RevRoboticsAirPressureSensor mAirPressureSensor = new RevRoboticsAirPressureSensor(3);
+    private final RobotHardwareInterface mHardware;
+    private final Feeder mFeeder;
+    private final Intake mIntake;
+    private final Hopper mHopper;
+    private final Shooter mShooter;
+    private final LED mLED;
+    private final SolenoidIO mHopperSolenoid;
+    private final CompressorIO mCompressor;
+    private final RevRoboticsAirPressureSensor mAirPressureSensor;
 
     // Superstructure doesn't own the drive, but needs to access it
-    private final Drive mDrive = Drive.getInstance();
+    private final Drive mDrive;
 
     // Intenal state of the system
     public enum SystemState {
@@ -79,19 +84,58 @@ public class Superstructure extends Subsystem {
         IDLE, SHOOT, UNJAM, UNJAM_SHOOT, MANUAL_FEED, EXHAUST, HANG, RANGE_FINDING
     }
 
+    // Recorded by setWantedState() so that a replay can set it at the same time (see InputRecorder)
+    public static final String kWantedStateChannel = "superstructure.wanted_state";
+
     private SystemState mSystemState = SystemState.IDLE;
     private WantedState mWantedState = WantedState.IDLE;
 
     private double mCurrentTuningRpm = Constants.kShooterTuningRpmFloor;
     private double mLastGoalRange = 0.0;
+    // Replaced as a whole when retuned, so it is safe to swap from any thread.
+    private volatile UniformLookupTable mShootingRpmTable = Constants.makeFlywheelAutoAimTable();
+    // The range to RPM polynomial, refit as shots are recorded. Starts out with the points in Constants.
+    private final StreamingPolynomialRegression mShootingRpmRegression = new StreamingPolynomialRegression(
+            Constants.kFlywheelAutoAimPolynomialDegree,
+            0.5 * (Constants.kShooterAbsoluteRangeFloor + Constants.kShooterAbsoluteRangeCeiling),
+            0.5 * (Constants.kShooterAbsoluteRangeCeiling - Constants.kShooterAbsoluteRangeFloor));
+    private int mNumShotsMade = 0;
+    private int mNumShotsMissed = 0;
 
     private boolean mCompressorOverride = false;
 
-    private CircularBuffer mShooterRpmBuffer = new CircularBuffer(Constants.kShooterJamBufferSize);
-    private double mLastDisturbanceShooterTime;
+    // Shown on the dashboard by outputToSmartDashboard(), rather than sent from the loop
+    private volatile boolean mJamDetected = false;
+    private volatile boolean mIsOptimalRange = false;
+
+    private final ShooterJamDetector mShooterJamDetector = new ShooterJamDetector();
     private double mCurrentStateStartTime;
     private boolean mStateChanged;
 
+    /**
+     * Public so that a Superstructure can be built on simulated hardware, with the subsystems it coordinates; the
+     * robot uses getInstance(). Registers itself with the drive.
+     */
+    public Superstructure(RobotHardwareInterface hardware, Drive drive, Shooter shooter, Feeder feeder, Hopper hopper,
+            Intake intake, LED led) {
+        mHardware = hardware;
+        mDrive = drive;
+        mShooter = shooter;
+        mFeeder = feeder;
+        mHopper = hopper;
+        mIntake = intake;
+        mLED = led;
+        mHopperSolenoid = hardware.createSolenoid(Constants.kHopperSolenoidId);
+        mCompressor = hardware.createCompressor();
+        mAirPressureSensor = new RevRoboticsAirPressureSensor(hardware.createAnalogInput(3));
+        for (double[] pair : Constants.kFlywheelDistanceRpmValues) {
+            mShootingRpmRegression.addSample(pair[0], pair[1]);
+        }
+        mShootingRpmRegression.fit();
+        // Last, so that the drive loop never sees a partly built Superstructure.
+        drive.setSuperstructure(this);
+    }
+
     public boolean isDriveOnTarget() {
         return mDrive.isOnTarget() && mDrive.isAutoAiming();
     }
@@ -121,7 +165,7 @@ public class Superstructure extends Subsystem {
                 mWantedState = WantedState.IDLE;
                 mCurrentStateStartTime = timestamp;
                 mWantStateChangeStartTime = timestamp;
-                mLastDisturbanceShooterTime = timestamp;
+                mShooterJamDetector.reset(timestamp);
                 mSystemState = SystemState.IDLE;
                 mStateChanged = true;
             }
@@ -171,7 +215,8 @@ public class Superstructure extends Subsystem {
 
                 if (newState != mSystemState) {
                     System.out.println("Superstructure state " + mSystemState + " to " + newState + " Timestamp: "
-                            + Timer.getFPGATimestamp());
+                            + timestamp);
+                    AutoTracer.getInstance().event("superstructure", newState.name());
                     mSystemState = newState;
                     mCurrentStateStartTime = timestamp;
                     mStateChanged = true;
@@ -276,7 +321,7 @@ public class Superstructure extends Subsystem {
         setWantIntakeOnForShooting();
 
         if (autoSpinShooter(true)) {
-            System.out.println(Timer.getFPGATimestamp() + ": making shot: Range: " + mLastGoalRange + " setpoint: "
+            System.out.println(mHardware.getTimestamp() + ": making shot: Range: " + mLastGoalRange + " setpoint: "
                     + mShooter.getSetpointRpm());
 
             return SystemState.SHOOTING;
@@ -305,21 +350,14 @@ public class Superstructure extends Subsystem {
         mLED.setWantedState(LED.WantedState.FIND_RANGE);
         setWantIntakeOnForShooting();
 
-        // Pump circular buffer with last rpm from talon.
-        final double rpm = mShooter.getLastSpeedRpm();
-
         if (mStateChanged) {
-            mShooterRpmBuffer.clear();
+            mShooterJamDetector.reset(timestamp);
+            mFeeder.resetJamDetector();
         }
 
-        // Find time of last shooter disturbance.
-        if ((timestamp - mCurrentStateStartTime < Constants.kShooterMinShootingTime) ||
-                !mShooterRpmBuffer.isFull() ||
-                (Math.abs(mShooterRpmBuffer.getAverage() - rpm) > Constants.kShooterDisturbanceThreshold)) {
-            mLastDisturbanceShooterTime = timestamp;
-        }
-
-        mShooterRpmBuffer.addValue(rpm);
+        // Look for fuel no longer going through the shooter, or the feeder stalling on it.
+        final boolean shooter_jammed = mShooterJamDetector.update(timestamp, mShooter.getLastSpeedRpm());
+        final boolean feeder_jammed = mFeeder.isJamDetected();
 
         switch (mWantedState) {
         case UNJAM_SHOOT:
@@ -328,12 +366,8 @@ public class Superstructure extends Subsystem {
             if (!isOnTargetToKeepShooting()) {
                 return SystemState.WAITING_FOR_ALIGNMENT;
             }
-            boolean jam_detected = false;
-            if (timestamp - mLastDisturbanceShooterTime > Constants.kShooterJamTimeout) {
-                // We have jammed, move to unjamming.
-                jam_detected = true;
-            }
-            SmartDashboard.putBoolean("Jam Detected", jam_detected);
+            final boolean jam_detected = shooter_jammed || feeder_jammed;
+            mJamDetected = jam_detected;
 
             if (jam_detected) {
                 return SystemState.UNJAMMING_WITH_SHOOT;
@@ -484,15 +518,38 @@ public class Superstructure extends Subsystem {
     }
 
     private double getShootingSetpointRpm(double range) {
-        if (Constants.kUseFlywheelAutoAimPolynomial) {
-            return Constants.kFlywheelAutoAimPolynomial.predict(range);
-        } else {
-            return Constants.kFlywheelAutoAimMap.getInterpolated(new InterpolatingDouble(range)).value;
+        return mShootingRpmTable.get(range);
+    }
+
+    /**
+     * Start using a new range to RPM table (ex. after retuning the shooter constants).
+     */
+    public void setShootingRpmTable(UniformLookupTable table) {
+        mShootingRpmTable = table;
+    }
+
+    /**
+     * Record the result of a shot, for refining the range to RPM map without redeploying. A made shot is added to the
+     * polynomial fit, and if the auto aim polynomial is in use, the refit table is swapped in. A miss does not say
+     * whether the RPM was too high or too low, so it is only counted.
+     */
+    public synchronized void addShotResult(double range, double rpm, boolean made) {
+        if (!made) {
+            ++mNumShotsMissed;
+            return;
+        }
+        ++mNumShotsMade;
+        mShootingRpmRegression.addSample(range, rpm, Constants.kFlywheelAutoAimSampleWeight);
+        if (mShootingRpmRegression.fit()) {
+            System.out.println("Refit RPM polynomial: " + mShootingRpmRegression);
+            if (Constants.kUseFlywheelAutoAimPolynomial) {
+                setShootingRpmTable(Constants.makeFlywheelAutoAimTable(mShootingRpmRegression.getCoefficients()));
+            }
         }
     }
 
     public synchronized boolean autoSpinShooter(boolean allow_shooting) {
-        final double timestamp = Timer.getFPGATimestamp();
+        final double timestamp = mHardware.getTimestamp();
         final Optional<ShooterAimingParameters> aimOptional = RobotState.getInstance()
                 .getAimingParameters();
         mLED.setWantedState(LED.WantedState.FIND_RANGE);
@@ -528,7 +585,7 @@ public class Superstructure extends Subsystem {
                     is_optimal_range = true;
                 }
 
-                SmartDashboard.putBoolean("optimal range", is_optimal_range);
+                mIsOptimalRange = is_optimal_range;
             } else {
                 // We are shooter tuning find current RPM we are tuning for.
                 mShooter.setHoldWhenReady(mCurrentTuningRpm);
@@ -537,7 +594,7 @@ public class Superstructure extends Subsystem {
 
             return range_valid && isOnTargetToShoot()
                     && (timestamp - aim.getLastSeenTimestamp()) < Constants.kMaxGoalTrackAge;
-        } else if (Superstructure.getInstance().isShooting()) {
+        } else if (isShooting()) {
             mLED.setRangeBlicking(true);
             // Keep the previous setpoint.
             return false;
@@ -567,7 +624,19 @@ public class Superstructure extends Subsystem {
         return mLastGoalRange;
     }
 
+    public synchronized int getNumShotsMade() {
+        return mNumShotsMade;
+    }
+
+    public synchronized int getNumShotsMissed() {
+        return mNumShotsMissed;
+    }
+
     public synchronized void setWantedState(WantedState wantedState) {
+        final InputRecorder recorder = InputRecorder.getInstance();
+        if (recorder.isRecording()) {
+            recorder.recordInput(kWantedStateChannel, wantedState.ordinal());
+        }
         mWantedState = wantedState;
     }
 
@@ -586,6 +655,9 @@ public class Superstructure extends Subsystem {
     @Override
     public void outputToSmartDashboard() {
         SmartDashboard.putNumber("Air Pressure psi", mAirPressureSensor.getAirPressurePsi());
+        SmartDashboard.putNumber("Shooter Jam Statistic", mShooterJamDetector.getStatistic());
+        SmartDashboard.putBoolean("Jam Detected", mJamDetected);
+        SmartDashboard.putBoolean("optimal range", mIsOptimalRange);
     }
 
     @Override
@@ -599,8 +671,8 @@ public class Superstructure extends Subsystem {
     }
 
     @Override
-    public void registerEnabledLoops(Looper enabledLooper) {
-        enabledLooper.register(mLoop);
+    public void registerEnabledLoops(LooperInterface enabledLooper) {
+        enabledLooper.register("Superstructure", mLoop);
     }
 
     public void setWantIntakeReversed() {
@@ -622,8 +694,4 @@ public class Superstructure extends Subsystem {
     public void setOverrideCompressor(boolean force_off) {
         mCompressorOverride = force_off;
     }
-
-    public void reloadConstants() {
-        mShooter.refreshControllerConsts();
-    }
 }
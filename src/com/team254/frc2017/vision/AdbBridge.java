@@ -1,18 +1,46 @@
 package com.team254.frc2017.vision;
 
+import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * AdbBridge interfaces to an Android Debug Bridge (adb) binary, which is needed to communicate to Android devices over
  * USB.
  *
+ * Commands run one at a time, in the order they were asked for, on a background thread, so callers never wait on adb.
+ * Each returns a future that completes with whether adb exited successfully. Asking again for the last command asked
+ * for, while it is still waiting or running, returns the future of that one instead of running it twice. (Only the
+ * last, so that a command is never moved ahead of one asked for after it.)
+ *
  * adb binary provided by https://github.com/Spectrum3847/RIOdroid
  */
 public class AdbBridge {
     Path bin_location_;
     public final static Path DEFAULT_LOCATION = Paths.get("/usr/bin/adb");
+    // adb can hang (on a phone that is half connected, say); don't let that hold up the commands after it.
+    private static final long kCommandTimeoutMs = 10000;
+    private static final File kNullFile = new File("/dev/null");
+
+    private final ExecutorService executor_ = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "AdbBridge");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Guarded by this
+    private String last_args_ = null;
+    private CompletableFuture<Boolean> last_future_ = null;
+    private final Map<String, Boolean> last_result_ = new HashMap<>();
 
     public AdbBridge() {
         Path adb_location;
@@ -29,52 +57,85 @@ public class AdbBridge {
         bin_location_ = location;
     }
 
-    private boolean runCommand(String args) {
-        Runtime r = Runtime.getRuntime();
-        String cmd = bin_location_.toString() + " " + args;
+    private synchronized CompletableFuture<Boolean> runCommand(String args) {
+        if (args.equals(last_args_) && !last_future_.isDone()) {
+            return last_future_;
+        }
+        last_args_ = args;
+        last_future_ = CompletableFuture.supplyAsync(() -> runCommandNow(args), executor_);
+        return last_future_;
+    }
 
+    private boolean runCommandNow(String args) {
+        List<String> cmd = new ArrayList<>();
+        cmd.add(bin_location_.toString());
+        cmd.addAll(Arrays.asList(args.split(" ")));
+        final boolean print_failure;
+        synchronized (this) {
+            // Only say so the first time a command fails, rather than every time it is retried.
+            print_failure = last_result_.getOrDefault(args, true);
+            last_result_.put(args, false);
+        }
         try {
-            Process p = r.exec(cmd);
-            p.waitFor();
+            Process p = new ProcessBuilder(cmd).redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.appendTo(kNullFile)).start();
+            if (!p.waitFor(kCommandTimeoutMs, TimeUnit.MILLISECONDS)) {
+                p.destroyForcibly();
+                if (print_failure) {
+                    System.err.println("AdbBridge: Timed out running command " + String.join(" ", cmd));
+                }
+                return false;
+            }
+            if (p.exitValue() != 0) {
+                if (print_failure) {
+                    System.err.println("AdbBridge: Command " + String.join(" ", cmd) + " exited with " + p.exitValue());
+                }
+                return false;
+            }
+            synchronized (this) {
+                last_result_.put(args, true);
+            }
         } catch (IOException e) {
-            System.err.println("AdbBridge: Could not run command " + cmd);
-            e.printStackTrace();
+            if (print_failure) {
+                System.err.println("AdbBridge: Could not run command " + String.join(" ", cmd));
+                e.printStackTrace();
+            }
             return false;
         } catch (InterruptedException e) {
-            System.err.println("AdbBridge: Could not run command " + cmd);
+            System.err.println("AdbBridge: Could not run command " + String.join(" ", cmd));
             e.printStackTrace();
             return false;
         }
         return true;
     }
 
-    public void start() {
+    public CompletableFuture<Boolean> start() {
         System.out.println("Starting adb");
-        runCommand("start");
+        return runCommand("start-server");
     }
 
-    public void stop() {
+    public CompletableFuture<Boolean> stop() {
         System.out.println("Stopping adb");
-        runCommand("kill-server");
+        return runCommand("kill-server");
     }
 
-    public void restartAdb() {
+    public CompletableFuture<Boolean> restartAdb() {
         System.out.println("Restarting adb");
         stop();
-        start();
+        return start();
     }
 
-    public void portForward(int local_port, int remote_port) {
-        runCommand("forward tcp:" + local_port + " tcp:" + remote_port);
+    public CompletableFuture<Boolean> portForward(int local_port, int remote_port) {
+        return runCommand("forward tcp:" + local_port + " tcp:" + remote_port);
     }
 
-    public void reversePortForward(int remote_port, int local_port) {
-        runCommand("reverse tcp:" + remote_port + " tcp:" + local_port);
+    public CompletableFuture<Boolean> reversePortForward(int remote_port, int local_port) {
+        return runCommand("reverse tcp:" + remote_port + " tcp:" + local_port);
     }
 
-    public void restartApp() {
+    public CompletableFuture<Boolean> restartApp() {
         System.out.println("Restarting app");
-        runCommand("shell am force-stop com.team254.cheezdroid \\; "
+        return runCommand("shell am force-stop com.team254.cheezdroid \\; "
                 + "am start com.team254.cheezdroid/com.team254.cheezdroid.VisionTrackerActivity");
     }
 }
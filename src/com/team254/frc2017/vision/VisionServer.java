@@ -28,6 +28,9 @@ import java.util.Collections;
 public class VisionServer extends CrashTrackingRunnable {
 
     private static VisionServer s_instance = null;
+    // Seconds between tries at forwarding the port to a disconnected phone
+    private static final double kMinReverseRetryDelay = 0.2;
+    private static final double kMaxReverseRetryDelay = 3.2;
     private ServerSocket m_server_socket;
     private boolean m_running = true;
     private int m_port;
@@ -39,7 +42,7 @@ public class VisionServer extends CrashTrackingRunnable {
     private ArrayList<ServerThread> serverThreads = new ArrayList<>();
     private volatile boolean mWantsAppRestart = false;
 
-    public static VisionServer getInstance() {
+    public static synchronized VisionServer getInstance() {
         if (s_instance == null) {
             s_instance = new VisionServer(Constants.kAndroidAppTcpPort);
         }
@@ -197,14 +200,25 @@ public class VisionServer extends CrashTrackingRunnable {
     }
 
     private class AppMaintainanceThread extends CrashTrackingRunnable {
+        private double mReverseRetryDelay = kMinReverseRetryDelay;
+        private double mNextReverseTime = 0.0;
+
         @Override
         public void runCrashTracked() {
             while (true) {
+                final double now = Timer.getFPGATimestamp();
                 if (getTimestamp() - lastMessageReceivedTime > .1) {
-                    // camera disconnected
-                    adb.reversePortForward(m_port, m_port);
+                    // camera disconnected. adb runs in the background, so retry the port forward, backing off while
+                    // the phone stays away (say, unplugged) so that adb is not run over and over for nothing.
+                    if (now >= mNextReverseTime) {
+                        adb.reversePortForward(m_port, m_port);
+                        mNextReverseTime = now + mReverseRetryDelay;
+                        mReverseRetryDelay = Math.min(mReverseRetryDelay * 2.0, kMaxReverseRetryDelay);
+                    }
                     mIsConnect = false;
                 } else {
+                    mReverseRetryDelay = kMinReverseRetryDelay;
+                    mNextReverseTime = 0.0;
                     mIsConnect = true;
                 }
                 if (mWantsAppRestart) {
@@ -28,6 +28,18 @@ public class VisionUpdate {
 
     private static JSONParser parser = new JSONParser();
 
+    protected VisionUpdate() {
+    }
+
+    /**
+     * Creates a valid update from targets that have already been parsed, e.g. when replaying a recording.
+     */
+    public VisionUpdate(double capturedAtTimestamp, List<TargetInfo> targets) {
+        this.capturedAtTimestamp = capturedAtTimestamp;
+        this.targets = targets;
+        this.valid = true;
+    }
+
     private static Optional<Double> parseDouble(JSONObject j, String key) throws ClassCastException {
         Object d = j.get(key);
         if (d == null) {
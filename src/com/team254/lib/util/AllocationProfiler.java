@@ -0,0 +1,338 @@
+package com.team254.lib.util;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.GcInfo;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+
+/**
+ * Measures how much memory the periodic code allocates and whether garbage collection is what makes the Looper late.
+ *
+ * Code to measure is wrapped in a Section, which counts the bytes the calling thread allocated between begin() and
+ * end() (with ThreadMXBean.getThreadAllocatedBytes). Loop ticks are reported with recordTick(), and every garbage
+ * collection the JVM reports is matched to the ticks it overlapped, so that the report can say how many overruns came
+ * with a collection. Note that for concurrent collectors the reported duration is not all pause.
+ *
+ * The numbers are kept per report period: update() rolls them over every period, prints a report naming the top
+ * allocators, and keeps the finished period's numbers for the dashboard (see registerTelemetry).
+ *
+ * Measuring allocates nothing itself, though some JVMs allocate to answer getThreadAllocatedBytes; that much is
+ * measured once and taken out of every section. Where the JVM cannot count allocations, the sections report 0 bytes.
+ */
+public class AllocationProfiler {
+    private static final int kTicksToKeep = 1024;
+    private static final int kCollectionsToKeep = 16;
+    private static final int kTopAllocatorsReported = 5;
+    private static final double kReportPeriod = 10.0;
+
+    private static AllocationProfiler sInstance = null;
+
+    public static synchronized AllocationProfiler getInstance() {
+        if (sInstance == null) {
+            sInstance = new AllocationProfiler();
+        }
+        return sInstance;
+    }
+
+    /**
+     * Counts the bytes allocated by one piece of code. Only one thread may be inside a section at a time.
+     */
+    public class Section {
+        public final String name;
+        private long mStart = 0;
+        // Guarded by AllocationProfiler.this
+        private long mCalls = 0;
+        private long mBytes = 0;
+        private long mMaxBytes = 0;
+        private double mLastBytesPerCall = 0.0;
+        private long mLastMaxBytes = 0;
+
+        Section(String name) {
+            this.name = name;
+        }
+
+        public void begin() {
+            mStart = getAllocatedBytes();
+        }
+
+        public void end() {
+            final long bytes = Math.max(0, getAllocatedBytes() - mStart - mOverheadBytes);
+            synchronized (AllocationProfiler.this) {
+                ++mCalls;
+                mBytes += bytes;
+                mMaxBytes = Math.max(mMaxBytes, bytes);
+            }
+        }
+
+        /**
+         * @return the bytes allocated per call, on average, in the last report period
+         */
+        public double getBytesPerCall() {
+            synchronized (AllocationProfiler.this) {
+                return mLastBytesPerCall;
+            }
+        }
+
+        /**
+         * @return the most bytes allocated by one call in the last report period
+         */
+        public long getMaxBytes() {
+            synchronized (AllocationProfiler.this) {
+                return mLastMaxBytes;
+            }
+        }
+    }
+
+    private final com.sun.management.ThreadMXBean mThreadBean;
+    private final long mOverheadBytes;
+    private final long mJvmStartNanos;
+    private final double mReportPeriod;
+
+    // Guarded by this
+    private final List<Section> mSections = new ArrayList<>();
+    // Ring buffers of recent ticks: the interval from the end of the previous tick (so a collection that delayed the
+    // start of a tick counts) to the end of this one.
+    private final long[] mTickStarts = new long[kTicksToKeep];
+    private final long[] mTickEnds = new long[kTicksToKeep];
+    private final boolean[] mTickOverran = new boolean[kTicksToKeep];
+    private final boolean[] mTickCollected = new boolean[kTicksToKeep];
+    private int mNextTick = 0;
+    private int mNumTicks = 0;
+    private final long[] mCollectionStarts = new long[kCollectionsToKeep];
+    private final long[] mCollectionEnds = new long[kCollectionsToKeep];
+    private final boolean[] mCollectionDuringTick = new boolean[kCollectionsToKeep];
+    private int mNextCollection = 0;
+    private int mNumCollections = 0;
+    // Counts for the current report period, and for the last one.
+    private long mTicks = 0;
+    private long mOverruns = 0;
+    private long mOverrunsWithCollection = 0;
+    private long mCollections = 0;
+    private long mCollectionsDuringTicks = 0;
+    private long mCollectionNanos = 0;
+    private long mLastTicks = 0;
+    private long mLastOverruns = 0;
+    private long mLastOverrunsWithCollection = 0;
+    private long mLastCollections = 0;
+    private long mLastCollectionsDuringTicks = 0;
+    private long mLastCollectionNanos = 0;
+    private double mPeriodStart = Double.NaN;
+
+    AllocationProfiler() {
+        this(kReportPeriod, true);
+    }
+
+    AllocationProfiler(double report_period, boolean listen_for_collections) {
+        mReportPeriod = report_period;
+        final ThreadMXBean thread_bean = ManagementFactory.getThreadMXBean();
+        if (thread_bean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) thread_bean).isThreadAllocatedMemorySupported()) {
+            mThreadBean = (com.sun.management.ThreadMXBean) thread_bean;
+            mThreadBean.setThreadAllocatedMemoryEnabled(true);
+        } else {
+            System.out.println("Allocations cannot be measured on this JVM");
+            mThreadBean = null;
+        }
+        long overhead = Long.MAX_VALUE;
+        for (int i = 0; i < 16; ++i) {
+            final long start = getAllocatedBytes();
+            overhead = Math.min(overhead, getAllocatedBytes() - start);
+        }
+        mOverheadBytes = overhead;
+        mJvmStartNanos = System.nanoTime() - ManagementFactory.getRuntimeMXBean().getUptime() * 1000000L;
+        if (listen_for_collections) {
+            listenForCollections();
+        }
+    }
+
+    private long getAllocatedBytes() {
+        return mThreadBean == null ? 0 : mThreadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private void listenForCollections() {
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (!(collector instanceof NotificationEmitter)) {
+                continue;
+            }
+            ((NotificationEmitter) collector).addNotificationListener((Notification notification, Object handback) -> {
+                if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION
+                        .equals(notification.getType())) {
+                    return;
+                }
+                final GcInfo info = GarbageCollectionNotificationInfo
+                        .from((CompositeData) notification.getUserData()).getGcInfo();
+                // The start and end are in milliseconds since the JVM started.
+                recordCollection(mJvmStartNanos + info.getStartTime() * 1000000L,
+                        mJvmStartNanos + (info.getEndTime() + 1) * 1000000L);
+            }, null, null);
+        }
+    }
+
+    /**
+     * @return a new Section reported under the given name
+     */
+    public synchronized Section register(String name) {
+        Section section = new Section(name);
+        mSections.add(section);
+        return section;
+    }
+
+    /**
+     * Report a loop tick, with System.nanoTime() timestamps.
+     *
+     * @param previous_end
+     *            when the previous tick ended
+     * @param end
+     *            when this tick ended
+     * @param overran
+     *            whether this tick was late or took too long
+     */
+    public synchronized void recordTick(long previous_end, long end, boolean overran) {
+        final int i = mNextTick;
+        mTickStarts[i] = previous_end;
+        mTickEnds[i] = end;
+        mTickOverran[i] = overran;
+        mTickCollected[i] = false;
+        mNextTick = (i + 1) % kTicksToKeep;
+        mNumTicks = Math.min(mNumTicks + 1, kTicksToKeep);
+        ++mTicks;
+        if (overran) {
+            ++mOverruns;
+        }
+        // A collection can be reported before the tick it delayed has ended.
+        for (int j = 0; j < mNumCollections; ++j) {
+            if (mCollectionStarts[j] < end && mCollectionEnds[j] > previous_end) {
+                markCollected(i, j);
+            }
+        }
+    }
+
+    /**
+     * Report a garbage collection, with System.nanoTime() timestamps, and match it to the ticks it overlapped.
+     */
+    synchronized void recordCollection(long start, long end) {
+        final int j = mNextCollection;
+        mCollectionStarts[j] = start;
+        mCollectionEnds[j] = end;
+        mCollectionDuringTick[j] = false;
+        mNextCollection = (j + 1) % kCollectionsToKeep;
+        mNumCollections = Math.min(mNumCollections + 1, kCollectionsToKeep);
+        ++mCollections;
+        mCollectionNanos += end - start;
+        for (int i = 0; i < mNumTicks; ++i) {
+            if (mTickStarts[i] < end && mTickEnds[i] > start) {
+                markCollected(i, j);
+            }
+        }
+    }
+
+    private void markCollected(int tick, int collection) {
+        if (!mCollectionDuringTick[collection]) {
+            mCollectionDuringTick[collection] = true;
+            ++mCollectionsDuringTicks;
+        }
+        if (!mTickCollected[tick]) {
+            mTickCollected[tick] = true;
+            if (mTickOverran[tick]) {
+                ++mOverrunsWithCollection;
+            }
+        }
+    }
+
+    /**
+     * Call periodically. Every report period, prints the report and starts a new period.
+     *
+     * @return whether a report was made
+     */
+    public boolean update(double timestamp) {
+        final String report;
+        synchronized (this) {
+            if (Double.isNaN(mPeriodStart)) {
+                mPeriodStart = timestamp;
+            }
+            if (timestamp - mPeriodStart < mReportPeriod) {
+                return false;
+            }
+            mPeriodStart = timestamp;
+            for (Section section : mSections) {
+                section.mLastBytesPerCall = section.mCalls > 0 ? (double) section.mBytes / section.mCalls : 0.0;
+                section.mLastMaxBytes = section.mMaxBytes;
+                section.mCalls = 0;
+                section.mBytes = 0;
+                section.mMaxBytes = 0;
+            }
+            mLastTicks = mTicks;
+            mLastOverruns = mOverruns;
+            mLastOverrunsWithCollection = mOverrunsWithCollection;
+            mLastCollections = mCollections;
+            mLastCollectionsDuringTicks = mCollectionsDuringTicks;
+            mLastCollectionNanos = mCollectionNanos;
+            report = getReport();
+            mTicks = 0;
+            mOverruns = 0;
+            mOverrunsWithCollection = 0;
+            mCollections = 0;
+            mCollectionsDuringTicks = 0;
+            mCollectionNanos = 0;
+        }
+        System.out.print(report);
+        return true;
+    }
+
+    /**
+     * @return the report for the last report period
+     */
+    public synchronized String getReport() {
+        List<Section> sections = new ArrayList<>(mSections);
+        sections.sort((a, b) -> Double.compare(b.mLastBytesPerCall, a.mLastBytesPerCall));
+        StringBuilder report = new StringBuilder();
+        report.append(String.format(
+                "Allocations: %d ticks, %d overran (%d during a collection); %d collections (%d during a tick), "
+                        + "%.1f ms%n",
+                mLastTicks, mLastOverruns, mLastOverrunsWithCollection, mLastCollections, mLastCollectionsDuringTicks,
+                mLastCollectionNanos * 1E-6));
+        for (int i = 0; i < Math.min(kTopAllocatorsReported, sections.size()); ++i) {
+            final Section section = sections.get(i);
+            report.append(String.format("  %-32s %10.0f B/call %10d B max%n", section.name, section.mLastBytesPerCall,
+                    section.mLastMaxBytes));
+        }
+        return report.toString();
+    }
+
+    public synchronized long getOverruns() {
+        return mLastOverruns;
+    }
+
+    public synchronized long getOverrunsWithCollection() {
+        return mLastOverrunsWithCollection;
+    }
+
+    public synchronized long getCollections() {
+        return mLastCollections;
+    }
+
+    public synchronized double getCollectionMillis() {
+        return mLastCollectionNanos * 1E-6;
+    }
+
+    /**
+     * Publish the last report period's numbers: the collections and overruns, and each section's bytes per call.
+     */
+    public synchronized void registerTelemetry(DashboardPublisher publisher) {
+        publisher.registerNumber("gc collections", () -> getCollections(), 0.5, 1.0);
+        publisher.registerNumber("gc time (ms)", () -> getCollectionMillis(), 0.5, 1.0);
+        publisher.registerNumber("loop overruns", () -> getOverruns(), 0.5, 1.0);
+        publisher.registerNumber("loop overruns during gc", () -> getOverrunsWithCollection(), 0.5, 1.0);
+        for (Section section : mSections) {
+            publisher.registerNumber("alloc " + section.name + " (B/call)", section::getBytesPerCall, 1.0, 1.0);
+        }
+    }
+}
@@ -4,7 +4,10 @@ import java.util.LinkedList;
 
 /**
  * Implements a simple circular buffer.
+ *
+ * @deprecated Boxes every value; use {@link RollingStatistics}, which keeps the same average without allocating.
  */
+@Deprecated
 public class CircularBuffer {
     int mWindowSize;
     LinkedList<Double> mSamples;
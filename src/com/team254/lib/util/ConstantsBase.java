@@ -9,13 +9,17 @@ import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.math.BigDecimal;
 import java.nio.file.Files;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -26,6 +30,7 @@ import java.util.Set;
  */
 public abstract class ConstantsBase {
     HashMap<String, Boolean> modifiedKeys = new HashMap<String, Boolean>();
+    private Map<String, Field> mFields = null;
 
     public abstract String getFileLocation();
 
@@ -56,6 +61,23 @@ public abstract class ConstantsBase {
         return new File(filePath);
     }
 
+    /**
+     * @return the static fields by name, in the order they are declared. They are looked up once, rather than on every
+     *         get or set.
+     */
+    synchronized Map<String, Field> getFields() {
+        if (mFields == null) {
+            Map<String, Field> fields = new LinkedHashMap<>();
+            for (Field field : this.getClass().getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    fields.put(field.getName(), field);
+                }
+            }
+            mFields = Collections.unmodifiableMap(fields);
+        }
+        return mFields;
+    }
+
     public boolean truncateUserConstants() {
         try {
             Files.write(getFile().toPath(), new byte[0], StandardOpenOption.TRUNCATE_EXISTING);
@@ -81,51 +103,45 @@ public abstract class ConstantsBase {
     }
 
     private boolean setConstantRaw(String name, Object value) {
-        boolean success = false;
-        Field[] declaredFields = this.getClass().getDeclaredFields();
-        for (Field field : declaredFields) {
-            if (java.lang.reflect.Modifier.isStatic(field.getModifiers()) && field.getName().equals(name)) {
-                try {
-                    Object current = field.get(this);
-                    field.set(this, value);
-                    success = true;
-                    if (!value.equals(current)) {
-                        modifiedKeys.put(name, true);
-                        System.out.println("Constant Modified:" + field.getName());
-                    } else {
-                        System.out.println("Constant Not Modified:" + field.getName());
-                    }
-                } catch (IllegalArgumentException | IllegalAccessException e) {
-                    System.out.println("Could not set field: " + name);
-                }
+        Field field = getFields().get(name);
+        if (field == null) {
+            return false;
+        }
+        try {
+            Object current = field.get(this);
+            field.set(this, value);
+            if (!value.equals(current)) {
+                modifiedKeys.put(name, true);
+                System.out.println("Constant Modified:" + field.getName());
+            } else {
+                System.out.println("Constant Not Modified:" + field.getName());
             }
+            return true;
+        } catch (IllegalArgumentException | IllegalAccessException e) {
+            System.out.println("Could not set field: " + name);
+            return false;
         }
-        return success;
     }
 
     public Object getValueForConstant(String name) throws Exception {
-        Field[] declaredFields = this.getClass().getDeclaredFields();
-        for (Field field : declaredFields) {
-            if (java.lang.reflect.Modifier.isStatic(field.getModifiers()) && field.getName().equals(name)) {
-                try {
-                    return field.get(this);
-                } catch (IllegalArgumentException | IllegalAccessException e) {
-                    throw new Exception("Constant not found");
-                }
-            }
+        Field field = getFields().get(name);
+        if (field == null) {
+            throw new Exception("Constant not found");
+        }
+        try {
+            return field.get(this);
+        } catch (IllegalArgumentException | IllegalAccessException e) {
+            throw new Exception("Constant not found");
         }
-        throw new Exception("Constant not found");
     }
 
     public Constant getConstant(String name) {
-        Field[] declaredFields = this.getClass().getDeclaredFields();
-        for (Field field : declaredFields) {
-            if (java.lang.reflect.Modifier.isStatic(field.getModifiers()) && field.getName().equals(name)) {
-                try {
-                    return new Constant(field.getName(), field.getType(), field.get(this));
-                } catch (IllegalArgumentException | IllegalAccessException e) {
-                    e.printStackTrace();
-                }
+        Field field = getFields().get(name);
+        if (field != null) {
+            try {
+                return new Constant(field.getName(), field.getType(), field.get(this));
+            } catch (IllegalArgumentException | IllegalAccessException e) {
+                e.printStackTrace();
             }
         }
         return new Constant("", Object.class, 0);
@@ -144,17 +160,12 @@ public abstract class ConstantsBase {
     }
 
     private Collection<Constant> getAllConstants() {
-        Field[] declaredFields = this.getClass().getDeclaredFields();
-        List<Constant> constants = new ArrayList<Constant>(declaredFields.length);
-        for (Field field : declaredFields) {
-            if (java.lang.reflect.Modifier.isStatic(field.getModifiers())) {
-                Constant c;
-                try {
-                    c = new Constant(field.getName(), field.getType(), field.get(this));
-                    constants.add(c);
-                } catch (IllegalArgumentException | IllegalAccessException e) {
-                    e.printStackTrace();
-                }
+        List<Constant> constants = new ArrayList<Constant>(getFields().size());
+        for (Field field : getFields().values()) {
+            try {
+                constants.add(new Constant(field.getName(), field.getType(), field.get(this)));
+            } catch (IllegalArgumentException | IllegalAccessException e) {
+                e.printStackTrace();
             }
         }
         return constants;
@@ -0,0 +1,330 @@
+package com.team254.lib.util;
+
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Reloads the constants in a ConstantsBase from its file (a JSON object of name to value) while the robot runs, so
+ * that tuning does not need a restart.
+ *
+ * A thread watches the file and, whenever it is written, parses all of it into a snapshot. Nothing changes until
+ * apply() is called, which should be done at a loop boundary, before any loop runs: it sets every constant from the
+ * latest snapshot at once, so a cycle never sees half of an edit. A file that does not parse, names a constant that
+ * does not exist, or gives one a value of the wrong type is rejected as a whole. Constants that are not in the file go
+ * back to the values they had when the registry was made.
+ *
+ * Listeners subscribe to the constants they use (say, the gains they push to a Talon) and are called from apply() only
+ * when one of those changed.
+ *
+ * Only public, non-final double, int, long, boolean and String constants can be reloaded, and not those marked
+ * {@link BootOnly}. The fields are looked up once, when the registry is made.
+ *
+ * apply() sets the constants on the thread that calls it (the loops'). Any other thread that reads them should call
+ * sync() at the start of each of its cycles to see what apply() set.
+ */
+public class ConstantsRegistry {
+    /**
+     * Marks a constant that is only read while the robot starts (to size a buffer, say), so reloading it would do
+     * nothing. The registry leaves it alone, and ignores it in the file.
+     */
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.FIELD)
+    public @interface BootOnly {
+    }
+
+    public interface Listener {
+        /**
+         * Called from apply() after the constants have been set.
+         *
+         * @param changed
+         *            the subscribed constants that changed
+         */
+        void onConstantsChanged(Set<String> changed);
+    }
+
+    private static class Subscription {
+        final Listener listener;
+        final Set<String> names;
+
+        Subscription(Listener listener, Set<String> names) {
+            this.listener = listener;
+            this.names = names;
+        }
+    }
+
+    private final ConstantsBase mConstants;
+    private final File mFile;
+    private final Map<String, Field> mFields = new LinkedHashMap<>();
+    private final Map<String, Object> mDefaults = new LinkedHashMap<>();
+    private final Set<String> mBootOnly = new LinkedHashSet<>();
+    private final List<Subscription> mSubscriptions = new ArrayList<>();
+    private final AtomicReference<Map<String, Object>> mPending = new AtomicReference<>();
+    private Thread mThread = null;
+    private WatchService mWatchService = null;
+    // Written by apply() after it sets the constants, so that reading it in sync() makes them visible.
+    private volatile long mNumChanges = 0;
+
+    public ConstantsRegistry(ConstantsBase constants) {
+        mConstants = constants;
+        mFile = constants.getFile();
+        for (Field field : constants.getFields().values()) {
+            final int modifiers = field.getModifiers();
+            if (!Modifier.isPublic(modifiers) || Modifier.isFinal(modifiers) || !isReloadableType(field.getType())) {
+                continue;
+            }
+            if (field.isAnnotationPresent(BootOnly.class)) {
+                mBootOnly.add(field.getName());
+            } else {
+                mFields.put(field.getName(), field);
+                mDefaults.put(field.getName(), get(field));
+            }
+        }
+    }
+
+    private static boolean isReloadableType(Class<?> type) {
+        return type == double.class || type == int.class || type == long.class || type == boolean.class
+                || type == String.class;
+    }
+
+    /**
+     * @return the constants that can be reloaded
+     */
+    public Set<String> getNames() {
+        return Collections.unmodifiableSet(mFields.keySet());
+    }
+
+    /**
+     * Call the listener from apply() whenever any of the named constants changes.
+     *
+     * @throws IllegalArgumentException
+     *             if a name is not a constant that can be reloaded
+     */
+    public synchronized void subscribe(Listener listener, String... names) {
+        for (String name : names) {
+            if (!mFields.containsKey(name)) {
+                throw new IllegalArgumentException("Not a reloadable constant: " + name);
+            }
+        }
+        mSubscriptions.add(new Subscription(listener, new LinkedHashSet<>(Arrays.asList(names))));
+    }
+
+    /**
+     * Parse a constants file into a complete snapshot: the defaults, overridden by the values in the file.
+     *
+     * @throws IOException
+     *             if the file cannot be read or parsed, or does not match the constants
+     */
+    Map<String, Object> parse(Reader reader) throws IOException {
+        final JSONObject json;
+        try {
+            Object parsed = new JSONParser().parse(reader);
+            if (!(parsed instanceof JSONObject)) {
+                throw new IOException("Not a JSON object");
+            }
+            json = (JSONObject) parsed;
+        } catch (ParseException e) {
+            throw new IOException("Could not parse: " + e);
+        }
+        Map<String, Object> snapshot = new LinkedHashMap<>(mDefaults);
+        for (Object o : json.keySet()) {
+            final String name = (String) o;
+            if (mBootOnly.contains(name)) {
+                System.out.println("Ignoring " + name + ", which is only read at startup");
+                continue;
+            }
+            final Field field = mFields.get(name);
+            if (field == null) {
+                throw new IOException("Not a reloadable constant: " + name);
+            }
+            final Object value = toFieldType(field.getType(), json.get(o));
+            if (value == null) {
+                throw new IOException("Wrong type for " + name + ": " + json.get(o));
+            }
+            snapshot.put(name, value);
+        }
+        return snapshot;
+    }
+
+    /**
+     * @return the value as the field's type, or null if it cannot be. json-simple gives whole numbers as Longs and
+     *         everything else as Doubles.
+     */
+    private static Object toFieldType(Class<?> type, Object value) {
+        if (type == double.class && value instanceof Number) {
+            return ((Number) value).doubleValue();
+        } else if (type == int.class && value instanceof Long) {
+            final long v = (Long) value;
+            return v == (int) v ? (Object) (int) v : null;
+        } else if (type == long.class && value instanceof Long) {
+            return value;
+        } else if (type == boolean.class && value instanceof Boolean) {
+            return value;
+        } else if (type == String.class && value instanceof String) {
+            return value;
+        }
+        return null;
+    }
+
+    /**
+     * Read the file into a snapshot for the next apply(). A missing file means every constant has its default.
+     *
+     * @return whether the file was read; if not, the previous snapshot (if any) is kept
+     */
+    public boolean load() {
+        if (!mFile.exists()) {
+            mPending.set(new LinkedHashMap<>(mDefaults));
+            return true;
+        }
+        try (FileReader reader = new FileReader(mFile)) {
+            mPending.set(parse(reader));
+            return true;
+        } catch (IOException e) {
+            System.out.println("Could not load constants from " + mFile + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Set every constant from the latest snapshot, if there is one that has not been applied, and call the listeners
+     * whose constants changed. Call this at a loop boundary, from the thread running the loops.
+     *
+     * @return the constants that changed
+     */
+    public synchronized Set<String> apply() {
+        final Map<String, Object> snapshot = mPending.getAndSet(null);
+        if (snapshot == null) {
+            return Collections.emptySet();
+        }
+        Set<String> changed = new LinkedHashSet<>();
+        for (Map.Entry<String, Object> entry : snapshot.entrySet()) {
+            final Field field = mFields.get(entry.getKey());
+            if (!entry.getValue().equals(get(field))) {
+                try {
+                    field.set(mConstants, entry.getValue());
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                }
+                changed.add(entry.getKey());
+            }
+        }
+        if (changed.isEmpty()) {
+            return changed;
+        }
+        ++mNumChanges;
+        System.out.println("Constants changed: " + changed);
+        for (Subscription subscription : mSubscriptions) {
+            Set<String> subscribed_changed = new LinkedHashSet<>(subscription.names);
+            subscribed_changed.retainAll(changed);
+            if (!subscribed_changed.isEmpty()) {
+                subscription.listener.onConstantsChanged(subscribed_changed);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Make the constants set by apply() on another thread visible to this one. Call it at the start of each cycle of
+     * a thread that reads reloadable constants but does not call apply().
+     *
+     * @return the number of times apply() has changed any constants
+     */
+    public long sync() {
+        return mNumChanges;
+    }
+
+    private Object get(Field field) {
+        try {
+            return field.get(mConstants);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Load the file, then watch it for changes on a low priority daemon thread. Call apply() to use what was loaded.
+     */
+    public synchronized void start() {
+        if (mThread != null) {
+            return;
+        }
+        load();
+        final Path directory = mFile.getAbsoluteFile().getParentFile().toPath();
+        final Path file_name = mFile.toPath().getFileName();
+        try {
+            mWatchService = FileSystems.getDefault().newWatchService();
+            directory.register(mWatchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            System.out.println("Could not watch " + mFile + " for changes: " + e.getMessage());
+            return;
+        }
+        final WatchService watch_service = mWatchService;
+        mThread = new Thread(new CrashTrackingRunnable() {
+            @Override
+            public void runCrashTracked() {
+                try {
+                    while (true) {
+                        WatchKey key = watch_service.take();
+                        boolean changed = false;
+                        for (WatchEvent<?> event : key.pollEvents()) {
+                            changed |= file_name.equals(event.context());
+                        }
+                        key.reset();
+                        if (changed) {
+                            // An editor may write the file in several steps; a partial file fails to parse and is
+                            // picked up again on the next write.
+                            load();
+                        }
+                    }
+                } catch (InterruptedException | ClosedWatchServiceException e) {
+                    return;
+                }
+            }
+        }, "ConstantsRegistry");
+        mThread.setDaemon(true);
+        mThread.setPriority(Thread.MIN_PRIORITY);
+        mThread.start();
+    }
+
+    public synchronized void stop() {
+        if (mThread == null) {
+            return;
+        }
+        try {
+            mWatchService.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        mThread.interrupt();
+        mThread = null;
+        mWatchService = null;
+    }
+}
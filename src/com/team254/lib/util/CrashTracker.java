@@ -13,6 +13,13 @@ public class CrashTracker {
 
     private static final UUID RUN_INSTANCE_UUID = UUID.randomUUID();
 
+    /**
+     * @return the id of this run of the robot program, which is logged with every marker
+     */
+    public static UUID getRunInstanceUUID() {
+        return RUN_INSTANCE_UUID;
+    }
+
     public static void logRobotStartup() {
         logMarker("robot startup");
     }
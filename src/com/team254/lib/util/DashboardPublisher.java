@@ -0,0 +1,281 @@
+package com.team254.lib.util;
+
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Publishes values to the SmartDashboard from its own low priority thread, so that the robot thread does not spend its
+ * time on NetworkTables. Values are registered once as suppliers, which should read snapshots (such as a
+ * subsystem's periodic inputs) rather than touch hardware or take locks. Every period each supplier is sampled, and a
+ * value is only sent if:
+ *
+ * 1. it changed by more than its deadband since it was last sent,
+ *
+ * 2. it was last sent at least 1 / max rate ago, and
+ *
+ * 3. the publisher is within its overall budget of messages per second.
+ *
+ * Values held back by the budget are sent first the next time round, so every key gets its turn. Counters of values
+ * published and suppressed (and why) are kept for tuning.
+ */
+public class DashboardPublisher {
+    /**
+     * Where the values go. The default is the SmartDashboard; tests supply their own.
+     */
+    public interface Output {
+        void putNumber(String key, double value);
+
+        void putBoolean(String key, boolean value);
+    }
+
+    public static final Output kSmartDashboardOutput = new Output() {
+        @Override
+        public void putNumber(String key, double value) {
+            SmartDashboard.putNumber(key, value);
+        }
+
+        @Override
+        public void putBoolean(String key, boolean value) {
+            SmartDashboard.putBoolean(key, value);
+        }
+    };
+
+    private static abstract class Entry {
+        final String key;
+        final double min_period;
+        double last_publish_time = Double.NEGATIVE_INFINITY;
+
+        Entry(String key, double max_rate) {
+            this.key = key;
+            this.min_period = max_rate > 0.0 ? 1.0 / max_rate : 0.0;
+        }
+
+        /**
+         * Sample the supplier.
+         *
+         * @return true if the value needs to be sent
+         */
+        abstract boolean sample();
+
+        abstract void send(Output output);
+    }
+
+    private static class NumberEntry extends Entry {
+        final DoubleSupplier supplier;
+        final double deadband;
+        boolean sent = false;
+        double last_sent;
+        double value;
+
+        NumberEntry(String key, DoubleSupplier supplier, double deadband, double max_rate) {
+            super(key, max_rate);
+            this.supplier = supplier;
+            this.deadband = deadband;
+        }
+
+        @Override
+        boolean sample() {
+            value = supplier.getAsDouble();
+            if (!sent || Double.isNaN(value) != Double.isNaN(last_sent)) {
+                return true;
+            }
+            return Math.abs(value - last_sent) > deadband;
+        }
+
+        @Override
+        void send(Output output) {
+            output.putNumber(key, value);
+            last_sent = value;
+            sent = true;
+        }
+    }
+
+    private static class BooleanEntry extends Entry {
+        final BooleanSupplier supplier;
+        boolean sent = false;
+        boolean last_sent;
+        boolean value;
+
+        BooleanEntry(String key, BooleanSupplier supplier, double max_rate) {
+            super(key, max_rate);
+            this.supplier = supplier;
+        }
+
+        @Override
+        boolean sample() {
+            value = supplier.getAsBoolean();
+            return !sent || value != last_sent;
+        }
+
+        @Override
+        void send(Output output) {
+            output.putBoolean(key, value);
+            last_sent = value;
+            sent = true;
+        }
+    }
+
+    private final Output mOutput;
+    private final double mMaxMessagesPerSecond;
+    private final double mDefaultMaxRate;
+    private final List<Entry> mEntries = new ArrayList<>();
+    private int mNextEntry = 0;
+    private double mTokens;
+    private double mLastPublishTime = Double.NaN;
+
+    private volatile long mNumPublished = 0;
+    private volatile long mNumUnchanged = 0;
+    private volatile long mNumRateLimited = 0;
+    private volatile long mNumOverBudget = 0;
+
+    private Thread mThread = null;
+    private volatile boolean mRunning = false;
+
+    /**
+     * @param output
+     *            where to send the values
+     * @param max_messages_per_second
+     *            the budget for all keys together
+     * @param default_max_rate
+     *            how often (Hz) each key may be sent, unless given when it is registered
+     */
+    public DashboardPublisher(Output output, double max_messages_per_second, double default_max_rate) {
+        mOutput = output;
+        mMaxMessagesPerSecond = max_messages_per_second;
+        mDefaultMaxRate = default_max_rate;
+        mTokens = max_messages_per_second;
+    }
+
+    public void registerNumber(String key, DoubleSupplier supplier, double deadband) {
+        registerNumber(key, supplier, deadband, mDefaultMaxRate);
+    }
+
+    public synchronized void registerNumber(String key, DoubleSupplier supplier, double deadband, double max_rate) {
+        mEntries.add(new NumberEntry(key, supplier, deadband, max_rate));
+    }
+
+    public void registerBoolean(String key, BooleanSupplier supplier) {
+        registerBoolean(key, supplier, mDefaultMaxRate);
+    }
+
+    public synchronized void registerBoolean(String key, BooleanSupplier supplier, double max_rate) {
+        mEntries.add(new BooleanEntry(key, supplier, max_rate));
+    }
+
+    /**
+     * Sample every supplier and send what needs to be sent. Called periodically by the publisher thread, or directly
+     * (e.g. by tests) if the thread is not started.
+     */
+    public synchronized void publish(double timestamp) {
+        // Refill the budget, allowing at most one second's worth to build up.
+        if (!Double.isNaN(mLastPublishTime)) {
+            mTokens = Math.min(mMaxMessagesPerSecond,
+                    mTokens + (timestamp - mLastPublishTime) * mMaxMessagesPerSecond);
+        }
+        mLastPublishTime = timestamp;
+
+        final int num_entries = mEntries.size();
+        int first_over_budget = -1;
+        for (int i = 0; i < num_entries; ++i) {
+            final int index = (mNextEntry + i) % num_entries;
+            final Entry entry = mEntries.get(index);
+            if (!entry.sample()) {
+                ++mNumUnchanged;
+                continue;
+            }
+            if (timestamp - entry.last_publish_time < entry.min_period) {
+                ++mNumRateLimited;
+                continue;
+            }
+            if (mTokens < 1.0) {
+                ++mNumOverBudget;
+                if (first_over_budget < 0) {
+                    first_over_budget = index;
+                }
+                continue;
+            }
+            entry.send(mOutput);
+            entry.last_publish_time = timestamp;
+            mTokens -= 1.0;
+            ++mNumPublished;
+        }
+        // Start with whatever missed out this time.
+        if (first_over_budget >= 0) {
+            mNextEntry = first_over_budget;
+        }
+    }
+
+    /**
+     * Start publishing every period on a low priority daemon thread.
+     */
+    public synchronized void start(double period) {
+        if (mThread != null) {
+            return;
+        }
+        mRunning = true;
+        final long period_ms = Math.max(1, Math.round(period * 1000.0));
+        mThread = new Thread(new CrashTrackingRunnable() {
+            @Override
+            public void runCrashTracked() {
+                while (mRunning) {
+                    publish(Timer.getFPGATimestamp());
+                    try {
+                        Thread.sleep(period_ms);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+        }, "DashboardPublisher");
+        mThread.setDaemon(true);
+        mThread.setPriority(Thread.MIN_PRIORITY);
+        mThread.start();
+    }
+
+    public synchronized void stop() {
+        if (mThread == null) {
+            return;
+        }
+        mRunning = false;
+        mThread.interrupt();
+        mThread = null;
+    }
+
+    public synchronized int getNumKeys() {
+        return mEntries.size();
+    }
+
+    public long getNumPublished() {
+        return mNumPublished;
+    }
+
+    /**
+     * @return the number of samples not sent because they were within the deadband of the last value sent
+     */
+    public long getNumUnchanged() {
+        return mNumUnchanged;
+    }
+
+    /**
+     * @return the number of samples not sent because the key was sent too recently
+     */
+    public long getNumRateLimited() {
+        return mNumRateLimited;
+    }
+
+    /**
+     * @return the number of samples not sent because the overall budget was used up
+     */
+    public long getNumOverBudget() {
+        return mNumOverBudget;
+    }
+
+    public long getNumSuppressed() {
+        return mNumUnchanged + mNumRateLimited + mNumOverBudget;
+    }
+}
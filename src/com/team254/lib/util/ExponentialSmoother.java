@@ -0,0 +1,68 @@
+package com.team254.lib.util;
+
+/**
+ * An exponentially weighted moving average (and variance) of the values added: each new value moves the average alpha
+ * of the way towards it. Unlike a window it needs no storage, and it reacts to a change right away, with older values
+ * fading out instead of dropping off all at once.
+ *
+ * @see RollingStatistics
+ */
+public class ExponentialSmoother {
+    private final double mAlpha;
+    private boolean mInitialized = false;
+    private double mAverage = 0.0;
+    private double mVariance = 0.0;
+
+    /**
+     * @param alpha
+     *            in (0, 1], the weight of each new value
+     */
+    public ExponentialSmoother(double alpha) {
+        mAlpha = alpha;
+    }
+
+    /**
+     * @return a smoother that averages over roughly the given time constant, for values added every dt
+     */
+    public static ExponentialSmoother fromTimeConstant(double time_constant, double dt) {
+        return new ExponentialSmoother(1.0 - Math.exp(-dt / time_constant));
+    }
+
+    public void clear() {
+        mInitialized = false;
+        mAverage = 0.0;
+        mVariance = 0.0;
+    }
+
+    public void addValue(double value) {
+        if (!mInitialized) {
+            mInitialized = true;
+            mAverage = value;
+            mVariance = 0.0;
+            return;
+        }
+        final double delta = value - mAverage;
+        final double increment = mAlpha * delta;
+        mAverage += increment;
+        mVariance = (1.0 - mAlpha) * (mVariance + delta * increment);
+    }
+
+    /**
+     * @return the smoothed value, or 0 if nothing has been added
+     */
+    public double getAverage() {
+        return mAverage;
+    }
+
+    public double getVariance() {
+        return mVariance;
+    }
+
+    public double getStandardDeviation() {
+        return Math.sqrt(mVariance);
+    }
+
+    public boolean isInitialized() {
+        return mInitialized;
+    }
+}
@@ -0,0 +1,187 @@
+package com.team254.lib.util;
+
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * Records everything the robot code reads from the outside world (sensors, driver controls, vision) and the commands
+ * it sends back, cycle by cycle, so that a match can be replayed off the robot by feeding the same inputs back through
+ * the same code (see com.team254.frc2017.sim.MatchReplay and InputRecording).
+ *
+ * A recording is a text file with one record per line:
+ *
+ * #id,kind,channel declares a channel the first time it is used in the file. The kind is i for an input read or o for
+ * an output sent by the thread running the loops, and I or O for the same from any other thread (teleop, auto).
+ *
+ * S,timestamp / L,timestamp / E,timestamp marks the loops starting, a loop cycle, or the loops stopping. Everything up
+ * to the next mark happened during that cycle.
+ *
+ * id,value is a value read from or written to a channel. Values are written with Double.toString, so they read back
+ * exactly.
+ *
+ * Records are buffered per cycle and written to disk by write(), which should be called periodically from a thread
+ * other than the loops' (like ReflectingCSVWriter). Nothing is recorded while there is no file.
+ */
+public class InputRecorder implements LogManager.SegmentedLog {
+    public enum CycleType {
+        START('S'), LOOP('L'), STOP('E');
+
+        public final char marker;
+
+        CycleType(char marker) {
+            this.marker = marker;
+        }
+
+        public static CycleType fromMarker(char marker) {
+            for (CycleType type : values()) {
+                if (type.marker == marker) {
+                    return type;
+                }
+            }
+            return null;
+        }
+    }
+
+    public static final char kInput = 'i';
+    public static final char kOutput = 'o';
+    public static final char kExternalInput = 'I';
+    public static final char kExternalOutput = 'O';
+
+    private static InputRecorder sInstance = null;
+
+    public static synchronized InputRecorder getInstance() {
+        if (sInstance == null) {
+            sInstance = new InputRecorder();
+        }
+        return sInstance;
+    }
+
+    private final ConcurrentLinkedDeque<String> mCyclesToWrite = new ConcurrentLinkedDeque<>();
+    private final Object mFileLock = new Object();
+    private PrintWriter mOutput = null;
+
+    // Guarded by this
+    private final Map<String, Integer> mInputIds = new HashMap<>();
+    private final Map<String, Integer> mOutputIds = new HashMap<>();
+    private final Map<String, Integer> mExternalInputIds = new HashMap<>();
+    private final Map<String, Integer> mExternalOutputIds = new HashMap<>();
+    private final StringBuilder mCycle = new StringBuilder();
+    private int mNextId = 0;
+    private Thread mCycleThread = null;
+    private volatile boolean mRecording = false;
+
+    InputRecorder() {
+    }
+
+    /**
+     * @return whether there is a file to record to. Callers that have to do work to produce a value can check this
+     *         first.
+     */
+    public boolean isRecording() {
+        return mRecording;
+    }
+
+    /**
+     * Mark the start of a cycle. Inputs read and outputs sent from the calling thread until the next mark are
+     * recorded as the loops' own.
+     */
+    public synchronized void beginCycle(CycleType type, double timestamp) {
+        if (!mRecording) {
+            return;
+        }
+        endCycle();
+        mCycleThread = Thread.currentThread();
+        mCycle.append(type.marker).append(',').append(timestamp).append('\n');
+    }
+
+    public synchronized void recordInput(String channel, double value) {
+        if (Thread.currentThread() == mCycleThread) {
+            record(mInputIds, kInput, channel, value);
+        } else {
+            record(mExternalInputIds, kExternalInput, channel, value);
+        }
+    }
+
+    public void recordInput(String channel, boolean value) {
+        recordInput(channel, value ? 1.0 : 0.0);
+    }
+
+    public synchronized void recordOutput(String channel, double value) {
+        if (Thread.currentThread() == mCycleThread) {
+            record(mOutputIds, kOutput, channel, value);
+        } else {
+            record(mExternalOutputIds, kExternalOutput, channel, value);
+        }
+    }
+
+    public void recordOutput(String channel, boolean value) {
+        recordOutput(channel, value ? 1.0 : 0.0);
+    }
+
+    private void record(Map<String, Integer> ids, char kind, String channel, double value) {
+        if (!mRecording) {
+            return;
+        }
+        Integer id = ids.get(channel);
+        if (id == null) {
+            id = mNextId++;
+            ids.put(channel, id);
+            mCycle.append('#').append(id.intValue()).append(',').append(kind).append(',').append(channel).append('\n');
+        }
+        mCycle.append(id.intValue()).append(',').append(value).append('\n');
+    }
+
+    private void endCycle() {
+        if (mCycle.length() > 0) {
+            mCyclesToWrite.add(mCycle.toString());
+            mCycle.setLength(0);
+        }
+    }
+
+    @Override
+    public void setFile(String file_name) {
+        synchronized (mFileLock) {
+            synchronized (this) {
+                // Channel ids are declared per file, so every file can be read on its own.
+                endCycle();
+                write();
+                if (mOutput != null) {
+                    mOutput.close();
+                    mOutput = null;
+                }
+                mInputIds.clear();
+                mOutputIds.clear();
+                mExternalInputIds.clear();
+                mExternalOutputIds.clear();
+                mNextId = 0;
+                mCycleThread = null;
+                if (file_name != null) {
+                    try {
+                        mOutput = new PrintWriter(file_name);
+                    } catch (FileNotFoundException e) {
+                        e.printStackTrace();
+                    }
+                }
+                mRecording = mOutput != null;
+            }
+        }
+    }
+
+    // Call this periodically from any thread to write to disk.
+    public void write() {
+        synchronized (mFileLock) {
+            while (true) {
+                String cycle = mCyclesToWrite.pollFirst();
+                if (cycle == null) {
+                    break;
+                }
+                if (mOutput != null) {
+                    mOutput.print(cycle);
+                }
+            }
+        }
+    }
+}
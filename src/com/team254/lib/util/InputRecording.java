@@ -0,0 +1,208 @@
+package com.team254.lib.util;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A recording made by InputRecorder, read back for replay. Cycles are stepped through in order with advance(), and
+ * read() serves the inputs the loops read in the current cycle: each channel gives back its recorded values in the
+ * order they were read on the robot. If the code being replayed reads a channel more often than the robot did, it gets
+ * the last value again and the read is counted as an underrun, which means the replay has diverged from the robot.
+ */
+public class InputRecording {
+    public static class Cycle {
+        public final InputRecorder.CycleType type;
+        public final double timestamp;
+        private final Map<String, List<Double>> mInputs = new HashMap<>();
+        private final Map<String, List<Double>> mExternalInputs = new HashMap<>();
+        private final Map<String, List<Double>> mOutputs = new LinkedHashMap<>();
+        private final Map<String, List<Double>> mExternalOutputs = new LinkedHashMap<>();
+
+        Cycle(InputRecorder.CycleType type, double timestamp) {
+            this.type = type;
+            this.timestamp = timestamp;
+        }
+
+        /**
+         * @return the values read from the channel by the loops' thread in this cycle, in order
+         */
+        public List<Double> getInputs(String channel) {
+            List<Double> values = mInputs.get(channel);
+            return values == null ? Collections.emptyList() : values;
+        }
+
+        /**
+         * @return the values read from the channel by other threads (teleop, auto) during this cycle, in order
+         */
+        public List<Double> getExternalInputs(String channel) {
+            List<Double> values = mExternalInputs.get(channel);
+            return values == null ? Collections.emptyList() : values;
+        }
+
+        /**
+         * @return the outputs sent from the loops' thread in this cycle, by channel
+         */
+        public Map<String, List<Double>> getOutputs() {
+            return mOutputs;
+        }
+
+        /**
+         * @return the outputs sent from other threads (teleop, auto) during this cycle, by channel
+         */
+        public Map<String, List<Double>> getExternalOutputs() {
+            return mExternalOutputs;
+        }
+    }
+
+    private final List<Cycle> mCycles;
+    private int mIndex = -1;
+    private final Map<String, ArrayDeque<Double>> mRemaining = new HashMap<>();
+    private final Map<String, Double> mLastValues = new HashMap<>();
+    private long mNumUnderruns = 0;
+
+    InputRecording(List<Cycle> cycles) {
+        mCycles = cycles;
+    }
+
+    /**
+     * Read a recording, gzipped or not (by the file name).
+     */
+    public static InputRecording read(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        if (file.getName().endsWith(".gz")) {
+            in = new GZIPInputStream(in);
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, "UTF-8"))) {
+            return parse(reader);
+        }
+    }
+
+    static InputRecording parse(BufferedReader reader) throws IOException {
+        List<Cycle> cycles = new ArrayList<>();
+        Cycle cycle = null;
+        Map<Integer, String> channels = new HashMap<>();
+        Map<Integer, Character> kinds = new HashMap<>();
+        String line;
+        int line_number = 0;
+        while ((line = reader.readLine()) != null) {
+            ++line_number;
+            if (line.isEmpty()) {
+                continue;
+            }
+            final int comma = line.indexOf(',');
+            if (comma < 1 || comma == line.length() - 1) {
+                throw new IOException("Bad record on line " + line_number + ": " + line);
+            }
+            final char first = line.charAt(0);
+            final InputRecorder.CycleType type = comma == 1 ? InputRecorder.CycleType.fromMarker(first) : null;
+            try {
+                if (first == '#') {
+                    final int second_comma = line.indexOf(',', comma + 1);
+                    if (second_comma != comma + 2) {
+                        throw new IOException("Bad declaration on line " + line_number + ": " + line);
+                    }
+                    final int id = Integer.parseInt(line.substring(1, comma));
+                    channels.put(id, line.substring(second_comma + 1));
+                    kinds.put(id, line.charAt(comma + 1));
+                } else if (type != null) {
+                    cycle = new Cycle(type, Double.parseDouble(line.substring(comma + 1)));
+                    cycles.add(cycle);
+                } else {
+                    final int id = Integer.parseInt(line.substring(0, comma));
+                    final String channel = channels.get(id);
+                    if (channel == null) {
+                        throw new IOException("Undeclared channel on line " + line_number + ": " + line);
+                    }
+                    if (cycle == null) {
+                        // Anything recorded before the first mark goes in a cycle of its own.
+                        cycle = new Cycle(InputRecorder.CycleType.START, Double.NaN);
+                        cycles.add(cycle);
+                    }
+                    final char kind = kinds.get(id);
+                    final Map<String, List<Double>> values;
+                    switch (kind) {
+                    case InputRecorder.kInput:
+                        values = cycle.mInputs;
+                        break;
+                    case InputRecorder.kExternalInput:
+                        values = cycle.mExternalInputs;
+                        break;
+                    case InputRecorder.kOutput:
+                        values = cycle.mOutputs;
+                        break;
+                    default:
+                        values = cycle.mExternalOutputs;
+                        break;
+                    }
+                    values.computeIfAbsent(channel, k -> new ArrayList<>())
+                            .add(Double.parseDouble(line.substring(comma + 1)));
+                }
+            } catch (NumberFormatException e) {
+                throw new IOException("Bad record on line " + line_number + ": " + line);
+            }
+        }
+        return new InputRecording(cycles);
+    }
+
+    public List<Cycle> getCycles() {
+        return mCycles;
+    }
+
+    /**
+     * Move on to the next cycle.
+     *
+     * @return false at the end of the recording
+     */
+    public boolean advance() {
+        if (mIndex + 1 >= mCycles.size()) {
+            return false;
+        }
+        ++mIndex;
+        mRemaining.clear();
+        for (Map.Entry<String, List<Double>> entry : getCycle().mInputs.entrySet()) {
+            mRemaining.put(entry.getKey(), new ArrayDeque<>(entry.getValue()));
+        }
+        return true;
+    }
+
+    public Cycle getCycle() {
+        return mIndex >= 0 ? mCycles.get(mIndex) : null;
+    }
+
+    /**
+     * @return the next value recorded for the channel in this cycle, or if there are none left, the last value read
+     *         (or default_value if it was never read)
+     */
+    public double read(String channel, double default_value) {
+        ArrayDeque<Double> remaining = mRemaining.get(channel);
+        if (remaining != null && !remaining.isEmpty()) {
+            final Double value = remaining.pollFirst();
+            mLastValues.put(channel, value);
+            return value;
+        }
+        if (mIndex >= 0) {
+            ++mNumUnderruns;
+        }
+        final Double last = mLastValues.get(channel);
+        return last == null ? default_value : last;
+    }
+
+    /**
+     * @return the number of reads that found no recorded value left in their cycle
+     */
+    public long getNumUnderruns() {
+        return mNumUnderruns;
+    }
+}
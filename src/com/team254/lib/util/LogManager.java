@@ -0,0 +1,364 @@
+package com.team254.lib.util;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Manages the CSV logs on the roboRIO's small flash disk. Every enabled period gets its own segment of each log, named
+ * by the run (CrashTracker's run UUID), the segment number, and the mode, e.g.
+ * 6f1c...-003-teleop-SHOOTER-LOGS.csv. So a reboot or the next match no longer overwrites the last one.
+ *
+ * When a segment is closed it is gzipped in the background, in independently compressed blocks of
+ * kCompressionBlockSize (concatenated gzip members are still one valid gzip file). A partly copied or cut off file
+ * still decompresses up to the last whole block. The total size of the log directory is kept under a quota by deleting
+ * the oldest segments first.
+ *
+ * An index (index.tsv) lists the segments, oldest first, one per line: file, log, run, segment, mode, start time (ms
+ * since the epoch), uncompressed bytes, bytes on disk, and whether it is compressed. csv_logging/fetch_and_plot.sh
+ * reads it to fetch only the segments it wants.
+ */
+public class LogManager {
+    /**
+     * A log that writes to a new file for every segment, e.g. ReflectingCSVWriter.
+     */
+    public interface SegmentedLog {
+        /**
+         * Flush and close the current file (if any), and start writing to the given one (or nowhere, if null).
+         */
+        void setFile(String file_name);
+    }
+
+    static final int kCompressionBlockSize = 1 << 16;
+    static final String kIndexFileName = "index.tsv";
+    private static final String kSuffix = ".csv";
+    private static final String kCompressedSuffix = ".csv.gz";
+
+    private static LogManager sInstance = null;
+
+    public static synchronized LogManager getInstance() {
+        if (sInstance == null) {
+            sInstance = new LogManager(CrashTracker.getRunInstanceUUID().toString());
+        }
+        return sInstance;
+    }
+
+    private static class Entry {
+        String file;
+        String log;
+        String run;
+        int segment;
+        String mode;
+        long start_time_ms;
+        long raw_bytes;
+        long stored_bytes;
+        boolean compressed;
+
+        String toLine() {
+            return file + "\t" + log + "\t" + run + "\t" + segment + "\t" + mode + "\t" + start_time_ms + "\t"
+                    + raw_bytes + "\t" + stored_bytes + "\t" + (compressed ? 1 : 0);
+        }
+
+        static Entry fromLine(String line) {
+            String[] fields = line.split("\t");
+            if (fields.length != 9) {
+                return null;
+            }
+            Entry entry = new Entry();
+            try {
+                entry.file = fields[0];
+                entry.log = fields[1];
+                entry.run = fields[2];
+                entry.segment = Integer.parseInt(fields[3]);
+                entry.mode = fields[4];
+                entry.start_time_ms = Long.parseLong(fields[5]);
+                entry.raw_bytes = Long.parseLong(fields[6]);
+                entry.stored_bytes = Long.parseLong(fields[7]);
+                entry.compressed = fields[8].equals("1");
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            return entry;
+        }
+    }
+
+    /**
+     * Does not close the file underneath, so that it can hold several gzip members.
+     */
+    private static class NonClosingOutputStream extends FilterOutputStream {
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+
+    private final String mRun;
+    private final Map<String, SegmentedLog> mLogs = new LinkedHashMap<>();
+    // Every segment on disk, oldest first, keyed by file name without the suffix.
+    private final LinkedHashMap<String, Entry> mEntries = new LinkedHashMap<>();
+    private final Set<String> mOpenSegments = new HashSet<>();
+    private final ExecutorService mCompressor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "LogCompressor");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    private File mDirectory = null;
+    private long mQuotaBytes = Long.MAX_VALUE;
+    private int mNextSegment = 0;
+
+    LogManager(String run) {
+        mRun = run;
+    }
+
+    /**
+     * Add a log to be segmented. Logs registered before start() or while no segment is open write nowhere until the
+     * next segment starts.
+     */
+    public synchronized void register(String name, SegmentedLog log) {
+        mLogs.put(name, log);
+        log.setFile(null);
+    }
+
+    /**
+     * Use the given directory, keeping it under quota_bytes. Reads the index left by earlier runs, and compresses any
+     * segments that were not compressed before the last run ended (e.g. power was cut while enabled).
+     */
+    public synchronized void start(File directory, long quota_bytes) {
+        mDirectory = directory;
+        mQuotaBytes = quota_bytes;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            System.out.println("Could not create log directory " + directory);
+        }
+        readIndex();
+        for (Map.Entry<String, Entry> entry : mEntries.entrySet()) {
+            if (!entry.getValue().compressed) {
+                scheduleCompression(entry.getKey());
+            }
+        }
+        enforceQuota();
+        writeIndex();
+    }
+
+    /**
+     * Close the current segment (if any) and start a new one for every log.
+     *
+     * @param mode
+     *            what the robot is doing, e.g. "auto" or "teleop"
+     */
+    public synchronized void startSegment(String mode) {
+        endSegment();
+        if (mDirectory == null) {
+            return;
+        }
+        final int segment = mNextSegment++;
+        for (Map.Entry<String, SegmentedLog> log : mLogs.entrySet()) {
+            Entry entry = new Entry();
+            entry.log = log.getKey();
+            entry.run = mRun;
+            entry.segment = segment;
+            entry.mode = mode;
+            entry.start_time_ms = System.currentTimeMillis();
+            final String stem = String.format("%s-%03d-%s-%s", mRun, segment, mode, entry.log);
+            entry.file = stem + kSuffix;
+            mEntries.put(stem, entry);
+            mOpenSegments.add(stem);
+            log.getValue().setFile(new File(mDirectory, entry.file).getPath());
+        }
+        enforceQuota();
+        writeIndex();
+    }
+
+    /**
+     * Close the current segment of every log and compress it in the background.
+     */
+    public synchronized void endSegment() {
+        if (mOpenSegments.isEmpty()) {
+            return;
+        }
+        for (SegmentedLog log : mLogs.values()) {
+            log.setFile(null);
+        }
+        for (String stem : mOpenSegments) {
+            Entry entry = mEntries.get(stem);
+            if (entry != null) {
+                entry.raw_bytes = new File(mDirectory, entry.file).length();
+                entry.stored_bytes = entry.raw_bytes;
+            }
+            scheduleCompression(stem);
+        }
+        mOpenSegments.clear();
+        writeIndex();
+    }
+
+    private void scheduleCompression(String stem) {
+        mCompressor.submit(() -> compress(stem));
+    }
+
+    private void compress(String stem) {
+        final File input = new File(mDirectory, stem + kSuffix);
+        final File output = new File(mDirectory, stem + kCompressedSuffix);
+        final File temp = new File(mDirectory, stem + kCompressedSuffix + ".tmp");
+        long raw_bytes = 0;
+        try (InputStream in = new FileInputStream(input); OutputStream out = new FileOutputStream(temp)) {
+            byte[] block = new byte[kCompressionBlockSize];
+            while (true) {
+                // Fill a whole block, so every gzip member but the last is the same size uncompressed.
+                int length = 0;
+                int read;
+                while (length < block.length && (read = in.read(block, length, block.length - length)) > 0) {
+                    length += read;
+                }
+                if (length == 0) {
+                    break;
+                }
+                try (GZIPOutputStream gzip = new GZIPOutputStream(new NonClosingOutputStream(out))) {
+                    gzip.write(block, 0, length);
+                }
+                raw_bytes += length;
+            }
+        } catch (IOException e) {
+            System.out.println("Failed to compress log " + input + ": " + e);
+            temp.delete();
+            return;
+        }
+        if (!temp.renameTo(output)) {
+            System.out.println("Failed to rename compressed log " + temp);
+            temp.delete();
+            return;
+        }
+        input.delete();
+        synchronized (this) {
+            Entry entry = mEntries.get(stem);
+            if (entry != null) {
+                entry.file = output.getName();
+                entry.raw_bytes = raw_bytes;
+                entry.stored_bytes = output.length();
+                entry.compressed = true;
+            }
+            enforceQuota();
+            writeIndex();
+        }
+    }
+
+    /**
+     * Delete the oldest closed segments until the directory is under quota.
+     */
+    private void enforceQuota() {
+        long total = 0;
+        for (Entry entry : mEntries.values()) {
+            total += new File(mDirectory, entry.file).length();
+        }
+        List<String> evicted = new ArrayList<>();
+        for (Map.Entry<String, Entry> entry : mEntries.entrySet()) {
+            if (total <= mQuotaBytes) {
+                break;
+            }
+            if (!entry.getValue().compressed) {
+                continue; // Still being written or compressed
+            }
+            final File file = new File(mDirectory, entry.getValue().file);
+            final long length = file.length();
+            if (file.delete() || !file.exists()) {
+                total -= length;
+                evicted.add(entry.getKey());
+            }
+        }
+        for (String stem : evicted) {
+            mEntries.remove(stem);
+        }
+    }
+
+    private static String stem(String file) {
+        if (file.endsWith(kCompressedSuffix)) {
+            return file.substring(0, file.length() - kCompressedSuffix.length());
+        }
+        return file.endsWith(kSuffix) ? file.substring(0, file.length() - kSuffix.length()) : file;
+    }
+
+    private void readIndex() {
+        mEntries.clear();
+        File index = new File(mDirectory, kIndexFileName);
+        if (!index.exists()) {
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(new FileReader(index))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Entry entry = Entry.fromLine(line);
+                if (entry != null && new File(mDirectory, entry.file).exists()) {
+                    mEntries.put(stem(entry.file), entry);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Failed to read log index: " + e);
+        }
+    }
+
+    private void writeIndex() {
+        if (mDirectory == null) {
+            return;
+        }
+        File temp = new File(mDirectory, kIndexFileName + ".tmp");
+        try (PrintWriter writer = new PrintWriter(temp)) {
+            for (Entry entry : mEntries.values()) {
+                writer.println(entry.toLine());
+            }
+        } catch (IOException e) {
+            System.out.println("Failed to write log index: " + e);
+            return;
+        }
+        File index = new File(mDirectory, kIndexFileName);
+        index.delete();
+        temp.renameTo(index);
+    }
+
+    /**
+     * Wait for the background compression to catch up (for tests and shutdown).
+     */
+    public void waitForCompression(long timeout_ms) {
+        try {
+            mCompressor.submit(() -> {
+            }).get(timeout_ms, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            System.out.println("Log compression did not finish: " + e);
+        }
+    }
+
+    /**
+     * @return the files in the index, oldest first
+     */
+    public synchronized List<String> getFiles() {
+        List<String> files = new ArrayList<>();
+        for (Entry entry : mEntries.values()) {
+            files.add(entry.file);
+        }
+        return files;
+    }
+}
@@ -4,7 +4,10 @@ import java.util.ArrayList;
 
 /**
  * Helper class for storing and calculating a moving average
+ *
+ * @deprecated Boxes every value and recomputes the sum on every call; use {@link RollingStatistics}.
  */
+@Deprecated
 public class MovingAverage {
 
     ArrayList<Double> numbers = new ArrayList<Double>();
@@ -0,0 +1,108 @@
+package com.team254.lib.util;
+
+/**
+ * Detects a lasting change in the mean of a stream of values with the Page-Hinkley test (a CUSUM against the running
+ * mean). Every value adds its distance from the mean of everything seen since the last reset, less an allowance delta,
+ * to a cumulative sum. While nothing changes the sum drifts away from the alarm, because of the allowance. Once the
+ * mean has shifted by s > delta, each value moves the sum (s - delta) towards the alarm. The alarm is raised when the
+ * sum is threshold past its best value, so a step of size s is caught within about threshold / (s - delta) values. A
+ * single outlier only moves the sum by its own size, so brief spikes do not set it off the way a fixed window does.
+ *
+ * The alarm latches until reset(). Each value is O(1) and nothing is allocated.
+ */
+public class PageHinkleyDetector {
+    public enum Direction {
+        INCREASE, // alarm when the mean goes up
+        DECREASE, // alarm when the mean goes down
+    }
+
+    private final Direction mDirection;
+    private final double mDelta;
+    private final double mThreshold;
+    private final int mMinValues;
+
+    private int mNumValues = 0;
+    private double mMean = 0.0;
+    private double mSum = 0.0;
+    private double mBestSum = 0.0;
+    private boolean mAlarmed = false;
+
+    /**
+     * @param direction
+     *            which way the mean has to move to raise the alarm
+     * @param delta
+     *            the change in the mean that is tolerated (in units of the values)
+     * @param threshold
+     *            how far the cumulative sum has to go before the alarm is raised (in units of the values)
+     * @param min_values
+     *            the alarm is not raised until at least this many values have been added, so the mean is meaningful
+     */
+    public PageHinkleyDetector(Direction direction, double delta, double threshold, int min_values) {
+        mDirection = direction;
+        mDelta = delta;
+        mThreshold = threshold;
+        mMinValues = min_values;
+    }
+
+    public void reset() {
+        mNumValues = 0;
+        mMean = 0.0;
+        mSum = 0.0;
+        mBestSum = 0.0;
+        mAlarmed = false;
+    }
+
+    /**
+     * @return true if the alarm is raised (now or earlier, since the last reset)
+     */
+    public boolean addValue(double value) {
+        ++mNumValues;
+        mMean += (value - mMean) / mNumValues;
+        if (mDirection == Direction.INCREASE) {
+            mSum += value - mMean - mDelta;
+            mBestSum = Math.min(mBestSum, mSum);
+        } else {
+            mSum += value - mMean + mDelta;
+            mBestSum = Math.max(mBestSum, mSum);
+        }
+        if (mNumValues >= mMinValues && getStatistic() > mThreshold) {
+            mAlarmed = true;
+        }
+        return mAlarmed;
+    }
+
+    /**
+     * @return how far the cumulative sum is from its best value, towards the alarm. The alarm is raised when this
+     *         passes the threshold.
+     */
+    public double getStatistic() {
+        return mDirection == Direction.INCREASE ? mSum - mBestSum : mBestSum - mSum;
+    }
+
+    /**
+     * @return the number of values it takes to raise the alarm after the mean shifts by the given amount (in the
+     *         direction of the detector), after a long enough run of values that the running mean barely moves.
+     *         Infinite if the shift is within delta.
+     */
+    public double getDetectionDelay(double shift) {
+        if (shift <= mDelta) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return Math.ceil(mThreshold / (shift - mDelta));
+    }
+
+    public boolean isAlarmed() {
+        return mAlarmed;
+    }
+
+    /**
+     * @return the mean of the values since the last reset
+     */
+    public double getMean() {
+        return mMean;
+    }
+
+    public int getNumValues() {
+        return mNumValues;
+    }
+}
@@ -8,18 +8,22 @@ import java.util.concurrent.ConcurrentLinkedDeque;
 /**
  * Writes data to a CSV file
  */
-public class ReflectingCSVWriter<T> {
+public class ReflectingCSVWriter<T> implements LogManager.SegmentedLog {
     ConcurrentLinkedDeque<String> mLinesToWrite = new ConcurrentLinkedDeque<>();
     PrintWriter mOutput = null;
     Field[] mFields;
+    String mHeader;
 
     public ReflectingCSVWriter(String fileName, Class<T> typeClass) {
+        this(typeClass);
+        setFile(fileName);
+    }
+
+    /**
+     * Creates a writer that writes nowhere until given a file, e.g. by the LogManager.
+     */
+    public ReflectingCSVWriter(Class<T> typeClass) {
         mFields = typeClass.getFields();
-        try {
-            mOutput = new PrintWriter(fileName);
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
-        }
         // Write field names.
         StringBuffer line = new StringBuffer();
         for (Field field : mFields) {
@@ -28,7 +32,25 @@ public class ReflectingCSVWriter<T> {
             }
             line.append(field.getName());
         }
-        writeLine(line.toString());
+        mHeader = line.toString();
+    }
+
+    @Override
+    public synchronized void setFile(String fileName) {
+        if (mOutput != null) {
+            flush();
+            mOutput.close();
+            mOutput = null;
+        }
+        if (fileName == null) {
+            return;
+        }
+        try {
+            mOutput = new PrintWriter(fileName);
+        } catch (FileNotFoundException e) {
+            e.printStackTrace();
+        }
+        writeLine(mHeader);
     }
 
     public void add(T value) {
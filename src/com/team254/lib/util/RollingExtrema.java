@@ -0,0 +1,97 @@
+package com.team254.lib.util;
+
+/**
+ * The minimum and maximum of the last N values added. Each is kept in a monotonic deque: a value is dropped from the
+ * max deque as soon as a larger one arrives after it (it can never be the max again), so the front of the deque is
+ * always the max of the window. Every value is pushed and popped at most once, so adding a value is O(1) amortized and
+ * queries are O(1). Everything is preallocated.
+ *
+ * @see RollingStatistics
+ */
+public class RollingExtrema {
+    private final int mWindowSize;
+    // Every value in the window, indexed by sequence number modulo the window size.
+    private final double[] mValues;
+    private long mNumAdded = 0;
+
+    // Sequence numbers of the candidates for min and max, as ring buffer deques.
+    private final long[] mMinDeque;
+    private int mMinHead = 0;
+    private int mMinSize = 0;
+    private final long[] mMaxDeque;
+    private int mMaxHead = 0;
+    private int mMaxSize = 0;
+
+    public RollingExtrema(int window_size) {
+        mWindowSize = window_size;
+        mValues = new double[window_size];
+        mMinDeque = new long[window_size];
+        mMaxDeque = new long[window_size];
+    }
+
+    public void clear() {
+        mNumAdded = 0;
+        mMinHead = 0;
+        mMinSize = 0;
+        mMaxHead = 0;
+        mMaxSize = 0;
+    }
+
+    public void addValue(double value) {
+        final long seq = mNumAdded++;
+        mValues[(int) (seq % mWindowSize)] = value;
+        final long oldest = seq - mWindowSize + 1;
+
+        // Drop the front if it has left the window (at most one value leaves per add).
+        if (mMinSize > 0 && mMinDeque[mMinHead] < oldest) {
+            mMinHead = (mMinHead + 1) % mWindowSize;
+            --mMinSize;
+        }
+        if (mMaxSize > 0 && mMaxDeque[mMaxHead] < oldest) {
+            mMaxHead = (mMaxHead + 1) % mWindowSize;
+            --mMaxSize;
+        }
+
+        // Drop everything from the back that the new value beats.
+        while (mMinSize > 0 && valueAt(mMinDeque[(mMinHead + mMinSize - 1) % mWindowSize]) >= value) {
+            --mMinSize;
+        }
+        mMinDeque[(mMinHead + mMinSize) % mWindowSize] = seq;
+        ++mMinSize;
+        while (mMaxSize > 0 && valueAt(mMaxDeque[(mMaxHead + mMaxSize - 1) % mWindowSize]) <= value) {
+            --mMaxSize;
+        }
+        mMaxDeque[(mMaxHead + mMaxSize) % mWindowSize] = seq;
+        ++mMaxSize;
+    }
+
+    private double valueAt(long seq) {
+        return mValues[(int) (seq % mWindowSize)];
+    }
+
+    /**
+     * @return the smallest value in the window, or NaN if there are none
+     */
+    public double getMin() {
+        return mMinSize == 0 ? Double.NaN : valueAt(mMinDeque[mMinHead]);
+    }
+
+    /**
+     * @return the largest value in the window, or NaN if there are none
+     */
+    public double getMax() {
+        return mMaxSize == 0 ? Double.NaN : valueAt(mMaxDeque[mMaxHead]);
+    }
+
+    public double getRange() {
+        return getMax() - getMin();
+    }
+
+    public int getNumValues() {
+        return (int) Math.min(mNumAdded, mWindowSize);
+    }
+
+    public boolean isFull() {
+        return mNumAdded >= mWindowSize;
+    }
+}
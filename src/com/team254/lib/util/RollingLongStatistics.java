@@ -0,0 +1,100 @@
+package com.team254.lib.util;
+
+/**
+ * RollingStatistics for integer samples, such as durations in nanoseconds or counters. The sum (and so the mean) is
+ * kept exactly in a long, so it does not need resumming; the variance is kept with Welford's method like
+ * RollingStatistics. Values live in a preallocated long[], so adding one allocates nothing.
+ *
+ * @see RollingStatistics
+ */
+public class RollingLongStatistics {
+    private static final int kMinResummationInterval = 1024;
+
+    private final long[] mValues;
+    private final int mResummationInterval;
+    private int mNext = 0;
+    private int mNumValues = 0;
+    private int mSinceResummation = 0;
+    private long mSum = 0;
+    private double mM2 = 0.0;
+
+    public RollingLongStatistics(int window_size) {
+        mValues = new long[window_size];
+        mResummationInterval = Math.max(window_size, kMinResummationInterval);
+    }
+
+    public void clear() {
+        mNext = 0;
+        mNumValues = 0;
+        mSinceResummation = 0;
+        mSum = 0;
+        mM2 = 0.0;
+    }
+
+    public void addValue(long value) {
+        if (mNumValues < mValues.length) {
+            final double last_mean = getAverage();
+            ++mNumValues;
+            mSum += value;
+            mM2 += (value - last_mean) * (value - getAverage());
+        } else {
+            final long removed = mValues[mNext];
+            final double last_mean = getAverage();
+            mSum += value - removed;
+            mM2 += (double) (value - removed) * (value - getAverage() + removed - last_mean);
+        }
+        mValues[mNext] = value;
+        mNext = mNext + 1 == mValues.length ? 0 : mNext + 1;
+        if (++mSinceResummation >= mResummationInterval) {
+            resum();
+        }
+    }
+
+    /**
+     * Recompute the variance from the stored values.
+     */
+    public void resum() {
+        mSinceResummation = 0;
+        final double mean = getAverage();
+        double m2 = 0.0;
+        for (int i = 0; i < mNumValues; ++i) {
+            final double delta = mValues[i] - mean;
+            m2 += delta * delta;
+        }
+        mM2 = m2;
+    }
+
+    public long getSum() {
+        return mSum;
+    }
+
+    /**
+     * @return the mean of the values in the window, or 0 if there are none
+     */
+    public double getAverage() {
+        return mNumValues == 0 ? 0.0 : (double) mSum / mNumValues;
+    }
+
+    /**
+     * @return the (population) variance of the values in the window, or 0 if there are none
+     */
+    public double getVariance() {
+        return mNumValues == 0 ? 0.0 : Math.max(0.0, mM2 / mNumValues);
+    }
+
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    public int getNumValues() {
+        return mNumValues;
+    }
+
+    public int getWindowSize() {
+        return mValues.length;
+    }
+
+    public boolean isFull() {
+        return mNumValues == mValues.length;
+    }
+}
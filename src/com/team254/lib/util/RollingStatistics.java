@@ -0,0 +1,121 @@
+package com.team254.lib.util;
+
+/**
+ * The mean and variance of the last N values added, kept up to date as values come in, so that every query is O(1).
+ * Values live in a preallocated double[], so adding one allocates nothing.
+ *
+ * The mean and variance are updated with Welford's method (adjusted for the value leaving the window). Rounding errors
+ * from adding and removing values would build up over a long match, so both are recomputed from the stored values
+ * every so often, which keeps the cost per value O(1) on average.
+ *
+ * @see RollingExtrema
+ * @see ExponentialSmoother
+ */
+public class RollingStatistics {
+    private static final int kMinResummationInterval = 1024;
+
+    private final double[] mValues;
+    private final int mResummationInterval;
+    private int mNext = 0;
+    private int mNumValues = 0;
+    private int mSinceResummation = 0;
+    private double mMean = 0.0;
+    private double mM2 = 0.0; // sum of squared differences from the mean
+
+    public RollingStatistics(int window_size) {
+        mValues = new double[window_size];
+        mResummationInterval = Math.max(window_size, kMinResummationInterval);
+    }
+
+    public void clear() {
+        mNext = 0;
+        mNumValues = 0;
+        mSinceResummation = 0;
+        mMean = 0.0;
+        mM2 = 0.0;
+    }
+
+    public void addValue(double value) {
+        if (mNumValues < mValues.length) {
+            ++mNumValues;
+            final double delta = value - mMean;
+            mMean += delta / mNumValues;
+            mM2 += delta * (value - mMean);
+        } else {
+            final double removed = mValues[mNext];
+            final double last_mean = mMean;
+            mMean += (value - removed) / mNumValues;
+            mM2 += (value - removed) * (value - mMean + removed - last_mean);
+        }
+        mValues[mNext] = value;
+        mNext = mNext + 1 == mValues.length ? 0 : mNext + 1;
+        if (++mSinceResummation >= mResummationInterval) {
+            resum();
+        }
+    }
+
+    /**
+     * Recompute the mean and variance from the stored values.
+     */
+    public void resum() {
+        mSinceResummation = 0;
+        if (mNumValues == 0) {
+            return;
+        }
+        double sum = 0.0;
+        for (int i = 0; i < mNumValues; ++i) {
+            sum += mValues[i];
+        }
+        mMean = sum / mNumValues;
+        double m2 = 0.0;
+        for (int i = 0; i < mNumValues; ++i) {
+            final double delta = mValues[i] - mMean;
+            m2 += delta * delta;
+        }
+        mM2 = m2;
+    }
+
+    /**
+     * @return the mean of the values in the window, or 0 if there are none
+     */
+    public double getAverage() {
+        return mNumValues == 0 ? 0.0 : mMean;
+    }
+
+    public double getSum() {
+        return getAverage() * mNumValues;
+    }
+
+    /**
+     * @return the (population) variance of the values in the window, or 0 if there are none
+     */
+    public double getVariance() {
+        return mNumValues == 0 ? 0.0 : Math.max(0.0, mM2 / mNumValues);
+    }
+
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    /**
+     * @return the most recently added value, or NaN if there are none
+     */
+    public double getLastValue() {
+        if (mNumValues == 0) {
+            return Double.NaN;
+        }
+        return mValues[(mNext + mValues.length - 1) % mValues.length];
+    }
+
+    public int getNumValues() {
+        return mNumValues;
+    }
+
+    public int getWindowSize() {
+        return mValues.length;
+    }
+
+    public boolean isFull() {
+        return mNumValues == mValues.length;
+    }
+}
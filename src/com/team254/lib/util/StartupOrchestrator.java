@@ -0,0 +1,280 @@
+package com.team254.lib.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the robot's startup work as named phases on a small pool of threads, so that independent work (like configuring
+ * the Talons of different subsystems over CAN) happens at the same time.
+ *
+ * A phase starts as soon as the phases it depends on have finished. Phases added with add() are needed before the robot
+ * can run, and run() waits for them. Phases added with addDeferred() are not: they start when startDeferred() is called
+ * (after the first loop, say), and waitFor() can be used by code that needs one of them to be done.
+ *
+ * Every phase is timed, and getReport() lists when each started and how long it took, so that the slow parts of a boot
+ * are easy to find.
+ */
+public class StartupOrchestrator {
+    private static class Phase {
+        final String name;
+        final Runnable task;
+        final List<Phase> dependencies;
+        final boolean deferred;
+        CompletableFuture<Void> future = null;
+        // Guarded by the StartupOrchestrator
+        long start_nanos = -1;
+        long end_nanos = -1;
+        String thread = "";
+        Throwable failure = null;
+
+        Phase(String name, Runnable task, List<Phase> dependencies, boolean deferred) {
+            this.name = name;
+            this.task = task;
+            this.dependencies = dependencies;
+            this.deferred = deferred;
+        }
+    }
+
+    private final long mStartNanos = System.nanoTime();
+    private final ExecutorService mExecutor;
+    private final Map<String, Phase> mPhases = new LinkedHashMap<>();
+    private long mReadyNanos = -1;
+    private boolean mStarted = false;
+    private boolean mDeferredStarted = false;
+
+    /**
+     * @param num_threads
+     *            how many phases may run at once
+     */
+    public StartupOrchestrator(int num_threads) {
+        final AtomicInteger thread_number = new AtomicInteger();
+        mExecutor = Executors.newFixedThreadPool(num_threads, r -> {
+            Thread thread = new Thread(r, "Startup-" + thread_number.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Add a phase that run() waits for.
+     *
+     * @param dependencies
+     *            phases that must finish first. They must already have been added, and cannot be deferred.
+     */
+    public synchronized void add(String name, Runnable task, String... dependencies) {
+        addPhase(name, task, dependencies, false);
+    }
+
+    /**
+     * Add a phase that runs once startDeferred() has been called.
+     *
+     * @param dependencies
+     *            phases that must finish first. They must already have been added.
+     */
+    public synchronized void addDeferred(String name, Runnable task, String... dependencies) {
+        addPhase(name, task, dependencies, true);
+    }
+
+    private void addPhase(String name, Runnable task, String[] dependencies, boolean deferred) {
+        if (mPhases.containsKey(name)) {
+            throw new IllegalArgumentException("Phase added twice: " + name);
+        }
+        if ((mStarted && !deferred) || mDeferredStarted) {
+            throw new IllegalStateException("Too late to add phase " + name);
+        }
+        List<Phase> phases = new ArrayList<>(dependencies.length);
+        for (String dependency : dependencies) {
+            final Phase phase = mPhases.get(dependency);
+            if (phase == null) {
+                throw new IllegalArgumentException(name + " depends on " + dependency + ", which has not been added");
+            }
+            if (phase.deferred && !deferred) {
+                throw new IllegalArgumentException(name + " cannot depend on deferred phase " + dependency);
+            }
+            phases.add(phase);
+        }
+        mPhases.put(name, new Phase(name, task, phases, deferred));
+    }
+
+    /**
+     * Run every phase that is not deferred, and wait for them to finish.
+     *
+     * @throws RuntimeException
+     *             if a phase failed (once the others have finished)
+     */
+    public void run() {
+        final List<CompletableFuture<Void>> futures = schedule(false);
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).join();
+        } catch (CompletionException e) {
+            // Rethrown below, after the report.
+        }
+        synchronized (this) {
+            mReadyNanos = System.nanoTime();
+        }
+        System.out.print(getReport());
+        for (Phase phase : getPhases()) {
+            if (!phase.deferred && phase.future.isCompletedExceptionally()) {
+                final Throwable failure = getFailure(phase);
+                if (failure instanceof RuntimeException) {
+                    throw (RuntimeException) failure;
+                } else if (failure instanceof Error) {
+                    throw (Error) failure;
+                }
+                throw new RuntimeException("Startup phase " + phase.name + " failed", failure);
+            }
+        }
+    }
+
+    /**
+     * Start the deferred phases, if they have not been started. A deferred phase that fails is reported to the
+     * CrashTracker, but does not stop the others (apart from those that depend on it).
+     */
+    public void startDeferred() {
+        final List<CompletableFuture<Void>> futures = schedule(true);
+        if (futures.isEmpty()) {
+            return;
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).whenComplete((r, t) -> {
+            System.out.print(getReport());
+            mExecutor.shutdown();
+        });
+    }
+
+    private synchronized List<CompletableFuture<Void>> schedule(boolean deferred) {
+        if (deferred ? mDeferredStarted : mStarted) {
+            return Collections.emptyList();
+        }
+        if (deferred && !mStarted) {
+            throw new IllegalStateException("Deferred phases start after run()");
+        }
+        if (deferred) {
+            mDeferredStarted = true;
+        } else {
+            mStarted = true;
+        }
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (Phase phase : mPhases.values()) {
+            if (phase.deferred != deferred) {
+                continue;
+            }
+            CompletableFuture<?>[] dependencies = new CompletableFuture<?>[phase.dependencies.size()];
+            for (int i = 0; i < dependencies.length; ++i) {
+                dependencies[i] = phase.dependencies.get(i).future;
+            }
+            phase.future = CompletableFuture.allOf(dependencies).thenRunAsync(() -> runPhase(phase), mExecutor);
+            futures.add(phase.future);
+        }
+        return futures;
+    }
+
+    private void runPhase(Phase phase) {
+        synchronized (this) {
+            phase.start_nanos = System.nanoTime();
+            phase.thread = Thread.currentThread().getName();
+        }
+        try {
+            phase.task.run();
+        } catch (Throwable t) {
+            synchronized (this) {
+                phase.failure = t;
+            }
+            if (phase.deferred) {
+                CrashTracker.logThrowableCrash(t);
+            }
+            throw t;
+        } finally {
+            synchronized (this) {
+                phase.end_nanos = System.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * Wait for a phase to finish, starting the deferred phases if they have not been started.
+     *
+     * @return whether the phase succeeded
+     */
+    public boolean waitFor(String name) {
+        final Phase phase;
+        synchronized (this) {
+            phase = mPhases.get(name);
+        }
+        if (phase == null) {
+            throw new IllegalArgumentException("No phase " + name);
+        }
+        if (phase.deferred) {
+            startDeferred();
+        }
+        final CompletableFuture<Void> future;
+        synchronized (this) {
+            future = phase.future;
+        }
+        if (future == null) {
+            throw new IllegalStateException("Phase " + name + " waits for run()");
+        }
+        try {
+            future.join();
+            return true;
+        } catch (CompletionException e) {
+            return false;
+        }
+    }
+
+    private synchronized List<Phase> getPhases() {
+        return new ArrayList<>(mPhases.values());
+    }
+
+    private synchronized Throwable getFailure(Phase phase) {
+        if (phase.failure != null) {
+            return phase.failure;
+        }
+        for (Phase dependency : phase.dependencies) {
+            final Throwable failure = getFailure(dependency);
+            if (failure != null) {
+                return failure;
+            }
+        }
+        return null;
+    }
+
+    private double toMillis(long nanos) {
+        return (nanos - mStartNanos) * 1E-6;
+    }
+
+    /**
+     * @return when each phase started and how long it took, in milliseconds since the orchestrator was made
+     */
+    public synchronized String getReport() {
+        StringBuilder report = new StringBuilder();
+        if (mReadyNanos >= 0) {
+            report.append(String.format("Startup: ready after %.0f ms%n", toMillis(mReadyNanos)));
+        } else {
+            report.append(String.format("Startup: not ready%n"));
+        }
+        report.append(String.format("  %-24s %10s %10s  %s%n", "Phase", "Start (ms)", "Time (ms)", "Thread"));
+        for (Phase phase : mPhases.values()) {
+            final String name = phase.deferred ? phase.name + " (deferred)" : phase.name;
+            if (phase.start_nanos < 0) {
+                report.append(String.format("  %-24s %10s %10s  %s%n", name, "-", "-",
+                        getFailure(phase) != null ? "skipped, a dependency failed" : "not started"));
+            } else if (phase.end_nanos < 0) {
+                report.append(String.format("  %-24s %10.0f %10s  %s%n", name, toMillis(phase.start_nanos), "-",
+                        phase.thread));
+            } else {
+                report.append(String.format("  %-24s %10.0f %10.1f  %s%s%n", name, toMillis(phase.start_nanos),
+                        (phase.end_nanos - phase.start_nanos) * 1E-6, phase.thread,
+                        phase.failure != null ? ", failed: " + phase.failure : ""));
+            }
+        }
+        return report.toString();
+    }
+}
@@ -0,0 +1,478 @@
+package com.team254.lib.util;
+
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.StatusCode;
+import org.eclipse.jetty.websocket.api.WebSocketAdapter;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.eclipse.jetty.websocket.server.WebSocketHandler;
+import org.eclipse.jetty.websocket.servlet.WebSocketServletFactory;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streams telemetry to dashboards over WebSockets, from a Jetty server embedded in the robot program. This gets data to
+ * the charts at the rate it is produced, instead of through NetworkTables and its 100 ms update floor.
+ *
+ * Telemetry is grouped into channels (e.g. the robot pose, or the path follower's debug output), each a fixed list of
+ * numeric fields. Code that produces the data registers a channel once and publishes a sample every loop; if nobody is
+ * subscribed that costs next to nothing.
+ *
+ * The protocol, on ws://roborio-254-frc.local:5810/:
+ *
+ * 1. On connecting, the server sends a text frame listing the channels:
+ * {"type":"channels","channels":[{"id":0,"name":"robot_pose","fields":["x","y",...]},...]}
+ *
+ * 2. The client subscribes with a text frame {"subscribe":"robot_pose","rate":50}, where rate is the most samples per
+ * second it wants (the server drops the rest; leave it out for every sample), and unsubscribes with
+ * {"unsubscribe":"robot_pose"}.
+ *
+ * 3. Each sample is sent as a binary frame: the channel id (uint16), the timestamp in seconds (float64), then one
+ * float32 per field, all big endian.
+ *
+ * Samples are sent without blocking the publishing thread. A client that has more than kMaxPendingFrames frames not
+ * yet written to its socket is too slow to keep up, and is disconnected rather than allowed to back up the robot.
+ */
+public class TelemetryServer {
+    private static final double kEpsilon = 1E-6;
+    private static final int kMaxPendingFrames = 256;
+    private static final int kMaxThreads = 8;
+    private static final long kIdleTimeoutMs = 10000;
+    private static final WriteCallback kIgnoreWriteResult = new WriteCallback() {
+        @Override
+        public void writeSuccess() {
+        }
+
+        @Override
+        public void writeFailed(Throwable x) {
+        }
+    };
+
+    private static TelemetryServer sInstance = null;
+
+    public static synchronized TelemetryServer getInstance() {
+        if (sInstance == null) {
+            sInstance = new TelemetryServer();
+        }
+        return sInstance;
+    }
+
+    /**
+     * A named list of fields that is published together.
+     */
+    public class Channel {
+        private final int mId;
+        private final String mName;
+        private final String[] mFields;
+        private final Field[] mReflectedFields;
+
+        private Channel(int id, String name, String[] fields, Field[] reflected_fields) {
+            mId = id;
+            mName = name;
+            mFields = fields;
+            mReflectedFields = reflected_fields;
+        }
+
+        public String getName() {
+            return mName;
+        }
+
+        public int getNumFields() {
+            return mFields.length;
+        }
+
+        /**
+         * Send a sample to every subscriber that wants it.
+         */
+        public void publish(double timestamp, double... values) {
+            if (mClients.isEmpty()) {
+                return;
+            }
+            ByteBuffer frame = null;
+            for (Client client : mClients) {
+                if (!client.wants(mId, timestamp)) {
+                    continue;
+                }
+                if (frame == null) {
+                    frame = encode(timestamp, values);
+                }
+                client.send(frame.duplicate());
+            }
+        }
+
+        /**
+         * Send the public numeric (and boolean and enum) fields of an object of the class the channel was registered
+         * with.
+         */
+        public void publishObject(double timestamp, Object value) {
+            if (mClients.isEmpty() || mReflectedFields == null) {
+                return;
+            }
+            double[] values = new double[mReflectedFields.length];
+            for (int i = 0; i < values.length; ++i) {
+                values[i] = getFieldValue(mReflectedFields[i], value);
+            }
+            publish(timestamp, values);
+        }
+
+        private ByteBuffer encode(double timestamp, double[] values) {
+            ByteBuffer frame = ByteBuffer.allocate(2 + 8 + 4 * mFields.length);
+            frame.putShort((short) mId);
+            frame.putDouble(timestamp);
+            for (int i = 0; i < mFields.length; ++i) {
+                frame.putFloat(i < values.length ? (float) values[i] : Float.NaN);
+            }
+            frame.flip();
+            return frame;
+        }
+    }
+
+    /**
+     * The transport under a client, so that the server can be exercised without sockets.
+     */
+    public interface Connection {
+        void sendText(String text);
+
+        /**
+         * Send a binary frame without blocking. Exactly one of the callbacks is run once it has been written (or has
+         * failed).
+         */
+        void sendBinary(ByteBuffer frame, Runnable on_success, Runnable on_failure);
+
+        void close(String reason);
+    }
+
+    /**
+     * A connected dashboard and what it is subscribed to.
+     */
+    public class Client {
+        private final Connection mConnection;
+        private final AtomicInteger mPendingFrames = new AtomicInteger();
+        private final Runnable mOnSuccess = () -> mPendingFrames.decrementAndGet();
+        private final Runnable mOnFailure = () -> drop("Write failed");
+        // Indexed by channel id; replaced as a whole when the subscriptions change. NaN means not subscribed.
+        private volatile double[] mMinPeriods = new double[0];
+        private double[] mLastSentTimes = new double[0];
+        private volatile boolean mOpen = true;
+
+        private Client(Connection connection) {
+            mConnection = connection;
+        }
+
+        private boolean wants(int channel_id, double timestamp) {
+            final double[] min_periods = mMinPeriods;
+            if (!mOpen || channel_id >= min_periods.length || Double.isNaN(min_periods[channel_id])) {
+                return false;
+            }
+            synchronized (this) {
+                if (channel_id >= mLastSentTimes.length) {
+                    double[] last_sent_times = new double[mChannels.size()];
+                    Arrays.fill(last_sent_times, Double.NEGATIVE_INFINITY);
+                    System.arraycopy(mLastSentTimes, 0, last_sent_times, 0, mLastSentTimes.length);
+                    mLastSentTimes = last_sent_times;
+                }
+                if (timestamp - mLastSentTimes[channel_id] < min_periods[channel_id] - kEpsilon) {
+                    return false;
+                }
+                mLastSentTimes[channel_id] = timestamp;
+                return true;
+            }
+        }
+
+        private void send(ByteBuffer frame) {
+            if (mPendingFrames.incrementAndGet() > kMaxPendingFrames) {
+                drop("Too slow");
+                return;
+            }
+            mConnection.sendBinary(frame, mOnSuccess, mOnFailure);
+        }
+
+        private synchronized void setSubscription(int channel_id, double min_period) {
+            double[] min_periods = new double[Math.max(mMinPeriods.length, mChannels.size())];
+            Arrays.fill(min_periods, Double.NaN);
+            System.arraycopy(mMinPeriods, 0, min_periods, 0, mMinPeriods.length);
+            min_periods[channel_id] = min_period;
+            mMinPeriods = min_periods;
+        }
+
+        private void drop(String reason) {
+            if (mOpen) {
+                mOpen = false;
+                System.out.println("Dropping telemetry client: " + reason);
+                mConnection.close(reason);
+            }
+            removeClient(this);
+        }
+
+        public boolean isOpen() {
+            return mOpen;
+        }
+
+        public int getPendingFrames() {
+            return mPendingFrames.get();
+        }
+    }
+
+    /**
+     * Runs a Client over a Jetty WebSocket.
+     */
+    private class JettySocket extends WebSocketAdapter implements Connection {
+        private Client mClient = null;
+
+        @Override
+        public void onWebSocketConnect(Session session) {
+            super.onWebSocketConnect(session);
+            mClient = addClient(this);
+        }
+
+        @Override
+        public void onWebSocketText(String message) {
+            if (mClient != null) {
+                handleMessage(mClient, message);
+            }
+        }
+
+        @Override
+        public void onWebSocketClose(int status_code, String reason) {
+            super.onWebSocketClose(status_code, reason);
+            if (mClient != null) {
+                removeClient(mClient);
+            }
+        }
+
+        @Override
+        public void onWebSocketError(Throwable cause) {
+            if (mClient != null) {
+                removeClient(mClient);
+            }
+        }
+
+        @Override
+        public void sendText(String text) {
+            if (isConnected()) {
+                getRemote().sendString(text, kIgnoreWriteResult);
+            }
+        }
+
+        @Override
+        public void sendBinary(ByteBuffer frame, Runnable on_success, Runnable on_failure) {
+            if (!isConnected()) {
+                on_failure.run();
+                return;
+            }
+            getRemote().sendBytes(frame, new WriteCallback() {
+                @Override
+                public void writeSuccess() {
+                    on_success.run();
+                }
+
+                @Override
+                public void writeFailed(Throwable x) {
+                    on_failure.run();
+                }
+            });
+        }
+
+        @Override
+        public void close(String reason) {
+            Session session = getSession();
+            if (session != null) {
+                session.close(StatusCode.POLICY_VIOLATION, reason);
+            }
+        }
+    }
+
+    private final List<Channel> mChannels = new CopyOnWriteArrayList<>();
+    private final List<Client> mClients = new CopyOnWriteArrayList<>();
+    private Server mServer = null;
+
+    TelemetryServer() {
+    }
+
+    public synchronized Channel registerChannel(String name, String... fields) {
+        return addChannel(name, fields, null);
+    }
+
+    /**
+     * Register a channel with the public numeric, boolean and enum fields of a class, like ReflectingCSVWriter.
+     */
+    public synchronized Channel registerChannel(String name, Class<?> type) {
+        List<Field> reflected_fields = new ArrayList<>();
+        for (Field field : type.getFields()) {
+            Class<?> field_type = field.getType();
+            if ((field_type.isPrimitive() && field_type != char.class) || field_type.isEnum()) {
+                reflected_fields.add(field);
+            }
+        }
+        String[] fields = new String[reflected_fields.size()];
+        for (int i = 0; i < fields.length; ++i) {
+            fields[i] = reflected_fields.get(i).getName();
+        }
+        return addChannel(name, fields, reflected_fields.toArray(new Field[0]));
+    }
+
+    private Channel addChannel(String name, String[] fields, Field[] reflected_fields) {
+        for (Channel channel : mChannels) {
+            if (channel.mName.equals(name)) {
+                return channel;
+            }
+        }
+        Channel channel = new Channel(mChannels.size(), name, fields, reflected_fields);
+        mChannels.add(channel);
+        return channel;
+    }
+
+    private static double getFieldValue(Field field, Object value) {
+        try {
+            Object field_value = field.get(value);
+            if (field_value instanceof Number) {
+                return ((Number) field_value).doubleValue();
+            } else if (field_value instanceof Boolean) {
+                return ((Boolean) field_value) ? 1.0 : 0.0;
+            } else if (field_value instanceof Enum) {
+                return ((Enum<?>) field_value).ordinal();
+            }
+        } catch (IllegalAccessException e) {
+            e.printStackTrace();
+        }
+        return Double.NaN;
+    }
+
+    @SuppressWarnings("unchecked")
+    String getChannelList() {
+        JSONArray channels = new JSONArray();
+        for (Channel channel : mChannels) {
+            JSONObject json = new JSONObject();
+            json.put("id", channel.mId);
+            json.put("name", channel.mName);
+            JSONArray fields = new JSONArray();
+            for (String field : channel.mFields) {
+                fields.add(field);
+            }
+            json.put("fields", fields);
+            channels.add(json);
+        }
+        JSONObject message = new JSONObject();
+        message.put("type", "channels");
+        message.put("channels", channels);
+        return message.toJSONString();
+    }
+
+    /**
+     * Start tracking a newly connected client, and send it the channel list.
+     */
+    public Client addClient(Connection connection) {
+        Client client = new Client(connection);
+        mClients.add(client);
+        connection.sendText(getChannelList());
+        return client;
+    }
+
+    public void removeClient(Client client) {
+        client.mOpen = false;
+        mClients.remove(client);
+    }
+
+    /**
+     * Handle a subscribe or unsubscribe message from a client. Anything else is ignored.
+     */
+    public void handleMessage(Client client, String message) {
+        JSONObject json;
+        try {
+            Object parsed = new JSONParser().parse(message);
+            if (!(parsed instanceof JSONObject)) {
+                return;
+            }
+            json = (JSONObject) parsed;
+        } catch (ParseException e) {
+            System.out.println("Bad telemetry client message: " + message);
+            return;
+        }
+        if (json.get("subscribe") != null) {
+            Channel channel = getChannel(json.get("subscribe").toString());
+            if (channel != null) {
+                final Object rate = json.get("rate");
+                final double min_period = (rate instanceof Number && ((Number) rate).doubleValue() > 0.0)
+                        ? 1.0 / ((Number) rate).doubleValue() : 0.0;
+                client.setSubscription(channel.mId, min_period);
+            }
+        } else if (json.get("unsubscribe") != null) {
+            Channel channel = getChannel(json.get("unsubscribe").toString());
+            if (channel != null) {
+                client.setSubscription(channel.mId, Double.NaN);
+            }
+        }
+    }
+
+    public Channel getChannel(String name) {
+        for (Channel channel : mChannels) {
+            if (channel.mName.equals(name)) {
+                return channel;
+            }
+        }
+        return null;
+    }
+
+    public int getNumClients() {
+        return mClients.size();
+    }
+
+    /**
+     * Start serving on the given port. Failing to start (e.g. the port is taken) is logged, not thrown, so telemetry
+     * can never keep the robot from running.
+     */
+    public synchronized void start(int port) {
+        if (mServer != null) {
+            return;
+        }
+        QueuedThreadPool thread_pool = new QueuedThreadPool(kMaxThreads, 2);
+        thread_pool.setName("TelemetryServer");
+        thread_pool.setDaemon(true);
+        thread_pool.setThreadsPriority(Thread.MIN_PRIORITY);
+        Server server = new Server(thread_pool);
+        ServerConnector connector = new ServerConnector(server);
+        connector.setPort(port);
+        server.addConnector(connector);
+        server.setHandler(new WebSocketHandler() {
+            @Override
+            public void configure(WebSocketServletFactory factory) {
+                factory.getPolicy().setIdleTimeout(kIdleTimeoutMs);
+                factory.setCreator((request, response) -> new JettySocket());
+            }
+        });
+        try {
+            server.start();
+            mServer = server;
+            System.out.println("Telemetry server listening on port " + port);
+        } catch (Exception e) {
+            System.out.println("Failed to start telemetry server: " + e);
+        }
+    }
+
+    public synchronized void stop() {
+        if (mServer == null) {
+            return;
+        }
+        try {
+            mServer.stop();
+        } catch (Exception e) {
+            System.out.println("Failed to stop telemetry server: " + e);
+        }
+        mServer = null;
+        for (Client client : mClients) {
+            removeClient(client);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.team254.lib.util;
+
+import org.json.simple.JSONValue;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Records timestamped spans and events into a ring buffer, and writes them out in Chrome's trace event format (a JSON
+ * file that chrome://tracing and https://ui.perfetto.dev open as a timeline).
+ *
+ * Events go on tracks, which the viewers show as threads. Spans on one track must nest: a span that ends must be the
+ * last one begun on its track, and spans that overlap in time go on different tracks.
+ *
+ * Recording is meant to be cheap enough to leave on in matches: the buffer is allocated up front, and an event is a few
+ * array writes. Names and details are stored as given, so they should be constants (or enum names) rather than built
+ * per event. While not recording, events are ignored.
+ *
+ * When the buffer is full the oldest events are overwritten, so the trace keeps the end of a match. That can drop the
+ * begin of a span whose end is kept; write() turns each such end into a complete (X) event that starts with the oldest
+ * event kept, so spans stay balanced and nested.
+ */
+public class TraceRecorder {
+    private static final byte kBegin = 'B';
+    private static final byte kEnd = 'E';
+    private static final byte kComplete = 'X';
+    private static final byte kInstant = 'i';
+
+    private final int mCapacity;
+    // Guarded by this
+    private final byte[] mPhases;
+    private final int[] mTracks;
+    private final String[] mNames;
+    private final String[] mDetails;
+    private final long[] mTimes;
+    private final long[] mDurations;
+    private int mNext = 0;
+    private int mSize = 0;
+    private long mDropped = 0;
+    private final List<String> mTrackNames = new ArrayList<>();
+    private long mStartNanos = 0;
+    private volatile boolean mRecording = false;
+
+    /**
+     * @param capacity
+     *            how many events to keep
+     */
+    public TraceRecorder(int capacity) {
+        mCapacity = capacity;
+        mPhases = new byte[capacity];
+        mTracks = new int[capacity];
+        mNames = new String[capacity];
+        mDetails = new String[capacity];
+        mTimes = new long[capacity];
+        mDurations = new long[capacity];
+    }
+
+    /**
+     * Drop everything recorded (and every track), and start recording. Timestamps are from now.
+     */
+    public synchronized void start() {
+        mNext = 0;
+        mSize = 0;
+        mDropped = 0;
+        mTrackNames.clear();
+        mStartNanos = System.nanoTime();
+        mRecording = true;
+    }
+
+    /**
+     * Stop recording, keeping what was recorded for write().
+     */
+    public void stop() {
+        mRecording = false;
+    }
+
+    public boolean isRecording() {
+        return mRecording;
+    }
+
+    /**
+     * @return a new track with the given name, or 0 if not recording
+     */
+    public synchronized int newTrack(String name) {
+        if (!mRecording) {
+            return 0;
+        }
+        mTrackNames.add(name);
+        return mTrackNames.size() - 1;
+    }
+
+    /**
+     * Begin a span on a track, now.
+     */
+    public void begin(int track, String name) {
+        if (mRecording) {
+            record(kBegin, track, name, null, System.nanoTime(), 0);
+        }
+    }
+
+    /**
+     * End the last span begun on a track, now.
+     */
+    public void end(int track, String name) {
+        if (mRecording) {
+            record(kEnd, track, name, null, System.nanoTime(), 0);
+        }
+    }
+
+    /**
+     * Record a span that has already ended, with System.nanoTime() timestamps.
+     */
+    public void complete(int track, String name, long start_nanos, long end_nanos) {
+        if (mRecording) {
+            record(kComplete, track, name, null, start_nanos, end_nanos - start_nanos);
+        }
+    }
+
+    /**
+     * Record an event that happened now.
+     *
+     * @param detail
+     *            shown with the event, or null
+     */
+    public void instant(int track, String name, String detail) {
+        if (mRecording) {
+            record(kInstant, track, name, detail, System.nanoTime(), 0);
+        }
+    }
+
+    private synchronized void record(byte phase, int track, String name, String detail, long time, long duration) {
+        final int i = mNext;
+        mPhases[i] = phase;
+        mTracks[i] = track;
+        mNames[i] = name;
+        mDetails[i] = detail;
+        mTimes[i] = time;
+        mDurations[i] = duration;
+        mNext = (i + 1) % mCapacity;
+        if (mSize < mCapacity) {
+            ++mSize;
+        } else {
+            ++mDropped;
+        }
+    }
+
+    /**
+     * @return how many events are kept
+     */
+    public synchronized int getSize() {
+        return mSize;
+    }
+
+    /**
+     * @return how many of the oldest events were overwritten
+     */
+    public synchronized long getDropped() {
+        return mDropped;
+    }
+
+    /**
+     * Write what was recorded as a trace event JSON object, oldest event first. Stop recording first, so that the code
+     * recording events does not wait on the writer.
+     */
+    public synchronized void write(Writer writer) throws IOException {
+        final long oldest_time = (mSize > 0) ? mTimes[(mNext - mSize + mCapacity) % mCapacity] : 0;
+        // Open spans on each track, to find the ends whose begins were overwritten.
+        int num_tracks = mTrackNames.size();
+        for (int n = 0; n < mSize; ++n) {
+            num_tracks = Math.max(num_tracks, mTracks[n] + 1);
+        }
+        final int[] depths = new int[num_tracks];
+        // Numbers are formatted for JSON whatever the default locale.
+        writer.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[\n");
+        boolean first = true;
+        for (int track = 0; track < mTrackNames.size(); ++track) {
+            if (!first) {
+                writer.write(",\n");
+            }
+            first = false;
+            writer.write(String.format(Locale.US, "{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":%d,"
+                    + "\"args\":{\"name\":\"%s\"}}", track, JSONValue.escape(mTrackNames.get(track))));
+        }
+        for (int n = 0; n < mSize; ++n) {
+            final int i = (mNext - mSize + n + mCapacity) % mCapacity;
+            if (!first) {
+                writer.write(",\n");
+            }
+            first = false;
+            byte phase = mPhases[i];
+            long time = mTimes[i];
+            long duration = mDurations[i];
+            if (phase == kBegin) {
+                ++depths[mTracks[i]];
+            } else if (phase == kEnd) {
+                if (depths[mTracks[i]] > 0) {
+                    --depths[mTracks[i]];
+                } else {
+                    // Began before the oldest event kept.
+                    phase = kComplete;
+                    time = oldest_time;
+                    duration = mTimes[i] - oldest_time;
+                }
+            }
+            writer.write(String.format(Locale.US, "{\"name\":\"%s\",\"ph\":\"%c\",\"pid\":1,\"tid\":%d,\"ts\":%.3f",
+                    JSONValue.escape(mNames[i]), (char) phase, mTracks[i], (time - mStartNanos) * 1E-3));
+            if (phase == kComplete) {
+                writer.write(String.format(Locale.US, ",\"dur\":%.3f", duration * 1E-3));
+            } else if (phase == kInstant) {
+                // Scoped to the track, rather than drawn across the whole timeline.
+                writer.write(",\"s\":\"t\"");
+            }
+            if (mDetails[i] != null) {
+                writer.write(String.format(",\"args\":{\"detail\":\"%s\"}", JSONValue.escape(mDetails[i])));
+            }
+            writer.write("}");
+        }
+        writer.write("\n]}\n");
+    }
+}
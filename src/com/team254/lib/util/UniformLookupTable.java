@@ -0,0 +1,178 @@
+package com.team254.lib.util;
+
+import com.team254.lib.util.math.PolynomialRegression;
+
+import java.util.Map;
+
+/**
+ * A function sampled on an evenly spaced grid, so that looking up a value is an index computation and one linear
+ * interpolation on a primitive array, with no searching, boxing or allocation. Build one from an InterpolatingTreeMap
+ * or a polynomial once, then query it every loop.
+ *
+ * Lookups outside of the grid return the value at the nearest end, like InterpolatingTreeMap does. Inside the grid, the
+ * difference from the source is at most getErrorBound():
+ *
+ * - For an InterpolatingTreeMap (piecewise linear), the table is exact if every key of the map falls on the grid.
+ * Otherwise each key between grid points is a kink that the table cuts across, by at most step / 4 times the change in
+ * slope at the key.
+ *
+ * - For a polynomial, linear interpolation is off by at most step^2 / 8 times the largest second derivative of the
+ * polynomial over the grid.
+ *
+ * Tables are immutable, so a retuned table can be swapped in by replacing a (volatile) reference to it.
+ */
+public class UniformLookupTable {
+    private final double mMin;
+    private final double mStep;
+    private final double mInverseStep;
+    private final double[] mValues;
+    private final double mErrorBound;
+
+    private UniformLookupTable(double min, double step, double[] values, double error_bound) {
+        mMin = min;
+        mStep = step;
+        mInverseStep = 1.0 / step;
+        mValues = values;
+        mErrorBound = error_bound;
+    }
+
+    /**
+     * @return the number of grid points needed to cover [min, max] with a spacing of at most max_step
+     */
+    private static int getNumPoints(double min, double max, double max_step) {
+        if (!(max > min) || !(max_step > 0.0)) {
+            throw new IllegalArgumentException("Bad table range [" + min + ", " + max + "] / " + max_step);
+        }
+        return (int) Math.ceil((max - min) / max_step - 1E-9) + 1;
+    }
+
+    /**
+     * Sample a map between its first and last keys.
+     *
+     * @param max_step
+     *            the largest allowed grid spacing (it is shrunk so that the grid ends exactly on the last key)
+     */
+    public static UniformLookupTable fromMap(InterpolatingTreeMap<InterpolatingDouble, InterpolatingDouble> map,
+            double max_step) {
+        if (map.size() < 2) {
+            throw new IllegalArgumentException("Need at least two points to build a table");
+        }
+        final double min = map.firstKey().value;
+        final double max = map.lastKey().value;
+        final int num_points = getNumPoints(min, max, max_step);
+        final double step = (max - min) / (num_points - 1);
+        double[] values = new double[num_points];
+        for (int i = 0; i < num_points; ++i) {
+            values[i] = map.getInterpolated(new InterpolatingDouble(min + i * step)).value;
+        }
+
+        // Sum up the error of each kink that falls between two grid points.
+        double[] cell_errors = new double[num_points];
+        Map.Entry<InterpolatingDouble, InterpolatingDouble> previous = null;
+        Map.Entry<InterpolatingDouble, InterpolatingDouble> current = null;
+        for (Map.Entry<InterpolatingDouble, InterpolatingDouble> next : map.entrySet()) {
+            if (previous != null) {
+                final double x = current.getKey().value;
+                final double slope_before = (current.getValue().value - previous.getValue().value)
+                        / (x - previous.getKey().value);
+                final double slope_after = (next.getValue().value - current.getValue().value)
+                        / (next.getKey().value - x);
+                final int cell = Math.min((int) ((x - min) / step), num_points - 2);
+                final double from_left = x - (min + cell * step);
+                final double from_right = step - from_left;
+                cell_errors[cell] += Math.abs(slope_after - slope_before) * from_left * from_right / step;
+            }
+            previous = current;
+            current = next;
+        }
+        double error_bound = 0.0;
+        for (double error : cell_errors) {
+            error_bound = Math.max(error_bound, error);
+        }
+        // Floating point noise on keys that are on the grid.
+        return new UniformLookupTable(min, step, values, error_bound < 1E-9 ? 0.0 : error_bound);
+    }
+
+    /**
+     * Sample a polynomial over [min, max].
+     *
+     * @param max_step
+     *            the largest allowed grid spacing (it is shrunk so that the grid ends exactly on max)
+     */
+    public static UniformLookupTable fromPolynomial(PolynomialRegression polynomial, double min, double max,
+            double max_step) {
+        double[] coefficients = new double[polynomial.degree() + 1];
+        for (int j = 0; j < coefficients.length; ++j) {
+            coefficients[j] = polynomial.beta(j);
+        }
+        return fromPolynomial(coefficients, min, max, max_step);
+    }
+
+    /**
+     * Sample the polynomial with the given coefficients (lowest order first) over [min, max].
+     *
+     * @param max_step
+     *            the largest allowed grid spacing (it is shrunk so that the grid ends exactly on max)
+     */
+    public static UniformLookupTable fromPolynomial(double[] coefficients, double min, double max, double max_step) {
+        final int num_points = getNumPoints(min, max, max_step);
+        final double step = (max - min) / (num_points - 1);
+        double[] values = new double[num_points];
+        for (int i = 0; i < num_points; ++i) {
+            final double x = min + i * step;
+            double y = 0.0;
+            for (int j = coefficients.length - 1; j >= 0; --j) {
+                y = coefficients[j] + x * y;
+            }
+            values[i] = y;
+        }
+
+        // Bound the second derivative term by term.
+        final double max_abs_x = Math.max(Math.abs(min), Math.abs(max));
+        double max_second_derivative = 0.0;
+        for (int j = 2; j < coefficients.length; ++j) {
+            max_second_derivative += j * (j - 1) * Math.abs(coefficients[j]) * Math.pow(max_abs_x, j - 2);
+        }
+        return new UniformLookupTable(min, step, values, step * step / 8.0 * max_second_derivative);
+    }
+
+    public double get(double x) {
+        final double index = (x - mMin) * mInverseStep;
+        if (!(index > 0.0)) {
+            return mValues[0];
+        }
+        final int i = (int) index;
+        if (i >= mValues.length - 1) {
+            return mValues[mValues.length - 1];
+        }
+        return mValues[i] + (mValues[i + 1] - mValues[i]) * (index - i);
+    }
+
+    public double getMin() {
+        return mMin;
+    }
+
+    public double getMax() {
+        return mMin + (mValues.length - 1) * mStep;
+    }
+
+    public double getStep() {
+        return mStep;
+    }
+
+    public int size() {
+        return mValues.length;
+    }
+
+    /**
+     * @return the most a lookup inside the grid can differ from the source the table was built from
+     */
+    public double getErrorBound() {
+        return mErrorBound;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d points over [%.2f, %.2f], max error %.3g", size(), getMin(), getMax(), mErrorBound);
+    }
+}
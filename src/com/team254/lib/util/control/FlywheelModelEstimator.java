@@ -0,0 +1,184 @@
+package com.team254.lib.util.control;
+
+import com.team254.lib.util.math.RecursiveLeastSquares;
+
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+
+/**
+ * Identifies a flywheel's voltage model while it runs:
+ *
+ * voltage = kS * sign(w) + kV * w + kA * dw/dt + kDrag * w * |w|
+ *
+ * where w is the flywheel speed in RPM. kS is the static friction, kV the motor back EMF, kA the inertia and kDrag the
+ * air drag on the wheel. Samples are fit with recursive least squares, so the model keeps tracking the flywheel as it
+ * heats up and wears in. The acceleration of each sample is the central difference of its neighbors, which is less
+ * noisy than a one-sided difference and lines up with the sample's speed and voltage.
+ *
+ * The fit can be saved to a file and loaded on the next boot, so the model does not have to be learned again every time
+ * the robot is turned on.
+ */
+public class FlywheelModelEstimator {
+    // Speeds are fit in thousands of RPM, so that the regressors are all around the same size.
+    private static final double kRpmPerUnit = 1000.0;
+    private static final double kForgettingFactor = 0.999;
+    private static final double kInitialCovariance = 100.0;
+    // A loaded fit is trusted more than an initial guess, but should still adapt quickly.
+    private static final double kLoadedCovariance = 1.0;
+    private static final double kMinSpeedRpm = 300.0;
+    private static final double kMaxSampleGap = 0.05; // seconds
+
+    private static final int kStatic = 0;
+    private static final int kVelocity = 1;
+    private static final int kAcceleration = 2;
+    private static final int kDrag = 3;
+
+    private final RecursiveLeastSquares mRls = new RecursiveLeastSquares(4, kForgettingFactor, kInitialCovariance);
+    private final double[] mRegressors = new double[4];
+    private long mNumSamples = 0;
+
+    // The last two samples, oldest first.
+    private double mTimestamp0 = Double.NaN, mRpm0, mTimestamp1 = Double.NaN, mRpm1, mVoltage1;
+
+    /**
+     * @param initial_kv
+     *            a guess at kV (volts per RPM) to start from, ex. from the Talon kF
+     */
+    public FlywheelModelEstimator(double initial_kv) {
+        mRls.reset(new double[] { 0.0, initial_kv * kRpmPerUnit, 0.0, 0.0 }, kInitialCovariance);
+    }
+
+    /**
+     * Add one loop's measurement. Samples while the wheel is (nearly) stopped say nothing about the model and are
+     * skipped.
+     */
+    public synchronized void addSample(double timestamp, double rpm, double voltage) {
+        if (!(timestamp - mTimestamp1 <= kMaxSampleGap) || !(mTimestamp1 - mTimestamp0 <= kMaxSampleGap)) {
+            // Not enough history, or a gap in it.
+            mTimestamp0 = mTimestamp1;
+            mRpm0 = mRpm1;
+            mTimestamp1 = timestamp;
+            mRpm1 = rpm;
+            mVoltage1 = voltage;
+            return;
+        }
+        if (Math.abs(mRpm1) >= kMinSpeedRpm && timestamp > mTimestamp0) {
+            final double acceleration = (rpm - mRpm0) / (timestamp - mTimestamp0);
+            setRegressors(mRpm1, acceleration);
+            mRls.update(mRegressors, mVoltage1);
+            ++mNumSamples;
+        }
+        mTimestamp0 = mTimestamp1;
+        mRpm0 = mRpm1;
+        mTimestamp1 = timestamp;
+        mRpm1 = rpm;
+        mVoltage1 = voltage;
+    }
+
+    private void setRegressors(double rpm, double rpm_per_sec) {
+        final double w = rpm / kRpmPerUnit;
+        mRegressors[kStatic] = Math.signum(w);
+        mRegressors[kVelocity] = w;
+        mRegressors[kAcceleration] = rpm_per_sec / kRpmPerUnit;
+        mRegressors[kDrag] = w * Math.abs(w);
+    }
+
+    /**
+     * @return the voltage the model says gives the requested acceleration at the given speed
+     */
+    public synchronized double getVoltage(double rpm, double rpm_per_sec) {
+        setRegressors(rpm, rpm_per_sec);
+        return mRls.predict(mRegressors);
+    }
+
+    /**
+     * @return the acceleration (RPM per second) the model says the given voltage gives at the given speed
+     */
+    public synchronized double getAcceleration(double rpm, double voltage) {
+        final double ka = getKa();
+        if (ka <= 0.0) {
+            return 0.0;
+        }
+        return (voltage - getVoltage(rpm, 0.0)) / ka;
+    }
+
+    /**
+     * @return true once enough samples have been seen (including any loaded ones) and the fit is physically sensible
+     */
+    public synchronized boolean isConverged(long min_samples) {
+        return mNumSamples >= min_samples && getKv() > 0.0 && getKa() > 0.0;
+    }
+
+    public synchronized long getNumSamples() {
+        return mNumSamples;
+    }
+
+    /**
+     * @return volts to overcome static friction
+     */
+    public synchronized double getKs() {
+        return mRls.getParameter(kStatic);
+    }
+
+    /**
+     * @return volts per RPM
+     */
+    public synchronized double getKv() {
+        return mRls.getParameter(kVelocity) / kRpmPerUnit;
+    }
+
+    /**
+     * @return volts per RPM per second
+     */
+    public synchronized double getKa() {
+        return mRls.getParameter(kAcceleration) / kRpmPerUnit;
+    }
+
+    /**
+     * @return volts per RPM squared
+     */
+    public synchronized double getKDrag() {
+        return mRls.getParameter(kDrag) / (kRpmPerUnit * kRpmPerUnit);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("kS %.3f V, kV %.6f V/rpm, kA %.6f V/(rpm/s), kDrag %.3g V/rpm^2 (%d samples)", getKs(),
+                getKv(), getKa(), getKDrag(), mNumSamples);
+    }
+
+    @SuppressWarnings("unchecked")
+    public synchronized void saveToFile(File file) throws IOException {
+        JSONObject json = new JSONObject();
+        json.put("kS", getKs());
+        json.put("kV", getKv());
+        json.put("kA", getKa());
+        json.put("kDrag", getKDrag());
+        json.put("samples", mNumSamples);
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.write(json.toJSONString());
+        }
+    }
+
+    /**
+     * Replace the fit with one saved by saveToFile().
+     */
+    public synchronized void loadFromFile(File file) throws IOException {
+        try (FileReader reader = new FileReader(file)) {
+            JSONObject json = (JSONObject) new JSONParser().parse(reader);
+            mRls.reset(new double[] { ((Number) json.get("kS")).doubleValue(),
+                    ((Number) json.get("kV")).doubleValue() * kRpmPerUnit,
+                    ((Number) json.get("kA")).doubleValue() * kRpmPerUnit,
+                    ((Number) json.get("kDrag")).doubleValue() * kRpmPerUnit * kRpmPerUnit }, kLoadedCovariance);
+            mNumSamples = ((Number) json.get("samples")).longValue();
+        } catch (ParseException | ClassCastException | NullPointerException e) {
+            throw new IOException("Bad flywheel model file " + file + ": " + e);
+        }
+    }
+}
@@ -1,10 +1,13 @@
 package com.team254.lib.util.control;
 
 import com.team254.frc2017.Constants;
+import com.team254.frc2017.Kinematics;
 import com.team254.lib.util.math.Translation2d;
+import com.team254.lib.util.math.Twist2d;
 import com.team254.lib.util.motion.MotionState;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 
@@ -17,9 +20,25 @@ import java.util.List;
  */
 
 public class Path {
+    /**
+     * Told about each marker as the robot passes it, from the loop following the path.
+     */
+    public interface MarkerListener {
+        void onMarkerCrossed(String marker);
+    }
+
     List<PathSegment> segments;
     PathSegment prevSegment;
     HashSet<String> mMarkersCrossed = new HashSet<String>();
+    MarkerListener mMarkerListener = null;
+
+    // Velocity table from time parameterizing the whole path (see parameterize()), indexed by distance from the
+    // start of the path. Null if the path has not been parameterized, in which case each segment's own profile is used.
+    double[] mVelocityTable;
+    // The spacing the table was built with. Constants can be reloaded while the path is followed.
+    double mVelocityTableSpacing;
+    double[] mSegmentStartDistances;
+    int mNumSegmentsRemoved = 0;
 
     public void extrapolateLast() {
         PathSegment last = segments.get(segments.size() - 1);
@@ -115,13 +134,16 @@ public class Path {
         for (int i = 1; i < segments.size(); ++i) {
             rv.remaining_path_distance += segments.get(i).getLength();
         }
-        rv.closest_point_speed = currentSegment
-                .getSpeedByDistance(currentSegment.getLength() - rv.remaining_segment_distance);
+        final double closest_point_segment_distance = currentSegment.getLength() - rv.remaining_segment_distance;
+        rv.closest_point_speed = (mVelocityTable != null) ? getVelocityByDistance(getPathDistance(0,
+                closest_point_segment_distance)) : currentSegment.getSpeedByDistance(closest_point_segment_distance);
         double lookahead_distance = lookahead.getLookaheadForSpeed(rv.closest_point_speed) + rv.closest_point_distance;
+        int lookahead_segment = 0;
         if (rv.remaining_segment_distance < lookahead_distance && segments.size() > 1) {
             lookahead_distance -= rv.remaining_segment_distance;
             for (int i = 1; i < segments.size(); ++i) {
                 currentSegment = segments.get(i);
+                lookahead_segment = i;
                 final double length = currentSegment.getLength();
                 if (length < lookahead_distance && i < segments.size() - 1) {
                     lookahead_distance -= length;
@@ -132,9 +154,14 @@ public class Path {
         } else {
             lookahead_distance += (currentSegment.getLength() - rv.remaining_segment_distance);
         }
-        rv.max_speed = currentSegment.getMaxSpeed();
         rv.lookahead_point = currentSegment.getPointByDistance(lookahead_distance);
-        rv.lookahead_point_speed = currentSegment.getSpeedByDistance(lookahead_distance);
+        // The segment limit, which only changes between segments, so that the follower keeps its profile.
+        rv.max_speed = currentSegment.getMaxSpeed();
+        if (mVelocityTable != null) {
+            rv.lookahead_point_speed = getVelocityByDistance(getPathDistance(lookahead_segment, lookahead_distance));
+        } else {
+            rv.lookahead_point_speed = currentSegment.getSpeedByDistance(lookahead_distance);
+        }
         checkSegmentDone(rv.closest_point);
         return rv;
     }
@@ -167,9 +194,18 @@ public class Path {
 
     public void removeCurrentSegment() {
         prevSegment = segments.remove(0);
+        ++mNumSegmentsRemoved;
         String marker = prevSegment.getMarker();
-        if (marker != null)
+        if (marker != null) {
             mMarkersCrossed.add(marker);
+            if (mMarkerListener != null) {
+                mMarkerListener.onMarkerCrossed(marker);
+            }
+        }
+    }
+
+    public void setMarkerListener(MarkerListener listener) {
+        mMarkerListener = listener;
     }
 
     /**
@@ -200,6 +236,105 @@ public class Path {
         }
     }
 
+    /**
+     * Time parameterizes the whole path at once, replacing the segment by segment speeds with a table of velocity by
+     * distance along the path (sampled evenly, at most Constants.kPathVelocityTableSpacing inches apart, with the last
+     * sample at the end of the path). Every entry respects:
+     * 
+     * 1. The max speed of its segment and Constants.kPathFollowingMaxVel.
+     * 
+     * 2. Constants.kPathFollowingMaxCentripetalAccel, given the curvature of the path.
+     * 
+     * 3. Constants.kDriveHighGearMaxSetpoint for both wheels, given the curvature of the path.
+     * 
+     * A forward pass then limits each entry to what can be reached from the start of the path at
+     * Constants.kPathFollowingMaxAccel, and a backward pass to what can still stop at the end of the path.
+     */
+    public void parameterize() {
+        mSegmentStartDistances = new double[segments.size() + 1];
+        for (int i = 0; i < segments.size(); ++i) {
+            mSegmentStartDistances[i + 1] = mSegmentStartDistances[i] + segments.get(i).getLength();
+        }
+        final double length = mSegmentStartDistances[segments.size()];
+        final int num_samples = (int) Math.ceil(length / Constants.kPathVelocityTableSpacing) + 1;
+        // Shrink the spacing so that the last sample (which must stop) is at the end of the path, not past it.
+        final double spacing = (num_samples > 1) ? length / (num_samples - 1) : Constants.kPathVelocityTableSpacing;
+        double[] table = new double[num_samples];
+        Arrays.fill(table, Constants.kPathFollowingMaxVel);
+
+        // Apply each segment's limits to every sample that touches it, so that samples on either side of a sudden
+        // change in curvature both see the tighter limit.
+        for (int i = 0; i < segments.size(); ++i) {
+            final PathSegment segment = segments.get(i);
+            final int first = Math.max(0, (int) Math.floor(mSegmentStartDistances[i] / spacing));
+            final int last = Math.min(num_samples - 1, (int) Math.ceil(mSegmentStartDistances[i + 1] / spacing));
+            for (int j = first; j <= last; ++j) {
+                final double segment_distance = Math.max(0.0,
+                        Math.min(segment.getLength(), j * spacing - mSegmentStartDistances[i]));
+                table[j] = Math.min(table[j],
+                        getMaxVelocity(segment.getMaxSpeed(), segment.getCurvatureByDistance(segment_distance)));
+            }
+        }
+
+        // Forward pass (acceleration) and backward pass (deceleration).
+        table[0] = Math.min(table[0], segments.get(0).getStartState().vel());
+        for (int j = 1; j < num_samples; ++j) {
+            table[j] = Math.min(table[j],
+                    Math.sqrt(table[j - 1] * table[j - 1] + 2.0 * Constants.kPathFollowingMaxAccel * spacing));
+        }
+        table[num_samples - 1] = 0.0;
+        for (int j = num_samples - 2; j >= 0; --j) {
+            table[j] = Math.min(table[j],
+                    Math.sqrt(table[j + 1] * table[j + 1] + 2.0 * Constants.kPathFollowingMaxAccel * spacing));
+        }
+        mVelocityTableSpacing = spacing;
+        mVelocityTable = table;
+    }
+
+    private static double getMaxVelocity(double segment_max_speed, double curvature) {
+        double max_velocity = Math.min(segment_max_speed, Constants.kPathFollowingMaxVel);
+        final double abs_curvature = Math.abs(curvature);
+        if (abs_curvature > 1E-9) {
+            max_velocity = Math.min(max_velocity,
+                    Math.sqrt(Constants.kPathFollowingMaxCentripetalAccel / abs_curvature));
+        }
+        final Kinematics.DriveVelocity wheels = Kinematics.inverseKinematics(new Twist2d(1.0, 0.0, curvature));
+        final double max_wheel_per_unit = Math.max(Math.abs(wheels.left), Math.abs(wheels.right));
+        return Math.min(max_velocity, Constants.kDriveHighGearMaxSetpoint / max_wheel_per_unit);
+    }
+
+    /**
+     * @return the distance from the start of the path of a point <code>segment_distance</code> into the
+     *         <code>segment</code>th remaining segment
+     */
+    private double getPathDistance(int segment, double segment_distance) {
+        return mSegmentStartDistances[segment + mNumSegmentsRemoved] + segment_distance;
+    }
+
+    /**
+     * Looks up the parameterized velocity at a given distance from the start of the path (see parameterize()).
+     * 
+     * @param distance
+     *            distance from the start of the path
+     * @return velocity, linearly interpolated from the table, or 0 past either end of the path
+     */
+    public double getVelocityByDistance(double distance) {
+        final double index = distance / mVelocityTableSpacing;
+        if (index <= 0.0 || index >= mVelocityTable.length - 1) {
+            return (index <= 0.0) ? mVelocityTable[0] : 0.0;
+        }
+        final int i = (int) index;
+        final double u = index - i;
+        return mVelocityTable[i] + u * (mVelocityTable[i + 1] - mVelocityTable[i]);
+    }
+
+    /**
+     * @return the parameterized velocity table, or null if parameterize() has not been called
+     */
+    public double[] getVelocityTable() {
+        return mVelocityTable;
+    }
+
     public boolean hasPassedMarker(String marker) {
         return mMarkersCrossed.contains(marker);
     }
@@ -15,6 +15,7 @@ import com.team254.lib.util.motion.ProfileFollower;
  */
 public class PathFollower {
     private static final double kReallyBigNumber = 1E6;
+    private static final double kReplanRateWindow = 1.0; // seconds
 
     public static class DebugOutput {
         public double t;
@@ -36,6 +37,7 @@ public class PathFollower {
         public double lookahead_point_x;
         public double lookahead_point_y;
         public double lookahead_point_velocity;
+        public double profile_replans_per_sec;
     }
 
     public static class Parameters {
@@ -51,11 +53,22 @@ public class PathFollower {
         public final double goal_pos_tolerance;
         public final double goal_vel_tolerance;
         public final double stop_steering_distance;
+        public final double replan_pos_tolerance;
+        public final double replan_vel_tolerance;
 
         public Parameters(Lookahead lookahead, double inertia_gain, double profile_kp, double profile_ki,
                 double profile_kv, double profile_kffv, double profile_kffa, double profile_max_abs_vel,
                 double profile_max_abs_acc, double goal_pos_tolerance, double goal_vel_tolerance,
                 double stop_steering_distance) {
+            this(lookahead, inertia_gain, profile_kp, profile_ki, profile_kv, profile_kffv, profile_kffa,
+                    profile_max_abs_vel, profile_max_abs_acc, goal_pos_tolerance, goal_vel_tolerance,
+                    stop_steering_distance, 0.0, 0.0);
+        }
+
+        public Parameters(Lookahead lookahead, double inertia_gain, double profile_kp, double profile_ki,
+                double profile_kv, double profile_kffv, double profile_kffa, double profile_max_abs_vel,
+                double profile_max_abs_acc, double goal_pos_tolerance, double goal_vel_tolerance,
+                double stop_steering_distance, double replan_pos_tolerance, double replan_vel_tolerance) {
             this.lookahead = lookahead;
             this.inertia_gain = inertia_gain;
             this.profile_kp = profile_kp;
@@ -68,6 +81,8 @@ public class PathFollower {
             this.goal_pos_tolerance = goal_pos_tolerance;
             this.goal_vel_tolerance = goal_vel_tolerance;
             this.stop_steering_distance = stop_steering_distance;
+            this.replan_pos_tolerance = replan_pos_tolerance;
+            this.replan_vel_tolerance = replan_vel_tolerance;
         }
     }
 
@@ -86,6 +101,9 @@ public class PathFollower {
     final double mStopSteeringDistance;
     double mCrossTrackError = 0.0;
     double mAlongTrackError = 0.0;
+    double mReplanWindowStartTime = Double.NaN;
+    long mReplanWindowStartCount = 0;
+    double mReplansPerSecond = 0.0;
 
     /**
      * Create a new PathFollower for a given path.
@@ -95,6 +113,7 @@ public class PathFollower {
         mLastSteeringDelta = Twist2d.identity();
         mVelocityController = new ProfileFollower(parameters.profile_kp, parameters.profile_ki, parameters.profile_kv,
                 parameters.profile_kffv, parameters.profile_kffa);
+        mVelocityController.setReplanTolerances(parameters.replan_pos_tolerance, parameters.replan_vel_tolerance);
         mVelocityController.setConstraints(
                 new MotionProfileConstraints(parameters.profile_max_abs_vel, parameters.profile_max_abs_acc));
         mMaxProfileVel = parameters.profile_max_abs_vel;
@@ -152,6 +171,7 @@ public class PathFollower {
         }
         final double scale = velocity_command / mLastSteeringDelta.dx;
         final Twist2d rv = new Twist2d(mLastSteeringDelta.dx * scale, 0.0, dtheta * scale);
+        updateReplanRate(t);
 
         // Fill out debug.
         mDebugOutput.t = t;
@@ -167,10 +187,26 @@ public class PathFollower {
         mDebugOutput.velocity_command_dtheta = rv.dtheta;
         mDebugOutput.cross_track_error = mCrossTrackError;
         mDebugOutput.along_track_error = mAlongTrackError;
+        mDebugOutput.profile_replans_per_sec = mReplansPerSecond;
 
         return rv;
     }
 
+    /**
+     * Recompute how many times per second the velocity profile is being regenerated, averaged over a fixed window.
+     */
+    private void updateReplanRate(double t) {
+        final long num_replans = mVelocityController.getNumReplans();
+        if (Double.isNaN(mReplanWindowStartTime)) {
+            mReplanWindowStartTime = t;
+            mReplanWindowStartCount = num_replans;
+        } else if (t - mReplanWindowStartTime >= kReplanRateWindow) {
+            mReplansPerSecond = (num_replans - mReplanWindowStartCount) / (t - mReplanWindowStartTime);
+            mReplanWindowStartTime = t;
+            mReplanWindowStartCount = num_replans;
+        }
+    }
+
     public double getCrossTrackError() {
         return mCrossTrackError;
     }
@@ -179,6 +215,10 @@ public class PathFollower {
         return mAlongTrackError;
     }
 
+    public double getReplansPerSecond() {
+        return mReplansPerSecond;
+    }
+
     public DebugOutput getDebug() {
         return mDebugOutput;
     }
@@ -1,6 +1,7 @@
 package com.team254.lib.util.control;
 
 import com.team254.frc2017.Constants;
+import com.team254.lib.util.math.QuinticHermiteSpline;
 import com.team254.lib.util.math.Rotation2d;
 import com.team254.lib.util.math.Translation2d;
 import com.team254.lib.util.motion.MotionProfile;
@@ -23,6 +24,9 @@ public class PathSegment {
     private Translation2d deltaEnd;
     private double maxSpeed;
     private boolean isLine;
+    private QuinticHermiteSpline spline;
+    // Closest interval of the spline's table found by the last query, where the next search starts
+    private int splineSearchHint = -1;
     private MotionProfile speedController;
     private boolean extrapolateLookahead;
     private String marker;
@@ -117,6 +121,32 @@ public class PathSegment {
         createMotionProfiler(startState, endSpeed);
     }
 
+    /**
+     * Constructor for a spline segment
+     * 
+     * @param spline
+     *            the curve to follow
+     * @param maxSpeed
+     *            maximum speed allowed on the segment
+     */
+    public PathSegment(QuinticHermiteSpline spline, double maxSpeed, MotionState startState, double endSpeed) {
+        this(spline, maxSpeed, startState, endSpeed, null);
+    }
+
+    public PathSegment(QuinticHermiteSpline spline, double maxSpeed, MotionState startState, double endSpeed,
+            String marker) {
+        this.spline = spline;
+        this.start = spline.getPoint(0.0);
+        this.end = spline.getPoint(1.0);
+        this.deltaEnd = spline.getVelocity(1.0);
+
+        this.maxSpeed = maxSpeed;
+        extrapolateLookahead = false;
+        isLine = false;
+        this.marker = marker;
+        createMotionProfiler(startState, endSpeed);
+    }
+
     /**
      * @return max speed of the segment
      */
@@ -150,7 +180,9 @@ public class PathSegment {
      * @return the total length of the segment
      */
     public double getLength() {
-        if (isLine) {
+        if (spline != null) {
+            return spline.getLength();
+        } else if (isLine) {
             return deltaStart.norm();
         } else {
             return deltaStart.norm() * Translation2d.getAngle(deltaStart, deltaEnd).getRadians();
@@ -174,7 +206,9 @@ public class PathSegment {
      * @return the point on the segment closest to the robot
      */
     public Translation2d getClosestPoint(Translation2d position) {
-        if (isLine) {
+        if (spline != null) {
+            return spline.getPointByDistance(getSplineDistanceAtClosestPoint(position));
+        } else if (isLine) {
             Translation2d delta = new Translation2d(start, end);
             double u = ((position.x() - start.x()) * delta.x() + (position.y() - start.y()) * delta.y())
                     / (delta.x() * delta.x() + delta.y() * delta.y());
@@ -194,6 +228,14 @@ public class PathSegment {
         }
     }
 
+    /**
+     * Searches the spline from where the last query left off, since the robot only moves a little between queries.
+     */
+    private double getSplineDistanceAtClosestPoint(Translation2d position) {
+        splineSearchHint = spline.getClosestInterval(position, splineSearchHint);
+        return spline.getDistanceAtClosestPoint(position, splineSearchHint);
+    }
+
     /**
      * Calculates the point on the segment <code>dist</code> distance from the starting point along the segment.
      * 
@@ -206,7 +248,12 @@ public class PathSegment {
         if (!extrapolateLookahead && dist > length) {
             dist = length;
         }
-        if (isLine) {
+        if (spline != null) {
+            if (dist > length) {
+                return end.translateBy(deltaEnd.scale((dist - length) / deltaEnd.norm()));
+            }
+            return spline.getPointByDistance(dist);
+        } else if (isLine) {
             return start.translateBy(deltaStart.scale(dist / length));
         } else {
             double deltaAngle = Translation2d.getAngle(deltaStart, deltaEnd).getRadians()
@@ -225,7 +272,9 @@ public class PathSegment {
      * @return distance remaining
      */
     public double getRemainingDistance(Translation2d position) {
-        if (isLine) {
+        if (spline != null) {
+            return getLength() - getSplineDistanceAtClosestPoint(position);
+        } else if (isLine) {
             return new Translation2d(end, position).norm();
         } else {
             Translation2d deltaPosition = new Translation2d(center, position);
@@ -242,6 +291,24 @@ public class PathSegment {
 
     }
 
+    /**
+     * Gets the signed curvature (1 / radius, positive turning left) of the segment <code>dist</code> distance from the
+     * starting point along the segment
+     * 
+     * @param dist
+     *            distance from the starting point
+     * @return curvature at that point
+     */
+    public double getCurvatureByDistance(double dist) {
+        if (spline != null) {
+            return spline.getCurvatureByDistance(dist);
+        } else if (isLine) {
+            return 0.0;
+        } else {
+            return ((Translation2d.cross(deltaStart, deltaEnd) >= 0) ? 1 : -1) / deltaStart.norm();
+        }
+    }
+
     public double getSpeedByDistance(double dist) {
         if (dist < speedController.startPos()) {
             dist = speedController.startPos();
@@ -274,7 +341,10 @@ public class PathSegment {
     }
 
     public String toString() {
-        if (isLine) {
+        if (spline != null) {
+            return "(" + "start: " + start + ", end: " + end + ", spline length: " + spline.getLength() + ", speed: "
+                    + maxSpeed + ")";
+        } else if (isLine) {
             return "(" + "start: " + start + ", end: " + end + ", speed: " + maxSpeed // + ", profile: " +
                                                                                       // speedController
                     + ")";
@@ -0,0 +1,10 @@
+package com.team254.lib.util.drivers;
+
+/**
+ * An analog input channel, so that code can be handed either a real AnalogInput or a simulated one.
+ */
+public interface AnalogInputIO {
+    double getVoltage();
+
+    double getAverageVoltage();
+}
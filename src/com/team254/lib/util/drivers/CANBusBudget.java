@@ -0,0 +1,123 @@
+package com.team254.lib.util.drivers;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.can.CANJNI;
+import edu.wpi.first.wpilibj.can.CANStatus;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Adds up the periodic CAN traffic of every registered device (CANTalonFactory registers each Talon it creates) to
+ * estimate the bus load, so that control and status frame periods can be chosen against a budget instead of by trial
+ * and error. The expected load can be compared against the bus utilization measured by the roboRIO. Devices that are
+ * not registered (the PDP and PCM) only show up in the measured numbers.
+ */
+public class CANBusBudget {
+    public static final double kBusBitsPerSecond = 1E6;
+    // A 29-bit ID frame with 8 data bytes is 131 bits, plus up to ~24 stuff bits in the worst case.
+    public static final double kBitsPerFrame = 155.0;
+
+    /**
+     * Something that puts periodic frames on the bus.
+     */
+    public interface Device {
+        String getName();
+
+        /**
+         * @return the period (ms) of each periodic frame the device sends or receives
+         */
+        int[] getFramePeriodsMs();
+    }
+
+    private static CANBusBudget sInstance = new CANBusBudget();
+
+    public static CANBusBudget getInstance() {
+        return sInstance;
+    }
+
+    private final List<Device> mDevices = new ArrayList<>();
+    private final CANStatus mStatus = new CANStatus();
+
+    public synchronized void register(Device device) {
+        mDevices.add(device);
+    }
+
+    public static double getFramesPerSecond(Device device) {
+        double frames_per_second = 0.0;
+        for (int period_ms : device.getFramePeriodsMs()) {
+            if (period_ms > 0) {
+                frames_per_second += 1000.0 / period_ms;
+            }
+        }
+        return frames_per_second;
+    }
+
+    /**
+     * @return the fraction of the bus used by the given frame rate
+     */
+    public static double getUtilization(double frames_per_second) {
+        return frames_per_second * kBitsPerFrame / kBusBitsPerSecond;
+    }
+
+    public synchronized double getExpectedFramesPerSecond() {
+        double frames_per_second = 0.0;
+        for (Device device : mDevices) {
+            frames_per_second += getFramesPerSecond(device);
+        }
+        return frames_per_second;
+    }
+
+    public double getExpectedUtilization() {
+        return getUtilization(getExpectedFramesPerSecond());
+    }
+
+    /**
+     * @return a table of the expected load of each device, heaviest first
+     */
+    public synchronized String getReport() {
+        List<Device> devices = new ArrayList<>(mDevices);
+        devices.sort((a, b) -> Double.compare(getFramesPerSecond(b), getFramesPerSecond(a)));
+        StringBuilder sb = new StringBuilder();
+        for (Device device : devices) {
+            final double frames_per_second = getFramesPerSecond(device);
+            sb.append(String.format("%-12s %7.1f frames/s %5.1f%%\n", device.getName(), frames_per_second,
+                    100.0 * getUtilization(frames_per_second)));
+        }
+        final double total = getExpectedFramesPerSecond();
+        sb.append(String.format("%-12s %7.1f frames/s %5.1f%%", "Total", total, 100.0 * getUtilization(total)));
+        return sb.toString();
+    }
+
+    /**
+     * Print the expected load, and report a warning to the driver station if it is over budget.
+     *
+     * @param max_utilization
+     *            the largest fraction of the bus the registered devices should use
+     * @return true if the expected load is within budget
+     */
+    public boolean checkBudget(double max_utilization) {
+        System.out.println("Expected CAN bus load:\n" + getReport());
+        final double utilization = getExpectedUtilization();
+        if (utilization > max_utilization) {
+            DriverStation.reportWarning(String.format("CAN bus over budget: %.1f%% expected, budget is %.1f%%",
+                    100.0 * utilization, 100.0 * max_utilization), false);
+            return false;
+        }
+        return true;
+    }
+
+    public void outputToSmartDashboard() {
+        final double expected_frames_per_second = getExpectedFramesPerSecond();
+        CANJNI.GetCANStatus(mStatus);
+        final double measured_utilization = mStatus.percentBusUtilization;
+        SmartDashboard.putNumber("can_expected_frames_per_sec", expected_frames_per_second);
+        SmartDashboard.putNumber("can_measured_frames_per_sec",
+                measured_utilization * kBusBitsPerSecond / kBitsPerFrame);
+        SmartDashboard.putNumber("can_expected_utilization", getUtilization(expected_frames_per_second));
+        SmartDashboard.putNumber("can_measured_utilization", measured_utilization);
+        SmartDashboard.putNumber("can_tx_full_count", mStatus.txFullCount);
+        SmartDashboard.putNumber("can_bus_off_count", mStatus.busOffCount);
+    }
+}
@@ -5,6 +5,9 @@ import edu.wpi.first.wpilibj.MotorSafety;
 import com.ctre.CANTalon;
 import com.ctre.CANTalon.TalonControlMode;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Creates CANTalon objects and configures all the parameters we care about to factory defaults. Closed-loop and sensor
  * parameters are not set, as these are expected to be set by the application.
@@ -56,20 +59,25 @@ public class CANTalonFactory {
         kSlaveConfiguration.PULSE_WIDTH_STATUS_FRAME_RATE_MS = 1000;
     }
 
+    // Every Talon created, for checkForResets() and the write counts.
+    private static final List<LazyCANTalon> sTalons = new ArrayList<>();
+    // The next Talon checkForResets() looks at.
+    private static int sNextResetCheck = 0;
+
     // Create a CANTalon with the default (out of the box) configuration.
-    public static CANTalon createDefaultTalon(int id) {
+    public static LazyCANTalon createDefaultTalon(int id) {
         return createTalon(id, kDefaultConfiguration);
     }
 
-    public static CANTalon createPermanentSlaveTalon(int id, int master_id) {
-        final CANTalon talon = createTalon(id, kSlaveConfiguration);
+    public static LazyCANTalon createPermanentSlaveTalon(int id, int master_id) {
+        final LazyCANTalon talon = createTalon(id, kSlaveConfiguration);
         talon.changeControlMode(TalonControlMode.Follower);
         talon.set(master_id);
         return talon;
     }
 
-    public static CANTalon createTalon(int id, Configuration config) {
-        CANTalon talon = new LazyCANTalon(id, config.CONTROL_FRAME_PERIOD_MS);
+    public static LazyCANTalon createTalon(int id, Configuration config) {
+        LazyCANTalon talon = new LazyCANTalon(id, config.CONTROL_FRAME_PERIOD_MS);
         talon.changeControlMode(CANTalon.TalonControlMode.Voltage);
         talon.changeMotionControlFramePeriod(config.MOTION_CONTROL_FRAME_PERIOD_MS);
         talon.clearIAccum();
@@ -115,9 +123,56 @@ public class CANTalonFactory {
                 config.ANALOG_TEMP_VBAT_STATUS_FRAME_RATE_MS);
         talon.setStatusFrameRateMs(CANTalon.StatusFrameRate.PulseWidth, config.PULSE_WIDTH_STATUS_FRAME_RATE_MS);
 
+        CANBusBudget.getInstance().register(talon);
+        synchronized (sTalons) {
+            sTalons.add(talon);
+        }
         return talon;
     }
 
+    /**
+     * Restore the configuration of a Talon if it has reset (see LazyCANTalon.checkForReset()). Call periodically.
+     * Each call checks only the next Talon in turn, so with N Talons a reset is caught within N calls, and a call
+     * costs the same however many Talons there are.
+     */
+    public static void checkForResets() {
+        final LazyCANTalon talon;
+        synchronized (sTalons) {
+            if (sTalons.isEmpty()) {
+                return;
+            }
+            sNextResetCheck %= sTalons.size();
+            talon = sTalons.get(sNextResetCheck++);
+        }
+        talon.checkForReset();
+    }
+
+    /**
+     * @return the number of writes sent to all the Talons
+     */
+    public static long getNumWritesSent() {
+        long total = 0;
+        synchronized (sTalons) {
+            for (LazyCANTalon talon : sTalons) {
+                total += talon.getNumWritesSent();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return the number of writes to all the Talons that were skipped because they would not have changed anything
+     */
+    public static long getNumWritesSuppressed() {
+        long total = 0;
+        synchronized (sTalons) {
+            for (LazyCANTalon talon : sTalons) {
+                total += talon.getNumWritesSuppressed();
+            }
+        }
+        return total;
+    }
+
     /**
      * Run this on a fresh talon to produce good values for the defaults.
      */
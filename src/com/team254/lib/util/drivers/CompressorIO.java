@@ -0,0 +1,12 @@
+package com.team254.lib.util.drivers;
+
+/**
+ * The pneumatics module's compressor, so that code can be handed either a real Compressor or a simulated one.
+ */
+public interface CompressorIO {
+    /**
+     * @param on
+     *            whether the compressor runs whenever the pressure switch is low
+     */
+    void setClosedLoopControl(boolean on);
+}
@@ -0,0 +1,8 @@
+package com.team254.lib.util.drivers;
+
+/**
+ * A digital output channel (e.g. an LED), so that code can be handed either a real DigitalOutput or a simulated one.
+ */
+public interface DigitalOutputIO {
+    void set(boolean on);
+}
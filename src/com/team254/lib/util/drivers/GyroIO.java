@@ -0,0 +1,20 @@
+package com.team254.lib.util.drivers;
+
+import com.team254.lib.util.math.Rotation2d;
+
+/**
+ * A yaw gyro, so that a subsystem can be handed either a real {@link NavX} or a simulated one.
+ */
+public interface GyroIO {
+    void reset();
+
+    void zeroYaw();
+
+    void setAngleAdjustment(Rotation2d adjustment);
+
+    Rotation2d getYaw();
+
+    double getYawRateDegreesPerSec();
+
+    double getRawAccelX();
+}
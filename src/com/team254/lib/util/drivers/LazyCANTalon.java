@@ -2,32 +2,353 @@ package com.team254.lib.util.drivers;
 
 import com.ctre.CANTalon;
 
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
 /**
  * This class is a thin wrapper around the CANTalon that reduces CAN bus / CPU overhead by skipping duplicate set
  * commands. (By default the Talon flushes the Tx buffer on every set call).
+ *
+ * Configuration calls (control mode, profile slot, closed loop gains, brake mode, ramp rates and status frame rates)
+ * are also skipped if they would not change the value last written, by keeping a shadow copy of every parameter.
+ * Closed loop gains are shadowed per profile slot, since the Talon applies them to the currently selected slot.
+ * Parameters start out unknown, so the first write of each always goes through.
+ *
+ * A Talon that browns out or resets loses its configuration, while the shadow registers still say it has it, so every
+ * later write of the same value would be skipped. checkForReset() (called for every Talon by
+ * CANTalonFactory.checkForResets()) watches for the sticky under voltage fault and, when it is set, writes the
+ * shadowed configuration to the Talon again.
  */
-public class LazyCANTalon extends CANTalon {
+public class LazyCANTalon extends CANTalon implements MotorControllerIO, CANBusBudget.Device {
+    private static final int kNumProfileSlots = 2;
+    // Out of the box periods, used for the bus budget until a frame's period is set.
+    private static final int kDefaultControlPeriodMs = 10;
+    private static final int kDefaultGeneralStatusPeriodMs = 10;
+    private static final int kDefaultFeedbackStatusPeriodMs = 20;
+    private static final int kDefaultOtherStatusPeriodMs = 100;
+
     protected double mLastSet = Double.NaN;
     protected TalonControlMode mLastControlMode = null;
 
+    // Shadow registers. Field initializers run after the CANTalon constructor, so anything the super constructor
+    // calls on us passes straight through.
+    private boolean mShadowReady = true;
+    private int mProfile = -1;
+    private final double[] mP = new double[kNumProfileSlots];
+    private final double[] mI = new double[kNumProfileSlots];
+    private final double[] mD = new double[kNumProfileSlots];
+    private final double[] mF = new double[kNumProfileSlots];
+    private final int[] mIZone = new int[kNumProfileSlots];
+    private final double[] mCloseLoopRampRate = new double[kNumProfileSlots];
+    private Boolean mBrakeMode = null;
+    private double mVoltageRampRate = Double.NaN;
+    private final EnumMap<StatusFrameRate, Integer> mStatusFrameRates = new EnumMap<>(StatusFrameRate.class);
+
+    private long mNumWritesSent = 0;
+    private long mNumWritesSuppressed = 0;
+
+    // Frame periods for the bus budget (unlike the shadow registers, never invalidated).
+    private int mControlPeriodMs = kDefaultControlPeriodMs;
+    private final EnumMap<StatusFrameRate, Integer> mStatusFramePeriods = new EnumMap<>(StatusFrameRate.class);
+
+    {
+        invalidateShadowRegisters();
+    }
+
     public LazyCANTalon(int deviceNumber, int controlPeriodMs, int enablePeriodMs) {
         super(deviceNumber, controlPeriodMs, enablePeriodMs);
+        mControlPeriodMs = controlPeriodMs;
     }
 
     public LazyCANTalon(int deviceNumber, int controlPeriodMs) {
         super(deviceNumber, controlPeriodMs);
+        mControlPeriodMs = controlPeriodMs;
     }
 
     public LazyCANTalon(int deviceNumber) {
         super(deviceNumber);
     }
 
+    /**
+     * Forget every shadowed parameter, so the next write of each is sent to the Talon.
+     */
+    public synchronized void invalidateShadowRegisters() {
+        mLastSet = Double.NaN;
+        mLastControlMode = null;
+        mProfile = -1;
+        Arrays.fill(mP, Double.NaN);
+        Arrays.fill(mI, Double.NaN);
+        Arrays.fill(mD, Double.NaN);
+        Arrays.fill(mF, Double.NaN);
+        Arrays.fill(mIZone, Integer.MIN_VALUE);
+        Arrays.fill(mCloseLoopRampRate, Double.NaN);
+        mBrakeMode = null;
+        mVoltageRampRate = Double.NaN;
+        mStatusFrameRates.clear();
+    }
+
+    /**
+     * If the Talon has reset since the last check (it reports a sticky under voltage fault), send it the shadowed
+     * configuration again, then the control mode and the last setpoint, and clear the fault.
+     *
+     * @return whether the Talon had reset
+     */
+    public synchronized boolean checkForReset() {
+        if (getStickyFaultUnderVoltage() == 0) {
+            return false;
+        }
+        System.out.println(getName() + " reset; restoring its configuration");
+        clearStickyFaults();
+        restoreShadowRegisters();
+        return true;
+    }
+
+    private void restoreShadowRegisters() {
+        for (int slot = 0; slot < kNumProfileSlots; ++slot) {
+            super.setProfile(slot);
+            if (!Double.isNaN(mP[slot])) {
+                super.setP(mP[slot]);
+            }
+            if (!Double.isNaN(mI[slot])) {
+                super.setI(mI[slot]);
+            }
+            if (!Double.isNaN(mD[slot])) {
+                super.setD(mD[slot]);
+            }
+            if (!Double.isNaN(mF[slot])) {
+                super.setF(mF[slot]);
+            }
+            if (mIZone[slot] != Integer.MIN_VALUE) {
+                super.setIZone(mIZone[slot]);
+            }
+            if (!Double.isNaN(mCloseLoopRampRate[slot])) {
+                super.setCloseLoopRampRate(mCloseLoopRampRate[slot]);
+            }
+        }
+        super.setProfile(mProfile >= 0 ? mProfile : 0);
+        if (mBrakeMode != null) {
+            super.enableBrakeMode(mBrakeMode);
+        }
+        if (!Double.isNaN(mVoltageRampRate)) {
+            super.setVoltageRampRate(mVoltageRampRate);
+        }
+        for (Map.Entry<StatusFrameRate, Integer> rate : mStatusFrameRates.entrySet()) {
+            super.setStatusFrameRateMs(rate.getKey(), rate.getValue());
+        }
+        // Last, so that the Talon doesn't run the old setpoint with half restored gains.
+        super.changeControlMode(getControlMode());
+        if (!Double.isNaN(mLastSet) && mLastControlMode == getControlMode()) {
+            super.set(mLastSet);
+        } else {
+            mLastSet = Double.NaN;
+            mLastControlMode = null;
+        }
+    }
+
+    /**
+     * @return the number of writes actually sent to the Talon
+     */
+    public synchronized long getNumWritesSent() {
+        return mNumWritesSent;
+    }
+
+    /**
+     * @return the number of writes skipped because they would not have changed anything
+     */
+    public synchronized long getNumWritesSuppressed() {
+        return mNumWritesSuppressed;
+    }
+
     @Override
-    public void set(double value) {
-        if (value != mLastSet || getControlMode() != mLastControlMode) {
+    public String getName() {
+        return "Talon " + getDeviceID();
+    }
+
+    @Override
+    public synchronized int[] getFramePeriodsMs() {
+        StatusFrameRate[] frames = StatusFrameRate.values();
+        int[] periods = new int[frames.length + 1];
+        periods[0] = mControlPeriodMs;
+        for (int i = 0; i < frames.length; ++i) {
+            periods[i + 1] = getStatusFramePeriodMs(frames[i]);
+        }
+        return periods;
+    }
+
+    /**
+     * @return the period last set for a status frame, or the Talon's default if it was never set
+     */
+    public synchronized int getStatusFramePeriodMs(StatusFrameRate frame) {
+        final Integer period = mStatusFramePeriods.get(frame);
+        if (period != null) {
+            return period;
+        }
+        switch (frame) {
+        case General:
+            return kDefaultGeneralStatusPeriodMs;
+        case Feedback:
+            return kDefaultFeedbackStatusPeriodMs;
+        default:
+            return kDefaultOtherStatusPeriodMs;
+        }
+    }
+
+    /**
+     * @return true if the write should be sent, counting it either way
+     */
+    private boolean shouldWrite(boolean changed) {
+        if (!mShadowReady) {
+            return true;
+        }
+        if (changed) {
+            ++mNumWritesSent;
+        } else {
+            ++mNumWritesSuppressed;
+        }
+        return changed;
+    }
+
+    private boolean hasProfile() {
+        return mShadowReady && mProfile >= 0 && mProfile < kNumProfileSlots;
+    }
+
+    @Override
+    public synchronized void set(double value) {
+        if (!mShadowReady) {
+            super.set(value);
+        } else if (shouldWrite(value != mLastSet || getControlMode() != mLastControlMode)) {
             mLastSet = value;
             mLastControlMode = getControlMode();
             super.set(value);
         }
     }
+
+    @Override
+    public synchronized void changeControlMode(TalonControlMode controlMode) {
+        if (!mShadowReady || shouldWrite(controlMode != getControlMode())) {
+            super.changeControlMode(controlMode);
+        }
+    }
+
+    @Override
+    public synchronized void setProfile(int profile) {
+        if (!mShadowReady || shouldWrite(profile != mProfile)) {
+            if (mShadowReady) {
+                mProfile = profile;
+            }
+            super.setProfile(profile);
+        }
+    }
+
+    @Override
+    public synchronized void setP(double p) {
+        if (!hasProfile()) {
+            super.setP(p);
+        } else if (shouldWrite(p != mP[mProfile])) {
+            mP[mProfile] = p;
+            super.setP(p);
+        }
+    }
+
+    @Override
+    public synchronized void setI(double i) {
+        if (!hasProfile()) {
+            super.setI(i);
+        } else if (shouldWrite(i != mI[mProfile])) {
+            mI[mProfile] = i;
+            super.setI(i);
+        }
+    }
+
+    @Override
+    public synchronized void setD(double d) {
+        if (!hasProfile()) {
+            super.setD(d);
+        } else if (shouldWrite(d != mD[mProfile])) {
+            mD[mProfile] = d;
+            super.setD(d);
+        }
+    }
+
+    @Override
+    public synchronized void setF(double f) {
+        if (!hasProfile()) {
+            super.setF(f);
+        } else if (shouldWrite(f != mF[mProfile])) {
+            mF[mProfile] = f;
+            super.setF(f);
+        }
+    }
+
+    @Override
+    public synchronized void setIZone(int izone) {
+        if (!hasProfile()) {
+            super.setIZone(izone);
+        } else if (shouldWrite(izone != mIZone[mProfile])) {
+            mIZone[mProfile] = izone;
+            super.setIZone(izone);
+        }
+    }
+
+    @Override
+    public synchronized void setCloseLoopRampRate(double rampRate) {
+        if (!hasProfile()) {
+            super.setCloseLoopRampRate(rampRate);
+        } else if (shouldWrite(rampRate != mCloseLoopRampRate[mProfile])) {
+            mCloseLoopRampRate[mProfile] = rampRate;
+            super.setCloseLoopRampRate(rampRate);
+        }
+    }
+
+    @Override
+    public synchronized void setPID(double p, double i, double d, double f, int izone, double closeLoopRampRate,
+            int profile) {
+        if (!mShadowReady) {
+            super.setPID(p, i, d, f, izone, closeLoopRampRate, profile);
+            return;
+        }
+        // Go through the individual setters so that the shadow registers stay in sync.
+        setProfile(profile);
+        setP(p);
+        setI(i);
+        setD(d);
+        setF(f);
+        setIZone(izone);
+        setCloseLoopRampRate(closeLoopRampRate);
+    }
+
+    @Override
+    public synchronized void enableBrakeMode(boolean brake) {
+        if (!mShadowReady || shouldWrite(mBrakeMode == null || brake != mBrakeMode)) {
+            if (mShadowReady) {
+                mBrakeMode = brake;
+            }
+            super.enableBrakeMode(brake);
+        }
+    }
+
+    @Override
+    public synchronized void setVoltageRampRate(double rampRate) {
+        if (!mShadowReady || shouldWrite(rampRate != mVoltageRampRate)) {
+            if (mShadowReady) {
+                mVoltageRampRate = rampRate;
+            }
+            super.setVoltageRampRate(rampRate);
+        }
+    }
+
+    @Override
+    public synchronized void setStatusFrameRateMs(StatusFrameRate stateFrame, int periodMs) {
+        if (!mShadowReady) {
+            super.setStatusFrameRateMs(stateFrame, periodMs);
+            return;
+        }
+        mStatusFramePeriods.put(stateFrame, periodMs);
+        final Integer last = mStatusFrameRates.get(stateFrame);
+        if (shouldWrite(last == null || last != periodMs)) {
+            mStatusFrameRates.put(stateFrame, periodMs);
+            super.setStatusFrameRateMs(stateFrame, periodMs);
+        }
+    }
 }
@@ -0,0 +1,58 @@
+package com.team254.lib.util.drivers;
+
+import edu.wpi.first.wpilibj.Solenoid;
+
+/**
+ * This class is a thin wrapper around the Solenoid that skips set commands that would not change the output, the same
+ * way LazyCANTalon does for Talons. Subsystems tend to set their solenoids every loop, and each set is a message to the
+ * PCM. Build them with SolenoidFactory, which totals the write counts over every solenoid.
+ *
+ * @see LazyCANTalon
+ * @see SolenoidFactory
+ */
+public class LazySolenoid extends Solenoid implements SolenoidIO {
+    private Boolean mLastSet = null;
+
+    private long mNumWritesSent = 0;
+    private long mNumWritesSuppressed = 0;
+
+    public LazySolenoid(int channel) {
+        super(channel);
+    }
+
+    public LazySolenoid(int moduleNumber, int channel) {
+        super(moduleNumber, channel);
+    }
+
+    @Override
+    public synchronized void set(boolean on) {
+        if (mLastSet == null || on != mLastSet) {
+            ++mNumWritesSent;
+            mLastSet = on;
+            super.set(on);
+        } else {
+            ++mNumWritesSuppressed;
+        }
+    }
+
+    /**
+     * Forget the last output, so the next set is sent to the PCM.
+     */
+    public synchronized void invalidate() {
+        mLastSet = null;
+    }
+
+    /**
+     * @return the number of writes actually sent to the PCM
+     */
+    public synchronized long getNumWritesSent() {
+        return mNumWritesSent;
+    }
+
+    /**
+     * @return the number of writes skipped because they would not have changed the output
+     */
+    public synchronized long getNumWritesSuppressed() {
+        return mNumWritesSuppressed;
+    }
+}
@@ -0,0 +1,86 @@
+package com.team254.lib.util.drivers;
+
+import com.ctre.CANTalon.FeedbackDevice;
+import com.ctre.CANTalon.FeedbackDeviceStatus;
+import com.ctre.CANTalon.StatusFrameRate;
+import com.ctre.CANTalon.TalonControlMode;
+import com.ctre.CANTalon.VelocityMeasurementPeriod;
+
+/**
+ * The parts of a Talon SRX that subsystems use, so that a subsystem can be handed either a real Talon
+ * ({@link LazyCANTalon} implements this) or a simulated one. Methods have the same names and meanings as in CANTalon.
+ */
+public interface MotorControllerIO {
+    // Control
+    void set(double value);
+
+    void changeControlMode(TalonControlMode controlMode);
+
+    TalonControlMode getControlMode();
+
+    double getSetpoint();
+
+    void enableBrakeMode(boolean brake);
+
+    // Sensors
+    double getPosition();
+
+    double getSpeed();
+
+    int getEncPosition();
+
+    double getOutputVoltage();
+
+    double getOutputCurrent();
+
+    void setPosition(double position);
+
+    void setEncPosition(int position);
+
+    FeedbackDeviceStatus isSensorPresent(FeedbackDevice feedbackDevice);
+
+    // Configuration
+    void setFeedbackDevice(FeedbackDevice device);
+
+    void reverseSensor(boolean flip);
+
+    void reverseOutput(boolean flip);
+
+    void setStatusFrameRateMs(StatusFrameRate stateFrame, int periodMs);
+
+    void SetVelocityMeasurementPeriod(VelocityMeasurementPeriod period);
+
+    void SetVelocityMeasurementWindow(int windowSize);
+
+    void setProfile(int profile);
+
+    void setP(double p);
+
+    void setI(double i);
+
+    void setD(double d);
+
+    void setF(double f);
+
+    void setIZone(int izone);
+
+    void setPID(double p, double i, double d, double f, int izone, double closeLoopRampRate, int profile);
+
+    void setVoltageRampRate(double rampRate);
+
+    void setVoltageCompensationRampRate(double rampRate);
+
+    void setNominalClosedLoopVoltage(double voltage);
+
+    void DisableNominalClosedLoopVoltage();
+
+    void configNominalOutputVoltage(double forwardVoltage, double reverseVoltage);
+
+    void setMotionMagicCruiseVelocity(double motionMagicCruiseVelocity);
+
+    void setMotionMagicAcceleration(double motionMagicAcceleration);
+
+    void EnableCurrentLimit(boolean enable);
+
+    void setCurrentLimit(int amps);
+}
@@ -10,7 +10,7 @@ import com.team254.lib.util.math.Rotation2d;
 /**
  * Driver for a NavX board. Basically a wrapper for the {@link AHRS} class
  */
-public class NavX {
+public class NavX implements GyroIO {
     protected class Callback implements ITimestampedDataSubscriber {
         @Override
         public void timestampedDataReceived(long system_timestamp, long sensor_timestamp, AHRSUpdateBase update,
@@ -1,17 +1,15 @@
 package com.team254.lib.util.drivers;
 
-import edu.wpi.first.wpilibj.AnalogInput;
-
 /**
  * Wraps an analog input for a Rev Robotics Analog Pressure sensor.
  *
  * http://www.revrobotics.com/wp-content/uploads/2015/11/REV-11-1107-DS-00.pdf
  */
 public class RevRoboticsAirPressureSensor {
-    private final AnalogInput mAnalogInput;
+    private final AnalogInputIO mAnalogInput;
 
-    public RevRoboticsAirPressureSensor(int analogInputNumber) {
-        mAnalogInput = new AnalogInput(analogInputNumber);
+    public RevRoboticsAirPressureSensor(AnalogInputIO analogInput) {
+        mAnalogInput = analogInput;
     }
 
     public double getAirPressurePsi() {
@@ -0,0 +1,50 @@
+package com.team254.lib.util.drivers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Creates LazySolenoids and keeps track of them, so that their write counts can be totaled the same way
+ * CANTalonFactory does for Talons.
+ *
+ * @see CANTalonFactory
+ */
+public class SolenoidFactory {
+    // Every solenoid created, for the write counts.
+    private static final List<LazySolenoid> sSolenoids = new ArrayList<>();
+
+    public static LazySolenoid createSolenoid(int module, int channel) {
+        final LazySolenoid solenoid = new LazySolenoid(module, channel);
+        synchronized (sSolenoids) {
+            sSolenoids.add(solenoid);
+        }
+        return solenoid;
+    }
+
+    /**
+     * @return the number of writes sent to the PCM by all the solenoids
+     */
+    public static long getNumWritesSent() {
+        long total = 0;
+        synchronized (sSolenoids) {
+            for (LazySolenoid solenoid : sSolenoids) {
+                total += solenoid.getNumWritesSent();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return the number of writes by all the solenoids that were skipped because they would not have changed the
+     *         output
+     */
+    public static long getNumWritesSuppressed() {
+        long total = 0;
+        synchronized (sSolenoids) {
+            for (LazySolenoid solenoid : sSolenoids) {
+                total += solenoid.getNumWritesSuppressed();
+            }
+        }
+        return total;
+    }
+}
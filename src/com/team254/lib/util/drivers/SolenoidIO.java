@@ -0,0 +1,10 @@
+package com.team254.lib.util.drivers;
+
+/**
+ * A single solenoid channel, so that a subsystem can be handed either a real {@link LazySolenoid} or a simulated one.
+ */
+public interface SolenoidIO {
+    void set(boolean on);
+
+    boolean get();
+}
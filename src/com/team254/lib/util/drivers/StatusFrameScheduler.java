@@ -0,0 +1,170 @@
+package com.team254.lib.util.drivers;
+
+import com.ctre.CANTalon.StatusFrameRate;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sets the status frame periods of a subsystem's Talons from a table keyed by the subsystem's control state, so that
+ * the fast frames a closed loop controller needs are only on the bus while that controller is running.
+ *
+ * Every scheduled frame has a default (idle) period, which can be overridden per state. When the state changes to one
+ * that wants a frame faster, the new period is applied right away. When it changes to one that wants a frame slower,
+ * the fast period is held until no state has asked for it for the drop delay, so that bouncing between states does not
+ * flood the bus with configuration writes (or starve a controller that is about to come back).
+ *
+ * @param <S>
+ *            the subsystem's control state
+ */
+public class StatusFrameScheduler<S extends Enum<S>> {
+    private final Class<S> mStateClass;
+    private final double mDropDelay;
+    private final List<MotorControllerIO> mTalons = new ArrayList<>();
+    private final EnumMap<StatusFrameRate, Integer> mDefaultPeriods = new EnumMap<>(StatusFrameRate.class);
+    private final EnumMap<S, EnumMap<StatusFrameRate, Integer>> mStatePeriods;
+
+    // What the Talons have, and until when each frame has to stay at that period.
+    private final EnumMap<StatusFrameRate, Integer> mAppliedPeriods = new EnumMap<>(StatusFrameRate.class);
+    private final EnumMap<StatusFrameRate, Double> mHoldUntil = new EnumMap<>(StatusFrameRate.class);
+
+    /**
+     * @param state_class
+     *            the control state enum
+     * @param drop_delay
+     *            seconds a frame is held at a fast period after the last state that wanted it
+     */
+    public StatusFrameScheduler(Class<S> state_class, double drop_delay) {
+        mStateClass = state_class;
+        mDropDelay = drop_delay;
+        mStatePeriods = new EnumMap<>(state_class);
+    }
+
+    public synchronized StatusFrameScheduler<S> addTalon(MotorControllerIO talon) {
+        mTalons.add(talon);
+        return this;
+    }
+
+    /**
+     * Schedule a frame, at the given period in every state that does not override it.
+     */
+    public synchronized StatusFrameScheduler<S> setDefaultPeriodMs(StatusFrameRate frame, int period_ms) {
+        mDefaultPeriods.put(frame, period_ms);
+        return this;
+    }
+
+    /**
+     * Override the period of a scheduled frame while in the given state.
+     */
+    public synchronized StatusFrameScheduler<S> setPeriodMs(S state, StatusFrameRate frame, int period_ms) {
+        if (!mDefaultPeriods.containsKey(frame)) {
+            throw new IllegalArgumentException("No default period for " + frame);
+        }
+        EnumMap<StatusFrameRate, Integer> periods = mStatePeriods.get(state);
+        if (periods == null) {
+            periods = new EnumMap<>(StatusFrameRate.class);
+            mStatePeriods.put(state, periods);
+        }
+        periods.put(frame, period_ms);
+        return this;
+    }
+
+    /**
+     * @return the period a frame is scheduled at in the given state, or the default period if state is null
+     */
+    public synchronized int getPeriodMs(S state, StatusFrameRate frame) {
+        if (state != null) {
+            Map<StatusFrameRate, Integer> periods = mStatePeriods.get(state);
+            if (periods != null && periods.containsKey(frame)) {
+                return periods.get(frame);
+            }
+        }
+        return mDefaultPeriods.get(frame);
+    }
+
+    /**
+     * @return the status frames per second the scheduled frames of all Talons put on the bus in the given state (null
+     *         for idle)
+     */
+    public synchronized double getFramesPerSecond(S state) {
+        double frames_per_second = 0.0;
+        for (StatusFrameRate frame : mDefaultPeriods.keySet()) {
+            frames_per_second += 1000.0 / getPeriodMs(state, frame);
+        }
+        return frames_per_second * mTalons.size();
+    }
+
+    /**
+     * @return the period of every scheduled frame and the resulting bus load, for idle and for each state
+     */
+    public synchronized String getBandwidthTable() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-32s", "State"));
+        for (StatusFrameRate frame : mDefaultPeriods.keySet()) {
+            sb.append(String.format(" %14s", frame + " ms"));
+        }
+        sb.append(String.format(" %10s %6s\n", "frames/s", "bus"));
+        appendBandwidthRow(sb, "(idle)", null);
+        for (S state : mStateClass.getEnumConstants()) {
+            appendBandwidthRow(sb, state.toString(), state);
+        }
+        return sb.toString();
+    }
+
+    private void appendBandwidthRow(StringBuilder sb, String name, S state) {
+        sb.append(String.format("%-32s", name));
+        for (StatusFrameRate frame : mDefaultPeriods.keySet()) {
+            sb.append(String.format(" %14d", getPeriodMs(state, frame)));
+        }
+        final double frames_per_second = getFramesPerSecond(state);
+        sb.append(String.format(" %10.1f %5.1f%%\n", frames_per_second,
+                100.0 * CANBusBudget.getUtilization(frames_per_second)));
+    }
+
+    /**
+     * Call once per loop with the subsystem's current state.
+     */
+    public synchronized void update(S state, double timestamp) {
+        for (StatusFrameRate frame : mDefaultPeriods.keySet()) {
+            final int wanted = getPeriodMs(state, frame);
+            final Integer applied = mAppliedPeriods.get(frame);
+            if (applied == null || wanted <= applied) {
+                mHoldUntil.put(frame, timestamp + mDropDelay);
+                apply(frame, wanted);
+            } else if (timestamp >= mHoldUntil.get(frame)) {
+                apply(frame, wanted);
+            }
+        }
+    }
+
+    /**
+     * Go straight to the idle periods, skipping the drop delay (ex. when the robot is disabled).
+     */
+    public synchronized void setIdle() {
+        for (StatusFrameRate frame : mDefaultPeriods.keySet()) {
+            mHoldUntil.put(frame, Double.NEGATIVE_INFINITY);
+            apply(frame, mDefaultPeriods.get(frame));
+        }
+    }
+
+    /**
+     * @return the period the Talons were last given for a frame, or -1 if it has not been scheduled yet
+     */
+    public synchronized int getAppliedPeriodMs(StatusFrameRate frame) {
+        final Integer applied = mAppliedPeriods.get(frame);
+        return applied == null ? -1 : applied;
+    }
+
+    private void apply(StatusFrameRate frame, int period_ms) {
+        final Integer applied = mAppliedPeriods.get(frame);
+        if (applied != null && applied == period_ms) {
+            return;
+        }
+        mAppliedPeriods.put(frame, period_ms);
+        for (MotorControllerIO talon : mTalons) {
+            talon.setStatusFrameRateMs(frame, period_ms);
+        }
+    }
+}
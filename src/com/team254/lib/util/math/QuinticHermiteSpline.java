@@ -0,0 +1,302 @@
+package com.team254.lib.util.math;
+
+import java.util.Arrays;
+
+/**
+ * A quintic Hermite spline in the (x, y) plane, defined by the position, first derivative and second derivative at
+ * each end. Matching the second derivatives to the neighboring segments gives a path with continuous curvature.
+ *
+ * On construction the spline is sampled into tables of arc length, parameter and curvature, so that queries by
+ * distance along the spline are a binary search plus an interpolation, and closest point queries are a walk along the
+ * table starting from the previous answer. Nothing in here needs to find roots at runtime.
+ */
+public class QuinticHermiteSpline {
+    public static final double kMaxSampleSpacing = 0.5; // inches
+    public static final int kMinSamples = 16;
+
+    // 5 point Gauss-Legendre quadrature, used to integrate arc length over each table interval.
+    private static final double[] kGaussNodes = { -0.9061798459386640, -0.5384693101056831, 0.0, 0.5384693101056831,
+            0.9061798459386640 };
+    private static final double[] kGaussWeights = { 0.2369268850561891, 0.4786286704993665, 0.5688888888888889,
+            0.4786286704993665, 0.2369268850561891 };
+
+    // Polynomial coefficients, x(t) = cx5 t^5 + cx4 t^4 + cx3 t^3 + cx2 t^2 + cx1 t + cx0
+    private final double cx5, cx4, cx3, cx2, cx1, cx0;
+    private final double cy5, cy4, cy3, cy2, cy1, cy0;
+
+    // Tables, indexed by sample. Samples are uniform in the spline parameter.
+    private final double[] mT;
+    private final double[] mS;
+    private final double[] mX;
+    private final double[] mY;
+    private final double[] mCurvature;
+
+    /**
+     * @param p0
+     *            start position
+     * @param v0
+     *            first derivative (with respect to the spline parameter) at the start
+     * @param a0
+     *            second derivative at the start
+     * @param p1
+     *            end position
+     * @param v1
+     *            first derivative at the end
+     * @param a1
+     *            second derivative at the end
+     */
+    public QuinticHermiteSpline(Translation2d p0, Translation2d v0, Translation2d a0, Translation2d p1,
+            Translation2d v1, Translation2d a1) {
+        cx5 = -6 * p0.x() - 3 * v0.x() - 0.5 * a0.x() + 0.5 * a1.x() - 3 * v1.x() + 6 * p1.x();
+        cx4 = 15 * p0.x() + 8 * v0.x() + 1.5 * a0.x() - a1.x() + 7 * v1.x() - 15 * p1.x();
+        cx3 = -10 * p0.x() - 6 * v0.x() - 1.5 * a0.x() + 0.5 * a1.x() - 4 * v1.x() + 10 * p1.x();
+        cx2 = 0.5 * a0.x();
+        cx1 = v0.x();
+        cx0 = p0.x();
+        cy5 = -6 * p0.y() - 3 * v0.y() - 0.5 * a0.y() + 0.5 * a1.y() - 3 * v1.y() + 6 * p1.y();
+        cy4 = 15 * p0.y() + 8 * v0.y() + 1.5 * a0.y() - a1.y() + 7 * v1.y() - 15 * p1.y();
+        cy3 = -10 * p0.y() - 6 * v0.y() - 1.5 * a0.y() + 0.5 * a1.y() - 4 * v1.y() + 10 * p1.y();
+        cy2 = 0.5 * a0.y();
+        cy1 = v0.y();
+        cy0 = p0.y();
+
+        // Size the tables from a rough length estimate (the control polygon is always at least as long as the curve).
+        final double estimated_length = new Translation2d(p0, p1).norm() + (v0.norm() + v1.norm()) / 5.0;
+        final int num_intervals = Math.max(kMinSamples, (int) Math.ceil(estimated_length / kMaxSampleSpacing));
+        mT = new double[num_intervals + 1];
+        mS = new double[num_intervals + 1];
+        mX = new double[num_intervals + 1];
+        mY = new double[num_intervals + 1];
+        mCurvature = new double[num_intervals + 1];
+        for (int i = 0; i <= num_intervals; ++i) {
+            final double t = (double) i / num_intervals;
+            mT[i] = t;
+            mX[i] = x(t);
+            mY[i] = y(t);
+            mCurvature[i] = getCurvature(t);
+            if (i > 0) {
+                mS[i] = mS[i - 1] + integrateSpeed(mT[i - 1], t);
+            }
+        }
+    }
+
+    private double x(double t) {
+        return ((((cx5 * t + cx4) * t + cx3) * t + cx2) * t + cx1) * t + cx0;
+    }
+
+    private double y(double t) {
+        return ((((cy5 * t + cy4) * t + cy3) * t + cy2) * t + cy1) * t + cy0;
+    }
+
+    private double dx(double t) {
+        return (((5 * cx5 * t + 4 * cx4) * t + 3 * cx3) * t + 2 * cx2) * t + cx1;
+    }
+
+    private double dy(double t) {
+        return (((5 * cy5 * t + 4 * cy4) * t + 3 * cy3) * t + 2 * cy2) * t + cy1;
+    }
+
+    private double ddx(double t) {
+        return ((20 * cx5 * t + 12 * cx4) * t + 6 * cx3) * t + 2 * cx2;
+    }
+
+    private double ddy(double t) {
+        return ((20 * cy5 * t + 12 * cy4) * t + 6 * cy3) * t + 2 * cy2;
+    }
+
+    private double integrateSpeed(double t0, double t1) {
+        final double half_width = 0.5 * (t1 - t0);
+        final double mid = 0.5 * (t0 + t1);
+        double sum = 0.0;
+        for (int i = 0; i < kGaussNodes.length; ++i) {
+            final double t = mid + half_width * kGaussNodes[i];
+            sum += kGaussWeights[i] * Math.hypot(dx(t), dy(t));
+        }
+        return sum * half_width;
+    }
+
+    /**
+     * @return The point at parameter t (0 to 1).
+     */
+    public Translation2d getPoint(double t) {
+        return new Translation2d(x(t), y(t));
+    }
+
+    /**
+     * @return The first derivative with respect to the parameter at t.
+     */
+    public Translation2d getVelocity(double t) {
+        return new Translation2d(dx(t), dy(t));
+    }
+
+    /**
+     * @return The signed curvature (1 / radius, positive turning left) at parameter t.
+     */
+    public double getCurvature(double t) {
+        final double vx = dx(t);
+        final double vy = dy(t);
+        final double speed2 = vx * vx + vy * vy;
+        if (speed2 < 1E-12) {
+            return 0.0;
+        }
+        return (vx * ddy(t) - vy * ddx(t)) / (speed2 * Math.sqrt(speed2));
+    }
+
+    /**
+     * @return The total arc length of the spline.
+     */
+    public double getLength() {
+        return mS[mS.length - 1];
+    }
+
+    /**
+     * @return The number of table samples.
+     */
+    public int getNumSamples() {
+        return mS.length;
+    }
+
+    private int intervalByDistance(double s) {
+        int i = Arrays.binarySearch(mS, s);
+        if (i < 0) {
+            i = -i - 2;
+        }
+        return Math.max(0, Math.min(mS.length - 2, i));
+    }
+
+    /**
+     * Look up the spline parameter at a given arc length (clamped to the ends of the spline).
+     */
+    public double getParameterByDistance(double s) {
+        if (s <= 0.0) {
+            return 0.0;
+        } else if (s >= getLength()) {
+            return 1.0;
+        }
+        final int i = intervalByDistance(s);
+        final double u = (s - mS[i]) / (mS[i + 1] - mS[i]);
+        return mT[i] + u * (mT[i + 1] - mT[i]);
+    }
+
+    /**
+     * @return The point at a given arc length along the spline (clamped to the ends of the spline).
+     */
+    public Translation2d getPointByDistance(double s) {
+        return getPoint(getParameterByDistance(s));
+    }
+
+    /**
+     * @return The signed curvature at a given arc length along the spline, interpolated from the table.
+     */
+    public double getCurvatureByDistance(double s) {
+        if (s <= 0.0) {
+            return mCurvature[0];
+        } else if (s >= getLength()) {
+            return mCurvature[mCurvature.length - 1];
+        }
+        final int i = intervalByDistance(s);
+        final double u = (s - mS[i]) / (mS[i + 1] - mS[i]);
+        return mCurvature[i] + u * (mCurvature[i + 1] - mCurvature[i]);
+    }
+
+    /**
+     * @return The largest absolute curvature in the table.
+     */
+    public double getMaxAbsCurvature() {
+        double max = 0.0;
+        for (double k : mCurvature) {
+            max = Math.max(max, Math.abs(k));
+        }
+        return max;
+    }
+
+    private double distanceToInterval(int i, double px, double py) {
+        final double vx = mX[i + 1] - mX[i];
+        final double vy = mY[i + 1] - mY[i];
+        final double u = Math.max(0.0,
+                Math.min(1.0, ((px - mX[i]) * vx + (py - mY[i]) * vy) / (vx * vx + vy * vy)));
+        return Math.hypot(mX[i] + u * vx - px, mY[i] + u * vy - py);
+    }
+
+    /**
+     * Find the interval of the arc length table closest to the given position. With a hint (the result of the previous
+     * query) the search walks the table from there, so successive queries from a moving robot are constant time;
+     * without one it scans the whole table. Callers that query repeatedly keep the hint themselves, so that the spline
+     * stays immutable.
+     *
+     * @param hint
+     *            the interval returned by the previous query, or -1 for none
+     */
+    public int getClosestInterval(Translation2d position, int hint) {
+        final double px = position.x();
+        final double py = position.y();
+        int best = Math.min(hint, mS.length - 2);
+        double best_dist;
+        if (best < 0) {
+            best = 0;
+            best_dist = distanceToInterval(0, px, py);
+            for (int i = 1; i < mS.length - 1; ++i) {
+                final double dist = distanceToInterval(i, px, py);
+                if (dist < best_dist) {
+                    best = i;
+                    best_dist = dist;
+                }
+            }
+        } else {
+            best_dist = distanceToInterval(best, px, py);
+            while (best < mS.length - 2) {
+                final double dist = distanceToInterval(best + 1, px, py);
+                if (dist >= best_dist) {
+                    break;
+                }
+                ++best;
+                best_dist = dist;
+            }
+            while (best > 0) {
+                final double dist = distanceToInterval(best - 1, px, py);
+                if (dist >= best_dist) {
+                    break;
+                }
+                --best;
+                best_dist = dist;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Find the arc length of the point on the spline closest to the given position, given the closest interval of the
+     * table (see getClosestInterval()).
+     */
+    public double getDistanceAtClosestPoint(Translation2d position, int interval) {
+        final double px = position.x();
+        final double py = position.y();
+        final double vx = mX[interval + 1] - mX[interval];
+        final double vy = mY[interval + 1] - mY[interval];
+        final double u = Math.max(0.0,
+                Math.min(1.0, ((px - mX[interval]) * vx + (py - mY[interval]) * vy) / (vx * vx + vy * vy)));
+        final double s = mS[interval] + u * (mS[interval + 1] - mS[interval]);
+
+        // The table is a polyline, so correct for the difference between its chord and the true tangent with a single
+        // fixed projection step onto the tangent line.
+        final double t = getParameterByDistance(s);
+        final double tx = dx(t);
+        final double ty = dy(t);
+        final double correction = ((px - x(t)) * tx + (py - y(t)) * ty) / Math.hypot(tx, ty);
+        return Math.max(0.0, Math.min(getLength(), s + correction));
+    }
+
+    /**
+     * Find the arc length of the point on the spline closest to the given position, scanning the whole table.
+     */
+    public double getDistanceAtClosestPoint(Translation2d position) {
+        return getDistanceAtClosestPoint(position, getClosestInterval(position, -1));
+    }
+
+    /**
+     * @return The point on the spline closest to the given position.
+     */
+    public Translation2d getClosestPoint(Translation2d position) {
+        return getPointByDistance(getDistanceAtClosestPoint(position));
+    }
+}
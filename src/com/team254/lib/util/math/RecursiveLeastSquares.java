@@ -0,0 +1,130 @@
+package com.team254.lib.util.math;
+
+import java.util.Arrays;
+
+/**
+ * Fits y = theta . x one sample at a time, for a fixed number of parameters, without storing the samples. Older samples
+ * are weighted down by the forgetting factor (0.999 remembers roughly the last 1000 samples), so the fit can follow a
+ * slowly changing system.
+ *
+ * While the input is not exciting every parameter (ex. a flywheel sitting at one speed), the covariance would grow
+ * without bound and the next disturbance would throw the fit around, so it is never allowed to grow past its initial
+ * size.
+ */
+public class RecursiveLeastSquares {
+    private final int mNumParameters;
+    private final double mForgettingFactor;
+    private final double mMaxCovarianceTrace;
+
+    private final double[] mTheta;
+    private final double[][] mP;
+    private long mNumUpdates = 0;
+
+    // Scratch space, so that update() does not allocate.
+    private final double[] mPx;
+    private final double[] mGain;
+
+    /**
+     * @param num_parameters
+     *            the length of theta and of each x
+     * @param forgetting_factor
+     *            in (0, 1], 1 weights every sample equally
+     * @param initial_covariance
+     *            how uncertain the initial parameters are (larger trusts the first samples more)
+     */
+    public RecursiveLeastSquares(int num_parameters, double forgetting_factor, double initial_covariance) {
+        mNumParameters = num_parameters;
+        mForgettingFactor = forgetting_factor;
+        mMaxCovarianceTrace = num_parameters * initial_covariance;
+        mTheta = new double[num_parameters];
+        mP = new double[num_parameters][num_parameters];
+        mPx = new double[num_parameters];
+        mGain = new double[num_parameters];
+        reset(mTheta, initial_covariance);
+    }
+
+    /**
+     * Start over from the given parameters.
+     *
+     * @param covariance
+     *            how uncertain the given parameters are
+     */
+    public void reset(double[] theta, double covariance) {
+        System.arraycopy(theta, 0, mTheta, 0, mNumParameters);
+        for (int i = 0; i < mNumParameters; ++i) {
+            Arrays.fill(mP[i], 0.0);
+            mP[i][i] = covariance;
+        }
+        mNumUpdates = 0;
+    }
+
+    public double predict(double[] x) {
+        double y = 0.0;
+        for (int i = 0; i < mNumParameters; ++i) {
+            y += mTheta[i] * x[i];
+        }
+        return y;
+    }
+
+    /**
+     * Add a sample.
+     *
+     * @return the error of the prediction for this sample, made before adding it
+     */
+    public double update(double[] x, double y) {
+        // Px, and x'Px
+        double denominator = mForgettingFactor;
+        for (int i = 0; i < mNumParameters; ++i) {
+            double px = 0.0;
+            for (int j = 0; j < mNumParameters; ++j) {
+                px += mP[i][j] * x[j];
+            }
+            mPx[i] = px;
+            denominator += x[i] * px;
+        }
+        final double error = y - predict(x);
+        for (int i = 0; i < mNumParameters; ++i) {
+            mGain[i] = mPx[i] / denominator;
+            mTheta[i] += mGain[i] * error;
+        }
+
+        // P = (P - K x'P) / lambda, keeping P symmetric.
+        double trace = 0.0;
+        for (int i = 0; i < mNumParameters; ++i) {
+            for (int j = i; j < mNumParameters; ++j) {
+                final double p = mP[i][j] - mGain[i] * mPx[j];
+                mP[i][j] = p;
+                mP[j][i] = p;
+            }
+            trace += mP[i][i];
+        }
+        final double inflate = trace / mForgettingFactor < mMaxCovarianceTrace ? 1.0 / mForgettingFactor : 1.0;
+        for (int i = 0; i < mNumParameters; ++i) {
+            for (int j = 0; j < mNumParameters; ++j) {
+                mP[i][j] *= inflate;
+            }
+        }
+        ++mNumUpdates;
+        return error;
+    }
+
+    public double[] getParameters() {
+        return Arrays.copyOf(mTheta, mNumParameters);
+    }
+
+    public double getParameter(int i) {
+        return mTheta[i];
+    }
+
+    public double getCovarianceTrace() {
+        double trace = 0.0;
+        for (int i = 0; i < mNumParameters; ++i) {
+            trace += mP[i][i];
+        }
+        return trace;
+    }
+
+    public long getNumUpdates() {
+        return mNumUpdates;
+    }
+}
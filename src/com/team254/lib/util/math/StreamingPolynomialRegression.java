@@ -0,0 +1,205 @@
+package com.team254.lib.util.math;
+
+import java.util.Arrays;
+
+/**
+ * A weighted least squares polynomial fit that takes one sample at a time, for refining a fit (ex. the shooter's range
+ * to RPM map) while the robot runs. Unlike {@link PolynomialRegression}, samples are not stored: each one is added to
+ * the sums that make up the normal equations, which costs O(degree) and allocates nothing. fit() solves the normal
+ * equations in place, in O(degree^3).
+ *
+ * The normal equations of a polynomial fit are badly conditioned when x is far from 0 (ex. ranges around 100 inches),
+ * so x is shifted and scaled to roughly [-1, 1] internally. Choose the center and scale to cover the expected inputs.
+ * Coefficients are reported for the original x.
+ *
+ * The last fit is published as an immutable array, so other threads can read it while samples are being added.
+ */
+public class StreamingPolynomialRegression {
+    private static final double kSingularEpsilon = 1E-12;
+
+    private final int mDegree;
+    private final double mCenter;
+    private final double mScale;
+
+    // Weighted sums of t^k for k in [0, 2 * degree], and of y * t^k for k in [0, degree], where t = (x - center) /
+    // scale. Also the sums of y and y^2, for R^2.
+    private final double[] mPowerSums;
+    private final double[] mMoments;
+    private double mSumY = 0.0;
+    private double mSumYSquared = 0.0;
+    private int mNumSamples = 0;
+
+    // The normal equations, augmented with the moments. Reused by every fit.
+    private final double[][] mSystem;
+
+    private volatile double[] mCoefficients;
+    private volatile double mR2 = Double.NaN;
+
+    /**
+     * @param degree
+     *            the degree of the polynomial to fit
+     * @param center
+     *            roughly the middle of the expected x values
+     * @param scale
+     *            roughly half the width of the expected x values
+     */
+    public StreamingPolynomialRegression(int degree, double center, double scale) {
+        mDegree = degree;
+        mCenter = center;
+        mScale = scale;
+        mPowerSums = new double[2 * degree + 1];
+        mMoments = new double[degree + 1];
+        mSystem = new double[degree + 1][degree + 2];
+        mCoefficients = new double[degree + 1];
+    }
+
+    public synchronized void addSample(double x, double y) {
+        addSample(x, y, 1.0);
+    }
+
+    /**
+     * @param weight
+     *            how much this sample counts relative to others
+     */
+    public synchronized void addSample(double x, double y, double weight) {
+        final double t = (x - mCenter) / mScale;
+        double power = weight;
+        for (int k = 0; k < mPowerSums.length; ++k) {
+            mPowerSums[k] += power;
+            if (k <= mDegree) {
+                mMoments[k] += power * y;
+            }
+            power *= t;
+        }
+        mSumY += weight * y;
+        mSumYSquared += weight * y * y;
+        ++mNumSamples;
+    }
+
+    /**
+     * Forget every sample (but keep the last fit).
+     */
+    public synchronized void clear() {
+        Arrays.fill(mPowerSums, 0.0);
+        Arrays.fill(mMoments, 0.0);
+        mSumY = 0.0;
+        mSumYSquared = 0.0;
+        mNumSamples = 0;
+    }
+
+    /**
+     * Fit the polynomial to every sample so far, and publish it.
+     *
+     * @return false (and keep the last fit) if the samples do not determine a polynomial of this degree, ex. fewer
+     *         distinct x values than coefficients
+     */
+    public synchronized boolean fit() {
+        final int n = mDegree + 1;
+        for (int i = 0; i < n; ++i) {
+            for (int j = 0; j < n; ++j) {
+                mSystem[i][j] = mPowerSums[i + j];
+            }
+            mSystem[i][n] = mMoments[i];
+        }
+
+        // Gaussian elimination with partial pivoting, then back substitution into the last column.
+        final double tolerance = kSingularEpsilon * Math.max(Math.abs(mPowerSums[0]), 1.0);
+        for (int col = 0; col < n; ++col) {
+            int pivot = col;
+            for (int row = col + 1; row < n; ++row) {
+                if (Math.abs(mSystem[row][col]) > Math.abs(mSystem[pivot][col])) {
+                    pivot = row;
+                }
+            }
+            if (Math.abs(mSystem[pivot][col]) <= tolerance) {
+                return false;
+            }
+            double[] swap = mSystem[col];
+            mSystem[col] = mSystem[pivot];
+            mSystem[pivot] = swap;
+            for (int row = col + 1; row < n; ++row) {
+                final double factor = mSystem[row][col] / mSystem[col][col];
+                for (int k = col; k <= n; ++k) {
+                    mSystem[row][k] -= factor * mSystem[col][k];
+                }
+            }
+        }
+        for (int row = n - 1; row >= 0; --row) {
+            double sum = mSystem[row][n];
+            for (int k = row + 1; k < n; ++k) {
+                sum -= mSystem[row][k] * mSystem[k][n];
+            }
+            mSystem[row][n] = sum / mSystem[row][row];
+        }
+
+        // At the least squares solution a, the weighted sum of squared errors is sum(y^2) - a . moments.
+        double explained = 0.0;
+        for (int k = 0; k < n; ++k) {
+            explained += mSystem[k][n] * mMoments[k];
+        }
+        final double sse = Math.max(0.0, mSumYSquared - explained);
+        final double sst = mSumYSquared - mSumY * mSumY / mPowerSums[0];
+        mR2 = sst > 0.0 ? 1.0 - sse / sst : 1.0;
+
+        // Expand sum(a_k * ((x - c) / s)^k) into powers of x.
+        double[] coefficients = new double[n];
+        for (int k = 0; k < n; ++k) {
+            final double a = mSystem[k][n] / Math.pow(mScale, k);
+            double binomial = 1.0;
+            for (int j = k; j >= 0; --j) {
+                // binomial is (k choose j)
+                coefficients[j] += a * binomial * Math.pow(-mCenter, k - j);
+                binomial = binomial * j / (k - j + 1);
+            }
+        }
+        mCoefficients = coefficients;
+        return true;
+    }
+
+    /**
+     * @return the last fit's coefficients, lowest order first
+     */
+    public double[] getCoefficients() {
+        return mCoefficients.clone();
+    }
+
+    /**
+     * @return the last fit evaluated at x
+     */
+    public double predict(double x) {
+        final double[] coefficients = mCoefficients;
+        double y = 0.0;
+        for (int j = coefficients.length - 1; j >= 0; --j) {
+            y = coefficients[j] + x * y;
+        }
+        return y;
+    }
+
+    /**
+     * @return the coefficient of determination of the last fit
+     */
+    public double R2() {
+        return mR2;
+    }
+
+    public synchronized int getNumSamples() {
+        return mNumSamples;
+    }
+
+    public int degree() {
+        return mDegree;
+    }
+
+    @Override
+    public String toString() {
+        final double[] coefficients = mCoefficients;
+        StringBuilder sb = new StringBuilder();
+        for (int j = coefficients.length - 1; j >= 0; --j) {
+            sb.append(String.format("%.6g", coefficients[j]));
+            if (j > 0) {
+                sb.append(j == 1 ? " x + " : " x^" + j + " + ");
+            }
+        }
+        return sb.append(String.format("  (R^2 = %.3f)", mR2)).toString();
+    }
+}
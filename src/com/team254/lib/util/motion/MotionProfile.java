@@ -57,6 +57,25 @@ public class MotionProfile {
         return true;
     }
 
+    /**
+     * Checks if every segment of the MotionProfile obeys the given constraints (to within kEpsilon).
+     *
+     * @param constraints
+     *            The constraints to check against.
+     * @return True if no state in the profile exceeds the velocity or acceleration limits.
+     */
+    public boolean satisfies(MotionProfileConstraints constraints) {
+        for (MotionSegment s : mSegments) {
+            // Velocity is linear within a segment, so checking the endpoints is sufficient.
+            if (Math.abs(s.start().vel()) > constraints.max_abs_vel() + kEpsilon
+                    || Math.abs(s.end().vel()) > constraints.max_abs_vel() + kEpsilon
+                    || Math.abs(s.start().acc()) > constraints.max_abs_acc() + kEpsilon) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Check if the profile is empty.
      * 
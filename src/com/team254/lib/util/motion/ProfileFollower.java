@@ -16,6 +16,8 @@ public class ProfileFollower {
 
     protected double mMinOutput = Double.NEGATIVE_INFINITY;
     protected double mMaxOutput = Double.POSITIVE_INFINITY;
+    protected double mGoalPosReplanTolerance = 0.0;
+    protected double mGoalVelReplanTolerance = 0.0;
     protected MotionState mLatestActualState;
     protected MotionState mInitialState;
     protected double mLatestPosError;
@@ -70,10 +72,39 @@ public class ProfileFollower {
         resetSetpoint();
     }
 
+    /**
+     * Set how far a new goal may differ from the current goal before we replan. Goals that are within these tolerances
+     * of the current goal (and otherwise identical) are ignored, so the cached profile keeps being followed. Both
+     * tolerances default to zero, which replans on any change.
+     * 
+     * @param pos_tolerance
+     *            The maximum change in goal position that does not trigger a replan.
+     * @param vel_tolerance
+     *            The maximum change in goal max_abs_vel that does not trigger a replan.
+     */
+    public void setReplanTolerances(double pos_tolerance, double vel_tolerance) {
+        mGoalPosReplanTolerance = pos_tolerance;
+        mGoalVelReplanTolerance = vel_tolerance;
+    }
+
+    /**
+     * @return True if the new goal is close enough to the current one that the current profile can be kept.
+     */
+    protected boolean isWithinReplanTolerance(MotionProfileGoal goal) {
+        return mGoal != null && goal != null && mGoal.completion_behavior() == goal.completion_behavior()
+                && mGoal.pos_tolerance() == goal.pos_tolerance() && mGoal.vel_tolerance() == goal.vel_tolerance()
+                && Math.abs(mGoal.pos() - goal.pos()) <= mGoalPosReplanTolerance
+                && Math.abs(mGoal.max_abs_vel() - goal.max_abs_vel()) <= mGoalVelReplanTolerance;
+    }
+
     /**
      * Specify a goal and constraints for achieving the goal.
      */
     public void setGoalAndConstraints(MotionProfileGoal goal, MotionProfileConstraints constraints) {
+        if (isWithinReplanTolerance(goal)) {
+            // Keep following the current goal.
+            goal = mGoal;
+        }
         if (mGoal != null && !mGoal.equals(goal) && mLatestSetpoint != null) {
             // Clear the final state bit since the goal has changed.
             mLatestSetpoint.final_setpoint = false;
@@ -114,6 +145,13 @@ public class ProfileFollower {
         mTotalError = 0.0;
     }
 
+    /**
+     * @return The total number of times a profile has been (re)generated for this follower.
+     */
+    public long getNumReplans() {
+        return mSetpointGenerator.getNumRegenerations();
+    }
+
     /**
      * Update the setpoint and apply the control gains to generate a control output.
      * 
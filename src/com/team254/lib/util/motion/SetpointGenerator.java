@@ -29,6 +29,7 @@ public class SetpointGenerator {
     protected MotionProfile mProfile = null;
     protected MotionProfileGoal mGoal = null;
     protected MotionProfileConstraints mConstraints = null;
+    protected long mNumRegenerations = 0;
 
     public SetpointGenerator() {
     }
@@ -58,8 +59,15 @@ public class SetpointGenerator {
     public synchronized Setpoint getSetpoint(MotionProfileConstraints constraints, MotionProfileGoal goal,
             MotionState prev_state,
             double t) {
-        boolean regenerate = mConstraints == null || !mConstraints.equals(constraints) || mGoal == null
-                || !mGoal.equals(goal) || mProfile == null;
+        boolean regenerate = mConstraints == null || mGoal == null || !mGoal.equals(goal) || mProfile == null;
+        if (!regenerate && !mConstraints.equals(constraints)) {
+            // Only the constraints changed. If they are no looser than the ones we planned with and the remainder of the
+            // profile already obeys them, regenerating from the current state would produce the same profile.
+            final boolean loosened = constraints.max_abs_vel() > mConstraints.max_abs_vel()
+                    || constraints.max_abs_acc() > mConstraints.max_abs_acc();
+            regenerate = loosened || !mProfile.satisfies(constraints);
+            mConstraints = constraints;
+        }
         if (!regenerate && !mProfile.isEmpty()) {
             Optional<MotionState> expected_state = mProfile.stateByTime(prev_state.t());
             regenerate = !expected_state.isPresent() || !expected_state.get().equals(prev_state);
@@ -69,6 +77,7 @@ public class SetpointGenerator {
             mConstraints = constraints;
             mGoal = goal;
             mProfile = MotionProfileGenerator.generateProfile(constraints, goal, prev_state);
+            ++mNumRegenerations;
             // System.out.println("Regenerating profile: " + mProfile);
         }
 
@@ -111,4 +120,12 @@ public class SetpointGenerator {
     public MotionProfile getProfile() {
         return mProfile;
     }
+
+    /**
+     * @return The total number of times a profile has been generated by this SetpointGenerator. Useful for tuning how
+     *         often callers force a replan.
+     */
+    public long getNumRegenerations() {
+        return mNumRegenerations;
+    }
 }
@@ -0,0 +1,150 @@
+package com.team254.frc2017.auto;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.team254.frc2017.auto.actions.Action;
+import com.team254.frc2017.auto.actions.SeriesAction;
+
+import java.util.Arrays;
+
+public class ActionRunnerTest {
+    static class CountingAction implements Action {
+        final int updates_needed;
+        int updates = 0;
+        boolean started = false;
+        boolean done = false;
+
+        CountingAction(int updates_needed) {
+            this.updates_needed = updates_needed;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return updates >= updates_needed;
+        }
+
+        @Override
+        public void update() {
+            ++updates;
+        }
+
+        @Override
+        public void done() {
+            done = true;
+        }
+
+        @Override
+        public void start() {
+            started = true;
+        }
+    }
+
+    private ActionRunner mRunner = ActionRunner.getInstance();
+
+    @Before
+    public void setUp() {
+        mRunner.onStart(0.0);
+    }
+
+    @After
+    public void tearDown() {
+        mRunner.onStop(0.0);
+    }
+
+    private Thread runInBackground(AutoModeBase auto_mode) {
+        Thread thread = new Thread(auto_mode::run);
+        thread.start();
+        return thread;
+    }
+
+    private void waitForAction() throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (!mRunner.hasAction()) {
+            assertTrue("Timed out waiting for an action", System.currentTimeMillis() < deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    public void testSeriesAdvancesInOneLoop() throws InterruptedException {
+        final CountingAction first = new CountingAction(1);
+        final CountingAction second = new CountingAction(0);
+        final CountingAction third = new CountingAction(2);
+        final CountingAction last = new CountingAction(1);
+        Thread thread = runInBackground(new AutoModeBase() {
+            @Override
+            protected void routine() throws AutoModeEndedException {
+                runAction(new SeriesAction(Arrays.asList(first, second, third)));
+                runAction(last);
+            }
+        });
+
+        waitForAction();
+        mRunner.onLoop(0.0);
+        // The first action finishing starts the next ones in the same loop.
+        assertTrue(first.done);
+        assertTrue(second.done);
+        assertEquals(0, second.updates);
+        assertTrue(third.started);
+        assertEquals(1, third.updates);
+
+        mRunner.onLoop(0.0);
+        assertTrue(third.done);
+        waitForAction();
+        assertFalse(last.started);
+        mRunner.onLoop(0.0);
+        assertTrue(last.done);
+        thread.join(5000);
+        assertFalse(thread.isAlive());
+    }
+
+    @Test
+    public void testStopDropsAction() throws InterruptedException {
+        final CountingAction never = new CountingAction(Integer.MAX_VALUE);
+        final boolean[] ended_early = { true };
+        AutoModeBase auto_mode = new AutoModeBase() {
+            @Override
+            protected void routine() throws AutoModeEndedException {
+                runAction(never);
+                ended_early[0] = false;
+            }
+        };
+        Thread thread = runInBackground(auto_mode);
+
+        waitForAction();
+        mRunner.onLoop(0.0);
+        assertTrue(never.started);
+        auto_mode.stop();
+        thread.join(5000);
+        assertFalse(thread.isAlive());
+        assertTrue(ended_early[0]);
+        // It was started, so it gets to clean up.
+        assertTrue(never.done);
+        // Nothing is left for the next loop.
+        mRunner.onLoop(0.0);
+        assertEquals(1, never.updates);
+    }
+
+    @Test
+    public void testStopBeforeStartSkipsDone() throws InterruptedException {
+        final CountingAction never = new CountingAction(Integer.MAX_VALUE);
+        AutoModeBase auto_mode = new AutoModeBase() {
+            @Override
+            protected void routine() throws AutoModeEndedException {
+                runAction(never);
+            }
+        };
+        Thread thread = runInBackground(auto_mode);
+
+        waitForAction();
+        auto_mode.stop();
+        thread.join(5000);
+        assertFalse(thread.isAlive());
+        assertFalse(never.started);
+        assertFalse(never.done);
+    }
+}
@@ -0,0 +1,132 @@
+package com.team254.frc2017.auto;
+
+import static org.junit.Assert.*;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.team254.frc2017.Constants;
+import com.team254.frc2017.auto.ActionRunnerTest.CountingAction;
+import com.team254.frc2017.auto.actions.Action;
+import com.team254.frc2017.auto.actions.ParallelAction;
+import com.team254.frc2017.auto.actions.SeriesAction;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class AutoTracerTest {
+    private String mLogDirectory;
+    private File mDirectory;
+
+    @Before
+    public void setUp() throws IOException {
+        mLogDirectory = Constants.kLogDirectory;
+        mDirectory = Files.createTempDirectory("traces").toFile();
+        Constants.kLogDirectory = mDirectory.getPath();
+    }
+
+    @After
+    public void tearDown() {
+        Constants.kLogDirectory = mLogDirectory;
+        for (File file : mDirectory.listFiles()) {
+            file.delete();
+        }
+        mDirectory.delete();
+    }
+
+    @Test
+    public void testTimeline() throws Exception {
+        new AutoModeBase() {
+            @Override
+            protected void routine() throws AutoModeEndedException {
+                AutoTracer.getInstance().event("superstructure", "SHOOTING");
+                runAction(new ParallelAction(Arrays.asList(
+                        new SeriesAction(Arrays.asList(new CountingAction(1), new CountingAction(2))),
+                        new CountingAction(1))));
+            }
+        }.run();
+        AutoTracer.getInstance().event("after", null);
+
+        File[] traces = mDirectory.listFiles();
+        assertEquals(1, traces.length);
+        assertTrue(traces[0].getName().endsWith("-trace.json"));
+        final JSONArray events;
+        try (Reader reader = new FileReader(traces[0])) {
+            events = (JSONArray) ((JSONObject) new JSONParser().parse(reader)).get("traceEvents");
+        }
+
+        Map<Long, String> tracks = new HashMap<>();
+        Map<Long, List<String>> open_spans = new HashMap<>();
+        int leaf_spans = 0;
+        boolean saw_event = false;
+        for (Object o : events) {
+            final JSONObject event = (JSONObject) o;
+            final Long track = (Long) event.get("tid");
+            final String name = (String) event.get("name");
+            final List<String> open = open_spans.computeIfAbsent(track, t -> new ArrayList<>());
+            switch ((String) event.get("ph")) {
+            case "M":
+                tracks.put(track, (String) ((JSONObject) event.get("args")).get("name"));
+                break;
+            case "B":
+                open.add(name);
+                if (name.equals("CountingAction")) {
+                    ++leaf_spans;
+                }
+                break;
+            case "E":
+                // Spans on a track nest.
+                assertEquals(open.remove(open.size() - 1), name);
+                break;
+            case "X":
+                assertEquals("CountingAction", open.get(open.size() - 1));
+                break;
+            case "i":
+                assertEquals((long) AutoTracer.kEventsTrack, (long) track);
+                assertEquals("superstructure", name);
+                saw_event = true;
+                break;
+            default:
+                fail("Unexpected event " + event);
+            }
+        }
+        assertTrue(saw_event);
+        assertEquals(3, leaf_spans);
+        for (List<String> open : open_spans.values()) {
+            assertTrue(open.isEmpty());
+        }
+        // The events and auto tracks, then one for each of the ParallelAction's actions.
+        assertEquals(Arrays.asList("events", "auto", "SeriesAction", "CountingAction"),
+                new ArrayList<>(new TreeMap<>(tracks).values()));
+    }
+
+    @Test
+    public void testNotTracedWhenDisabled() {
+        Constants.kAutoTraceEnabled = false;
+        try {
+            final Action action = new CountingAction(1);
+            new AutoModeBase() {
+                @Override
+                protected void routine() throws AutoModeEndedException {
+                    runAction(action);
+                }
+            }.run();
+        } finally {
+            Constants.kAutoTraceEnabled = true;
+        }
+        assertEquals(0, mDirectory.listFiles().length);
+    }
+}
@@ -0,0 +1,51 @@
+package com.team254.frc2017.paths;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import com.team254.lib.util.control.Path;
+import com.team254.lib.util.math.RigidTransform2d;
+import com.team254.lib.util.math.Rotation2d;
+import com.team254.lib.util.math.Translation2d;
+
+public class PathPlannerTest {
+    public static final double kTestEpsilon = 1E-6;
+    public static final long kBudget = 1000000000L; // Generous, so that the test doesn't depend on the machine.
+
+    @Test
+    public void testPlan() {
+        // Driving backwards from the alliance wall to a peg up and to the right, arriving facing 240 degrees.
+        RigidTransform2d start = new RigidTransform2d(new Translation2d(20, 50), Rotation2d.fromDegrees(180));
+        RigidTransform2d goal = new RigidTransform2d(new Translation2d(120, 110), Rotation2d.fromDegrees(240));
+        PathPlanner.Result result = PathPlanner.plan(start, goal, true, 80.0, kBudget);
+        assertFalse(result.fallback);
+        Path path = result.path;
+        assertEquals(120, path.getEndPosition().x(), kTestEpsilon);
+        assertEquals(110, path.getEndPosition().y(), kTestEpsilon);
+        // Starts stopped, ends stopped, and never exceeds the requested speed.
+        double[] table = path.getVelocityTable();
+        assertEquals(0.0, table[0], kTestEpsilon);
+        assertEquals(0.0, table[table.length - 1], kTestEpsilon);
+        for (double v : table) {
+            assertTrue(v <= 80.0 + kTestEpsilon);
+        }
+    }
+
+    @Test
+    public void testFallback() {
+        // With no time to search, we still get a (straight) path to the goal.
+        RigidTransform2d start = new RigidTransform2d(new Translation2d(20, 50), Rotation2d.fromDegrees(180));
+        RigidTransform2d goal = new RigidTransform2d(new Translation2d(120, 110), Rotation2d.fromDegrees(240));
+        PathPlanner.Result result = PathPlanner.plan(start, goal, true, 80.0, -1);
+        assertTrue(result.fallback);
+        assertEquals(0, result.candidates_tried);
+        assertEquals(120, result.path.getEndPosition().x(), kTestEpsilon);
+        assertEquals(110, result.path.getEndPosition().y(), kTestEpsilon);
+
+        // Goals that can't be reached with turns no tighter than the minimum also fall back.
+        goal = new RigidTransform2d(new Translation2d(25, 50), Rotation2d.fromDegrees(0));
+        result = PathPlanner.plan(start, goal, true, 80.0, kBudget);
+        assertTrue(result.fallback);
+    }
+}
@@ -0,0 +1,79 @@
+package com.team254.frc2017.vision;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public class AdbBridgeTest {
+    private File mDirectory;
+    private File mLog;
+    private AdbBridge mAdb;
+
+    @Before
+    public void setUp() throws IOException {
+        assumeTrue(new File("/bin/sh").canExecute());
+        mDirectory = Files.createTempDirectory("adb").toFile();
+        mLog = new File(mDirectory, "log");
+        // A fake adb that logs its arguments, takes a while, and fails for "reverse".
+        File adb = new File(mDirectory, "adb");
+        Files.write(adb.toPath(), Arrays.asList("#!/bin/sh", "sleep 0.2", "echo \"$@\" >> " + mLog.getPath(),
+                "[ \"$1\" != reverse ]"));
+        assertTrue(adb.setExecutable(true));
+        mAdb = new AdbBridge(adb.toPath());
+    }
+
+    @After
+    public void tearDown() {
+        if (mDirectory != null) {
+            for (File file : mDirectory.listFiles()) {
+                file.delete();
+            }
+            mDirectory.delete();
+        }
+    }
+
+    private List<String> readLog() throws IOException {
+        return Files.readAllLines(mLog.toPath());
+    }
+
+    @Test
+    public void testCommandsRunInOrderWithoutBlocking() throws Exception {
+        final long start = System.nanoTime();
+        CompletableFuture<Boolean> stop = mAdb.stop();
+        CompletableFuture<Boolean> start_server = mAdb.start();
+        CompletableFuture<Boolean> reverse = mAdb.reversePortForward(8254, 8254);
+        assertTrue((System.nanoTime() - start) * 1E-9 < 0.2);
+        assertTrue(stop.get());
+        assertTrue(start_server.get());
+        assertFalse(reverse.get());
+        assertEquals(Arrays.asList("kill-server", "start-server", "reverse tcp:8254 tcp:8254"), readLog());
+    }
+
+    @Test
+    public void testRepeatedCommandRunsOnce() throws Exception {
+        CompletableFuture<Boolean> first = mAdb.reversePortForward(8254, 8254);
+        CompletableFuture<Boolean> second = mAdb.reversePortForward(8254, 8254);
+        assertSame(first, second);
+        assertFalse(second.get());
+        // Once it is done, asking again runs it again.
+        assertFalse(mAdb.reversePortForward(8254, 8254).get());
+        assertEquals(2, readLog().size());
+
+        // Only the last command is shared, so the order is kept.
+        CompletableFuture<Boolean> start = mAdb.start();
+        mAdb.stop();
+        assertNotSame(start, mAdb.start());
+        mAdb.start().get();
+        assertEquals(Arrays.asList("start-server", "kill-server", "start-server"), readLog().subList(2, 5));
+    }
+}
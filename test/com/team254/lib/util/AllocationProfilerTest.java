@@ -0,0 +1,60 @@
+package com.team254.lib.util;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class AllocationProfilerTest {
+    private static long[] sSink;
+
+    @Test
+    public void testSection() {
+        AllocationProfiler profiler = new AllocationProfiler(1.0, false);
+        AllocationProfiler.Section allocating = profiler.register("allocating");
+        AllocationProfiler.Section idle = profiler.register("idle");
+        for (int i = 0; i < 10; ++i) {
+            allocating.begin();
+            sSink = new long[1000];
+            allocating.end();
+            idle.begin();
+            idle.end();
+        }
+        // Nothing is reported until the period is over.
+        assertFalse(profiler.update(0.0));
+        assertEquals(0.0, allocating.getBytesPerCall(), 0.0);
+        assertTrue(profiler.update(1.0));
+        assertEquals(8000.0, allocating.getBytesPerCall(), 100.0);
+        assertTrue(allocating.getMaxBytes() >= 8000);
+        assertEquals(0.0, idle.getBytesPerCall(), 0.0);
+        assertTrue(profiler.getReport().indexOf("allocating") < profiler.getReport().indexOf("idle"));
+
+        // Each period starts over.
+        assertTrue(profiler.update(2.0));
+        assertEquals(0.0, allocating.getBytesPerCall(), 0.0);
+    }
+
+    @Test
+    public void testCollectionsMatchedToTicks() {
+        AllocationProfiler profiler = new AllocationProfiler(1.0, false);
+        profiler.update(0.0);
+        final long start = 0;
+        profiler.recordTick(start, start + 5, false);
+        profiler.recordTick(start + 5, start + 20, true);
+        profiler.recordTick(start + 20, start + 25, false);
+        // Overlaps the second (overrun) tick only.
+        profiler.recordCollection(start + 10, start + 15);
+        // Reported before the tick it delayed has ended.
+        profiler.recordCollection(start + 26, start + 35);
+        profiler.recordTick(start + 25, start + 40, true);
+        profiler.recordTick(start + 40, start + 45, true);
+        // Overlaps nothing recorded.
+        profiler.recordCollection(start + 100, start + 110);
+        assertTrue(profiler.update(1.0));
+        assertEquals(3, profiler.getOverruns());
+        assertEquals(2, profiler.getOverrunsWithCollection());
+        assertEquals(3, profiler.getCollections());
+        assertEquals(24 * 1E-6, profiler.getCollectionMillis(), 1E-12);
+        assertTrue(profiler.getReport()
+                .contains("5 ticks, 3 overran (2 during a collection); 3 collections (2 during a tick)"));
+    }
+}
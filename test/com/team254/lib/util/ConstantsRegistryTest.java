@@ -0,0 +1,152 @@
+package com.team254.lib.util;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class ConstantsRegistryTest {
+    public static class TestConstants extends ConstantsBase {
+        public static double kGainP = 1.0;
+        public static double kGainD = 0.0;
+        public static int kIZone = 100;
+        public static boolean kEnabled = false;
+        public static String kName = "default";
+        public static final double kFixed = 2.0;
+        public static double[] kTable = { 1.0 };
+        @ConstantsRegistry.BootOnly
+        public static int kBufferSize = 20;
+
+        static File sFile;
+
+        @Override
+        public String getFileLocation() {
+            return sFile.getPath();
+        }
+    }
+
+    private File mFile;
+    private ConstantsRegistry mRegistry;
+
+    @Before
+    public void setUp() throws IOException {
+        mFile = File.createTempFile("constants", ".txt");
+        mFile.delete();
+        TestConstants.sFile = mFile;
+        mRegistry = new ConstantsRegistry(new TestConstants());
+    }
+
+    @After
+    public void tearDown() {
+        mRegistry.stop();
+        mFile.delete();
+        // Back to the defaults for the next test.
+        mRegistry.load();
+        mRegistry.apply();
+    }
+
+    private void write(String json) throws IOException {
+        try (FileWriter writer = new FileWriter(mFile)) {
+            writer.write(json);
+        }
+    }
+
+    @Test
+    public void testApply() throws IOException {
+        assertEquals(new HashSet<>(Arrays.asList("kGainP", "kGainD", "kIZone", "kEnabled", "kName")),
+                mRegistry.getNames());
+        List<Set<String>> gain_changes = new ArrayList<>();
+        List<Set<String>> name_changes = new ArrayList<>();
+        mRegistry.subscribe(gain_changes::add, "kGainP", "kGainD", "kIZone");
+        mRegistry.subscribe(name_changes::add, "kName");
+
+        // Nothing changes until apply().
+        write("{\"kGainP\": 2, \"kIZone\": 50, \"kEnabled\": true}");
+        assertTrue(mRegistry.load());
+        assertEquals(1.0, TestConstants.kGainP, 0.0);
+        assertEquals(new HashSet<>(Arrays.asList("kGainP", "kIZone", "kEnabled")), mRegistry.apply());
+        assertEquals(2.0, TestConstants.kGainP, 0.0);
+        assertEquals(50, TestConstants.kIZone);
+        assertTrue(TestConstants.kEnabled);
+        assertEquals(Arrays.asList(new HashSet<>(Arrays.asList("kGainP", "kIZone"))), gain_changes);
+        assertTrue(name_changes.isEmpty());
+
+        // A snapshot is only applied once.
+        assertTrue(mRegistry.apply().isEmpty());
+
+        // Constants left out of the file go back to their defaults.
+        write("{\"kGainP\": 2.0, \"kName\": \"tuned\"}");
+        assertTrue(mRegistry.load());
+        assertEquals(new HashSet<>(Arrays.asList("kIZone", "kEnabled", "kName")), mRegistry.apply());
+        assertEquals(100, TestConstants.kIZone);
+        assertFalse(TestConstants.kEnabled);
+        assertEquals("tuned", TestConstants.kName);
+        assertEquals(2, gain_changes.size());
+        assertEquals(new HashSet<>(Arrays.asList("kIZone")), gain_changes.get(1));
+        assertEquals(1, name_changes.size());
+    }
+
+    @Test
+    public void testRejectsWholeFile() throws IOException {
+        write("{\"kGainP\": 3.0}");
+        assertTrue(mRegistry.load());
+        for (String bad : new String[] { "{\"kGainP\": 4.0, \"kUnknown\": 1.0}", "{\"kGainP\": 4.0, \"kIZone\": 1.5}",
+                "{\"kGainP\": 4.0, \"kFixed\": 1.0}", "{\"kGainP\": 4.0, \"kTable\": [1.0]}",
+                "{\"kGainP\": 4.0, \"kEnabled\": 1}", "{\"kGainP\": 4.0,", "[]" }) {
+            try {
+                mRegistry.parse(new StringReader(bad));
+                fail("Parsed " + bad);
+            } catch (IOException e) {
+                // Expected
+            }
+            write(bad);
+            assertFalse(mRegistry.load());
+        }
+        // The last good snapshot is still pending.
+        mRegistry.apply();
+        assertEquals(3.0, TestConstants.kGainP, 0.0);
+    }
+
+    @Test
+    public void testBootOnly() throws IOException {
+        assertFalse(mRegistry.getNames().contains("kBufferSize"));
+        final long num_changes = mRegistry.sync();
+        // Boot only constants in the file are skipped, without rejecting the rest of it.
+        write("{\"kGainP\": 3.0, \"kBufferSize\": 40}");
+        assertTrue(mRegistry.load());
+        assertEquals(new HashSet<>(Arrays.asList("kGainP")), mRegistry.apply());
+        assertEquals(3.0, TestConstants.kGainP, 0.0);
+        assertEquals(20, TestConstants.kBufferSize);
+        assertEquals(num_changes + 1, mRegistry.sync());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSubscribeUnknown() {
+        mRegistry.subscribe(changed -> {
+        }, "kGainP", "kGainI");
+    }
+
+    @Test
+    public void testWatch() throws Exception {
+        mRegistry.start();
+        assertTrue(mRegistry.apply().isEmpty());
+        write("{\"kGainD\": 5.0}");
+        final long deadline = System.currentTimeMillis() + 10000;
+        while (TestConstants.kGainD != 5.0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            mRegistry.apply();
+        }
+        assertEquals(5.0, TestConstants.kGainD, 0.0);
+    }
+}
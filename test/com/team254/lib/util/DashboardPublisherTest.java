@@ -0,0 +1,95 @@
+package com.team254.lib.util;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class DashboardPublisherTest {
+    private static class RecordingOutput implements DashboardPublisher.Output {
+        final List<String> keys = new ArrayList<>();
+        final Map<String, Object> values = new HashMap<>();
+
+        @Override
+        public void putNumber(String key, double value) {
+            keys.add(key);
+            values.put(key, value);
+        }
+
+        @Override
+        public void putBoolean(String key, boolean value) {
+            keys.add(key);
+            values.put(key, value);
+        }
+    }
+
+    @Test
+    public void testDeadbandAndRate() {
+        RecordingOutput output = new RecordingOutput();
+        DashboardPublisher publisher = new DashboardPublisher(output, 1000.0, 10.0);
+        final double[] value = { 1.0 };
+        final boolean[] flag = { false };
+        publisher.registerNumber("value", () -> value[0], 0.5);
+        publisher.registerBoolean("flag", () -> flag[0], 0.0);
+
+        // Everything goes out the first time.
+        publisher.publish(0.0);
+        assertEquals(2, output.keys.size());
+        assertEquals(1.0, (Double) output.values.get("value"), 0.0);
+        assertEquals(false, output.values.get("flag"));
+
+        // Changed, but too soon after the last send (10 Hz).
+        value[0] = 2.0;
+        flag[0] = true;
+        publisher.publish(0.05);
+        assertEquals(3, output.keys.size());
+        assertEquals(true, output.values.get("flag"));
+        assertEquals(1, publisher.getNumRateLimited());
+
+        publisher.publish(0.5);
+        assertEquals(4, output.keys.size());
+        assertEquals(2.0, (Double) output.values.get("value"), 0.0);
+
+        // Within the deadband: nothing.
+        value[0] = 2.4;
+        publisher.publish(1.0);
+        assertEquals(4, output.keys.size());
+        assertEquals(3, publisher.getNumUnchanged());
+        assertEquals(4, publisher.getNumPublished());
+        assertEquals(publisher.getNumUnchanged() + publisher.getNumRateLimited(), publisher.getNumSuppressed());
+    }
+
+    @Test
+    public void testBudgetIsSharedFairly() {
+        RecordingOutput output = new RecordingOutput();
+        // Two messages per second (one per cycle at 0.5 s), no per key limit.
+        DashboardPublisher publisher = new DashboardPublisher(output, 2.0, 0.0);
+        final double[] counter = { 0.0 };
+        for (int i = 0; i < 4; ++i) {
+            final String key = "key" + i;
+            publisher.registerNumber(key, () -> counter[0], 0.0);
+        }
+        assertEquals(4, publisher.getNumKeys());
+
+        // The initial budget covers the first two; the others wait their turn.
+        publisher.publish(0.0);
+        assertEquals(2, output.keys.size());
+        assertEquals(2, publisher.getNumOverBudget());
+
+        for (int cycle = 1; cycle <= 6; ++cycle) {
+            counter[0] = cycle;
+            publisher.publish(0.5 * cycle);
+        }
+        // One per cycle, round robin, starting with the ones that missed out.
+        assertEquals(8, output.keys.size());
+        assertEquals("key2", output.keys.get(2));
+        assertEquals("key3", output.keys.get(3));
+        assertEquals("key0", output.keys.get(4));
+        assertEquals("key1", output.keys.get(5));
+        assertEquals("key2", output.keys.get(6));
+    }
+}
@@ -0,0 +1,102 @@
+package com.team254.lib.util;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class InputRecordingTest {
+    @Test
+    public void testRoundTrip() throws Exception {
+        File file = File.createTempFile("recording", ".csv");
+        try {
+            InputRecorder recorder = new InputRecorder();
+            // Nothing is recorded without a file.
+            recorder.recordInput("ignored", 1.0);
+            assertFalse(recorder.isRecording());
+
+            recorder.setFile(file.getPath());
+            assertTrue(recorder.isRecording());
+            recorder.beginCycle(InputRecorder.CycleType.START, 1.0);
+            recorder.recordInput("encoder", 0.1);
+            recorder.recordOutput("motor", 0.0);
+            recorder.beginCycle(InputRecorder.CycleType.LOOP, 1.005);
+            recorder.recordInput("encoder", 0.2);
+            recorder.recordInput("encoder", Math.PI / 3.0);
+            recorder.recordInput("button", true);
+            recorder.recordOutput("motor", 1.0 / 3.0);
+            // Another thread (teleop) reading and writing during the cycle.
+            Thread teleop = new Thread(() -> {
+                recorder.recordInput("throttle", 0.5);
+                recorder.recordOutput("motor", -1.0);
+            });
+            teleop.start();
+            teleop.join();
+            recorder.write();
+            recorder.beginCycle(InputRecorder.CycleType.STOP, 1.01);
+            recorder.setFile(null);
+            assertFalse(recorder.isRecording());
+
+            InputRecording recording = InputRecording.read(file);
+            assertEquals(3, recording.getCycles().size());
+
+            assertTrue(recording.advance());
+            InputRecording.Cycle cycle = recording.getCycle();
+            assertEquals(InputRecorder.CycleType.START, cycle.type);
+            assertEquals(1.0, cycle.timestamp, 0.0);
+            assertEquals(Collections.singletonList(0.0), cycle.getOutputs().get("motor"));
+
+            assertTrue(recording.advance());
+            cycle = recording.getCycle();
+            assertEquals(InputRecorder.CycleType.LOOP, cycle.type);
+            assertEquals(1.005, cycle.timestamp, 0.0);
+            assertEquals(0.2, recording.read("encoder", 0.0), 0.0);
+            // Values come back bit for bit.
+            assertEquals(Double.doubleToLongBits(Math.PI / 3.0),
+                    Double.doubleToLongBits(recording.read("encoder", 0.0)));
+            assertEquals(1.0, recording.read("button", 0.0), 0.0);
+            assertEquals(Collections.singletonList(1.0 / 3.0), cycle.getOutputs().get("motor"));
+            assertEquals(Collections.singletonList(0.5), cycle.getExternalInputs("throttle"));
+            assertEquals(Collections.singletonList(-1.0), cycle.getExternalOutputs().get("motor"));
+            assertTrue(cycle.getInputs("throttle").isEmpty());
+            assertEquals(0, recording.getNumUnderruns());
+
+            // Reading more than was recorded repeats the last value and counts as an underrun.
+            assertEquals(Math.PI / 3.0, recording.read("encoder", 0.0), 0.0);
+            assertEquals(7.0, recording.read("never recorded", 7.0), 0.0);
+            assertEquals(2, recording.getNumUnderruns());
+
+            assertTrue(recording.advance());
+            assertEquals(InputRecorder.CycleType.STOP, recording.getCycle().type);
+            assertFalse(recording.advance());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testParse() throws IOException {
+        // Records before the first mark get a cycle of their own.
+        InputRecording recording = InputRecording.parse(new BufferedReader(new StringReader(
+                "#0,i,a\n0,1.0\nL,2.0\n0,3.0\n#1,o,b\n1,4.0\n1,5.0\n")));
+        assertEquals(2, recording.getCycles().size());
+        assertTrue(Double.isNaN(recording.getCycles().get(0).timestamp));
+        assertEquals(Arrays.asList(1.0), recording.getCycles().get(0).getInputs("a"));
+        assertEquals(Arrays.asList(4.0, 5.0), recording.getCycles().get(1).getOutputs().get("b"));
+
+        for (String bad : new String[] { "0,1.0\n", "#0,i,a\n0,x\n", "nonsense\n" }) {
+            try {
+                InputRecording.parse(new BufferedReader(new StringReader(bad)));
+                fail("Parsed " + bad);
+            } catch (IOException e) {
+                // Expected
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.team254.lib.util;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+public class LogManagerTest {
+    public static class Sample {
+        public double timestamp;
+        public double value;
+    }
+
+    private File mDirectory;
+
+    @Before
+    public void setUp() throws IOException {
+        mDirectory = File.createTempFile("logs", "");
+        mDirectory.delete();
+        mDirectory.mkdirs();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = mDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        mDirectory.delete();
+    }
+
+    private static String readGzip(File file) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputStream in = new GZIPInputStream(new FileInputStream(file))) {
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                bytes.write(buffer, 0, read);
+            }
+        }
+        return bytes.toString("UTF-8");
+    }
+
+    private List<String[]> readIndex() throws IOException {
+        List<String[]> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new FileReader(new File(mDirectory, LogManager.kIndexFileName)))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line.split("\t"));
+            }
+        }
+        return lines;
+    }
+
+    private static void writeSamples(ReflectingCSVWriter<Sample> writer, int count) {
+        Sample sample = new Sample();
+        for (int i = 0; i < count; ++i) {
+            sample.timestamp = i * 0.01;
+            sample.value = i;
+            writer.add(sample);
+        }
+        writer.flush();
+    }
+
+    @Test
+    public void testSegmentsAreCompressedAndIndexed() throws IOException {
+        LogManager manager = new LogManager("run");
+        ReflectingCSVWriter<Sample> writer = new ReflectingCSVWriter<>(Sample.class);
+        manager.register("SAMPLES", writer);
+        manager.start(mDirectory, Long.MAX_VALUE);
+
+        manager.startSegment("auto");
+        writeSamples(writer, 10);
+        // Starting the next segment closes the first.
+        manager.startSegment("teleop");
+        writeSamples(writer, 10000); // Several compression blocks
+        manager.endSegment();
+        // Nothing is written outside of a segment.
+        writeSamples(writer, 10);
+        manager.waitForCompression(5000);
+
+        List<String> files = manager.getFiles();
+        assertEquals(2, files.size());
+        assertEquals("run-000-auto-SAMPLES.csv.gz", files.get(0));
+        assertEquals("run-001-teleop-SAMPLES.csv.gz", files.get(1));
+        assertFalse(new File(mDirectory, "run-000-auto-SAMPLES.csv").exists());
+
+        String auto = readGzip(new File(mDirectory, files.get(0)));
+        assertTrue(auto.startsWith("timestamp, value"));
+        assertEquals(11, auto.split("\n").length);
+        String teleop = readGzip(new File(mDirectory, files.get(1)));
+        assertTrue(teleop.length() > 2 * LogManager.kCompressionBlockSize);
+        assertEquals(10001, teleop.split("\n").length);
+
+        List<String[]> index = readIndex();
+        assertEquals(2, index.size());
+        assertEquals("SAMPLES", index.get(1)[1]);
+        assertEquals("teleop", index.get(1)[4]);
+        assertEquals(teleop.length(), Long.parseLong(index.get(1)[6]));
+        assertEquals(new File(mDirectory, files.get(1)).length(), Long.parseLong(index.get(1)[7]));
+        assertEquals("1", index.get(1)[8]);
+    }
+
+    @Test
+    public void testQuotaEvictsOldestSegments() throws IOException {
+        LogManager manager = new LogManager("run");
+        ReflectingCSVWriter<Sample> writer = new ReflectingCSVWriter<>(Sample.class);
+        manager.register("SAMPLES", writer);
+        manager.start(mDirectory, Long.MAX_VALUE);
+        for (int i = 0; i < 5; ++i) {
+            manager.startSegment("teleop");
+            writeSamples(writer, 5000);
+        }
+        manager.endSegment();
+        manager.waitForCompression(5000);
+        final long segment_bytes = new File(mDirectory, manager.getFiles().get(0)).length();
+
+        // A new run with room for about two and a half segments keeps only the newest.
+        LogManager next_run = new LogManager("next");
+        next_run.register("SAMPLES", writer);
+        next_run.start(mDirectory, segment_bytes * 5 / 2);
+        List<String> files = next_run.getFiles();
+        assertEquals(2, files.size());
+        assertEquals("run-003-teleop-SAMPLES.csv.gz", files.get(0));
+        assertEquals("run-004-teleop-SAMPLES.csv.gz", files.get(1));
+        assertFalse(new File(mDirectory, "run-000-teleop-SAMPLES.csv.gz").exists());
+        assertEquals(2, readIndex().size());
+    }
+
+    @Test
+    public void testRecoversUncompressedSegments() throws IOException {
+        // As if power was cut while enabled: a plain CSV in the index that was never compressed.
+        final String file = "old-000-teleop-SAMPLES.csv";
+        try (PrintWriter writer = new PrintWriter(new FileWriter(new File(mDirectory, file)))) {
+            writer.println("timestamp, value");
+            writer.println("0.0, 1.0");
+        }
+        try (PrintWriter writer = new PrintWriter(new FileWriter(new File(mDirectory, LogManager.kIndexFileName)))) {
+            writer.println(file + "\tSAMPLES\told\t0\tteleop\t0\t0\t0\t0");
+            writer.println("missing.csv.gz\tSAMPLES\told\t1\tteleop\t0\t0\t0\t1");
+            writer.println("not an index line");
+        }
+
+        LogManager manager = new LogManager("run");
+        manager.start(mDirectory, Long.MAX_VALUE);
+        manager.waitForCompression(5000);
+        List<String> files = manager.getFiles();
+        assertEquals(1, files.size());
+        assertEquals("old-000-teleop-SAMPLES.csv.gz", files.get(0));
+        assertEquals("timestamp, value\n0.0, 1.0\n", readGzip(new File(mDirectory, files.get(0))));
+        assertEquals("1", readIndex().get(0)[8]);
+    }
+}
@@ -0,0 +1,71 @@
+package com.team254.lib.util;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+public class PageHinkleyDetectorTest {
+    @Test
+    public void testDetectsStepWithinBound() {
+        final double kDelta = 0.5;
+        final double kThreshold = 20.0;
+        final double kShift = 3.0;
+        Random random = new Random(254);
+        PageHinkleyDetector detector = new PageHinkleyDetector(PageHinkleyDetector.Direction.INCREASE, kDelta,
+                kThreshold, 10);
+        for (int i = 0; i < 2000; ++i) {
+            assertFalse(detector.addValue(10.0 + random.nextGaussian() * 0.5));
+        }
+        assertEquals(10.0, detector.getMean(), 0.05);
+        final double bound = detector.getDetectionDelay(kShift);
+        assertEquals(8.0, bound, 0.0);
+        int delay = 0;
+        while (!detector.addValue(10.0 + kShift + random.nextGaussian() * 0.5)) {
+            ++delay;
+            assertTrue(delay < 2 * bound);
+        }
+        assertTrue(detector.isAlarmed());
+
+        // Latches until reset.
+        assertTrue(detector.addValue(10.0));
+        detector.reset();
+        assertFalse(detector.isAlarmed());
+        assertEquals(0, detector.getNumValues());
+        assertEquals(0.0, detector.getStatistic(), 0.0);
+    }
+
+    @Test
+    public void testIgnoresOtherDirectionAndSpikes() {
+        PageHinkleyDetector detector = new PageHinkleyDetector(PageHinkleyDetector.Direction.DECREASE, 0.1, 5.0, 10);
+        for (int i = 0; i < 100; ++i) {
+            assertFalse(detector.addValue(1.0));
+        }
+        // A single spike down is not a change in the mean...
+        assertFalse(detector.addValue(-3.0));
+        for (int i = 0; i < 100; ++i) {
+            assertFalse(detector.addValue(1.0));
+        }
+        // ...and neither direction going up.
+        for (int i = 0; i < 100; ++i) {
+            assertFalse(detector.addValue(5.0));
+        }
+        assertEquals(0.0, detector.getStatistic(), 1E-9);
+        for (int i = 0; i < 100 && !detector.isAlarmed(); ++i) {
+            detector.addValue(0.0);
+        }
+        assertTrue(detector.isAlarmed());
+        assertTrue(Double.isInfinite(detector.getDetectionDelay(0.1)));
+    }
+
+    @Test
+    public void testNoAlarmBeforeMinValues() {
+        PageHinkleyDetector detector = new PageHinkleyDetector(PageHinkleyDetector.Direction.INCREASE, 0.0, 1.0, 5);
+        detector.addValue(0.0);
+        assertFalse(detector.addValue(100.0));
+        assertFalse(detector.addValue(100.0));
+        assertFalse(detector.addValue(100.0));
+        assertTrue(detector.addValue(100.0));
+    }
+}
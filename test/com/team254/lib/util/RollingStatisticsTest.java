@@ -0,0 +1,98 @@
+package com.team254.lib.util;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+public class RollingStatisticsTest {
+    private static final double kEpsilon = 1E-9;
+
+    private static double mean(double[] values, int from, int to) {
+        double sum = 0.0;
+        for (int i = from; i < to; ++i) {
+            sum += values[i];
+        }
+        return sum / (to - from);
+    }
+
+    private static double variance(double[] values, int from, int to) {
+        final double mean = mean(values, from, to);
+        double sum = 0.0;
+        for (int i = from; i < to; ++i) {
+            sum += (values[i] - mean) * (values[i] - mean);
+        }
+        return sum / (to - from);
+    }
+
+    @Test
+    public void testMatchesBruteForce() {
+        final int kWindow = 20;
+        Random random = new Random(254);
+        double[] values = new double[5000];
+        RollingStatistics stats = new RollingStatistics(kWindow);
+        RollingExtrema extrema = new RollingExtrema(kWindow);
+        RollingLongStatistics long_stats = new RollingLongStatistics(kWindow);
+        assertEquals(0.0, stats.getAverage(), 0.0);
+        assertTrue(Double.isNaN(extrema.getMax()));
+        for (int i = 0; i < values.length; ++i) {
+            // Large offset, small spread: the hard case for a running variance.
+            values[i] = 3000.0 + Math.round(random.nextGaussian() * 25.0);
+            stats.addValue(values[i]);
+            extrema.addValue(values[i]);
+            long_stats.addValue((long) values[i]);
+            final int from = Math.max(0, i + 1 - kWindow);
+            assertEquals(i + 1 - from, stats.getNumValues());
+            assertEquals(stats.getNumValues(), extrema.getNumValues());
+            assertEquals(i + 1 >= kWindow, stats.isFull());
+            assertEquals(mean(values, from, i + 1), stats.getAverage(), 1E-6);
+            assertEquals(variance(values, from, i + 1), stats.getVariance(), 1E-4);
+            assertEquals(mean(values, from, i + 1), long_stats.getAverage(), kEpsilon);
+            assertEquals(variance(values, from, i + 1), long_stats.getVariance(), 1E-4);
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int j = from; j <= i; ++j) {
+                min = Math.min(min, values[j]);
+                max = Math.max(max, values[j]);
+            }
+            assertEquals(min, extrema.getMin(), 0.0);
+            assertEquals(max, extrema.getMax(), 0.0);
+            assertEquals(values[i], stats.getLastValue(), 0.0);
+        }
+
+        stats.clear();
+        extrema.clear();
+        assertEquals(0, stats.getNumValues());
+        assertEquals(0.0, stats.getVariance(), 0.0);
+        stats.addValue(5.0);
+        extrema.addValue(5.0);
+        assertEquals(5.0, stats.getAverage(), 0.0);
+        assertEquals(5.0, extrema.getMin(), 0.0);
+        assertEquals(5.0, extrema.getMax(), 0.0);
+    }
+
+    @Test
+    public void testExponentialSmoother() {
+        ExponentialSmoother smoother = new ExponentialSmoother(0.5);
+        assertFalse(smoother.isInitialized());
+        smoother.addValue(10.0);
+        assertEquals(10.0, smoother.getAverage(), kEpsilon);
+        smoother.addValue(20.0);
+        assertEquals(15.0, smoother.getAverage(), kEpsilon);
+        assertEquals(25.0, smoother.getVariance(), kEpsilon);
+        for (int i = 0; i < 100; ++i) {
+            smoother.addValue(20.0);
+        }
+        assertEquals(20.0, smoother.getAverage(), kEpsilon);
+        assertEquals(0.0, smoother.getVariance(), kEpsilon);
+
+        // One time constant covers 63% of a step.
+        smoother = ExponentialSmoother.fromTimeConstant(0.1, 0.01);
+        smoother.addValue(0.0);
+        for (int i = 0; i < 10; ++i) {
+            smoother.addValue(1.0);
+        }
+        assertEquals(1.0 - Math.exp(-1.0), smoother.getAverage(), kEpsilon);
+    }
+}
@@ -0,0 +1,101 @@
+package com.team254.lib.util;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class StartupOrchestratorTest {
+    @Test
+    public void testDependencies() {
+        StartupOrchestrator startup = new StartupOrchestrator(4);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        // a and b can only both finish if they run at the same time.
+        CountDownLatch both_running = new CountDownLatch(2);
+        Runnable concurrent = () -> {
+            both_running.countDown();
+            try {
+                assertTrue(both_running.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        };
+        startup.add("root", () -> order.add("root"));
+        startup.add("a", () -> {
+            concurrent.run();
+            order.add("a");
+        }, "root");
+        startup.add("b", () -> {
+            concurrent.run();
+            order.add("b");
+        }, "root");
+        startup.add("c", () -> order.add("c"), "a", "b");
+        startup.addDeferred("deferred", () -> order.add("deferred"), "c");
+        startup.run();
+        assertEquals(4, order.size());
+        assertEquals("root", order.get(0));
+        assertEquals("c", order.get(3));
+        assertTrue(startup.getReport().contains("ready after"));
+
+        // Deferred phases wait for startDeferred(), or for someone to wait for them.
+        assertTrue(startup.waitFor("deferred"));
+        assertEquals("deferred", order.get(4));
+        startup.startDeferred();
+        assertEquals(5, order.size());
+        assertTrue(startup.getReport().contains("deferred (deferred)"));
+    }
+
+    @Test
+    public void testFailure() {
+        StartupOrchestrator startup = new StartupOrchestrator(2);
+        startup.add("ok", () -> {
+        });
+        startup.add("broken", () -> {
+            throw new IllegalStateException("no CAN");
+        });
+        startup.add("after broken", () -> fail("Ran after a failed dependency"), "broken");
+        startup.addDeferred("deferred after broken", () -> fail("Ran after a failed dependency"), "broken");
+        try {
+            startup.run();
+            fail("Startup succeeded");
+        } catch (IllegalStateException e) {
+            assertEquals("no CAN", e.getMessage());
+        }
+        assertTrue(startup.waitFor("ok"));
+        assertFalse(startup.waitFor("after broken"));
+        assertFalse(startup.waitFor("deferred after broken"));
+        assertTrue(startup.getReport().contains("skipped, a dependency failed"));
+    }
+
+    @Test
+    public void testBadDependencies() {
+        StartupOrchestrator startup = new StartupOrchestrator(1);
+        startup.addDeferred("deferred", () -> {
+        });
+        try {
+            startup.add("unknown", () -> {
+            }, "not added yet");
+            fail();
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            startup.add("needs deferred", () -> {
+            }, "deferred");
+            fail();
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            startup.waitFor("deferred");
+            fail();
+        } catch (IllegalStateException e) {
+            // Expected: run() comes first
+        }
+    }
+}
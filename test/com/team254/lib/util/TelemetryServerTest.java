@@ -0,0 +1,124 @@
+package com.team254.lib.util;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+public class TelemetryServerTest {
+    private static class FakeConnection implements TelemetryServer.Connection {
+        final List<String> texts = new ArrayList<>();
+        final List<ByteBuffer> frames = new ArrayList<>();
+        boolean complete_writes = true;
+        String closed_reason = null;
+
+        @Override
+        public void sendText(String text) {
+            texts.add(text);
+        }
+
+        @Override
+        public void sendBinary(ByteBuffer frame, Runnable on_success, Runnable on_failure) {
+            frames.add(frame);
+            if (complete_writes) {
+                on_success.run();
+            }
+        }
+
+        @Override
+        public void close(String reason) {
+            closed_reason = reason;
+        }
+    }
+
+    public static class Sample {
+        public double a;
+        public int b;
+        public boolean c;
+        public Thread.State d;
+        public String ignored = "ignored";
+    }
+
+    @Test
+    public void testSubscribeAndDecimate() {
+        TelemetryServer server = new TelemetryServer();
+        TelemetryServer.Channel pose = server.registerChannel("pose", "x", "y");
+        server.registerChannel("other", "z");
+        assertSame(pose, server.registerChannel("pose", "x", "y"));
+
+        FakeConnection connection = new FakeConnection();
+        TelemetryServer.Client client = server.addClient(connection);
+        assertEquals(1, connection.texts.size());
+        assertTrue(connection.texts.get(0).contains("\"pose\""));
+
+        // Nothing until subscribed.
+        pose.publish(0.0, 1.0, 2.0);
+        assertEquals(0, connection.frames.size());
+
+        server.handleMessage(client, "{\"subscribe\":\"pose\",\"rate\":20}");
+        server.handleMessage(client, "not json");
+        for (int i = 0; i < 100; ++i) {
+            pose.publish(i * 0.01, i, -i);
+        }
+        // 1 s of samples at 20 Hz.
+        assertEquals(20, connection.frames.size());
+        ByteBuffer frame = connection.frames.get(1);
+        assertEquals(2 + 8 + 4 * 2, frame.remaining());
+        assertEquals(0, frame.getShort());
+        assertEquals(0.05, frame.getDouble(), 1E-9);
+        assertEquals(5.0f, frame.getFloat(), 0.0f);
+        assertEquals(-5.0f, frame.getFloat(), 0.0f);
+
+        server.handleMessage(client, "{\"unsubscribe\":\"pose\"}");
+        pose.publish(2.0, 1.0, 2.0);
+        assertEquals(20, connection.frames.size());
+    }
+
+    @Test
+    public void testReflectedChannel() {
+        TelemetryServer server = new TelemetryServer();
+        TelemetryServer.Channel channel = server.registerChannel("sample", Sample.class);
+        assertEquals(4, channel.getNumFields());
+        FakeConnection connection = new FakeConnection();
+        server.handleMessage(server.addClient(connection), "{\"subscribe\":\"sample\"}");
+
+        Sample sample = new Sample();
+        sample.a = 2.5;
+        sample.b = 7;
+        sample.c = true;
+        sample.d = Thread.State.BLOCKED;
+        channel.publishObject(1.0, sample);
+        ByteBuffer frame = connection.frames.get(0);
+        frame.getShort();
+        assertEquals(1.0, frame.getDouble(), 0.0);
+        assertEquals(2.5f, frame.getFloat(), 0.0f);
+        assertEquals(7.0f, frame.getFloat(), 0.0f);
+        assertEquals(1.0f, frame.getFloat(), 0.0f);
+        assertEquals((float) Thread.State.BLOCKED.ordinal(), frame.getFloat(), 0.0f);
+    }
+
+    @Test
+    public void testSlowClientIsDropped() {
+        TelemetryServer server = new TelemetryServer();
+        TelemetryServer.Channel channel = server.registerChannel("fast", "x");
+        FakeConnection slow = new FakeConnection();
+        slow.complete_writes = false;
+        FakeConnection fast = new FakeConnection();
+        TelemetryServer.Client slow_client = server.addClient(slow);
+        server.handleMessage(slow_client, "{\"subscribe\":\"fast\"}");
+        server.handleMessage(server.addClient(fast), "{\"subscribe\":\"fast\"}");
+        assertEquals(2, server.getNumClients());
+
+        for (int i = 0; i < 1000; ++i) {
+            channel.publish(i * 0.005, i);
+        }
+        assertFalse(slow_client.isOpen());
+        assertNotNull(slow.closed_reason);
+        assertTrue(slow.frames.size() < 1000);
+        assertEquals(1000, fast.frames.size());
+        assertEquals(1, server.getNumClients());
+    }
+}
@@ -0,0 +1,93 @@
+package com.team254.lib.util;
+
+import static org.junit.Assert.*;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.junit.Test;
+
+import java.io.StringWriter;
+
+public class TraceRecorderTest {
+    private static JSONArray write(TraceRecorder recorder) throws Exception {
+        StringWriter writer = new StringWriter();
+        recorder.write(writer);
+        return (JSONArray) ((JSONObject) new JSONParser().parse(writer.toString())).get("traceEvents");
+    }
+
+    @Test
+    public void testWrite() throws Exception {
+        TraceRecorder recorder = new TraceRecorder(16);
+        recorder.instant(0, "ignored", null);
+        assertEquals(0, recorder.newTrack("ignored"));
+
+        recorder.start();
+        assertEquals(0, recorder.newTrack("events"));
+        assertEquals(1, recorder.newTrack("a \"quoted\" track"));
+        recorder.begin(1, "span");
+        final long start = System.nanoTime();
+        recorder.complete(1, "call", start, start + 2500);
+        recorder.end(1, "span");
+        recorder.instant(0, "state", "SHOOTING");
+        recorder.stop();
+        recorder.instant(0, "ignored", null);
+
+        JSONArray events = write(recorder);
+        assertEquals(6, events.size());
+        JSONObject track = (JSONObject) events.get(1);
+        assertEquals("M", track.get("ph"));
+        assertEquals("a \"quoted\" track", ((JSONObject) track.get("args")).get("name"));
+        assertEquals("B", ((JSONObject) events.get(2)).get("ph"));
+        JSONObject call = (JSONObject) events.get(3);
+        assertEquals("X", call.get("ph"));
+        assertEquals(1L, call.get("tid"));
+        assertEquals(2.5, ((Number) call.get("dur")).doubleValue(), 1E-9);
+        assertEquals("E", ((JSONObject) events.get(4)).get("ph"));
+        JSONObject state = (JSONObject) events.get(5);
+        assertEquals("i", state.get("ph"));
+        assertEquals("SHOOTING", ((JSONObject) state.get("args")).get("detail"));
+        assertTrue(((Number) state.get("ts")).doubleValue() >= ((Number) call.get("ts")).doubleValue());
+    }
+
+    @Test
+    public void testOverwritesOldest() throws Exception {
+        TraceRecorder recorder = new TraceRecorder(4);
+        recorder.start();
+        for (int i = 0; i < 10; ++i) {
+            recorder.instant(0, "event " + i, null);
+        }
+        assertEquals(4, recorder.getSize());
+        assertEquals(6, recorder.getDropped());
+        JSONArray events = write(recorder);
+        assertEquals(4, events.size());
+        for (int i = 0; i < 4; ++i) {
+            assertEquals("event " + (i + 6), ((JSONObject) events.get(i)).get("name"));
+        }
+
+        // An end whose begin was overwritten is written as a span from the oldest event kept.
+        recorder.start();
+        recorder.begin(0, "outer");
+        recorder.begin(0, "dropped");
+        recorder.end(0, "dropped");
+        recorder.begin(0, "inner");
+        recorder.end(0, "inner");
+        recorder.end(0, "outer");
+        events = write(recorder);
+        assertEquals(4, events.size());
+        assertEquals("X", ((JSONObject) events.get(0)).get("ph"));
+        assertEquals("B", ((JSONObject) events.get(1)).get("ph"));
+        assertEquals("E", ((JSONObject) events.get(2)).get("ph"));
+        JSONObject outer = (JSONObject) events.get(3);
+        assertEquals("outer", outer.get("name"));
+        assertEquals("X", outer.get("ph"));
+        final double oldest_ts = ((Number) ((JSONObject) events.get(0)).get("ts")).doubleValue();
+        assertEquals(oldest_ts, ((Number) outer.get("ts")).doubleValue(), 1E-9);
+        assertTrue(((Number) outer.get("dur")).doubleValue() >= 0.0);
+
+        // Starting again drops everything.
+        recorder.start();
+        assertEquals(0, recorder.getSize());
+        assertEquals(0, write(recorder).size());
+    }
+}
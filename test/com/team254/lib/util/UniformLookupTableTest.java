@@ -0,0 +1,85 @@
+package com.team254.lib.util;
+
+import static org.junit.Assert.*;
+
+import com.team254.frc2017.Constants;
+import com.team254.lib.util.math.PolynomialRegression;
+
+import org.junit.Test;
+
+public class UniformLookupTableTest {
+    private static final double kEpsilon = 1E-9;
+
+    private static InterpolatingTreeMap<InterpolatingDouble, InterpolatingDouble> makeMap(double[][] points) {
+        InterpolatingTreeMap<InterpolatingDouble, InterpolatingDouble> map = new InterpolatingTreeMap<>();
+        for (double[] point : points) {
+            map.put(new InterpolatingDouble(point[0]), new InterpolatingDouble(point[1]));
+        }
+        return map;
+    }
+
+    /**
+     * @return the largest difference between the table and the map, checked at many points
+     */
+    private static double getMaxError(UniformLookupTable table,
+            InterpolatingTreeMap<InterpolatingDouble, InterpolatingDouble> map) {
+        double max_error = 0.0;
+        for (int i = 0; i <= 10000; ++i) {
+            final double x = table.getMin() + (table.getMax() - table.getMin()) * i / 10000.0;
+            max_error = Math.max(max_error,
+                    Math.abs(table.get(x) - map.getInterpolated(new InterpolatingDouble(x)).value));
+        }
+        return max_error;
+    }
+
+    @Test
+    public void testMapOnGrid() {
+        InterpolatingTreeMap<InterpolatingDouble, InterpolatingDouble> map = makeMap(
+                Constants.kFlywheelDistanceRpmValues);
+        UniformLookupTable table = UniformLookupTable.fromMap(map, 0.25);
+        assertEquals(161, table.size());
+        assertEquals(90.0, table.getMin(), kEpsilon);
+        assertEquals(130.0, table.getMax(), kEpsilon);
+        assertEquals(0.0, table.getErrorBound(), 0.0);
+        assertEquals(0.0, getMaxError(table, map), 1E-6);
+        assertEquals(2940.0, table.get(95.0), kEpsilon);
+        assertEquals(3007.5, table.get(102.5), kEpsilon);
+
+        // Clamped at the ends, like the map.
+        assertEquals(2890.0, table.get(0.0), kEpsilon);
+        assertEquals(3275.0, table.get(1000.0), kEpsilon);
+        assertEquals(2890.0, table.get(Double.NaN), kEpsilon);
+    }
+
+    @Test
+    public void testMapOffGrid() {
+        // A kink at 1.5 falls in the middle of a grid cell.
+        InterpolatingTreeMap<InterpolatingDouble, InterpolatingDouble> map = makeMap(
+                new double[][] { { 0.0, 0.0 }, { 1.5, 1.5 }, { 3.0, 0.0 } });
+        UniformLookupTable table = UniformLookupTable.fromMap(map, 1.0);
+        assertEquals(4, table.size());
+        // The slope changes by 2 and the step is 1.
+        assertEquals(0.5, table.getErrorBound(), kEpsilon);
+        assertEquals(0.5, getMaxError(table, map), 1E-3);
+        assertTrue(getMaxError(table, map) <= table.getErrorBound() + kEpsilon);
+    }
+
+    @Test
+    public void testPolynomial() {
+        PolynomialRegression polynomial = new PolynomialRegression(Constants.kFlywheelDistanceRpmValues, 2);
+        UniformLookupTable table = UniformLookupTable.fromPolynomial(polynomial, 90.0, 130.0, 0.25);
+        assertEquals(2.0 * Math.abs(polynomial.beta(2)) * 0.25 * 0.25 / 8.0, table.getErrorBound(), kEpsilon);
+        double max_error = 0.0;
+        for (int i = 0; i <= 10000; ++i) {
+            final double x = 90.0 + 40.0 * i / 10000.0;
+            max_error = Math.max(max_error, Math.abs(table.get(x) - polynomial.predict(x)));
+        }
+        assertTrue(max_error <= table.getErrorBound() + kEpsilon);
+        assertEquals(polynomial.predict(100.0), table.get(100.0), kEpsilon);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBadRange() {
+        UniformLookupTable.fromPolynomial(Constants.kFlywheelAutoAimPolynomial, 1.0, 1.0, 0.25);
+    }
+}
@@ -0,0 +1,83 @@
+package com.team254.lib.util.control;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+public class FlywheelModelEstimatorTest {
+    private static final double kKs = 0.5;
+    private static final double kKv = 12.0 / 4500.0;
+    private static final double kKa = 0.002;
+    private static final double kKDrag = 1E-8;
+    private static final double kDt = 0.01;
+
+    private static double getAcceleration(double rpm, double voltage) {
+        return (voltage - kKs * Math.signum(rpm) - kKv * rpm - kKDrag * rpm * Math.abs(rpm)) / kKa;
+    }
+
+    /**
+     * Spin a flywheel with the model above up and down a few times, at varying voltages.
+     */
+    private static FlywheelModelEstimator identify() {
+        FlywheelModelEstimator estimator = new FlywheelModelEstimator(0.002);
+        double rpm = 0.0;
+        double t = 0.0;
+        for (int i = 0; i < 2000; ++i) {
+            final double voltage = 6.0 + 5.0 * Math.sin(2.0 * Math.PI * t / 3.0) + (i % 400 < 200 ? 1.0 : -1.0);
+            estimator.addSample(t, rpm, voltage);
+            // Integrate finely so that the central difference sees the true acceleration.
+            for (int j = 0; j < 10; ++j) {
+                rpm += getAcceleration(rpm, voltage) * kDt / 10.0;
+            }
+            t += kDt;
+        }
+        return estimator;
+    }
+
+    @Test
+    public void testIdentify() {
+        FlywheelModelEstimator estimator = identify();
+        assertTrue(estimator.isConverged(1000));
+        assertFalse(estimator.isConverged(100000));
+        // The voltage changes in steps between samples, so the fit is close but not exact.
+        assertEquals(kKv, estimator.getKv(), 0.02 * kKv);
+        assertEquals(kKa, estimator.getKa(), 0.05 * kKa);
+        assertEquals(kKs + kKv * 3000.0 + kKDrag * 3000.0 * 3000.0, estimator.getVoltage(3000.0, 0.0), 0.1);
+        assertEquals(getAcceleration(3000.0, 12.0), estimator.getAcceleration(3000.0, 12.0), 100.0);
+    }
+
+    @Test
+    public void testSkipsGapsAndStoppedWheel() {
+        FlywheelModelEstimator estimator = new FlywheelModelEstimator(0.002);
+        for (int i = 0; i < 100; ++i) {
+            estimator.addSample(i * kDt, 0.0, 0.0);
+        }
+        assertEquals(0, estimator.getNumSamples());
+        // Every sample is too far from the last one.
+        for (int i = 0; i < 100; ++i) {
+            estimator.addSample(10.0 + i, 3000.0, 8.0);
+        }
+        assertEquals(0, estimator.getNumSamples());
+        assertEquals(0.002, estimator.getKv(), 1E-12);
+    }
+
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        FlywheelModelEstimator estimator = identify();
+        File file = File.createTempFile("flywheel-model", ".json");
+        file.deleteOnExit();
+        estimator.saveToFile(file);
+
+        FlywheelModelEstimator loaded = new FlywheelModelEstimator(0.0);
+        loaded.loadFromFile(file);
+        assertEquals(estimator.getNumSamples(), loaded.getNumSamples());
+        assertEquals(estimator.getKs(), loaded.getKs(), 1E-9);
+        assertEquals(estimator.getKv(), loaded.getKv(), 1E-12);
+        assertEquals(estimator.getKa(), loaded.getKa(), 1E-12);
+        assertEquals(estimator.getKDrag(), loaded.getKDrag(), 1E-15);
+        assertTrue(loaded.isConverged(1000));
+    }
+}
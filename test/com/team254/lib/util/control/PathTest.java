@@ -2,7 +2,9 @@ package com.team254.lib.util.control;
 
 import static org.junit.Assert.*;
 
+import com.team254.frc2017.Constants;
 import com.team254.lib.util.control.PathSegment;
+import com.team254.lib.util.math.QuinticHermiteSpline;
 import com.team254.lib.util.math.Translation2d;
 import com.team254.lib.util.motion.MotionState;
 
@@ -119,4 +121,100 @@ public class PathTest {
         dist = segment.getRemainingDistance(closestPoint);
         assertEquals(0, dist, kTestEpsilon);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSplinePathSegment() {
+        final double kSplineEpsilon = 1E-3;
+
+        // A straight spline should behave like a line.
+        PathSegment segment = new PathSegment(new QuinticHermiteSpline(new Translation2d(0, 0),
+                new Translation2d(100, 0), Translation2d.identity(), new Translation2d(100, 0),
+                new Translation2d(100, 0), Translation2d.identity()), 50.0, stopped, 0.0);
+        assertEquals(100, segment.getLength(), kSplineEpsilon);
+        Translation2d closestPoint = segment.getClosestPoint(new Translation2d(20, 50));
+        assertEquals(20, closestPoint.x(), kSplineEpsilon);
+        assertEquals(0, closestPoint.y(), kSplineEpsilon);
+        assertEquals(80, segment.getRemainingDistance(closestPoint), kSplineEpsilon);
+        Translation2d lookAheadPoint = segment.getPointByDistance(75.0);
+        assertEquals(75, lookAheadPoint.x(), kSplineEpsilon);
+        assertEquals(0, lookAheadPoint.y(), kSplineEpsilon);
+        assertEquals(0, segment.getCurvatureByDistance(50.0), kSplineEpsilon);
+
+        // A left turn from a line along +x into a line along +y.
+        segment = new PathSegment(new QuinticHermiteSpline(new Translation2d(0, 0), new Translation2d(42, 0),
+                Translation2d.identity(), new Translation2d(30, 30), new Translation2d(0, 42),
+                Translation2d.identity()), 50.0, stopped, 0.0);
+        final double length = segment.getLength();
+        assertTrue(length > 30 * Math.sqrt(2));
+        assertTrue(length < 60);
+        // Curvature is zero at the ends (matching the adjoining lines) and positive (turning left) in between.
+        assertEquals(0, segment.getCurvatureByDistance(0.0), kSplineEpsilon);
+        assertEquals(0, segment.getCurvatureByDistance(length), kSplineEpsilon);
+        assertTrue(segment.getCurvatureByDistance(length / 2) > 0.0);
+        // Distance lookups and closest point lookups agree.
+        for (double d = 0.0; d <= length; d += length / 10) {
+            Translation2d point = segment.getPointByDistance(d);
+            closestPoint = segment.getClosestPoint(point);
+            assertEquals(point.x(), closestPoint.x(), kSplineEpsilon);
+            assertEquals(point.y(), closestPoint.y(), kSplineEpsilon);
+            assertEquals(length - d, segment.getRemainingDistance(closestPoint), kSplineEpsilon);
+        }
+        // GetClosestPoint - point after end
+        closestPoint = segment.getClosestPoint(new Translation2d(32, 50));
+        assertEquals(30, closestPoint.x(), kSplineEpsilon);
+        assertEquals(30, closestPoint.y(), kSplineEpsilon);
+        assertEquals(0, segment.getRemainingDistance(closestPoint), kSplineEpsilon);
+    }
+
+    @Test
+    public void testParameterize() {
+        // 100 inches straight, a 90 degree left turn of radius 20, then 100 inches straight.
+        Path path = new Path();
+        path.addSegment(new PathSegment(0.0, 0.0, 100.0, 0.0, 120.0, stopped, 0.0));
+        path.addSegment(new PathSegment(100.0, 0.0, 120.0, 20.0, 100.0, 20.0, 120.0, stopped, 0.0));
+        path.addSegment(new PathSegment(120.0, 20.0, 120.0, 120.0, 60.0, stopped, 0.0));
+        path.parameterize();
+        double[] table = path.getVelocityTable();
+        final double max_spacing = Constants.kPathVelocityTableSpacing;
+        final double length = 200.0 + Math.PI * 10.0;
+        assertEquals((int) Math.ceil(length / max_spacing) + 1, table.length);
+        // The samples are spread out evenly so that the last one is at the end of the path.
+        final double spacing = length / (table.length - 1);
+        assertTrue(spacing <= max_spacing);
+
+        // Starts and ends stopped, and slows down all the way to the end of the path.
+        assertEquals(0.0, table[0], kTestEpsilon);
+        assertEquals(0.0, table[table.length - 1], kTestEpsilon);
+        assertEquals(0.0, path.getVelocityByDistance(length + 10.0), kTestEpsilon);
+        assertTrue(path.getVelocityByDistance(length - spacing / 2.0) > 0.0);
+
+        final double max_arc_speed = Math.min(Math.sqrt(Constants.kPathFollowingMaxCentripetalAccel * 20.0),
+                Constants.kPathFollowingMaxVel);
+        for (int i = 0; i < table.length; ++i) {
+            // Never exceeds the acceleration limit in either direction.
+            if (i > 0) {
+                assertTrue(Math.abs(table[i] * table[i] - table[i - 1] * table[i - 1]) <= 2.0
+                        * Constants.kPathFollowingMaxAccel * spacing + kTestEpsilon);
+            }
+            final double distance = i * spacing;
+            if (distance >= 100.0 && distance <= 100.0 + Math.PI * 10.0) {
+                // On the arc.
+                assertTrue(table[i] <= max_arc_speed + kTestEpsilon);
+            } else if (distance > 100.0 + Math.PI * 10.0) {
+                // On the last line.
+                assertTrue(table[i] <= 60.0 + kTestEpsilon);
+            }
+        }
+
+        // Lookups interpolate between entries.
+        assertEquals((table[10] + table[11]) / 2.0, path.getVelocityByDistance(10.5 * spacing), kTestEpsilon);
+
+        // Lookups keep using the spacing the table was built with if the constant is reloaded.
+        Constants.kPathVelocityTableSpacing = max_spacing * 2.0;
+        try {
+            assertEquals((table[10] + table[11]) / 2.0, path.getVelocityByDistance(10.5 * spacing), kTestEpsilon);
+        } finally {
+            Constants.kPathVelocityTableSpacing = max_spacing;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.team254.lib.util.drivers;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class CANBusBudgetTest {
+    private static final double kEpsilon = 1E-9;
+
+    private static CANBusBudget.Device makeDevice(String name, int... periods_ms) {
+        return new CANBusBudget.Device() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public int[] getFramePeriodsMs() {
+                return periods_ms;
+            }
+        };
+    }
+
+    @Test
+    public void testFramesPerSecond() {
+        // Control frame at 10 ms, General at 5 ms, Feedback at 100 ms, one frame disabled.
+        CANBusBudget.Device device = makeDevice("a", 10, 5, 100, 0);
+        assertEquals(100.0 + 200.0 + 10.0, CANBusBudget.getFramesPerSecond(device), kEpsilon);
+        assertEquals(310.0 * CANBusBudget.kBitsPerFrame / 1E6, CANBusBudget.getUtilization(310.0), kEpsilon);
+    }
+
+    @Test
+    public void testTotal() {
+        CANBusBudget budget = new CANBusBudget();
+        assertEquals(0.0, budget.getExpectedFramesPerSecond(), kEpsilon);
+        budget.register(makeDevice("slow", 100, 100));
+        budget.register(makeDevice("fast", 5, 2));
+        assertEquals(20.0 + 700.0, budget.getExpectedFramesPerSecond(), kEpsilon);
+        assertEquals(CANBusBudget.getUtilization(720.0), budget.getExpectedUtilization(), kEpsilon);
+
+        // Heaviest device first, then the total.
+        String[] lines = budget.getReport().split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("fast"));
+        assertTrue(lines[1].startsWith("slow"));
+        assertTrue(lines[2].startsWith("Total"));
+    }
+}
@@ -0,0 +1,87 @@
+package com.team254.lib.util.drivers;
+
+import static org.junit.Assert.*;
+import static org.powermock.api.support.membermodification.MemberMatcher.constructorsDeclaredIn;
+import static org.powermock.api.support.membermodification.MemberMatcher.methodsDeclaredIn;
+import static org.powermock.api.support.membermodification.MemberModifier.suppress;
+
+import com.ctre.CANTalon;
+import com.ctre.CANTalon.StatusFrameRate;
+import com.ctre.CANTalon.TalonControlMode;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest(CANTalon.class)
+public class LazyCANTalonTest {
+    private LazyCANTalon mTalon;
+
+    @Before
+    public void setUp() {
+        // Nothing reaches the hardware; LazyCANTalon's counts say what would have.
+        suppress(constructorsDeclaredIn(CANTalon.class));
+        suppress(methodsDeclaredIn(CANTalon.class));
+        mTalon = new LazyCANTalon(1);
+    }
+
+    @Test
+    public void testSkipsRedundantWrites() {
+        mTalon.setProfile(0);
+        mTalon.setP(1.0);
+        mTalon.setP(1.0);
+        mTalon.enableBrakeMode(true);
+        mTalon.enableBrakeMode(true);
+        mTalon.setStatusFrameRateMs(StatusFrameRate.Feedback, 20);
+        mTalon.setStatusFrameRateMs(StatusFrameRate.Feedback, 20);
+        mTalon.set(0.5);
+        mTalon.set(0.5);
+        assertEquals(5, mTalon.getNumWritesSent());
+        assertEquals(4, mTalon.getNumWritesSuppressed());
+
+        // Gains are shadowed per profile slot.
+        mTalon.setProfile(1);
+        mTalon.setP(1.0);
+        mTalon.setProfile(0);
+        mTalon.setP(1.0);
+        assertEquals(8, mTalon.getNumWritesSent());
+        assertEquals(5, mTalon.getNumWritesSuppressed());
+
+        // A new setpoint goes through.
+        mTalon.set(0.25);
+        assertEquals(9, mTalon.getNumWritesSent());
+    }
+
+    @Test
+    public void testWritesAfterInvalidate() {
+        mTalon.setProfile(0);
+        mTalon.setPID(1.0, 0.0, 0.0, 0.0, 0, 0.0, 0);
+        mTalon.setVoltageRampRate(12.0);
+        mTalon.set(0.5);
+        final long sent = mTalon.getNumWritesSent();
+        mTalon.setPID(1.0, 0.0, 0.0, 0.0, 0, 0.0, 0);
+        mTalon.setVoltageRampRate(12.0);
+        mTalon.set(0.5);
+        assertEquals(sent, mTalon.getNumWritesSent());
+
+        mTalon.invalidateShadowRegisters();
+        mTalon.setPID(1.0, 0.0, 0.0, 0.0, 0, 0.0, 0);
+        mTalon.setVoltageRampRate(12.0);
+        mTalon.set(0.5);
+        // The profile, the six gains, the ramp rate and the setpoint.
+        assertEquals(sent + 9, mTalon.getNumWritesSent());
+    }
+
+    @Test
+    public void testNoResetWithoutFault() {
+        mTalon.changeControlMode(TalonControlMode.Voltage);
+        mTalon.set(1.0);
+        // The suppressed Talon reports no faults.
+        assertFalse(mTalon.checkForReset());
+        mTalon.set(1.0);
+        assertEquals(1, mTalon.getNumWritesSuppressed());
+    }
+}
@@ -0,0 +1,45 @@
+package com.team254.lib.util.drivers;
+
+import static org.junit.Assert.*;
+import static org.powermock.api.support.membermodification.MemberMatcher.constructorsDeclaredIn;
+import static org.powermock.api.support.membermodification.MemberMatcher.methodsDeclaredIn;
+import static org.powermock.api.support.membermodification.MemberModifier.suppress;
+
+import edu.wpi.first.wpilibj.Solenoid;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest(Solenoid.class)
+public class LazySolenoidTest {
+    @Test
+    public void testSkipsRedundantWrites() {
+        suppress(constructorsDeclaredIn(Solenoid.class));
+        suppress(methodsDeclaredIn(Solenoid.class));
+        LazySolenoid solenoid = SolenoidFactory.createSolenoid(0, 1);
+        final long sent = SolenoidFactory.getNumWritesSent();
+        final long suppressed = SolenoidFactory.getNumWritesSuppressed();
+
+        solenoid.set(true);
+        solenoid.set(true);
+        solenoid.set(true);
+        assertEquals(1, solenoid.getNumWritesSent());
+        assertEquals(2, solenoid.getNumWritesSuppressed());
+
+        solenoid.set(false);
+        assertEquals(2, solenoid.getNumWritesSent());
+
+        // After invalidating, the same output is sent again.
+        solenoid.invalidate();
+        solenoid.set(false);
+        assertEquals(3, solenoid.getNumWritesSent());
+        assertEquals(2, solenoid.getNumWritesSuppressed());
+
+        // The factory totals every solenoid it made.
+        assertEquals(sent + 3, SolenoidFactory.getNumWritesSent());
+        assertEquals(suppressed + 2, SolenoidFactory.getNumWritesSuppressed());
+    }
+}
@@ -0,0 +1,102 @@
+package com.team254.lib.util.drivers;
+
+import static org.junit.Assert.*;
+
+import com.ctre.CANTalon.StatusFrameRate;
+
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.EnumMap;
+import java.util.Map;
+
+public class StatusFrameSchedulerTest {
+    private static final double kEpsilon = 1E-9;
+    private static final double kDropDelay = 0.5;
+
+    private enum State {
+        IDLE, TRACKING, CLIMBING
+    }
+
+    /**
+     * A Talon that only remembers the status frame periods it was given.
+     */
+    private static class FakeTalon {
+        final Map<StatusFrameRate, Integer> periods = new EnumMap<>(StatusFrameRate.class);
+        final MotorControllerIO io = (MotorControllerIO) Proxy.newProxyInstance(
+                MotorControllerIO.class.getClassLoader(), new Class<?>[] { MotorControllerIO.class },
+                (proxy, method, args) -> {
+                    if (method.getName().equals("setStatusFrameRateMs")) {
+                        periods.put((StatusFrameRate) args[0], (Integer) args[1]);
+                    }
+                    return null;
+                });
+
+        int getStatusFramePeriodMs(StatusFrameRate frame) {
+            return periods.get(frame);
+        }
+    }
+
+    private static StatusFrameScheduler<State> makeScheduler(FakeTalon talon) {
+        StatusFrameScheduler<State> scheduler = new StatusFrameScheduler<>(State.class, kDropDelay);
+        scheduler.addTalon(talon.io)
+                .setDefaultPeriodMs(StatusFrameRate.Feedback, 20)
+                .setDefaultPeriodMs(StatusFrameRate.General, 10)
+                .setPeriodMs(State.TRACKING, StatusFrameRate.Feedback, 5)
+                .setPeriodMs(State.TRACKING, StatusFrameRate.General, 2)
+                .setPeriodMs(State.CLIMBING, StatusFrameRate.General, 5);
+        return scheduler;
+    }
+
+    @Test
+    public void testTable() {
+        FakeTalon talon = new FakeTalon();
+        StatusFrameScheduler<State> scheduler = makeScheduler(talon).addTalon(talon.io);
+        assertEquals(20, scheduler.getPeriodMs(State.IDLE, StatusFrameRate.Feedback));
+        assertEquals(5, scheduler.getPeriodMs(State.TRACKING, StatusFrameRate.Feedback));
+        assertEquals(20, scheduler.getPeriodMs(State.CLIMBING, StatusFrameRate.Feedback));
+        assertEquals(20, scheduler.getPeriodMs(null, StatusFrameRate.Feedback));
+        assertEquals(2 * (50.0 + 100.0), scheduler.getFramesPerSecond(null), kEpsilon);
+        assertEquals(2 * (200.0 + 500.0), scheduler.getFramesPerSecond(State.TRACKING), kEpsilon);
+        assertEquals(2 * (50.0 + 200.0), scheduler.getFramesPerSecond(State.CLIMBING), kEpsilon);
+        assertEquals(5, scheduler.getBandwidthTable().split("\n").length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnscheduledFrame() {
+        makeScheduler(new FakeTalon()).setPeriodMs(State.TRACKING,
+                StatusFrameRate.PulseWidth, 5);
+    }
+
+    @Test
+    public void testHysteresis() {
+        FakeTalon talon = new FakeTalon();
+        StatusFrameScheduler<State> scheduler = makeScheduler(talon);
+        scheduler.setIdle();
+        assertEquals(20, talon.getStatusFramePeriodMs(StatusFrameRate.Feedback));
+        assertEquals(10, talon.getStatusFramePeriodMs(StatusFrameRate.General));
+
+        // Speeding up happens right away.
+        scheduler.update(State.TRACKING, 1.0);
+        assertEquals(5, talon.getStatusFramePeriodMs(StatusFrameRate.Feedback));
+        assertEquals(2, talon.getStatusFramePeriodMs(StatusFrameRate.General));
+
+        // Slowing down waits for the drop delay after the last time a state wanted the fast period.
+        scheduler.update(State.IDLE, 1.1);
+        scheduler.update(State.TRACKING, 1.2);
+        scheduler.update(State.CLIMBING, 1.3);
+        scheduler.update(State.CLIMBING, 1.2 + kDropDelay - 0.01);
+        assertEquals(5, talon.getStatusFramePeriodMs(StatusFrameRate.Feedback));
+        assertEquals(2, talon.getStatusFramePeriodMs(StatusFrameRate.General));
+        scheduler.update(State.CLIMBING, 1.2 + kDropDelay);
+        assertEquals(20, talon.getStatusFramePeriodMs(StatusFrameRate.Feedback));
+        assertEquals(5, talon.getStatusFramePeriodMs(StatusFrameRate.General));
+
+        // Going idle skips the delay.
+        scheduler.update(State.TRACKING, 2.0);
+        scheduler.setIdle();
+        assertEquals(20, talon.getStatusFramePeriodMs(StatusFrameRate.Feedback));
+        assertEquals(10, talon.getStatusFramePeriodMs(StatusFrameRate.General));
+        assertEquals(10, scheduler.getAppliedPeriodMs(StatusFrameRate.General));
+    }
+}
@@ -10,6 +10,8 @@ import com.team254.lib.util.math.Rotation2d;
 import com.team254.lib.util.math.Translation2d;
 import com.team254.lib.util.math.Twist2d;
 
+import java.util.Random;
+
 public class TestMath {
     public static final double kTestEpsilon = 1E-9;
 
@@ -297,4 +299,82 @@ public class TestMath {
         regression = Constants.kFlywheelAutoAimPolynomial;
         System.out.println(regression);
     }
+
+    @Test
+    public void testRecursiveLeastSquares() {
+        // y = 3 - 2 x1 + 0.5 x2, with a forgetting factor of 1 this is the same as a batch least squares fit.
+        RecursiveLeastSquares rls = new RecursiveLeastSquares(3, 1.0, 1E6);
+        Random random = new Random(254);
+        for (int i = 0; i < 200; ++i) {
+            double[] x = { 1.0, random.nextGaussian(), random.nextGaussian() };
+            rls.update(x, 3.0 - 2.0 * x[1] + 0.5 * x[2]);
+        }
+        assertEquals(200, rls.getNumUpdates());
+        assertEquals(3.0, rls.getParameter(0), 1E-4);
+        assertEquals(-2.0, rls.getParameter(1), 1E-4);
+        assertEquals(0.5, rls.getParameter(2), 1E-4);
+        assertEquals(3.0 - 2.0 + 0.5, rls.predict(new double[] { 1.0, 1.0, 1.0 }), 1E-4);
+
+        // With forgetting, the fit follows a change in the system.
+        rls = new RecursiveLeastSquares(2, 0.95, 1E3);
+        for (int i = 0; i < 200; ++i) {
+            final double slope = i < 100 ? 1.0 : 4.0;
+            double[] x = { 1.0, random.nextGaussian() };
+            rls.update(x, slope * x[1]);
+        }
+        assertEquals(4.0, rls.getParameter(1), 0.05);
+
+        // Without excitation the covariance does not wind up.
+        final double slope = rls.getParameter(1);
+        for (int i = 0; i < 10000; ++i) {
+            rls.update(new double[] { 1.0, 0.0 }, 0.0);
+        }
+        assertTrue(rls.getCovarianceTrace() <= 2 * 1E3);
+        assertEquals(slope, rls.getParameter(1), 1E-3);
+    }
+
+    @Test
+    public void testStreamingPolynomialRegression() {
+        StreamingPolynomialRegression streaming = new StreamingPolynomialRegression(2, 110.0, 20.0);
+        assertFalse(streaming.fit());
+        streaming.addSample(90.0, 2890.0);
+        streaming.addSample(90.0, 2890.0);
+        // Still only one distinct x, the last (zero) fit is kept.
+        assertFalse(streaming.fit());
+        assertEquals(0.0, streaming.predict(100.0), kTestEpsilon);
+
+        // Matches the batch fit of the same points.
+        streaming = new StreamingPolynomialRegression(2, 110.0, 20.0);
+        for (double[] pair : Constants.kFlywheelDistanceRpmValues) {
+            streaming.addSample(pair[0], pair[1]);
+        }
+        assertTrue(streaming.fit());
+        PolynomialRegression batch = new PolynomialRegression(Constants.kFlywheelDistanceRpmValues, 2);
+        for (double x = 90.0; x <= 130.0; x += 5.0) {
+            assertEquals(batch.predict(x), streaming.predict(x), 1E-2);
+        }
+        assertEquals(batch.R2(), streaming.R2(), 1E-6);
+        assertEquals(batch.beta(1), streaming.getCoefficients()[1], 1E-4);
+
+        // Weights count like repeated samples, and the fit moves toward new samples.
+        StreamingPolynomialRegression weighted = new StreamingPolynomialRegression(1, 0.0, 1.0);
+        StreamingPolynomialRegression repeated = new StreamingPolynomialRegression(1, 0.0, 1.0);
+        weighted.addSample(0.0, 0.0);
+        weighted.addSample(1.0, 1.0, 3.0);
+        repeated.addSample(0.0, 0.0);
+        for (int i = 0; i < 3; ++i) {
+            repeated.addSample(1.0, 1.0);
+        }
+        weighted.addSample(2.0, 1.0);
+        repeated.addSample(2.0, 1.0);
+        assertTrue(weighted.fit());
+        assertTrue(repeated.fit());
+        assertEquals(repeated.predict(0.5), weighted.predict(0.5), kTestEpsilon);
+        assertEquals(3, weighted.getNumSamples());
+
+        final double before = streaming.predict(100.0);
+        streaming.addSample(100.0, before + 100.0, 5.0);
+        assertTrue(streaming.fit());
+        assertTrue(streaming.predict(100.0) > before + 50.0);
+    }
 }
@@ -129,4 +129,31 @@ public class ProfileFollowerTest {
         MotionState final_state = followProfile(follower, new ScaledDynamics(start_state, 1.2), dt, 2000);
         assertTrue(goal.atGoalPos(final_state.pos()));
     }
+
+    @Test
+    public void testReplanTolerance() {
+        MotionProfileConstraints constraints = new MotionProfileConstraints(10.0, 10.0);
+        MotionState start_state = new MotionState(0.0, 0.0, 0.0, 0.0);
+        final double dt = 0.01;
+
+        ProfileFollower follower = new ProfileFollower(0.0, 0.0, 0.0, 1.0, 0.0);
+        follower.setReplanTolerances(0.5, 0.5);
+        follower.setGoalAndConstraints(new MotionProfileGoal(100.0), constraints);
+        Dynamics dynamics = new IdealDynamics(start_state);
+        followProfile(follower, dynamics, dt, 100);
+        assertEquals(1, follower.getNumReplans());
+
+        // Small goal changes keep the current profile.
+        follower.setGoalAndConstraints(new MotionProfileGoal(100.4), constraints);
+        followProfile(follower, dynamics, dt, 100);
+        assertEquals(1, follower.getNumReplans());
+        assertEquals(100.0, follower.getGoal().pos(), 0.0);
+
+        // Large goal changes replan.
+        MotionProfileGoal goal = new MotionProfileGoal(101.0);
+        follower.setGoalAndConstraints(goal, constraints);
+        MotionState final_state = followProfile(follower, dynamics, dt, 1500);
+        assertTrue(follower.getNumReplans() > 1);
+        assertTrue(goal.atGoalState(final_state));
+    }
 }
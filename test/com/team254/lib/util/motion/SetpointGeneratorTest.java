@@ -87,4 +87,28 @@ public class SetpointGeneratorTest {
         final_setpoint = followProfile(spg, constraints, goal, final_setpoint, dt, 1500);
         assertTrue(goal.atGoalState(final_setpoint));
     }
+
+    @Test
+    public void testTightenSatisfiedConstraints() {
+        // A short move that peaks well below the velocity limit.
+        MotionProfileConstraints constraints = new MotionProfileConstraints(100.0, 10.0);
+        MotionProfileGoal goal = new MotionProfileGoal(10.0);
+        MotionState start_state = new MotionState(0.0, 0.0, 0.0, 0.0);
+        final double dt = 0.01;
+
+        SetpointGenerator spg = new SetpointGenerator();
+        MotionState final_setpoint = followProfile(spg, constraints, goal, start_state, dt, 50);
+        assertEquals(1, spg.getNumRegenerations());
+
+        // The profile never exceeds these constraints, so it should be kept.
+        constraints = new MotionProfileConstraints(20.0, 10.0);
+        final_setpoint = followProfile(spg, constraints, goal, final_setpoint, dt, 20);
+        assertEquals(1, spg.getNumRegenerations());
+
+        // Tightening below the current velocity must regenerate.
+        constraints = new MotionProfileConstraints(5.0, 10.0);
+        final_setpoint = followProfile(spg, constraints, goal, final_setpoint, dt, 1500);
+        assertEquals(2, spg.getNumRegenerations());
+        assertTrue(goal.atGoalState(final_setpoint));
+    }
 }